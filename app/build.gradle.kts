@@ -34,6 +34,11 @@ android {
         viewBinding = true
         dataBinding = true
     }
+    // the benchmarks in src/benchmark are main() programs, not tests, so they are only compiled with the
+    // unit tests when asked for, e.g. ./gradlew compileDebugUnitTestJavaWithJavac -Pbenchmarks
+    if (project.hasProperty("benchmarks")) {
+        sourceSets.getByName("test").java.srcDir("src/benchmark/java")
+    }
 }
 
 dependencies {
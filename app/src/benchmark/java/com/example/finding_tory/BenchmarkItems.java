@@ -0,0 +1,38 @@
+package com.example.finding_tory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Random;
+
+/**
+ * Generates the items the benchmarks run on. The same seed gives the same items, so runs can be compared.
+ */
+final class BenchmarkItems {
+    private static final String[] WORDS = {"Desk", "lamp", "Chair", "laptop", "Monitor", "cable", "Drill", "saw", "Hammer", "printer"};
+    private static final String[] TAGS = {"Home", "Office", "Garage", "Kitchen", "Electronics", "Tools"};
+
+    private BenchmarkItems() {
+    }
+
+    /**
+     * Creates items with mixed-case descriptions, 500 makes, 50 models and up to three tags each. The
+     * items have no IDs, as before they are added to a store.
+     *
+     * @param count The number of items.
+     * @return the items
+     */
+    static ArrayList<Item> create(int count) {
+        Random random = new Random(42);
+        ArrayList<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ArrayList<String> tags = new ArrayList<>();
+            for (int t = random.nextInt(4); t > 0; t--) {
+                tags.add(TAGS[random.nextInt(TAGS.length)]);
+            }
+            items.add(new Item(new Date(random.nextInt(1 << 30) * 1000L), WORDS[random.nextInt(WORDS.length)] + " " + i,
+                    "Make" + random.nextInt(500), "Model" + random.nextInt(50), random.nextInt(100_000) / 100f, "SN" + i, "",
+                    tags, new ArrayList<>()));
+        }
+        return items;
+    }
+}
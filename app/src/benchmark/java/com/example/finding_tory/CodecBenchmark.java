@@ -0,0 +1,70 @@
+package com.example.finding_tory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Compares {@link ItemCodec} with Java serialization on lists of items of several sizes: the time to encode
+ * and decode them, and the number of bytes they take. Each time is the best of several rounds.
+ * <p>
+ * This is not a unit test; run its main method from the IDE, or with a plain JVM, after
+ * compiling the benchmarks with the unit tests by passing {@code -Pbenchmarks} to Gradle.
+ * Sizes can be passed as arguments, e.g. {@code 1000 10000}.
+ */
+public class CodecBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int[] sizes = {1_000, 10_000, 100_000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        System.out.printf(Locale.CANADA, "best of %d rounds%n", ROUNDS);
+        System.out.printf(Locale.CANADA, "%8s %13s %12s %12s %12s%n", "items", "format", "encode (ms)", "decode (ms)", "bytes");
+        for (int size : sizes) {
+            ArrayList<Item> items = BenchmarkItems.create(size);
+            for (int i = 0; i < items.size(); i++) {
+                items.get(i).setId("item" + i);
+            }
+
+            double encodeMillis = Double.MAX_VALUE;
+            double decodeMillis = Double.MAX_VALUE;
+            int bytes = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                byte[] encoded = ItemCodec.encodeItems(items);
+                encodeMillis = Math.min(encodeMillis, (System.nanoTime() - start) / 1e6);
+                start = System.nanoTime();
+                ItemCodec.decodeItems(encoded);
+                decodeMillis = Math.min(decodeMillis, (System.nanoTime() - start) / 1e6);
+                bytes = encoded.length;
+            }
+            System.out.printf(Locale.CANADA, "%8d %13s %12.1f %12.1f %12d%n", size, "ItemCodec", encodeMillis, decodeMillis, bytes);
+
+            encodeMillis = Double.MAX_VALUE;
+            decodeMillis = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ObjectOutputStream objects = new ObjectOutputStream(out);
+                objects.writeObject(items);
+                objects.close();
+                byte[] encoded = out.toByteArray();
+                encodeMillis = Math.min(encodeMillis, (System.nanoTime() - start) / 1e6);
+                start = System.nanoTime();
+                new ObjectInputStream(new ByteArrayInputStream(encoded)).readObject();
+                decodeMillis = Math.min(decodeMillis, (System.nanoTime() - start) / 1e6);
+                bytes = encoded.length;
+            }
+            System.out.printf(Locale.CANADA, "%8d %13s %12.1f %12.1f %12d%n", size, "Serializable", encodeMillis, decodeMillis, bytes);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.finding_tory;
+
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how much faster filtering and sorting get in Inventory's parallel mode, for several inventory
+ * sizes and pool sizes. Each row shows the best of several rounds, and the speedup over the sequential
+ * (pool size 1) row of the same inventory size. Inventories below {@link Inventory#PARALLEL_THRESHOLD}
+ * always run sequentially, so their rows should show no speedup.
+ * <p>
+ * This is not a unit test; run its main method from the IDE, or with a plain JVM, after
+ * compiling the benchmarks with the unit tests by passing {@code -Pbenchmarks} to Gradle.
+ * The 1M item inventory needs a heap of about 3 GB. Sizes can be passed as arguments, e.g. {@code 10000 100000}.
+ */
+public class ParallelBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int[] sizes = {10_000, 100_000, 1_000_000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf(Locale.CANADA, "%d cores available, best of %d rounds%n", cores, ROUNDS);
+        System.out.printf(Locale.CANADA, "%10s %6s %12s %9s %12s %9s%n", "items", "pool", "filter (ms)", "speedup", "sort (ms)", "speedup");
+        for (int size : sizes) {
+            ArrayList<Item> items = BenchmarkItems.create(size);
+            Inventory inventory = new Inventory("Benchmark");
+            inventory.setItems(items);
+            // a one-letter make filter cannot use the trigram index, so every item has to be checked
+            inventory.getFilter().setMake("e");
+            ItemSlots slots = new ItemSlots();
+            for (Item item : items) {
+                slots.add(item);
+            }
+
+            double sequentialFilter = 0;
+            double sequentialSort = 0;
+            for (int parallelism = 1; parallelism <= cores; parallelism = nextParallelism(parallelism, cores)) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                inventory.setParallelPool(parallelism == 1 ? null : pool);
+                ForkJoinPool sortPool = parallelism == 1 || size < Inventory.PARALLEL_THRESHOLD ? null : pool;
+                double filterMillis = Double.MAX_VALUE;
+                double sortMillis = Double.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    inventory.filterItems();
+                    filterMillis = Math.min(filterMillis, (System.nanoTime() - start) / 1e6);
+
+                    SortIndex order = new SortIndex("Description", slots);
+                    start = System.nanoTime();
+                    order.rebuild(sortPool);
+                    sortMillis = Math.min(sortMillis, (System.nanoTime() - start) / 1e6);
+                }
+                pool.shutdown();
+                if (parallelism == 1) {
+                    sequentialFilter = filterMillis;
+                    sequentialSort = sortMillis;
+                }
+                System.out.printf(Locale.CANADA, "%10d %6d %12.1f %8.2fx %12.1f %8.2fx%n", size, parallelism,
+                        filterMillis, sequentialFilter / filterMillis, sortMillis, sequentialSort / sortMillis);
+            }
+        }
+    }
+
+    /**
+     * Doubles the pool size, making sure the number of available cores is always measured.
+     */
+    private static int nextParallelism(int parallelism, int cores) {
+        if (parallelism == cores) {
+            return cores + 1;
+        }
+        return Math.min(parallelism * 2, cores);
+    }
+}
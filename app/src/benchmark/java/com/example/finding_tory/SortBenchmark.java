@@ -0,0 +1,98 @@
+package com.example.finding_tory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Measures how much memory one sort of a large inventory allocates, comparing the comparators that lowercase
+ * descriptions/makes and rebuild tag strings on every comparison with the ones built by Sort, which use the
+ * sort keys cached on each Item.
+ * <p>
+ * This is not a unit test; run its main method from the IDE, or with a plain JVM, after
+ * compiling the benchmarks with the unit tests by passing {@code -Pbenchmarks} to Gradle.
+ * Allocation is read from the JVM's per-thread counters, which are only available on HotSpot-based JVMs.
+ */
+public class SortBenchmark {
+    private static final int ITEM_COUNT = 50_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        ArrayList<Item> items = BenchmarkItems.create(ITEM_COUNT);
+        String[] types = {"Description", "Make", "Tags", "Date", "Value"};
+
+        System.out.printf(Locale.CANADA, "Sorting %d items, %d rounds, best round shown%n", ITEM_COUNT, ROUNDS);
+        System.out.printf(Locale.CANADA, "%-12s %16s %16s %12s %12s%n", "type", "before (bytes)", "after (bytes)", "before (ms)", "after (ms)");
+        for (String type : types) {
+            Comparator<Item> before = legacyComparator(type);
+            Comparator<Item> after = new Sort(type, "Ascending").getComparator();
+            // build the cached keys once, as an inventory that has been sorted before would have them
+            new ArrayList<>(items).sort(after);
+
+            long[] beforeResult = measure(items, before);
+            long[] afterResult = measure(items, after);
+            System.out.printf(Locale.CANADA, "%-12s %16d %16d %12.1f %12.1f%n", type,
+                    beforeResult[0], afterResult[0], beforeResult[1] / 1e6, afterResult[1] / 1e6);
+        }
+    }
+
+    /**
+     * Sorts shuffled copies of the items several times and keeps the lowest allocation and time seen.
+     */
+    private static long[] measure(ArrayList<Item> items, Comparator<Item> comparator) throws Exception {
+        long bestBytes = Long.MAX_VALUE;
+        long bestNanos = Long.MAX_VALUE;
+        Random random = new Random(7);
+        for (int round = 0; round < ROUNDS; round++) {
+            Item[] copy = items.toArray(new Item[0]);
+            for (int i = copy.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                Item tmp = copy[i];
+                copy[i] = copy[j];
+                copy[j] = tmp;
+            }
+            ArrayList<Item> list = new ArrayList<>(Arrays.asList(copy));
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            list.sort(comparator);
+            long nanos = System.nanoTime() - start;
+            bytes = allocatedBytes() - bytes;
+            bestBytes = Math.min(bestBytes, bytes);
+            bestNanos = Math.min(bestNanos, nanos);
+        }
+        return new long[]{bestBytes, bestNanos};
+    }
+
+    /**
+     * The comparators Inventory.sortItems used before sort keys were cached on items.
+     */
+    private static Comparator<Item> legacyComparator(String type) {
+        switch (type) {
+            case "Description":
+                return Comparator.comparing(item -> item.getDescription().toLowerCase());
+            case "Make":
+                return Comparator.comparing(item -> item.getMake().toLowerCase());
+            case "Tags":
+                return Comparator.comparing(Item::getTagsString);
+            case "Date":
+                return Comparator.comparing(Item::getPurchaseDate);
+            default:
+                return Comparator.comparing(Item::getEstimatedValue);
+        }
+    }
+
+    /**
+     * Reads the bytes allocated so far by the current thread. Looked up reflectively because the management
+     * API is not part of the Android platform the test sources are compiled against.
+     */
+    private static long allocatedBytes() throws Exception {
+        Object threadBean = Class.forName("java.lang.management.ManagementFactory")
+                .getMethod("getThreadMXBean").invoke(null);
+        Method method = Class.forName("com.sun.management.ThreadMXBean")
+                .getMethod("getThreadAllocatedBytes", long.class);
+        return (Long) method.invoke(threadBean, Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.finding_tory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs the add, edit, filter and delete flow of the inventory screen against a {@link MemoryStore}, the way
+ * the activities do it through {@link Stores}, and reports the time taken and the documents read and
+ * written by each step. Repeated edits are also run through a {@link CoalescingStore}, to show how many
+ * writes it saves. Results are applied to the inventory on the store's delivery thread, like the
+ * main thread in the app.
+ * <p>
+ * This is not a unit test; run its main method from the IDE, or with a plain JVM, after
+ * compiling the benchmarks with the unit tests by passing {@code -Pbenchmarks} to Gradle.
+ * The number of items and the simulated latency in milliseconds can be passed as arguments, e.g.
+ * {@code 10000 5}.
+ */
+public class StoreBenchmark {
+    private static final String USER = "benchmark";
+
+    public static void main(String[] args) throws InterruptedException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long latency = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        MemoryStore store = new MemoryStore(latency);
+        Stores.use(store);
+        ItemStore items = Stores.getItemStore();
+        InventoryStore inventories = Stores.getInventoryStore();
+
+        Inventory inventory = new Inventory("Benchmark");
+        inventories.addInventory(USER, inventory, StoreCallback.ignoreResult());
+        store.awaitIdle();
+        ArrayList<Item> created = BenchmarkItems.create(size);
+
+        System.out.printf(Locale.CANADA, "%d items, %d ms latency%n", size, latency);
+        System.out.printf(Locale.CANADA, "%-8s %10s %10s %10s%n", "step", "time (ms)", "reads", "writes");
+
+        // add each item, as UpsertViewActivity and InventoryViewActivity do
+        Step step = new Step(store);
+        for (Item item : created) {
+            items.addItem(USER, inventory, item, new StoreCallback<Item>() {
+                @Override
+                public void onSuccess(Item added) {
+                    inventory.addItem(added);
+                    SummaryDelta delta = new SummaryDelta();
+                    delta.add(added);
+                    inventories.updateSummary(USER, inventory, delta, StoreCallback.ignoreResult());
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        step.end("add");
+
+        // edit every tenth item
+        step = new Step(store);
+        for (int i = 0; i < size; i += 10) {
+            Item previous = created.get(i);
+            Item edited = ItemCodec.decodeItem(ItemCodec.encodeItem(previous));
+            edited.setEstimatedValue(previous.getEstimatedValue() + 1);
+            SummaryDelta delta = new SummaryDelta();
+            delta.remove(previous);
+            delta.add(edited);
+            inventory.replaceItem(edited);
+            items.saveItem(USER, inventory, edited, StoreCallback.ignoreResult());
+            inventories.updateSummary(USER, inventory, delta, StoreCallback.ignoreResult());
+        }
+        step.end("edit");
+
+        // edit every tenth item five more times within one window, through a write-behind queue
+        CoalescingStore coalescing = new CoalescingStore(store, store, 60_000);
+        step = new Step(store);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < size; i += 10) {
+                Item previous = inventory.getItemById(created.get(i).getId());
+                Item edited = ItemCodec.decodeItem(ItemCodec.encodeItem(previous));
+                edited.setEstimatedValue(previous.getEstimatedValue() + 1);
+                SummaryDelta delta = new SummaryDelta();
+                delta.remove(previous);
+                delta.add(edited);
+                inventory.replaceItem(edited);
+                coalescing.saveItem(USER, inventory, edited, StoreCallback.ignoreResult());
+                coalescing.updateSummary(USER, inventory, delta, StoreCallback.ignoreResult());
+            }
+        }
+        coalescing.await(60_000);
+        step.end("edit x5");
+
+        // filter by description
+        step = new Step(store);
+        inventory.getFilter().setDescription("1");
+        inventory.filterItems();
+        int shown = inventory.getDisplayedCount();
+        inventory.getFilter().setDescription("");
+        inventory.filterItems();
+        step.end("filter");
+
+        // delete the first half in one bulk delete
+        step = new Step(store);
+        List<Item> selected = new ArrayList<>(inventory.getItems().subList(0, size / 2));
+        SummaryDelta delta = new SummaryDelta();
+        delta.removeAll(selected);
+        inventory.removeAll(selected);
+        items.deleteItems(USER, inventory, selected, delta, StoreCallback.ignoreResult());
+        step.end("delete");
+
+        // reload what is left, a page at a time, as a fresh screen would
+        step = new Step(store);
+        int loaded = loadAll(items, inventory);
+        step.end("reload");
+
+        System.out.printf(Locale.CANADA, "filter showed %d items; %d items left, %d reloaded%n", shown, inventory.getCount(), loaded);
+    }
+
+    private static int loadAll(ItemStore items, Inventory inventory) throws InterruptedException {
+        int loaded = 0;
+        String afterId = null;
+        while (true) {
+            ArrayList<Item> page = new ArrayList<>();
+            CountDownLatch latch = new CountDownLatch(1);
+            items.loadItemsPage(USER, inventory, afterId, 500, new StoreCallback<List<Item>>() {
+                @Override
+                public void onSuccess(List<Item> result) {
+                    page.addAll(result);
+                    latch.countDown();
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    e.printStackTrace();
+                    latch.countDown();
+                }
+            });
+            latch.await();
+            loaded += page.size();
+            if (page.size() < 500) {
+                return loaded;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Measures one step of the flow, from when it starts until the store has delivered every result.
+     */
+    private static class Step {
+        private final MemoryStore store;
+        private final long start;
+        private final long reads;
+        private final long writes;
+
+        private Step(MemoryStore store) {
+            this.store = store;
+            this.start = System.nanoTime();
+            this.reads = store.getReadCount();
+            this.writes = store.getWriteCount();
+        }
+
+        private void end(String name) throws InterruptedException {
+            store.awaitIdle();
+            System.out.printf(Locale.CANADA, "%-8s %10.1f %10d %10d%n", name, (System.nanoTime() - start) / 1e6,
+                    store.getReadCount() - reads, store.getWriteCount() - writes);
+        }
+    }
+}
@@ -64,10 +64,11 @@ public class BulkTagFragment extends DialogFragment {
 
         Inventory inventory = null;
         if (getArguments() != null) {
-            inventory = (Inventory) getArguments().getSerializable("inventory");
+            inventory = InventoryRepository.getInstance().get(getArguments().getString("inventory_id"));
         }
         assert inventory != null;
-        allTags = inventory.getAllTags();
+        // copy the tags, since the inventory is shared and new tags are only added to it once confirmed
+        allTags = new ArrayList<>(inventory.getAllTags());
         selectedTags = (ArrayList<String>) getArguments().getSerializable("tags");
         // Initialize RecyclerView and Adapter
         tagsRecyclerView = (RecyclerView) view.findViewById(R.id.tagsRecyclerView);
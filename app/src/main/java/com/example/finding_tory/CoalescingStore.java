@@ -0,0 +1,425 @@
+package com.example.finding_tory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A write-behind queue in front of another store. Item edits and summary changes are held back for a short
+ * window, keyed by the path of the document they write, so that repeated edits of the same item, e.g.
+ * successive value tweaks, or an edit saved by both the edit screen and the inventory screen, become a
+ * single write of its latest version. When the window of an inventory closes, all of its held back edits
+ * and its summary change are sent as one batched write.
+ * <p>
+ * Other writes go straight through, after adjusting the held back edits they affect: deleted items are
+ * no longer written, and tags added to held back items are merged into them. Reading an inventory's items
+ * sends its held back edits first, so the read sees them. Screens call {@link #flush} when they close.
+ */
+public class CoalescingStore implements ItemStore, InventoryStore {
+    /**
+     * How long edits are held back by default, in milliseconds.
+     */
+    public static final long DEFAULT_WINDOW_MILLIS = 2000;
+
+    private final ItemStore items;
+    private final InventoryStore inventories;
+    private final long windowMillis;
+    private final ScheduledExecutorService timer;
+    private final LinkedHashMap<String, PendingWrites> pending;
+    private final ArrayList<FlushWaiter> waiters;
+    private int inFlight;
+    private long heldBack;
+    private long sent;
+
+    /**
+     * The writes held back for one inventory: the latest version of each edited item, by document path,
+     * and the sum of its summary changes.
+     */
+    private static class PendingWrites {
+        private final String username;
+        private final Inventory inventory;
+        private final LinkedHashMap<String, Item> items = new LinkedHashMap<>();
+        private final SummaryDelta delta = new SummaryDelta();
+        private final ArrayList<StoreCallback<Void>> callbacks = new ArrayList<>();
+        private ScheduledFuture<?> scheduled;
+
+        private PendingWrites(String username, Inventory inventory) {
+            this.username = username;
+            this.inventory = inventory;
+        }
+    }
+
+    private static class FlushWaiter {
+        private final StoreCallback<Void> callback;
+        private Exception failure;
+
+        private FlushWaiter(StoreCallback<Void> callback) {
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * Constructs a new CoalescingStore that holds back edits for the default window.
+     *
+     * @param items       The store items are written to.
+     * @param inventories The store inventories are written to.
+     */
+    public CoalescingStore(ItemStore items, InventoryStore inventories) {
+        this(items, inventories, DEFAULT_WINDOW_MILLIS);
+    }
+
+    /**
+     * Constructs a new CoalescingStore.
+     *
+     * @param items        The store items are written to.
+     * @param inventories  The store inventories are written to.
+     * @param windowMillis How long edits are held back, in milliseconds, from the first held back edit of
+     *                     an inventory until they are all sent.
+     */
+    public CoalescingStore(ItemStore items, InventoryStore inventories, long windowMillis) {
+        this.items = items;
+        this.inventories = inventories;
+        this.windowMillis = windowMillis;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CoalescingStore");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pending = new LinkedHashMap<>();
+        this.waiters = new ArrayList<>();
+    }
+
+    private static String inventoryPath(String username, Inventory inventory) {
+        return "users/" + username + "/inventories/" + inventory.getId();
+    }
+
+    private static String itemPath(String inventoryPath, String itemId) {
+        return inventoryPath + "/items/" + itemId;
+    }
+
+    /**
+     * Gets the writes held back for an inventory, starting its window if there were none. Must be called
+     * while holding this store's lock.
+     */
+    private PendingWrites pendingFor(String username, Inventory inventory) {
+        String path = inventoryPath(username, inventory);
+        PendingWrites writes = pending.get(path);
+        if (writes == null) {
+            writes = new PendingWrites(username, inventory);
+            pending.put(path, writes);
+            writes.scheduled = timer.schedule(() -> send(take(path)), windowMillis, TimeUnit.MILLISECONDS);
+        }
+        return writes;
+    }
+
+    /**
+     * Removes the writes held back for an inventory so they can be sent.
+     */
+    private synchronized PendingWrites take(String path) {
+        PendingWrites writes = pending.remove(path);
+        if (writes != null) {
+            writes.scheduled.cancel(false);
+            inFlight++;
+        }
+        return writes;
+    }
+
+    /**
+     * Sends held back writes as one batched write. Must be called without holding this store's lock, since
+     * the other store may deliver its result straight away.
+     */
+    private void send(PendingWrites writes) {
+        if (writes == null) {
+            return;
+        }
+        ArrayList<Item> edited = new ArrayList<>(writes.items.values());
+        synchronized (this) {
+            sent += edited.size() + (writes.delta.isEmpty() ? 0 : 1);
+        }
+        items.saveItems(writes.username, writes.inventory, edited, writes.delta, new StoreCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                for (StoreCallback<Void> callback : writes.callbacks) {
+                    callback.onSuccess(null);
+                }
+                sent(null);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                for (StoreCallback<Void> callback : writes.callbacks) {
+                    callback.onFailure(e);
+                }
+                sent(e);
+            }
+        });
+    }
+
+    private void sent(Exception failure) {
+        ArrayList<FlushWaiter> done = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            if (failure != null) {
+                for (FlushWaiter waiter : waiters) {
+                    waiter.failure = failure;
+                }
+            }
+            if (inFlight == 0) {
+                done.addAll(waiters);
+                waiters.clear();
+            }
+        }
+        notifyWaiters(done);
+    }
+
+    private static void notifyWaiters(List<FlushWaiter> done) {
+        for (FlushWaiter waiter : done) {
+            if (waiter.failure == null) {
+                waiter.callback.onSuccess(null);
+            } else {
+                waiter.callback.onFailure(waiter.failure);
+            }
+        }
+    }
+
+    /**
+     * Sends every held back write straight away, e.g. when a screen closes.
+     *
+     * @param callback Notified once nothing sent so far is still being written; notified of a failure if
+     *                 any of the writes failed.
+     */
+    @Override
+    public void flush(StoreCallback<Void> callback) {
+        ArrayList<PendingWrites> all = new ArrayList<>();
+        ArrayList<FlushWaiter> done = new ArrayList<>();
+        synchronized (this) {
+            waiters.add(new FlushWaiter(callback));
+            for (String path : new ArrayList<>(pending.keySet())) {
+                all.add(take(path));
+            }
+            if (all.isEmpty() && inFlight == 0) {
+                done.addAll(waiters);
+                waiters.clear();
+            }
+        }
+        notifyWaiters(done);
+        for (PendingWrites writes : all) {
+            send(writes);
+        }
+    }
+
+    /**
+     * Sends every held back write and waits until they have been written. This blocks, so it must not be
+     * called on the thread the other store delivers its results on, which is the main thread for Firestore.
+     *
+     * @param timeoutMillis The longest time to wait, in milliseconds.
+     * @return true if everything was written in time, false if not or if a write failed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean await(long timeoutMillis) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        boolean[] succeeded = new boolean[1];
+        flush(new StoreCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                succeeded[0] = true;
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                e.printStackTrace();
+                latch.countDown();
+            }
+        });
+        return latch.await(timeoutMillis, TimeUnit.MILLISECONDS) && succeeded[0];
+    }
+
+    /**
+     * Sends the writes held back for one inventory, so that a read of its items sees them.
+     */
+    private void flush(String username, Inventory inventory) {
+        send(take(inventoryPath(username, inventory)));
+    }
+
+    /**
+     * Gets the number of item and summary writes held back so far, including ones merged into others.
+     *
+     * @return number of writes received
+     */
+    public synchronized long getHeldBackCount() {
+        return heldBack;
+    }
+
+    /**
+     * Gets the number of item and summary writes sent to the other store so far.
+     *
+     * @return number of writes sent
+     */
+    public synchronized long getSentCount() {
+        return sent;
+    }
+
+    @Override
+    public void loadItemsPage(String username, Inventory inventory, String afterId, int limit, StoreCallback<List<Item>> callback) {
+        flush(username, inventory);
+        items.loadItemsPage(username, inventory, afterId, limit, callback);
+    }
+
+    @Override
+    public void addItem(String username, Inventory inventory, Item item, StoreCallback<Item> callback) {
+        items.addItem(username, inventory, item, callback);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The item is held back; a later edit of the same item before the window closes replaces it.
+     */
+    @Override
+    public void saveItem(String username, Inventory inventory, Item item, StoreCallback<Void> callback) {
+        saveItems(username, inventory, Collections.singletonList(item), null, callback);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The items and the summary change are held back and merged with other edits of the inventory.
+     */
+    @Override
+    public void saveItems(String username, Inventory inventory, Collection<Item> edited, SummaryDelta delta, StoreCallback<Void> callback) {
+        synchronized (this) {
+            PendingWrites writes = pendingFor(username, inventory);
+            String path = inventoryPath(username, inventory);
+            for (Item item : edited) {
+                if (item.getId() != null) {
+                    // a copy, so the version written is the one saved even if the item changes afterwards
+                    writes.items.put(itemPath(path, item.getId()), ItemCodec.decodeItem(ItemCodec.encodeItem(item)));
+                    heldBack++;
+                }
+            }
+            if (delta != null && !delta.isEmpty()) {
+                writes.delta.merge(delta);
+                heldBack++;
+            }
+            writes.callbacks.add(callback);
+        }
+    }
+
+    @Override
+    public void deleteItem(String username, Inventory inventory, Item item, StoreCallback<Void> callback) {
+        forget(username, inventory, Collections.singletonList(item));
+        items.deleteItem(username, inventory, item, callback);
+    }
+
+    @Override
+    public void deleteItems(String username, Inventory inventory, Collection<Item> deleted, SummaryDelta delta, StoreCallback<Void> callback) {
+        forget(username, inventory, deleted);
+        items.deleteItems(username, inventory, deleted, delta, callback);
+    }
+
+    /**
+     * Stops held back edits of deleted items from being written, which would bring the items back.
+     */
+    private synchronized void forget(String username, Inventory inventory, Collection<Item> deleted) {
+        PendingWrites writes = pending.get(inventoryPath(username, inventory));
+        if (writes == null) {
+            return;
+        }
+        String path = inventoryPath(username, inventory);
+        for (Item item : deleted) {
+            if (item.getId() != null) {
+                writes.items.remove(itemPath(path, item.getId()));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Tags for items with held back edits are added to those edits, which will be written anyway; only the
+     * other items are tagged straight away.
+     */
+    @Override
+    public void tagItems(String username, Inventory inventory, Collection<Item> tagged, Collection<String> tags, SummaryDelta delta, StoreCallback<Void> callback) {
+        ArrayList<Item> others = new ArrayList<>();
+        synchronized (this) {
+            PendingWrites writes = pending.get(inventoryPath(username, inventory));
+            String path = inventoryPath(username, inventory);
+            for (Item item : tagged) {
+                Item held = writes == null || item.getId() == null ? null : writes.items.get(itemPath(path, item.getId()));
+                if (held == null) {
+                    others.add(item);
+                    continue;
+                }
+                for (String tag : tags) {
+                    String normalized = TagIndex.normalize(tag);
+                    if (normalized != null && !normalized.isEmpty() && !held.getItemTags().contains(normalized)) {
+                        held.addItemTag(normalized);
+                    }
+                }
+            }
+        }
+        items.tagItems(username, inventory, others, tags, delta, callback);
+    }
+
+    @Override
+    public StoreListener.Registration listenItems(String username, Inventory inventory, StoreListener<Item> listener) {
+        return items.listenItems(username, inventory, listener);
+    }
+
+    @Override
+    public void addInventory(String username, Inventory inventory, StoreCallback<Inventory> callback) {
+        inventories.addInventory(username, inventory, callback);
+    }
+
+    @Override
+    public void renameInventory(String username, Inventory inventory, StoreCallback<Void> callback) {
+        inventories.renameInventory(username, inventory, callback);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Edits held back for the inventory are dropped, since its items are deleted with it.
+     */
+    @Override
+    public void deleteInventory(String username, Inventory inventory, StoreCallback<Void> callback) {
+        PendingWrites dropped;
+        ArrayList<FlushWaiter> done = new ArrayList<>();
+        synchronized (this) {
+            dropped = pending.remove(inventoryPath(username, inventory));
+            if (dropped != null) {
+                dropped.scheduled.cancel(false);
+                if (inFlight == 0) {
+                    done.addAll(waiters);
+                    waiters.clear();
+                }
+            }
+        }
+        if (dropped != null) {
+            for (StoreCallback<Void> dropCallback : dropped.callbacks) {
+                dropCallback.onSuccess(null);
+            }
+        }
+        notifyWaiters(done);
+        inventories.deleteInventory(username, inventory, callback);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The change is held back and added to the inventory's other held back changes.
+     */
+    @Override
+    public void updateSummary(String username, Inventory inventory, SummaryDelta delta, StoreCallback<Void> callback) {
+        saveItems(username, inventory, new ArrayList<>(), delta, callback);
+    }
+
+    @Override
+    public StoreListener.Registration listenInventories(String username, StoreListener<Inventory> listener) {
+        return inventories.listenInventories(username, listener);
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.finding_tory;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Keeps the purchase dates of an inventory's items sorted, as epoch milliseconds paired with the slot of
+ * the item they belong to. A date range is answered with two binary searches, and the matching items are
+ * the contiguous slice of the index between them.
+ */
+public class DateIndex implements Serializable {
+    private long[] dates;
+    private int[] slots;
+    private int size;
+
+    /**
+     * Constructs a new, empty DateIndex.
+     */
+    public DateIndex() {
+        this.dates = new long[16];
+        this.slots = new int[16];
+        this.size = 0;
+    }
+
+    /**
+     * Adds the date of an item to the index.
+     *
+     * @param dateMillis The purchase date of the item, in epoch milliseconds.
+     * @param slot       The slot of the item.
+     */
+    public void add(long dateMillis, int slot) {
+        int pos = search(dateMillis, slot);
+        if (pos >= 0) {
+            return;
+        }
+        pos = -(pos + 1);
+        if (size == dates.length) {
+            dates = Arrays.copyOf(dates, size * 2);
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        System.arraycopy(dates, pos, dates, pos + 1, size - pos);
+        System.arraycopy(slots, pos, slots, pos + 1, size - pos);
+        dates[pos] = dateMillis;
+        slots[pos] = slot;
+        size++;
+    }
+
+    /**
+     * Removes the date of an item from the index.
+     *
+     * @param dateMillis The purchase date the item was added with, in epoch milliseconds.
+     * @param slot       The slot of the item.
+     */
+    public void remove(long dateMillis, int slot) {
+        int pos = search(dateMillis, slot);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(dates, pos + 1, dates, pos, size - pos - 1);
+        System.arraycopy(slots, pos + 1, slots, pos, size - pos - 1);
+        size--;
+    }
+
+    /**
+     * Adds the dates of many items at once, by sorting them and merging them into the index in a single
+     * pass. None of the slots may be in the index yet.
+     *
+     * @param added   The slots of the items being added.
+     * @param count   The number of slots to add from the start of the array.
+     * @param columns The columns holding the items' dates.
+     */
+    public void addAll(int[] added, int count, ItemColumns columns) {
+        if (count == 0) {
+            return;
+        }
+        int[] sortedAdded = Arrays.copyOf(added, count);
+        SlotSorter.sort(sortedAdded, count, (a, b) -> {
+            int result = Long.compare(columns.getDateMillis(a), columns.getDateMillis(b));
+            return result != 0 ? result : Integer.compare(a, b);
+        }, null);
+        int capacity = Math.max(dates.length, size + count);
+        long[] mergedDates = new long[capacity];
+        int[] mergedSlots = new int[capacity];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size || j < count) {
+            boolean takeOld = j >= count;
+            if (!takeOld && i < size) {
+                long date = columns.getDateMillis(sortedAdded[j]);
+                takeOld = dates[i] < date || (dates[i] == date && slots[i] < sortedAdded[j]);
+            }
+            if (takeOld) {
+                mergedDates[k] = dates[i];
+                mergedSlots[k++] = slots[i++];
+            } else {
+                mergedDates[k] = columns.getDateMillis(sortedAdded[j]);
+                mergedSlots[k++] = sortedAdded[j++];
+            }
+        }
+        dates = mergedDates;
+        slots = mergedSlots;
+        size = k;
+    }
+
+    /**
+     * Removes the dates of many items at once with a single pass over the index.
+     *
+     * @param removed BitSet with the slot of every item being removed set.
+     */
+    public void removeAll(BitSet removed) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!removed.get(slots[i])) {
+                dates[kept] = dates[i];
+                slots[kept++] = slots[i];
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Rebuilds the index from the date column of every occupied slot, with a single sort.
+     *
+     * @param columns The columns holding the items' dates.
+     * @param pool    The pool to sort on in parallel, or null to sort on the calling thread.
+     */
+    public void rebuild(ItemColumns columns, ForkJoinPool pool) {
+        BitSet live = columns.getLiveSlots();
+        int count = live.cardinality();
+        slots = new int[Math.max(16, count)];
+        int i = 0;
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            slots[i++] = slot;
+        }
+        // slots are collected in ascending order, so the stable sort keeps ties ordered by slot
+        SlotSorter.sort(slots, count, (a, b) -> Long.compare(columns.getDateMillis(a), columns.getDateMillis(b)), pool);
+        dates = new long[slots.length];
+        for (i = 0; i < count; i++) {
+            dates[i] = columns.getDateMillis(slots[i]);
+        }
+        size = count;
+    }
+
+    /**
+     * Finds the items purchased within a date range, inclusive on both ends.
+     *
+     * @param startMillis The start of the range, in epoch milliseconds.
+     * @param endMillis   The end of the range, in epoch milliseconds.
+     * @return BitSet with the slot of every item in the range set
+     */
+    public BitSet findRange(long startMillis, long endMillis) {
+        BitSet matches = new BitSet();
+        int end = upperBound(endMillis);
+        for (int i = lowerBound(startMillis); i < end; i++) {
+            matches.set(slots[i]);
+        }
+        return matches;
+    }
+
+    /**
+     * Counts the items purchased within a date range, inclusive on both ends, without visiting them.
+     *
+     * @param startMillis The start of the range, in epoch milliseconds.
+     * @param endMillis   The end of the range, in epoch milliseconds.
+     * @return number of items in the range
+     */
+    public int countRange(long startMillis, long endMillis) {
+        return Math.max(0, upperBound(endMillis) - lowerBound(startMillis));
+    }
+
+    /**
+     * Gets the number of dates in the index.
+     *
+     * @return number of indexed items
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the first position whose date is at or after a time.
+     *
+     * @param millis The time to look for.
+     * @return the position of the first date that is not before the time
+     */
+    private int lowerBound(long millis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dates[mid] < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first position whose date is after a time.
+     *
+     * @param millis The time to look for.
+     * @return the position of the first date that is after the time
+     */
+    private int upperBound(long millis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dates[mid] <= millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Binary searches the index for a date and slot pair.
+     *
+     * @param dateMillis The date to look for.
+     * @param slot       The slot to look for.
+     * @return the position of the pair, or {@code -(insertion point) - 1} if it is not in the index
+     */
+    private int search(long dateMillis, int slot) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int result = Long.compare(dates[mid], dateMillis);
+            if (result == 0) {
+                result = Integer.compare(slots[mid], slot);
+            }
+            if (result < 0) {
+                low = mid + 1;
+            } else if (result > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
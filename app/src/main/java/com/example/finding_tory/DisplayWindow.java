@@ -0,0 +1,143 @@
+package com.example.finding_tory;
+
+import java.util.BitSet;
+
+/**
+ * A read-only, position-based view of an inventory's displayed items, for list adapters that only ever
+ * show a screenful of items at a time. When the displayed items are read straight from a sort index,
+ * the view loads one page of items around the requested position and keeps a checkpoint into the sort
+ * order for every page, so its memory grows with the page size and the number of pages rather than with
+ * the number of matching items. When the inventory keeps the displayed items as a list anyway, the view
+ * reads from that list. The view follows changes to the inventory and reloads its page when they happen.
+ */
+public class DisplayWindow {
+    /**
+     * The number of items loaded at a time.
+     */
+    public static final int PAGE_SIZE = 128;
+
+    private final Inventory inventory;
+    private final Item[] page;
+    private int version;
+    private SortIndex order;
+    private int orderModCount;
+    private int size;
+    private int[] checkpoints;
+    private int pageStart;
+    private int pageLength;
+
+    /**
+     * Constructs a new DisplayWindow over the displayed items of an inventory.
+     *
+     * @param inventory The inventory whose displayed items are viewed.
+     */
+    public DisplayWindow(Inventory inventory) {
+        this.inventory = inventory;
+        this.page = new Item[PAGE_SIZE];
+        this.pageStart = -1;
+    }
+
+    /**
+     * Gets the number of displayed items.
+     *
+     * @return number of displayed items
+     */
+    public int size() {
+        sync();
+        return order == null ? inventory.getDisplayedItems().size() : size;
+    }
+
+    /**
+     * Gets the displayed item at a position.
+     *
+     * @param position The position of the item among the displayed items.
+     * @return the item at that position
+     * @throws IndexOutOfBoundsException if the position is negative or not less than {@link #size()}
+     */
+    public Item get(int position) {
+        sync();
+        if (order == null) {
+            return inventory.getDisplayedItems().get(position);
+        }
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + size);
+        }
+        int start = position - position % PAGE_SIZE;
+        if (start != pageStart) {
+            loadPage(start);
+        }
+        return page[position - start];
+    }
+
+    /**
+     * Drops the loaded page and checkpoints if the displayed items or their order changed since they were
+     * loaded, and recounts the displayed items.
+     */
+    private void sync() {
+        SortIndex currentOrder = inventory.getDisplayOrder();
+        if (currentOrder == order && version == inventory.getDisplayVersion()
+                && (order == null || orderModCount == order.getModCount())) {
+            return;
+        }
+        order = currentOrder;
+        version = inventory.getDisplayVersion();
+        pageStart = -1;
+        pageLength = 0;
+        checkpoints = null;
+        if (order != null) {
+            orderModCount = order.getModCount();
+            size = inventory.getDisplayedSlots().cardinality();
+            if (size < order.size()) {
+                buildCheckpoints();
+            }
+        }
+    }
+
+    /**
+     * Walks the sort order once, in display order, and remembers where the first item of each page is.
+     * Not needed when every item is displayed, since positions then map straight onto the order.
+     */
+    private void buildCheckpoints() {
+        BitSet displayed = inventory.getDisplayedSlots();
+        boolean descending = inventory.isDisplayDescending();
+        int length = order.size();
+        checkpoints = new int[(size + PAGE_SIZE - 1) / PAGE_SIZE];
+        int matches = 0;
+        for (int step = 0; step < length && matches < size; step++) {
+            int slot = order.slotAt(descending ? length - 1 - step : step);
+            if (displayed.get(slot)) {
+                if (matches % PAGE_SIZE == 0) {
+                    checkpoints[matches / PAGE_SIZE] = step;
+                }
+                matches++;
+            }
+        }
+    }
+
+    /**
+     * Loads the page of displayed items starting at a position, walking the sort order from the page's
+     * checkpoint.
+     *
+     * @param start The position of the first item of the page, a multiple of {@link #PAGE_SIZE}.
+     */
+    private void loadPage(int start) {
+        BitSet displayed = inventory.getDisplayedSlots();
+        boolean descending = inventory.isDisplayDescending();
+        ItemSlots slots = inventory.getSlots();
+        int length = order.size();
+        int wanted = Math.min(PAGE_SIZE, size - start);
+        int step = checkpoints == null ? start : checkpoints[start / PAGE_SIZE];
+        int loaded = 0;
+        for (; step < length && loaded < wanted; step++) {
+            int slot = order.slotAt(descending ? length - 1 - step : step);
+            if (checkpoints == null || displayed.get(slot)) {
+                page[loaded++] = slots.get(slot);
+            }
+        }
+        for (int i = loaded; i < pageLength; i++) {
+            page[i] = null;
+        }
+        pageStart = start;
+        pageLength = loaded;
+    }
+}
@@ -0,0 +1,450 @@
+package com.example.finding_tory;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes item writes survive losing the network or the app. Every item write and summary change is
+ * appended to an {@link OperationLog} before it is sent to the other store, and the caller is told it
+ * succeeded as soon as it is logged, so scanning can carry on with no connection. A write that fails is
+ * sent again after an exponentially growing delay, and writes still in the log when the app starts are
+ * sent again by {@link #replay()}.
+ * <p>
+ * The log is written, synced, acknowledged and compacted on a single background thread, so callers on the
+ * main thread never wait for the disk; a write is handed to the other store, and its caller told it
+ * succeeded, only once it is on disk. Writes are logged and sent in the order they were made.
+ * <p>
+ * Saves, deletes and tags can be sent any number of times with the same result. Summary changes are
+ * increments, so each carries the ID of its operation, and the store applies the changes of an operation
+ * only once, even if it reached the store just before the app was killed and is replayed. Adding, renaming
+ * and deleting inventories are not logged, since their screens wait for the store's answer before closing.
+ * <p>
+ * Since callers are told a logged write succeeded before it is sent, failures found later, of an attempt
+ * at sending a write or of the log itself, go to the {@link FailureListener}, on the callbacks' executor.
+ */
+public class DurableStore implements ItemStore, InventoryStore {
+    /**
+     * The delay before a failed write is first sent again, in milliseconds.
+     */
+    public static final long FIRST_RETRY_MILLIS = 1000;
+
+    /**
+     * The longest delay between two attempts at a write, in milliseconds.
+     */
+    public static final long MAX_RETRY_MILLIS = 5 * 60 * 1000;
+
+    private static final String ID_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int ID_LENGTH = 20;
+
+    private final ItemStore items;
+    private final InventoryStore inventories;
+    private final OperationLog log;
+    private final Executor callbacks;
+    private final ScheduledExecutorService worker;
+    private final SecureRandom random;
+    private final HashMap<String, ItemWrites> itemWrites;
+    private long firstRetryMillis;
+    private volatile FailureListener failureListener;
+
+    /**
+     * Receives the failures of writes whose callers have already been told they succeeded.
+     */
+    public interface FailureListener {
+        /**
+         * Called when a logged write could not be sent, and will be sent again later, or when the log could
+         * not be written.
+         *
+         * @param e The reason it failed.
+         */
+        void onFailure(Exception e);
+    }
+
+    /**
+     * The pending writes of one item: the sequence number of the latest, and how many there are.
+     */
+    private static class ItemWrites {
+        private long latestSeq;
+        private int pending;
+    }
+
+    /**
+     * Constructs a new DurableStore that tells callers their writes succeeded on its background thread.
+     *
+     * @param items       The store items are written to.
+     * @param inventories The store inventories are written to.
+     * @param log         The log writes are kept in until they have been written.
+     */
+    public DurableStore(ItemStore items, InventoryStore inventories, OperationLog log) {
+        this(items, inventories, log, Runnable::run);
+    }
+
+    /**
+     * Constructs a new DurableStore.
+     *
+     * @param items       The store items are written to.
+     * @param inventories The store inventories are written to.
+     * @param log         The log writes are kept in until they have been written.
+     * @param callbacks   Runs the callbacks of logged writes, e.g. on the main thread.
+     */
+    public DurableStore(ItemStore items, InventoryStore inventories, OperationLog log, Executor callbacks) {
+        this.items = items;
+        this.inventories = inventories;
+        this.log = log;
+        this.callbacks = callbacks;
+        this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DurableStore");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.random = new SecureRandom();
+        this.itemWrites = new HashMap<>();
+        this.firstRetryMillis = FIRST_RETRY_MILLIS;
+        this.failureListener = Throwable::printStackTrace;
+    }
+
+    /**
+     * Sets the listener told about failures of writes whose callers have already been told they
+     * succeeded. By default they are only printed.
+     *
+     * @param listener The listener, run on the callbacks' executor.
+     */
+    public void setFailureListener(FailureListener listener) {
+        this.failureListener = listener;
+    }
+
+    /**
+     * Sets the delay before a failed write is first sent again; it doubles with each further attempt.
+     *
+     * @param millis The delay, in milliseconds.
+     */
+    public void setFirstRetryMillis(long millis) {
+        this.firstRetryMillis = millis;
+    }
+
+    /**
+     * Sends every write left in the log, e.g. by a previous run of the app that lost its connection or was
+     * killed, in the order they were logged.
+     */
+    public void replay() {
+        worker.execute(() -> {
+            List<OperationLog.Operation> operations = log.getPending();
+            HashMap<String, Inventory> inventoriesById = new HashMap<>();
+            for (OperationLog.Operation operation : operations) {
+                track(operation);
+                if (!inventoriesById.containsKey(operation.getInventoryId())) {
+                    Inventory inventory = new Inventory();
+                    inventory.setId(operation.getInventoryId());
+                    inventoriesById.put(operation.getInventoryId(), inventory);
+                }
+            }
+            for (OperationLog.Operation operation : operations) {
+                send(operation, inventoriesById.get(operation.getInventoryId()), 0);
+            }
+        });
+    }
+
+    /**
+     * Waits until every write made so far has been logged and handed to the other store.
+     *
+     * @param timeoutMillis The longest time to wait, in milliseconds.
+     * @return true if they were in time, false otherwise
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean await(long timeoutMillis) throws InterruptedException {
+        try {
+            worker.submit(() -> {
+            }).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the number of writes that have not reached the store yet.
+     *
+     * @return number of pending writes
+     */
+    public int getPendingCount() {
+        return log.getPending().size();
+    }
+
+    /**
+     * Generates a random document ID of the same form as Firestore's, so that an item can be added by
+     * writing it with its ID, which can safely be done again.
+     */
+    private String newId() {
+        StringBuilder id = new StringBuilder(ID_LENGTH);
+        for (int i = 0; i < ID_LENGTH; i++) {
+            id.append(ID_CHARACTERS.charAt(random.nextInt(ID_CHARACTERS.length())));
+        }
+        return id.toString();
+    }
+
+    private static String itemPath(String username, String inventoryId, String itemId) {
+        return "users/" + username + "/inventories/" + inventoryId + "/items/" + itemId;
+    }
+
+    /**
+     * Remembers which pending operation wrote each item last, so that sending an older write again cannot
+     * undo it. An item is remembered until none of its writes are pending, even if the latest one is
+     * acknowledged first.
+     */
+    private synchronized void track(OperationLog.Operation operation) {
+        for (Item item : operation.getItems()) {
+            String path = itemPath(operation.getUsername(), operation.getInventoryId(), item.getId());
+            ItemWrites writes = itemWrites.get(path);
+            if (writes == null) {
+                writes = new ItemWrites();
+                itemWrites.put(path, writes);
+            }
+            writes.latestSeq = Math.max(writes.latestSeq, operation.getSeq());
+            writes.pending++;
+        }
+    }
+
+    /**
+     * Logs a write on the background thread and sends it. The callback is told the write succeeded once it
+     * is on disk; if it cannot be logged, the failure listener is told, the write is sent without the log
+     * and the callback gets the store's answer. The items and the summary change are copied first, since the caller may go on
+     * changing them.
+     */
+    private void write(OperationLog.Type type, String username, Inventory inventory, Collection<Item> written,
+                       Collection<String> tags, SummaryDelta delta, StoreCallback<Void> callback) {
+        ArrayList<Item> copies = new ArrayList<>(written.size());
+        for (Item item : written) {
+            copies.add(type == OperationLog.Type.SAVE_ITEMS ? ItemCodec.decodeItem(ItemCodec.encodeItem(item)) : item);
+        }
+        ArrayList<String> tagsCopy = new ArrayList<>(tags);
+        SummaryDelta deltaCopy = new SummaryDelta();
+        if (delta != null) {
+            deltaCopy.merge(delta);
+        }
+        worker.execute(() -> {
+            OperationLog.Operation operation;
+            try {
+                operation = log.append(type, username, inventory.getId(), copies, tagsCopy, deltaCopy);
+            } catch (IOException e) {
+                reportFailure(e);
+                forward(type, username, inventory, copies, tagsCopy, deltaCopy, new StoreCallback<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        callbacks.execute(() -> callback.onSuccess(null));
+                    }
+
+                    @Override
+                    public void onFailure(Exception failure) {
+                        callbacks.execute(() -> callback.onFailure(failure));
+                    }
+                });
+                return;
+            }
+            track(operation);
+            callbacks.execute(() -> callback.onSuccess(null));
+            send(operation, inventory, 0);
+        });
+    }
+
+    /**
+     * Sends a logged write, leaving out items that a later write has written since, and acknowledges it
+     * once it has been written. A failed write is retried after a delay that doubles with each attempt.
+     * The inventory is the one the write was made to, or, for a replayed write, one carrying its ID.
+     */
+    private void send(OperationLog.Operation operation, Inventory inventory, int attempt) {
+        ArrayList<Item> current = new ArrayList<>();
+        synchronized (this) {
+            for (Item item : operation.getItems()) {
+                ItemWrites writes = itemWrites.get(itemPath(operation.getUsername(), operation.getInventoryId(), item.getId()));
+                if (writes == null || writes.latestSeq <= operation.getSeq()) {
+                    current.add(item);
+                }
+            }
+        }
+        if (current.isEmpty() && !operation.getItems().isEmpty() && operation.getDelta().isEmpty()) {
+            acknowledge(operation);
+            return;
+        }
+        forward(operation.getType(), operation.getUsername(), inventory, current,
+                operation.getTags(), operation.getDelta(), new StoreCallback<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        acknowledge(operation);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        reportFailure(e);
+                        long delay = Math.min(MAX_RETRY_MILLIS, firstRetryMillis << Math.min(attempt, 20));
+                        worker.schedule(() -> send(operation, inventory, attempt + 1), delay, TimeUnit.MILLISECONDS);
+                    }
+                });
+    }
+
+    /**
+     * Acknowledges a write in the log, on the background thread, since it may compact the log.
+     */
+    private void acknowledge(OperationLog.Operation operation) {
+        synchronized (this) {
+            for (Item item : operation.getItems()) {
+                String path = itemPath(operation.getUsername(), operation.getInventoryId(), item.getId());
+                ItemWrites writes = itemWrites.get(path);
+                if (writes != null && --writes.pending == 0) {
+                    itemWrites.remove(path);
+                }
+            }
+        }
+        worker.execute(() -> {
+            try {
+                log.ack(operation.getSeq());
+            } catch (IOException e) {
+                // the write is sent again after a restart, which gives the same result
+                reportFailure(e);
+            }
+        });
+    }
+
+    private void reportFailure(Exception e) {
+        FailureListener listener = failureListener;
+        callbacks.execute(() -> listener.onFailure(e));
+    }
+
+    private void forward(OperationLog.Type type, String username, Inventory inventory, Collection<Item> written,
+                         Collection<String> tags, SummaryDelta delta, StoreCallback<Void> callback) {
+        switch (type) {
+            case SAVE_ITEMS:
+                items.saveItems(username, inventory, written, delta, callback);
+                break;
+            case DELETE_ITEMS:
+                items.deleteItems(username, inventory, written, delta, callback);
+                break;
+            case TAG_ITEMS:
+                items.tagItems(username, inventory, written, tags, delta, callback);
+                break;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The page is read once the writes made before it have been handed to the other store, so it sees them.
+     */
+    @Override
+    public void loadItemsPage(String username, Inventory inventory, String afterId, int limit, StoreCallback<List<Item>> callback) {
+        worker.execute(() -> items.loadItemsPage(username, inventory, afterId, limit, callback));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The item is given its ID here and logged as a save, so that it can be written again after a restart
+     * without adding it twice. The callback runs once the item is on disk.
+     */
+    @Override
+    public void addItem(String username, Inventory inventory, Item item, StoreCallback<Item> callback) {
+        if (item.getId() == null) {
+            item.setId(newId());
+        }
+        write(OperationLog.Type.SAVE_ITEMS, username, inventory, Collections.singletonList(item), Collections.emptyList(), null,
+                new StoreCallback<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        callback.onSuccess(item);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        callback.onFailure(e);
+                    }
+                });
+    }
+
+    @Override
+    public void saveItem(String username, Inventory inventory, Item item, StoreCallback<Void> callback) {
+        saveItems(username, inventory, Collections.singletonList(item), null, callback);
+    }
+
+    @Override
+    public void saveItems(String username, Inventory inventory, Collection<Item> saved, SummaryDelta delta, StoreCallback<Void> callback) {
+        write(OperationLog.Type.SAVE_ITEMS, username, inventory, withIds(saved), Collections.emptyList(), delta, callback);
+    }
+
+    @Override
+    public void deleteItem(String username, Inventory inventory, Item item, StoreCallback<Void> callback) {
+        deleteItems(username, inventory, Collections.singletonList(item), null, callback);
+    }
+
+    @Override
+    public void deleteItems(String username, Inventory inventory, Collection<Item> deleted, SummaryDelta delta, StoreCallback<Void> callback) {
+        write(OperationLog.Type.DELETE_ITEMS, username, inventory, withIds(deleted), Collections.emptyList(), delta, callback);
+    }
+
+    @Override
+    public void tagItems(String username, Inventory inventory, Collection<Item> tagged, Collection<String> tags, SummaryDelta delta, StoreCallback<Void> callback) {
+        write(OperationLog.Type.TAG_ITEMS, username, inventory, withIds(tagged), tags, delta, callback);
+    }
+
+    /**
+     * Leaves out items without an ID, which have no document to write.
+     */
+    private static ArrayList<Item> withIds(Collection<Item> written) {
+        ArrayList<Item> result = new ArrayList<>();
+        for (Item item : written) {
+            if (item.getId() != null) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public StoreListener.Registration listenItems(String username, Inventory inventory, StoreListener<Item> listener) {
+        return items.listenItems(username, inventory, listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Writes still being logged are handed to the other store first, so they are sent too.
+     */
+    @Override
+    public void flush(StoreCallback<Void> callback) {
+        worker.execute(() -> items.flush(callback));
+    }
+
+    @Override
+    public void addInventory(String username, Inventory inventory, StoreCallback<Inventory> callback) {
+        inventories.addInventory(username, inventory, callback);
+    }
+
+    @Override
+    public void renameInventory(String username, Inventory inventory, StoreCallback<Void> callback) {
+        inventories.renameInventory(username, inventory, callback);
+    }
+
+    @Override
+    public void deleteInventory(String username, Inventory inventory, StoreCallback<Void> callback) {
+        inventories.deleteInventory(username, inventory, callback);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The change is logged like an item write, and the callback runs once it is on disk.
+     */
+    @Override
+    public void updateSummary(String username, Inventory inventory, SummaryDelta delta, StoreCallback<Void> callback) {
+        write(OperationLog.Type.SAVE_ITEMS, username, inventory, Collections.emptyList(), Collections.emptyList(), delta, callback);
+    }
+
+    @Override
+    public StoreListener.Registration listenInventories(String username, StoreListener<Inventory> listener) {
+        return inventories.listenInventories(username, listener);
+    }
+}
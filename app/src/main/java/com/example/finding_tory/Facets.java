@@ -0,0 +1,251 @@
+package com.example.finding_tory;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * Counts the displayed items of an inventory by tag, by make and by purchase month, along with the total
+ * value of each group. The counts are read from the inventory's columns and updated one item at a time as
+ * items are shown and hidden, so reading them never has to look at the items.
+ */
+public class Facets implements Serializable {
+    private final ItemColumns columns;
+    private int[] tagCounts;
+    private long[] tagCents;
+    private int[] makeCounts;
+    private long[] makeCents;
+    private int[] monthCounts;
+    private long[] monthCents;
+    private int monthBase;
+    private transient long[] monthStarts;
+    private transient int firstMonth;
+
+    /**
+     * The number of items in a group and their total estimated value.
+     */
+    public static class Count implements Serializable {
+        private final int count;
+        private final long valueCents;
+
+        /**
+         * Constructs a new Count.
+         *
+         * @param count      The number of items in the group.
+         * @param valueCents The total value of the items in the group, in cents.
+         */
+        public Count(int count, long valueCents) {
+            this.count = count;
+            this.valueCents = valueCents;
+        }
+
+        /**
+         * Gets the number of items in the group.
+         *
+         * @return item count
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the total estimated value of the items in the group.
+         *
+         * @return the total value in dollars
+         */
+        public double getValue() {
+            return valueCents / 100.0;
+        }
+    }
+
+    /**
+     * Constructs a new, empty Facets object over the columns of an inventory.
+     *
+     * @param columns The columns the items' tags, makes, dates and values are read from.
+     */
+    public Facets(ItemColumns columns) {
+        this.columns = columns;
+        this.tagCounts = new int[16];
+        this.tagCents = new long[16];
+        this.makeCounts = new int[16];
+        this.makeCents = new long[16];
+        this.monthCounts = new int[0];
+        this.monthCents = new long[0];
+    }
+
+    /**
+     * Counts the item in a slot. This must be called after the item's columns were set.
+     *
+     * @param slot The slot of the item being shown.
+     */
+    public void add(int slot) {
+        update(slot, 1);
+    }
+
+    /**
+     * Stops counting the item in a slot. This must be called before the item's columns are changed or cleared.
+     *
+     * @param slot The slot of the item being hidden.
+     */
+    public void remove(int slot) {
+        update(slot, -1);
+    }
+
+    /**
+     * Resets every count to zero.
+     */
+    public void clear() {
+        Arrays.fill(tagCounts, 0);
+        Arrays.fill(tagCents, 0);
+        Arrays.fill(makeCounts, 0);
+        Arrays.fill(makeCents, 0);
+        Arrays.fill(monthCounts, 0);
+        Arrays.fill(monthCents, 0);
+    }
+
+    /**
+     * Gets the count of the items using a tag.
+     *
+     * @param tag The tag to look up, in any capitalization.
+     * @return the count of the tag, which is zero if no item uses it
+     */
+    public Count getTagCount(String tag) {
+        int id = columns.getTagId(tag);
+        if (id < 0 || id >= tagCounts.length) {
+            return new Count(0, 0);
+        }
+        return new Count(tagCounts[id], tagCents[id]);
+    }
+
+    /**
+     * Gets the counts of every tag used by at least one item, in alphabetical order.
+     *
+     * @return the count of each tag, keyed by tag
+     */
+    public TreeMap<String, Count> getTagCounts() {
+        TreeMap<String, Count> counts = new TreeMap<>();
+        for (int id = 0; id < tagCounts.length; id++) {
+            if (tagCounts[id] > 0) {
+                counts.put(columns.getTagName(id), new Count(tagCounts[id], tagCents[id]));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the counts of every make of at least one item, in alphabetical order.
+     *
+     * @return the count of each make, keyed by make
+     */
+    public TreeMap<String, Count> getMakeCounts() {
+        TreeMap<String, Count> counts = new TreeMap<>();
+        for (int id = 0; id < makeCounts.length; id++) {
+            if (makeCounts[id] > 0) {
+                counts.put(columns.getMakeName(id), new Count(makeCounts[id], makeCents[id]));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the counts of every month in which at least one item was purchased, in chronological order.
+     *
+     * @return the count of each month, keyed by month in the form yyyy-MM
+     */
+    public TreeMap<String, Count> getMonthCounts() {
+        TreeMap<String, Count> counts = new TreeMap<>();
+        for (int i = 0; i < monthCounts.length; i++) {
+            if (monthCounts[i] > 0) {
+                int month = monthBase + i;
+                counts.put(String.format(Locale.ROOT, "%04d-%02d", month / 12, month % 12 + 1),
+                        new Count(monthCounts[i], monthCents[i]));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Adds an item to, or takes it out of, the count of each of its groups.
+     *
+     * @param slot The slot of the item.
+     * @param sign 1 to add the item, -1 to take it out.
+     */
+    private void update(int slot, int sign) {
+        long cents = sign * columns.getValueCents(slot);
+        for (int id : columns.getTagIds(slot)) {
+            if (id >= tagCounts.length) {
+                int capacity = Math.max(id + 1, tagCounts.length * 2);
+                tagCounts = Arrays.copyOf(tagCounts, capacity);
+                tagCents = Arrays.copyOf(tagCents, capacity);
+            }
+            tagCounts[id] += sign;
+            tagCents[id] += cents;
+        }
+        int make = columns.getMakeId(slot);
+        if (make >= 0) {
+            if (make >= makeCounts.length) {
+                int capacity = Math.max(make + 1, makeCounts.length * 2);
+                makeCounts = Arrays.copyOf(makeCounts, capacity);
+                makeCents = Arrays.copyOf(makeCents, capacity);
+            }
+            makeCounts[make] += sign;
+            makeCents[make] += cents;
+        }
+        int month = monthOf(columns.getDateMillis(slot));
+        if (monthCounts.length == 0) {
+            monthBase = month;
+        }
+        if (month < monthBase || month >= monthBase + monthCounts.length) {
+            int first = Math.min(monthBase, month);
+            int last = Math.max(monthBase + monthCounts.length - 1, month);
+            int[] counts = new int[last - first + 1];
+            long[] sums = new long[counts.length];
+            System.arraycopy(monthCounts, 0, counts, monthBase - first, monthCounts.length);
+            System.arraycopy(monthCents, 0, sums, monthBase - first, monthCents.length);
+            monthCounts = counts;
+            monthCents = sums;
+            monthBase = first;
+        }
+        monthCounts[month - monthBase] += sign;
+        monthCents[month - monthBase] += cents;
+    }
+
+    /**
+     * Gets the month a time falls in, in the default time zone. The start times of a contiguous run of months
+     * are worked out with a calendar once and then binary searched, since calendar lookups are slow.
+     *
+     * @param millis The time in epoch milliseconds.
+     * @return the number of months since the start of year 0
+     */
+    private int monthOf(long millis) {
+        if (monthStarts == null || millis < monthStarts[0] || millis >= monthStarts[monthStarts.length - 1]) {
+            coverMonths(millis);
+        }
+        int pos = Arrays.binarySearch(monthStarts, millis);
+        return firstMonth + (pos >= 0 ? pos : -(pos + 1) - 1);
+    }
+
+    /**
+     * Extends the run of month start times so that it covers a time.
+     *
+     * @param millis The time that must be covered.
+     */
+    private void coverMonths(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        int month = calendar.get(Calendar.YEAR) * 12 + calendar.get(Calendar.MONTH);
+        int first = monthStarts == null ? month : Math.min(firstMonth, month);
+        int last = monthStarts == null ? month : Math.max(firstMonth + monthStarts.length - 2, month);
+        long[] starts = new long[last - first + 2];
+        calendar.clear();
+        calendar.set(first / 12, first % 12, 1);
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = calendar.getTimeInMillis();
+            calendar.add(Calendar.MONTH, 1);
+        }
+        monthStarts = starts;
+        firstMonth = first;
+    }
+}
@@ -15,6 +15,12 @@ public class Filter implements Serializable {
     private String description;
     private String make;
     private ArrayList<String> tags;
+    // the tags' bits in the ledger's tag dictionary, looked up again only when the tags differ from the
+    // ones they were built from, since the list returned by getTags can be modified, or when the ledger
+    // has replaced its dictionary
+    private transient long[] tagWords;
+    private transient ArrayList<String> tagWordsOf;
+    private transient TagDictionary tagWordsDictionary;
 
     /**
      * Constructs a new, empty Filter with default values.
@@ -134,6 +140,58 @@ public class Filter implements Serializable {
      */
     public void setTags(ArrayList<String> tags) {
         this.tags = tags;
+        this.tagWords = null;
+        this.tagWordsOf = null;
+    }
+
+    /**
+     * Checks whether an item satisfies every criterion of this filter.
+     * An item matches when its purchase date is inside the date range (if one is set), its description and make
+     * contain the filter's description and make (ignoring case), and it has at least one of the filter's tags
+     * (if any are set).
+     *
+     * @param item The item to test.
+     * @return {@code true} if the item matches, {@code false} otherwise.
+     */
+    public boolean matches(Item item) {
+        if (startDate != null) {
+            Date itemDate = item.getPurchaseDate();
+            if (itemDate.before(startDate) || itemDate.after(endDate)) {
+                return false;
+            }
+        }
+        if (!NGramIndex.containsIgnoreCase(item.getDescription(), description)
+                || !NGramIndex.containsIgnoreCase(item.getMake(), make)) {
+            return false;
+        }
+        if (tags.isEmpty()) {
+            return true;
+        }
+        TagDictionary dictionary = Ledger.getInstance().getTagDictionary();
+        long[] words = tagWords;
+        ArrayList<String> wordsOf = tagWordsOf;
+        if (words == null || tagWordsDictionary != dictionary || !tags.equals(wordsOf)) {
+            wordsOf = new ArrayList<>(tags);
+            words = dictionary.toWords(wordsOf);
+            tagWords = words;
+            tagWordsOf = wordsOf;
+            tagWordsDictionary = dictionary;
+        }
+        return item.hasAnyTag(words);
+    }
+
+    /**
+     * Builds the query that matches the same items as this filter: the date range, if one is set, and
+     * the description and make substrings and any of the tags, where given.
+     *
+     * @return the equivalent query
+     */
+    public Query toQuery() {
+        return Query.and(
+                startDate != null ? Query.dateRange(startDate, endDate) : Query.all(),
+                Query.description(description),
+                Query.make(make),
+                Query.anyTags(tags));
     }
 
     /**
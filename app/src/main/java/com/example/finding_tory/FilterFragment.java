@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * This fragment provides a user interface to filter data based on specified criteria such as date range,
@@ -36,13 +37,17 @@ import java.util.Locale;
  * for when the filter is confirmed or the dialog is dismissed.
  */
 public class FilterFragment extends DialogFragment {
+    private static final int MAX_MAKE_FACETS = 5;
+
     TextView selectedDate;
     EditText filteredMake;
+    TextView makeFacets;
     Button datePicker;
     private FilterFragment.FilterDialogListener listener;
     private RecyclerView tagsRecyclerView;
     private TagAdapter tagAdapter;
     private ArrayList<String> allTags;
+    private Facets facets;
     private Filter filter;
 
     public interface FilterDialogListener {
@@ -64,6 +69,7 @@ public class FilterFragment extends DialogFragment {
         selectedDate = view.findViewById(R.id.selectedDate);
         datePicker = view.findViewById(R.id.datePicker);
         filteredMake = view.findViewById(R.id.editTextMake);
+        makeFacets = view.findViewById(R.id.makeFacets);
 
         tagsRecyclerView = (RecyclerView) view.findViewById(R.id.tagsRecyclerView);
         FlexboxLayoutManager layoutManager = new FlexboxLayoutManager(getContext());
@@ -74,6 +80,11 @@ public class FilterFragment extends DialogFragment {
         tagAdapter = new TagAdapter(allTags, filter.getTags(), false);
         tagsRecyclerView.setAdapter(tagAdapter);
 
+        if (facets != null) {
+            tagAdapter.setTagCounts(facets.getTagCounts());
+            showMakeFacets();
+        }
+
         if (filter.getStartDate() != null) {
             SimpleDateFormat sdf = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
             selectedDate.setText(sdf.format(filter.getStartDate()) + " - " + sdf.format(filter.getEndDate()));
@@ -115,6 +126,40 @@ public class FilterFragment extends DialogFragment {
         this.allTags = allTags;
     }
 
+    /**
+     * Sets the parameters for a filter, along with the facet counts of the currently displayed items so that
+     * each tag and make can be shown with the number of items that have it.
+     *
+     * @param filter  Any previously-existing filter object, which will be use to pre-fill the dialog.
+     * @param allTags An ArrayList of Strings representing all available tags.
+     * @param facets  The facet counts of the displayed items.
+     */
+    public void populateFilterParams(Filter filter, ArrayList<String> allTags, Facets facets) {
+        populateFilterParams(filter, allTags);
+        this.facets = facets;
+    }
+
+    /**
+     * Lists the most common makes of the displayed items with their item counts.
+     */
+    private void showMakeFacets() {
+        ArrayList<Map.Entry<String, Facets.Count>> makes = new ArrayList<>(facets.getMakeCounts().entrySet());
+        if (makes.isEmpty()) {
+            makeFacets.setVisibility(View.GONE);
+            return;
+        }
+        makes.sort((a, b) -> Integer.compare(b.getValue().getCount(), a.getValue().getCount()));
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < Math.min(MAX_MAKE_FACETS, makes.size()); i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(String.format(Locale.getDefault(), "%s (%d)", makes.get(i).getKey(), makes.get(i).getValue().getCount()));
+        }
+        makeFacets.setText(text.toString());
+        makeFacets.setVisibility(View.VISIBLE);
+    }
+
     /**
      * Sets the listener for the filter dialog interactions.
      *
@@ -0,0 +1,67 @@
+package com.example.finding_tory;
+
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Checks candidate slots against a query in parallel on a ForkJoinPool. The slots are split into chunks
+ * that start on a 64-slot boundary, and each chunk writes its matches into its own words of a shared bit
+ * array, so the chunks never touch the same memory and no merging is needed afterwards. The candidates,
+ * slots and query are only read, so they must not be changed while the task runs.
+ */
+public class FilterTask extends RecursiveAction {
+    /**
+     * The number of slots each task checks on its own before splitting. This is a multiple of 64.
+     */
+    public static final int CHUNK_SIZE = 4096;
+
+    private final BitSet candidates;
+    private final ItemSlots slots;
+    private final Query query;
+    private final long[] matches;
+    private final int from;
+    private final int to;
+
+    private FilterTask(BitSet candidates, ItemSlots slots, Query query, long[] matches, int from, int to) {
+        this.candidates = candidates;
+        this.slots = slots;
+        this.query = query;
+        this.matches = matches;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Finds the candidates whose items match a query, checking chunks of candidates in parallel.
+     *
+     * @param candidates The slots of the items that could match.
+     * @param slots      The slots of the inventory's items.
+     * @param query      The query to check the items against.
+     * @param pool       The pool to run the checks on.
+     * @return BitSet with the slot of every matching item set
+     */
+    public static BitSet findMatches(BitSet candidates, ItemSlots slots, Query query, ForkJoinPool pool) {
+        int end = candidates.length();
+        long[] matches = new long[(end + 63) >>> 6];
+        pool.invoke(new FilterTask(candidates, slots, query, matches, 0, end));
+        return BitSet.valueOf(matches);
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= CHUNK_SIZE) {
+            for (int slot = candidates.nextSetBit(from); slot >= 0 && slot < to; slot = candidates.nextSetBit(slot + 1)) {
+                Item item = slots.get(slot);
+                if (item != null && query.matches(item)) {
+                    matches[slot >>> 6] |= 1L << slot;
+                }
+            }
+            return;
+        }
+        // split on a word boundary so that the two halves never write to the same word
+        int mid = ((from + to) >>> 1) & ~63;
+        invokeAll(new FilterTask(candidates, slots, query, matches, from, mid),
+                new FilterTask(candidates, slots, query, matches, mid, to));
+    }
+}
@@ -1,13 +1,49 @@
 package com.example.finding_tory;
 
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 /**
  * FirestoreDB is a utility class that provides access to Firebase Firestore database instances and references.
  * It offers static methods to retrieve the Firestore database instance and specific collection references within the database.
  */
 public class FirestoreDB {
+    /**
+     * The most writes Firestore accepts in a single batch.
+     */
+    public static final int MAX_BATCH_WRITES = 500;
+
+    /**
+     * The field of an inventory's document that records the logged operations whose summary changes were
+     * applied to it, by operation ID, with the time they were written.
+     */
+    static final String APPLIED_OPERATIONS = "appliedOperations";
+
+    /**
+     * How long an applied operation is recorded, in days. Older records are removed by the next logged
+     * summary change of the inventory, in the same update.
+     */
+    public static final int APPLIED_OPERATIONS_DAYS = 7;
+
     // debugMode true prevents any modifications to the Firestore DB, retrieval is still allowed
     private static boolean debugMode = false;
 
@@ -58,9 +94,13 @@ public class FirestoreDB {
      * @param username  The username identifying the specific user.
      * @param inventory The Inventory from which to delete the item.
      * @param item      The Item to be deleted.
+     * @return a task that completes once the item has been deleted
      */
-    public static void deleteItemDB(String username, Inventory inventory, Item item) {
-        FirestoreDB.getItemsRef(username, inventory).document(item.getId()).delete();
+    public static Task<Void> deleteItemDB(String username, Inventory inventory, Item item) {
+        if (FirestoreDB.isDebugMode()) {
+            return Tasks.forResult(null);
+        }
+        return FirestoreDB.getItemsRef(username, inventory).document(item.getId()).delete();
     }
 
     /**
@@ -69,16 +109,227 @@ public class FirestoreDB {
      * @param username     The username identifying the specific user.
      * @param inventory    The Inventory containing the item to be edited.
      * @param existingItem The existing item to be edited.
+     * @return a task that completes once the item has been written
+     */
+    public static Task<Void> editItemFromFirestore(String username, Inventory inventory, Item existingItem) {
+        if (FirestoreDB.isDebugMode()) {
+            return Tasks.forResult(null);
+        }
+        return FirestoreDB.getItemsRef(username, inventory).document(existingItem.getId()).set(existingItem);
+    }
+
+    /**
+     * Deletes many items from the Firestore database with as few batched writes as possible, instead of
+     * one request per item. The change to the inventory's summary is written in the last batch.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory from which to delete the items.
+     * @param items     The Items to be deleted.
+     * @param delta     The change the deletion makes to the inventory's summary, or null to leave it alone.
+     * @return a task that completes once every batch has been committed
+     */
+    public static Task<Void> deleteItemsDB(String username, Inventory inventory, Collection<Item> items, SummaryDelta delta) {
+        CollectionReference itemsRef = FirestoreDB.getItemsRef(username, inventory);
+        return commitInBatches(username, inventory, items, (batch, item) -> batch.delete(itemsRef.document(item.getId())), delta);
+    }
+
+    /**
+     * Overwrites many items in the Firestore database with batched writes, instead of one request per item.
+     * The change to the inventory's summary is written in the last batch.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory containing the items.
+     * @param items     The edited Items.
+     * @param delta     The change the edits make to the inventory's summary, or null to leave it alone.
+     * @return a task that completes once every batch has been committed
+     */
+    public static Task<Void> saveItemsDB(String username, Inventory inventory, Collection<Item> items, SummaryDelta delta) {
+        CollectionReference itemsRef = FirestoreDB.getItemsRef(username, inventory);
+        return commitInBatches(username, inventory, items, (batch, item) -> batch.set(itemsRef.document(item.getId()), item), delta);
+    }
+
+    /**
+     * Adds tags to many items in the Firestore database with batched writes. Each item's tags are extended
+     * with an array union, so the rest of its document is not rewritten and tags it already has are not
+     * duplicated. The change to the inventory's summary is written in the last batch.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory containing the items.
+     * @param items     The Items being tagged.
+     * @param tags      The tags to add, in any capitalization.
+     * @param delta     The change the tags make to the inventory's summary, or null to leave it alone.
+     * @return a task that completes once every batch has been committed
+     */
+    public static Task<Void> tagItemsDB(String username, Inventory inventory, Collection<Item> items, Collection<String> tags, SummaryDelta delta) {
+        LinkedHashSet<String> normalized = new LinkedHashSet<>();
+        for (String tag : tags) {
+            String n = TagIndex.normalize(tag);
+            if (n != null && !n.isEmpty()) {
+                normalized.add(n);
+            }
+        }
+        if (normalized.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        Object[] union = normalized.toArray();
+        CollectionReference itemsRef = FirestoreDB.getItemsRef(username, inventory);
+        return commitInBatches(username, inventory, items,
+                (batch, item) -> batch.update(itemsRef.document(item.getId()), "itemTags", FieldValue.arrayUnion(union)), delta);
+    }
+
+    /**
+     * Writes one operation per item, splitting them into batches of at most {@link #MAX_BATCH_WRITES}
+     * writes, and adds the summary update to the last batch. Items without an ID have no document and are
+     * skipped. Each batch reports a failure once, rather than once per item.
+     * <p>
+     * A summary change of logged operations also records their IDs in the inventory's document, in the
+     * same update. Before writing, the document is read from the local cache, which holds every write
+     * committed on this device even before the server has it, and the changes of operations recorded there
+     * are left out, so an operation that was committed just before the app was killed and is replayed is
+     * not counted twice. Reading the cache needs no connection.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory containing the items.
+     * @param items     The Items to write.
+     * @param write     Adds the write for one item to a batch.
+     * @param delta     The change to the inventory's summary, or null.
+     * @return a task that completes once every batch has been committed
+     */
+    private static Task<Void> commitInBatches(String username, Inventory inventory, Collection<Item> items,
+                                              BiConsumer<WriteBatch, Item> write, SummaryDelta delta) {
+        if (FirestoreDB.isDebugMode()) {
+            return Tasks.forResult(null);
+        }
+        DocumentReference inventoryRef = FirestoreDB.getInventoriesRef(username).document(inventory.getId());
+        if (delta == null || delta.getOperations().isEmpty()) {
+            return commitInBatches(inventoryRef, items, write, delta == null || delta.isEmpty() ? new ArrayList<>() : summaryUpdates(delta));
+        }
+        return inventoryRef.get(Source.CACHE).continueWithTask(cached -> commitInBatches(inventoryRef, items, write,
+                loggedSummaryUpdates(delta, cached.isSuccessful() ? cached.getResult() : null)));
+    }
+
+    private static Task<Void> commitInBatches(DocumentReference inventoryRef, Collection<Item> items,
+                                              BiConsumer<WriteBatch, Item> write, List<Object> updates) {
+        FirebaseFirestore db = getDb();
+        ArrayList<Task<Void>> commits = new ArrayList<>();
+        WriteBatch batch = db.batch();
+        int writes = 0;
+        for (Item item : items) {
+            if (item.getId() == null) {
+                continue;
+            }
+            if (writes == MAX_BATCH_WRITES) {
+                commits.add(commit(batch));
+                batch = db.batch();
+                writes = 0;
+            }
+            write.accept(batch, item);
+            writes++;
+        }
+        if (!updates.isEmpty()) {
+            if (writes == MAX_BATCH_WRITES) {
+                commits.add(commit(batch));
+                batch = db.batch();
+                writes = 0;
+            }
+            batch.update(inventoryRef, (FieldPath) updates.get(0), updates.get(1), updates.subList(2, updates.size()).toArray());
+            writes++;
+        }
+        if (writes > 0) {
+            commits.add(commit(batch));
+        }
+        return Tasks.whenAll(commits);
+    }
+
+    private static Task<Void> commit(WriteBatch batch) {
+        return batch.commit().addOnFailureListener(e -> {
+            // Handle failure
+            e.printStackTrace();
+        });
+    }
+
+    /**
+     * Applies changes to the summary held in an inventory's document: its item count, total value and
+     * tag counts. Each field is changed with an increment, so the document is never rewritten as a whole
+     * and concurrent changes from other devices add up instead of overwriting each other.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory whose summary changed.
+     * @param delta     The changes to the summary.
+     * @return a task that completes once the changes have been written
+     */
+    public static Task<Void> updateInventorySummary(String username, Inventory inventory, SummaryDelta delta) {
+        if (!delta.getOperations().isEmpty()) {
+            return commitInBatches(username, inventory, Collections.emptyList(), (batch, item) -> {
+            }, delta);
+        }
+        if (FirestoreDB.isDebugMode() || delta.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        ArrayList<Object> updates = summaryUpdates(delta);
+        return FirestoreDB.getInventoriesRef(username).document(inventory.getId())
+                .update((FieldPath) updates.get(0), updates.get(1), updates.subList(2, updates.size()).toArray());
+    }
+
+    /**
+     * Builds the field increments for a summary change, as alternating field paths and values. Tags are
+     * addressed with a FieldPath, so tags containing dots are not mistaken for nested fields.
+     *
+     * @param delta The changes to the summary.
+     * @return the field paths and increments
      */
-    public static void editItemFromFirestore(String username, Inventory inventory, Item existingItem) {
-        // Must delete existingItem for cases where user updates the description
-        if (!FirestoreDB.isDebugMode()) {
-            FirestoreDB.getItemsRef(username, inventory).document(existingItem.getId()).set(existingItem).addOnSuccessListener(aVoid -> {
-            }).addOnFailureListener(e -> {
-                // Handle failure
-                e.printStackTrace();
-            });
+    static ArrayList<Object> summaryUpdates(SummaryDelta delta) {
+        ArrayList<Object> updates = new ArrayList<>();
+        updates.add(FieldPath.of("itemsCount"));
+        updates.add(FieldValue.increment(delta.getCountDelta()));
+        updates.add(FieldPath.of("inventoryEstimatedValue"));
+        updates.add(FieldValue.increment(delta.getValueDelta()));
+        for (Map.Entry<String, Integer> tag : delta.getTagDeltas().entrySet()) {
+            updates.add(FieldPath.of("tagCounts", tag.getKey()));
+            updates.add(FieldValue.increment(tag.getValue()));
+        }
+        return updates;
+    }
+
+    /**
+     * Builds the updates for a summary change of logged operations: the increments for the operations not
+     * yet recorded in the inventory's cached document, the records of those operations, and the removal
+     * of records older than {@link #APPLIED_OPERATIONS_DAYS}.
+     *
+     * @param delta  The changes to the summary.
+     * @param cached The inventory's document in the local cache, or null if it is not cached.
+     * @return the field paths and values, or an empty list if every operation was already applied
+     */
+    static ArrayList<Object> loggedSummaryUpdates(SummaryDelta delta, DocumentSnapshot cached) {
+        Object field = cached == null ? null : cached.get(APPLIED_OPERATIONS);
+        Map<?, ?> applied = field instanceof Map ? (Map<?, ?>) field : Collections.emptyMap();
+        SummaryDelta increment = new SummaryDelta();
+        increment.merge(delta);
+        Date now = new Date();
+        ArrayList<Object> records = new ArrayList<>();
+        for (Map.Entry<String, SummaryDelta> operation : delta.getOperations().entrySet()) {
+            if (applied.containsKey(operation.getKey())) {
+                increment.subtract(operation.getValue());
+            } else {
+                records.add(FieldPath.of(APPLIED_OPERATIONS, operation.getKey()));
+                records.add(now);
+            }
+        }
+        if (records.isEmpty() && increment.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long expired = now.getTime() - TimeUnit.DAYS.toMillis(APPLIED_OPERATIONS_DAYS);
+        for (Map.Entry<?, ?> record : applied.entrySet()) {
+            Object written = record.getValue();
+            Date date = written instanceof Timestamp ? ((Timestamp) written).toDate() : written instanceof Date ? (Date) written : null;
+            if (date != null && date.getTime() < expired) {
+                records.add(FieldPath.of(APPLIED_OPERATIONS, String.valueOf(record.getKey())));
+                records.add(FieldValue.delete());
+            }
         }
+        ArrayList<Object> updates = summaryUpdates(increment);
+        updates.addAll(records);
+        return updates;
     }
 
     /**
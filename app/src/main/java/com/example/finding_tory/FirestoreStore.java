@@ -0,0 +1,192 @@
+package com.example.finding_tory;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Stores items and inventories in Firebase Firestore, through the references and batched writes of
+ * {@link FirestoreDB}. Results are delivered on the main thread. In debug mode writes succeed without
+ * modifying the database, while reads still go to it.
+ */
+public class FirestoreStore implements ItemStore, InventoryStore {
+
+    @Override
+    public void loadItemsPage(String username, Inventory inventory, String afterId, int limit, StoreCallback<List<Item>> callback) {
+        com.google.firebase.firestore.Query query = FirestoreDB.getItemsRef(username, inventory)
+                .orderBy(FieldPath.documentId())
+                .limit(limit);
+        if (afterId != null) {
+            query = query.startAfter(afterId);
+        }
+        query.get().addOnSuccessListener(queryDocumentSnapshots -> {
+            ArrayList<Item> page = new ArrayList<>();
+            for (QueryDocumentSnapshot documentSnapshot : queryDocumentSnapshots) {
+                Item item = documentSnapshot.toObject(Item.class);
+                item.setId(documentSnapshot.getId());
+                page.add(item);
+            }
+            callback.onSuccess(page);
+        }).addOnFailureListener(callback::onFailure);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The ID is generated on the device, so the item is written once with its ID instead of being added
+     * and then written again.
+     */
+    @Override
+    public void addItem(String username, Inventory inventory, Item item, StoreCallback<Item> callback) {
+        DocumentReference itemRef = FirestoreDB.getItemsRef(username, inventory).document();
+        item.setId(itemRef.getId());
+        Task<Void> task = FirestoreDB.isDebugMode() ? Tasks.forResult(null) : itemRef.set(item);
+        task.addOnSuccessListener(aVoid -> callback.onSuccess(item)).addOnFailureListener(callback::onFailure);
+    }
+
+    @Override
+    public void saveItem(String username, Inventory inventory, Item item, StoreCallback<Void> callback) {
+        deliver(FirestoreDB.editItemFromFirestore(username, inventory, item), callback);
+    }
+
+    @Override
+    public void saveItems(String username, Inventory inventory, Collection<Item> items, SummaryDelta delta, StoreCallback<Void> callback) {
+        deliver(FirestoreDB.saveItemsDB(username, inventory, items, delta), callback);
+    }
+
+    @Override
+    public void deleteItem(String username, Inventory inventory, Item item, StoreCallback<Void> callback) {
+        deliver(FirestoreDB.deleteItemDB(username, inventory, item), callback);
+    }
+
+    @Override
+    public void deleteItems(String username, Inventory inventory, Collection<Item> items, SummaryDelta delta, StoreCallback<Void> callback) {
+        deliver(FirestoreDB.deleteItemsDB(username, inventory, items, delta), callback);
+    }
+
+    @Override
+    public void tagItems(String username, Inventory inventory, Collection<Item> items, Collection<String> tags, SummaryDelta delta, StoreCallback<Void> callback) {
+        deliver(FirestoreDB.tagItemsDB(username, inventory, items, tags, delta), callback);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Changes made on this device are skipped while they still have pending writes.
+     */
+    @Override
+    public StoreListener.Registration listenItems(String username, Inventory inventory, StoreListener<Item> listener) {
+        ListenerRegistration registration = FirestoreDB.getItemsRef(username, inventory).addSnapshotListener((snapshots, e) -> {
+            if (e != null) {
+                e.printStackTrace();
+                return;
+            }
+            ArrayList<Item> changed = new ArrayList<>();
+            ArrayList<String> removedIds = new ArrayList<>();
+            for (DocumentChange change : snapshots.getDocumentChanges()) {
+                DocumentSnapshot document = change.getDocument();
+                if (document.getMetadata().hasPendingWrites()) {
+                    continue;
+                }
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    removedIds.add(document.getId());
+                } else {
+                    Item item = document.toObject(Item.class);
+                    item.setId(document.getId());
+                    changed.add(item);
+                }
+            }
+            if (!changed.isEmpty() || !removedIds.isEmpty()) {
+                listener.onChanges(changed, removedIds);
+            }
+        });
+        return registration::remove;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The ID is generated on the device, so the inventory is written once with its ID instead of being
+     * added and then updated.
+     */
+    @Override
+    public void addInventory(String username, Inventory inventory, StoreCallback<Inventory> callback) {
+        DocumentReference inventoryRef = FirestoreDB.getInventoriesRef(username).document();
+        inventory.setId(inventoryRef.getId());
+        Task<Void> task = FirestoreDB.isDebugMode() ? Tasks.forResult(null) : inventoryRef.set(inventory);
+        task.addOnSuccessListener(aVoid -> callback.onSuccess(inventory)).addOnFailureListener(callback::onFailure);
+    }
+
+    @Override
+    public void renameInventory(String username, Inventory inventory, StoreCallback<Void> callback) {
+        if (FirestoreDB.isDebugMode()) {
+            callback.onSuccess(null);
+            return;
+        }
+        // only the name changed, so the item count, value and tag counts in the document are left alone
+        deliver(FirestoreDB.getInventoriesRef(username).document(inventory.getId()).update("inventoryName", inventory.getInventoryName()), callback);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The items are deleted with batched writes before the inventory's document is deleted.
+     */
+    @Override
+    public void deleteInventory(String username, Inventory inventory, StoreCallback<Void> callback) {
+        if (FirestoreDB.isDebugMode()) {
+            callback.onSuccess(null);
+            return;
+        }
+        FirestoreDB.getItemsRef(username, inventory).get().continueWithTask(task -> {
+            ArrayList<Item> items = new ArrayList<>();
+            for (QueryDocumentSnapshot document : task.getResult()) {
+                Item item = new Item();
+                item.setId(document.getId());
+                items.add(item);
+            }
+            return FirestoreDB.deleteItemsDB(username, inventory, items, null);
+        }).continueWithTask(task -> {
+            task.getResult();  // rethrows the failure to delete the items, if any
+            return FirestoreDB.getInventoriesRef(username).document(inventory.getId()).delete();
+        }).addOnSuccessListener(callback::onSuccess).addOnFailureListener(callback::onFailure);
+    }
+
+    @Override
+    public void updateSummary(String username, Inventory inventory, SummaryDelta delta, StoreCallback<Void> callback) {
+        deliver(FirestoreDB.updateInventorySummary(username, inventory, delta), callback);
+    }
+
+    @Override
+    public StoreListener.Registration listenInventories(String username, StoreListener<Inventory> listener) {
+        ListenerRegistration registration = FirestoreDB.getInventoriesRef(username).addSnapshotListener((snapshots, e) -> {
+            if (e != null) {
+                e.printStackTrace();
+                return;
+            }
+            ArrayList<Inventory> changed = new ArrayList<>();
+            ArrayList<String> removedIds = new ArrayList<>();
+            for (DocumentChange change : snapshots.getDocumentChanges()) {
+                DocumentSnapshot document = change.getDocument();
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    removedIds.add(document.getId());
+                } else {
+                    Inventory inventory = document.toObject(Inventory.class);
+                    inventory.setId(document.getId());
+                    changed.add(inventory);
+                }
+            }
+            listener.onChanges(changed, removedIds);
+        });
+        return registration::remove;
+    }
+
+    private static <T> void deliver(Task<T> task, StoreCallback<T> callback) {
+        task.addOnSuccessListener(callback::onSuccess).addOnFailureListener(callback::onFailure);
+    }
+}
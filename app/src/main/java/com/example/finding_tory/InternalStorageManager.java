@@ -3,19 +3,26 @@ package com.example.finding_tory;
 import android.content.Context;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
 
 /**
  * A class for managing internal storage operations in an Android application.
  * This class provides functionality to save and retrieve user data, specifically usernames,
  * to and from internal storage. It utilizes Android's file system to store data in a private mode,
- * ensuring the data is accessible only to the application.
+ * ensuring the data is accessible only to the application. It also caches the items of each inventory
+ * in the compact format of {@link ItemCodec}, so that an inventory can be shown before it is loaded from Firestore.
  */
 public class InternalStorageManager {
     private static final String FILENAME = "user_data.txt";
+    private static final String ITEMS_FILENAME_PREFIX = "items_";
+    private static final String OPERATION_LOG_FILENAME = "operations.log";
     private Context context;
 
     public InternalStorageManager(Context context) {
@@ -52,4 +59,50 @@ public class InternalStorageManager {
         fis.close();
         return sb.toString();
     }
+
+    /**
+     * Caches the items of an inventory, replacing any items cached for it before.
+     *
+     * @param inventoryId The ID of the inventory.
+     * @param items       The items to cache.
+     * @throws IOException If an I/O error occurs while writing the items to the file.
+     */
+    public void saveItems(String inventoryId, Collection<Item> items) throws IOException {
+        byte[] encoded = ItemCodec.encodeItems(items);
+        FileOutputStream fos = context.openFileOutput(ITEMS_FILENAME_PREFIX + inventoryId, Context.MODE_PRIVATE);
+        fos.write(encoded);
+        fos.close();
+    }
+
+    /**
+     * Retrieves the cached items of an inventory.
+     *
+     * @param inventoryId The ID of the inventory.
+     * @return The cached items.
+     * @throws IOException If no items are cached for the inventory, or the cached items cannot be read.
+     */
+    public ArrayList<Item> loadItems(String inventoryId) throws IOException {
+        FileInputStream fis = context.openFileInput(ITEMS_FILENAME_PREFIX + inventoryId);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = fis.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        fis.close();
+        try {
+            return ItemCodec.decodeItems(bytes.toByteArray());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Cached items are unreadable", e);
+        }
+    }
+
+    /**
+     * Gets the file holding the {@link OperationLog} of item writes that have not reached Firestore yet.
+     *
+     * @return The file, which may not exist yet.
+     */
+    public File getOperationLogFile() {
+        return new File(context.getFilesDir(), OPERATION_LOG_FILENAME);
+    }
 }
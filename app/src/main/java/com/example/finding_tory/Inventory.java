@@ -1,29 +1,90 @@
 package com.example.finding_tory;
 
+import com.google.firebase.firestore.Exclude;
+import com.google.firebase.firestore.IgnoreExtraProperties;
 import com.google.firebase.firestore.PropertyName;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 /**
  * Represents an inventory containing a collection of items. This class provides functionalities to manage
  * an inventory, such as adding, removing, and accessing items. It also calculates the total estimated value of all
  * items in the inventory.
+ * <p>
+ * In Firestore, an inventory's document only holds a summary: its ID, name, item count, total value and
+ * the number of items with each tag. The items live in the inventory's items subcollection. An inventory
+ * read from its document reports the summary until its items are loaded with {@link #setItems}. The
+ * document also records the logged operations applied to its summary, which the inventory ignores.
  */
+@IgnoreExtraProperties
 public class Inventory implements Serializable {
+    /**
+     * Inventories with at least this many items are filtered and sorted in parallel, if a pool has been
+     * set with {@link #setParallelPool}. Smaller inventories are faster to handle on one thread.
+     */
+    public static final int PARALLEL_THRESHOLD = 20_000;
+
     private String id;
     private String inventoryName;
-    private ArrayList<Item> items;
+    private LinkedHashMap<String, Item> itemsById;
+    private IdentityHashMap<Item, String> localKeys;
+    private int nextLocalKey;
+    private transient ArrayList<Item> itemList;
     private ArrayList<Item> displayItems;
     private double inventoryEstimatedValue;
-    private ArrayList<String> allTags;
+    private boolean itemsLoaded;
+    private int summaryCount;
+    private double summaryValue;
+    private HashMap<String, Integer> summaryTagCounts;
+    private ItemSlots slots;
+    private ItemColumns columns;
+    private DateIndex dateIndex;
+    private TagIndex tagIndex;
+    private NGramIndex descriptionIndex;
+    private NGramIndex makeIndex;
+    private HashMap<String, SortIndex> sortIndexes;
+    private BitSet displayedSlots;
+    private SortIndex displayOrder;
+    private boolean displayDescending;
+    private transient int displayVersion;
+    private transient DisplayWindow displayWindow;
+    private Facets facets;
+    private transient Comparator<Item> displayComparator;
+    private transient Comparator<Item> displayComparatorSource;
+    private transient ForkJoinPool parallelPool;
     private Sort sort;
     private Filter filter;
+    private Query query;
 
     public Inventory() {
+        this.itemsById = new LinkedHashMap<>();
+        this.localKeys = new IdentityHashMap<>();
+        this.displayItems = new ArrayList<>();
+        this.inventoryEstimatedValue = 0;
+        this.slots = new ItemSlots();
+        this.columns = new ItemColumns();
+        this.dateIndex = new DateIndex();
+        this.tagIndex = new TagIndex();
+        this.descriptionIndex = new NGramIndex();
+        this.makeIndex = new NGramIndex();
+        this.sortIndexes = newSortIndexes(this.slots);
+        this.displayedSlots = new BitSet();
+        this.facets = new Facets(this.columns);
+        this.sort = new Sort();
+        this.filter = new Filter();
     }
 
     /**
@@ -33,13 +94,9 @@ public class Inventory implements Serializable {
      * @param name The name of the inventory.
      */
     public Inventory(String name) {
+        this();
         this.inventoryName = name;
-        this.items = new ArrayList<>();
-        this.displayItems = new ArrayList<>();
-        this.inventoryEstimatedValue = 0;
-        this.allTags = new ArrayList<>();
-        this.sort = new Sort();
-        this.filter = new Filter();
+        this.itemsLoaded = true;
     }
 
     /**
@@ -53,29 +110,109 @@ public class Inventory implements Serializable {
     }
 
     /**
-     * Gets the list of Items stored by the inventory.
+     * Gets the list of Items stored by the inventory, in the order they were added. The list is a
+     * snapshot that is kept until the inventory's items change, so changes to it do not affect the inventory.
      *
      * @return ArrayList holding the inventory's items
      */
-
-    @PropertyName("items")
+    @Exclude
     public ArrayList<Item> getItems() {
-        return items;
+        if (itemList == null) {
+            itemList = new ArrayList<>(itemsById.values());
+        }
+        return itemList;
     }
 
+    /**
+     * Looks up an item of the inventory by its ID.
+     *
+     * @param id The ID of the item.
+     * @return the item, or null if the inventory has no item with that ID
+     */
+    public Item getItemById(String id) {
+        return id == null ? null : itemsById.get(id);
+    }
+
+    /**
+     * Gets the total estimated value of the inventory's items, or the value stored in the inventory's
+     * summary if its items have not been loaded.
+     *
+     * @return total value of the inventory
+     */
     @PropertyName("inventoryEstimatedValue")
     public double getInventoryEstimatedValue() {
-        return inventoryEstimatedValue;
+        return itemsLoaded ? inventoryEstimatedValue : summaryValue;
+    }
+
+    /**
+     * Sets the total value stored in the inventory's summary, which is reported until the items are loaded.
+     *
+     * @param value total value of the inventory
+     */
+    @PropertyName("inventoryEstimatedValue")
+    public void setInventoryEstimatedValue(double value) {
+        this.summaryValue = value;
     }
 
     /**
-     * Gets the number of Items being held by the inventory.
+     * Gets the number of Items being held by the inventory, or the count stored in the inventory's summary
+     * if its items have not been loaded.
      *
      * @return size of the inventory
      */
     @PropertyName("itemsCount")
     public int getCount() {
-        return items.size();
+        return itemsLoaded ? itemsById.size() : summaryCount;
+    }
+
+    /**
+     * Sets the item count stored in the inventory's summary, which is reported until the items are loaded.
+     *
+     * @param count number of items in the inventory
+     */
+    @PropertyName("itemsCount")
+    public void setCount(int count) {
+        this.summaryCount = count;
+    }
+
+    /**
+     * Gets the number of items with each tag, or the counts stored in the inventory's summary if its items
+     * have not been loaded.
+     *
+     * @return map from each tag to the number of items with it, in alphabetical order of tags
+     */
+    @PropertyName("tagCounts")
+    public Map<String, Integer> getTagCounts() {
+        TreeMap<String, Integer> counts = new TreeMap<>();
+        if (itemsLoaded) {
+            for (String tag : this.tagIndex.getSortedTags()) {
+                counts.put(tag, this.tagIndex.getCount(tag));
+            }
+        } else if (summaryTagCounts != null) {
+            counts.putAll(summaryTagCounts);
+        }
+        return counts;
+    }
+
+    /**
+     * Sets the tag counts stored in the inventory's summary, which are reported until the items are loaded.
+     *
+     * @param tagCounts map from each tag to the number of items with it
+     */
+    @PropertyName("tagCounts")
+    public void setTagCounts(Map<String, Integer> tagCounts) {
+        this.summaryTagCounts = tagCounts == null ? null : new HashMap<>(tagCounts);
+    }
+
+    /**
+     * Checks whether the inventory's items have been loaded, or whether it only knows the summary stored in
+     * its Firestore document.
+     *
+     * @return true if the items are loaded, false otherwise
+     */
+    @Exclude
+    public boolean isItemsLoaded() {
+        return itemsLoaded;
     }
 
     /**
@@ -107,34 +244,89 @@ public class Inventory implements Serializable {
 
 
     /**
-     * Recalculates the total value of all items in the inventory.
-     * This method should be called whenever the list of items is modified.
+     * Recalculates the total value of all items in the inventory, re-reading each item's value and
+     * date into the inventory's columns and moving items whose date or value changed in the date and
+     * value orders. Changes made through the inventory's own methods keep the total up to date, so this
+     * is only needed after an item was changed directly.
      */
     public void calculateValue() {
-        this.inventoryEstimatedValue = 0;
-        for (Item item : items) {
-            this.inventoryEstimatedValue += item.getEstimatedValue();
+        for (Item item : itemsById.values()) {
+            int slot = slots.slotOf(item);
+            if (slot >= 0) {
+                long previousDate = columns.getDateMillis(slot);
+                long previousValue = columns.getValueCents(slot);
+                boolean displayed = hideSlot(slot);
+                columns.set(slot, item);
+                if (displayed) {
+                    showSlot(slot);
+                }
+                if (columns.getDateMillis(slot) != previousDate) {
+                    dateIndex.remove(previousDate, slot);
+                    dateIndex.add(columns.getDateMillis(slot), slot);
+                    reorder("Date", slot);
+                }
+                if (columns.getValueCents(slot) != previousValue) {
+                    reorder("Value", slot);
+                }
+            }
         }
+        updateEstimatedValue();
+    }
+
+    /**
+     * Moves an item whose sort key changed to its new position in a sort index.
+     *
+     * @param sortType The sort type whose key changed.
+     * @param slot     The slot of the item.
+     */
+    private void reorder(String sortType, int slot) {
+        SortIndex sortIndex = sortIndexes.get(sortType);
+        sortIndex.remove(slot);
+        sortIndex.add(slot);
+    }
+
+    /**
+     * Sets the total value of the inventory from the running total kept by its columns. Every change to
+     * the inventory's items ends here, so from then on the count, value and tag counts are read from the
+     * items instead of the stored summary.
+     */
+    private void updateEstimatedValue() {
+        this.itemsLoaded = true;
+        this.inventoryEstimatedValue = columns.getTotalCents() / 100.0;
     }
 
     /**
      * Sets the list of Items being held in the inventory, overwriting any previous lists.
-     * Also recalculates the total inventory value based on the new items.
+     * Also recalculates the total inventory value based on the new items, and rebuilds the
+     * displayed items with a single filter and sort pass. The order for each other sort type is
+     * built the first time the inventory is sorted by it. If several items share an ID, the last of
+     * them is kept.
      *
      * @param items new ArrayList of Items to store
      */
+    @Exclude
     public void setItems(ArrayList<Item> items) {
-        this.items = new ArrayList<>(items);
-        this.displayItems = new ArrayList<>(items);
-        calculateValue();
-        this.allTags = new ArrayList<>();
+        this.itemsById = new LinkedHashMap<>();
+        this.localKeys = new IdentityHashMap<>();
+        this.itemList = null;
         for (Item item : items) {
-            for (String s : item.getItemTags()) {
-                if (!this.allTags.contains(capitalizeFirstLetter(s))) {
-                    this.allTags.add(capitalizeFirstLetter(s));
-                }
-            }
+            this.itemsById.put(newKey(item), item);
+        }
+        this.slots = new ItemSlots();
+        this.columns = new ItemColumns();
+        this.dateIndex = new DateIndex();
+        this.tagIndex = new TagIndex();
+        this.descriptionIndex = new NGramIndex();
+        this.makeIndex = new NGramIndex();
+        this.sortIndexes = newSortIndexes(this.slots);
+        this.displayedSlots = new BitSet();
+        this.facets = new Facets(this.columns);
+        for (Item item : this.itemsById.values()) {
+            indexFields(item);
         }
+        this.dateIndex.rebuild(this.columns, getParallelPool());
+        updateEstimatedValue();
+        filterItems();
     }
 
     /**
@@ -144,106 +336,656 @@ public class Inventory implements Serializable {
      * @return The item at the specified index.
      */
     public Item get(int index) {
-        return this.items.get(index);
+        return getItems().get(index);
     }
 
     /**
-     * Replaces an item at a specific index in the inventory with a new item.
-     * Also recalculates the total inventory value after the replacement.
+     * Replaces a displayed item with a new item.
+     * If the new item has the same ID as the old one it takes the old item's place in the inventory,
+     * otherwise the old item is removed and the new one added. The new item is checked once against the
+     * current filter and inserted at its sorted position, and the total inventory value is adjusted by
+     * the difference.
      *
-     * @param index The index of the item to replace.
+     * @param index The index (in the displayed items) of the item to replace.
      * @param item  The new item to set in the inventory.
      */
     public void set(int index, Item item) {
-        items.remove(displayItems.get(index));
-        displayItems.set(index, item);
-        items.add(displayItems.get(index));
-        for (String s : item.getItemTags()) {
-            if (!this.allTags.contains(capitalizeFirstLetter(s))) {
-                this.allTags.add(capitalizeFirstLetter(s));
-            }
+        Item previous = getDisplayWindow().get(index);
+        if (item.getId() != null && item.getId().equals(previous.getId()) && replaceItem(item)) {
+            return;
+        }
+        if (displayOrder == null) {
+            displayItems.remove(index);
+        }
+        itemsById.remove(keyOf(previous));
+        localKeys.remove(previous);
+        itemList = null;
+        unindexItem(previous);
+        addItem(item);
+    }
+
+    /**
+     * Replaces the item that has the same ID as a given item, e.g. an edited copy of it, keeping its place
+     * in the inventory. The old item is found by ID instead of by searching the inventory, and the new item
+     * is moved to its sorted position in the displayed items if it still matches the filter.
+     *
+     * @param item The new version of the item.
+     * @return true if an item with the same ID was replaced, false if the inventory has no such item
+     */
+    public boolean replaceItem(Item item) {
+        Item previous = getItemById(item.getId());
+        if (previous == null) {
+            return false;
         }
-        calculateValue();
+        removeDisplayedItem(previous);
+        unindexItem(previous);
+        this.localKeys.remove(previous);
+        this.itemsById.put(item.getId(), item);
+        this.itemList = null;
+        indexItem(item);
+        updateEstimatedValue();
+        if (isDisplayed(item)) {
+            insertDisplayedItem(item);
+        }
+        return true;
     }
 
     /**
      * Adds a new item to the inventory and updates the total value.
+     * If the item matches the current filter, it is inserted into the displayed items at its sorted position.
+     * If the inventory already has an item with the same ID, that item is replaced instead.
      *
      * @param item The item to add to the inventory.
      */
     public void addItem(Item item) {
-        this.items.add(item);
-        this.displayItems.add(item);
-        for (String s : item.getItemTags()) {
-            if (!this.allTags.contains(capitalizeFirstLetter(s))) {
-                this.allTags.add(capitalizeFirstLetter(s));
-            }
+        Item previous = getItemById(item.getId());
+        if (previous == item) {
+            return;
+        } else if (previous != null) {
+            replaceItem(item);
+            return;
+        }
+        this.itemsById.put(newKey(item), item);
+        this.itemList = null;
+        indexItem(item);
+        updateEstimatedValue();
+        if (isDisplayed(item)) {
+            insertDisplayedItem(item);
         }
-        Collections.sort(this.allTags);
-        this.inventoryEstimatedValue += item.getEstimatedValue();
     }
 
     /**
      * Removes an item from the inventory and updates the total value, and tags.
+     * The item is looked up by its ID, so removing it does not search the inventory.
      *
      * @param item The item to remove from the inventory.
      */
     public void removeItem(Item item) {
-        for (String tag : item.getItemTags()) {
-            this.allTags.remove(capitalizeFirstLetter(tag));
+        String key = keyOf(item);
+        if (this.itemsById.get(key) != item) {
+            return;
         }
-        this.items.remove(item);
-        this.displayItems.remove(item);
-        this.inventoryEstimatedValue -= item.getEstimatedValue();
+        removeDisplayedItem(item);
+        unindexItem(item);
+        this.itemsById.remove(key);
+        this.localKeys.remove(item);
+        this.itemList = null;
+        updateEstimatedValue();
+    }
+
+    /**
+     * Removes the item with a given ID from the inventory and updates the total value.
+     *
+     * @param id The ID of the item to remove.
+     * @return the removed item, or null if the inventory has no item with that ID
+     */
+    public Item removeItemById(String id) {
+        Item item = getItemById(id);
+        if (item != null) {
+            removeItem(item);
+        }
+        return item;
     }
 
     /**
      * Removes an item at a specific index from the inventory and updates the total value.
      *
-     * @param i The index of the item to remove.
+     * @param i The index (in the displayed items) of the item to remove.
      */
     public void removeItemByIndex(int i) {
-        for (String tag : this.displayItems.get(i).getItemTags()) {
-            this.allTags.remove(capitalizeFirstLetter(tag));
+        Item item = getDisplayWindow().get(i);
+        if (this.displayOrder == null) {
+            this.displayItems.remove(i);
         }
-        this.inventoryEstimatedValue -= this.displayItems.get(i).getEstimatedValue();
-        this.items.remove(this.displayItems.get(i));
-        this.displayItems.remove(i);
+        unindexItem(item);
+        updateEstimatedValue();
+        this.itemsById.remove(keyOf(item));
+        this.localKeys.remove(item);
+        this.itemList = null;
+    }
+
+    /**
+     * Gets the key an item is stored under: its ID, or a local key if it had no ID when it was added.
+     *
+     * @param item The item to look up.
+     * @return the item's key
+     */
+    private String keyOf(Item item) {
+        String key = localKeys.get(item);
+        return key != null ? key : item.getId();
     }
 
     /**
-     * Adds unique tags to the inventory.
+     * Chooses the key to store a new item under. Items without an ID, e.g. ones that have not been saved
+     * yet, get a local key that cannot clash with a Firestore ID.
      *
+     * @param item The item being stored.
+     * @return the item's key
+     */
+    private String newKey(Item item) {
+        if (item.getId() != null) {
+            return item.getId();
+        }
+        String key = "#" + nextLocalKey++;
+        localKeys.put(item, key);
+        return key;
+    }
+
+    /**
+     * Adds tags to an item of this inventory, keeping the inventory's tag counts up to date.
+     * Tags the item already has are skipped, and an item that is not in this inventory is left alone.
+     * Since tags affect filtering and sorting, the item is re-checked against the filter and moved to its
+     * new sorted position, both in the displayed items and in the tag sort order.
+     *
+     * @param item    The item to tag.
      * @param newTags An ArrayList of new tags to be added.
      */
-    public void addTagsToInventory(ArrayList<String> newTags) {
-        for (String s : newTags) {
-            if (!allTags.contains(capitalizeFirstLetter(s))) {
-                newTags.add(capitalizeFirstLetter(s));
+    public void addItemTags(Item item, ArrayList<String> newTags) {
+        int slot = this.slots.slotOf(item);
+        if (slot < 0) {
+            return;
+        }
+        ArrayList<String> added = newTagsOf(item, newTags);
+        if (added.isEmpty()) {
+            return;
+        }
+        removeDisplayedItem(item);
+        hideSlot(slot);
+        SortIndex tagOrder = this.sortIndexes.get("Tags");
+        tagOrder.remove(slot);
+        for (String tag : added) {
+            item.addItemTag(tag);
+            this.tagIndex.addTag(tag, slot);
+        }
+        this.columns.setTags(slot, item.getItemTags());
+        tagOrder.add(slot);
+        if (isDisplayed(item)) {
+            insertDisplayedItem(item);
+        }
+    }
+
+    /**
+     * Gets the normalized tags an item does not have yet, without duplicates.
+     *
+     * @param item The item being tagged.
+     * @param tags The tags to add, in any capitalization.
+     * @return the tags that would be added
+     */
+    private static ArrayList<String> newTagsOf(Item item, Collection<String> tags) {
+        ArrayList<String> added = new ArrayList<>();
+        for (String s : tags) {
+            String tag = TagIndex.normalize(s);
+            if (tag != null && !tag.isEmpty() && !item.hasTag(tag) && !added.contains(tag)) {
+                added.add(tag);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Adds many items to the inventory at once. Every item is stored and indexed first, and then the sort
+     * orders, the date index, the total value and the displayed items are each updated once for the whole
+     * batch, so adding k items to an inventory of n items takes O(n + k log k) time. Items with the same ID
+     * as an item already in the inventory replace it.
+     *
+     * @param newItems The items to add.
+     */
+    public void addAll(Collection<Item> newItems) {
+        // like setItems, the last of several items with the same ID is kept
+        HashMap<String, Item> latest = new HashMap<>();
+        for (Item item : newItems) {
+            if (item.getId() != null) {
+                latest.put(item.getId(), item);
+            }
+        }
+        ArrayList<Item> replaced = new ArrayList<>();
+        for (Item item : latest.values()) {
+            Item previous = this.itemsById.get(item.getId());
+            if (previous != null && previous != item) {
+                replaced.add(previous);
+            }
+        }
+        removeAll(replaced);
+        int[] added = new int[newItems.size()];
+        int count = 0;
+        for (Item item : newItems) {
+            if ((item.getId() != null && latest.get(item.getId()) != item) || this.slots.slotOf(item) >= 0) {
+                continue;
+            }
+            this.itemsById.put(newKey(item), item);
+            int slot = this.slots.add(item);
+            this.columns.set(slot, item);
+            added[count++] = slot;
+            if (isDisplayed(item)) {
+                showSlot(slot);
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        this.itemList = null;
+        indexFieldsAll(added, count);
+        this.dateIndex.addAll(added, count, this.columns);
+        for (SortIndex sortIndex : this.sortIndexes.values()) {
+            sortIndex.addAll(added, count);
+        }
+        updateEstimatedValue();
+        materializeDisplayedItems();
+    }
+
+    /**
+     * Applies a set of changes made elsewhere, e.g. by another device, in two batched passes: items with
+     * the given IDs are removed, then the changed items are added, replacing any item with the same ID.
+     *
+     * @param changedItems The added or modified items.
+     * @param removedIds   The IDs of the removed items. IDs the inventory does not have are skipped.
+     */
+    public void applyChanges(Collection<Item> changedItems, Collection<String> removedIds) {
+        ArrayList<Item> removed = new ArrayList<>(removedIds.size());
+        for (String id : removedIds) {
+            Item item = getItemById(id);
+            if (item != null) {
+                removed.add(item);
             }
         }
+        if (!removed.isEmpty()) {
+            removeAll(removed);
+        }
+        if (!changedItems.isEmpty()) {
+            addAll(changedItems);
+        }
     }
 
     /**
-     * Retrieves all the tags in the inventory.
+     * Removes many items from the inventory at once. The items are looked up by ID, and then the sort
+     * orders, the date index, the displayed items and the total value are each updated with a single pass,
+     * so removing k items from an inventory of n items takes O(n + k) time. Items that are not in the
+     * inventory are skipped.
+     *
+     * @param removedItems The items to remove.
+     */
+    public void removeAll(Collection<Item> removedItems) {
+        BitSet removed = new BitSet(this.slots.capacity());
+        int[] removedSlots = new int[removedItems.size()];
+        int count = 0;
+        for (Item item : removedItems) {
+            String key = keyOf(item);
+            if (this.itemsById.get(key) != item) {
+                continue;
+            }
+            int slot = this.slots.slotOf(item);
+            removed.set(slot);
+            removedSlots[count++] = slot;
+            this.itemsById.remove(key);
+            this.localKeys.remove(item);
+        }
+        if (count == 0) {
+            return;
+        }
+        this.itemList = null;
+        for (SortIndex sortIndex : this.sortIndexes.values()) {
+            sortIndex.removeAll(removed);
+        }
+        this.dateIndex.removeAll(removed);
+        unindexFieldsAll(removedSlots, count);
+        Set<Item> removedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < count; i++) {
+            int slot = removedSlots[i];
+            Item item = this.slots.get(slot);
+            removedSet.add(item);
+            hideSlot(slot);
+            this.columns.clear(slot);
+            this.slots.remove(item);
+        }
+        if (this.displayOrder == null) {
+            this.displayItems.removeIf(removedSet::contains);
+        }
+        updateEstimatedValue();
+    }
+
+    /**
+     * Changes every item in the inventory with a single update. See {@link #updateAll(Collection, Consumer)}.
+     *
+     * @param update The change to make to each item. It must not change the item's ID.
+     */
+    public void updateAll(Consumer<Item> update) {
+        updateAll(new ArrayList<>(this.itemsById.values()), update);
+    }
+
+    /**
+     * Changes many items of the inventory at once. The items are taken out of the indexes, changed, and
+     * put back, and then the sort orders, the date index, the total value and the displayed items are each
+     * updated once for the whole batch. Items that are not in the inventory are skipped.
+     *
+     * @param changedItems The items to change.
+     * @param update       The change to make to each item. It must not change the item's ID.
+     */
+    public void updateAll(Collection<Item> changedItems, Consumer<Item> update) {
+        BitSet changed = new BitSet(this.slots.capacity());
+        int[] changedSlots = new int[changedItems.size()];
+        int count = 0;
+        // text and tags are indexed by value, so they have to be unindexed before the update changes them
+        for (Item item : changedItems) {
+            int slot = this.slots.slotOf(item);
+            if (slot < 0 || changed.get(slot)) {
+                continue;
+            }
+            changed.set(slot);
+            changedSlots[count++] = slot;
+            hideSlot(slot);
+        }
+        if (count == 0) {
+            return;
+        }
+        unindexFieldsAll(changedSlots, count);
+        for (SortIndex sortIndex : this.sortIndexes.values()) {
+            sortIndex.removeAll(changed);
+        }
+        this.dateIndex.removeAll(changed);
+        for (int i = 0; i < count; i++) {
+            int slot = changedSlots[i];
+            Item item = this.slots.get(slot);
+            update.accept(item);
+            this.columns.set(slot, item);
+            if (isDisplayed(item)) {
+                showSlot(slot);
+            }
+        }
+        indexFieldsAll(changedSlots, count);
+        this.dateIndex.addAll(changedSlots, count, this.columns);
+        for (SortIndex sortIndex : this.sortIndexes.values()) {
+            sortIndex.addAll(changedSlots, count);
+        }
+        updateEstimatedValue();
+        materializeDisplayedItems();
+    }
+
+    /**
+     * Adds tags to many items at once, e.g. a selection. Tags an item already has are skipped, and items
+     * that are not in this inventory are left alone. Only the tags actually added are indexed, and the tag
+     * order, the filter and the displayed items are updated once for the whole batch instead of once per item.
+     *
+     * @param taggedItems The items to tag.
+     * @param newTags     The tags to add.
+     */
+    public void applyTags(Collection<Item> taggedItems, Collection<String> newTags) {
+        BitSet changed = new BitSet(this.slots.capacity());
+        int[] changedSlots = new int[taggedItems.size()];
+        HashMap<Integer, ArrayList<String>> addedBySlot = new HashMap<>();
+        int count = 0;
+        for (Item item : taggedItems) {
+            int slot = this.slots.slotOf(item);
+            if (slot < 0 || changed.get(slot)) {
+                continue;
+            }
+            ArrayList<String> added = newTagsOf(item, newTags);
+            if (added.isEmpty()) {
+                continue;
+            }
+            for (String tag : added) {
+                item.addItemTag(tag);
+            }
+            changed.set(slot);
+            changedSlots[count++] = slot;
+            addedBySlot.put(slot, added);
+            hideSlot(slot);
+            this.columns.setTags(slot, item.getItemTags());
+        }
+        if (count == 0) {
+            return;
+        }
+        this.tagIndex.addAll(changedSlots, count, addedBySlot::get);
+        SortIndex tagOrder = this.sortIndexes.get("Tags");
+        tagOrder.removeAll(changed);
+        tagOrder.addAll(changedSlots, count);
+        for (int i = 0; i < count; i++) {
+            int slot = changedSlots[i];
+            if (isDisplayed(this.slots.get(slot))) {
+                showSlot(slot);
+            }
+        }
+        materializeDisplayedItems();
+    }
+
+    /**
+     * Inserts an item into the displayed items at its position under the current sort.
+     *
+     * @param item The item to insert.
+     */
+    private void insertDisplayedItem(Item item) {
+        showSlot(slots.slotOf(item));
+        if (displayOrder != null) {
+            return;
+        }
+        Comparator<Item> comparator = getDisplayComparator();
+        if (comparator == null) {
+            displayItems.add(item);
+            return;
+        }
+        int low = 0;
+        int high = displayItems.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (comparator.compare(displayItems.get(mid), item) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        displayItems.add(low, item);
+    }
+
+    /**
+     * Removes an item from the list of displayed items, if the displayed items are currently kept as a list.
+     * The item's displayed slot is cleared separately.
+     *
+     * @param item The item to remove.
+     */
+    private void removeDisplayedItem(Item item) {
+        if (displayOrder != null) {
+            return;
+        }
+        int displayIndex = indexOfDisplayedItem(item);
+        if (displayIndex >= 0) {
+            displayItems.remove(displayIndex);
+        }
+    }
+
+    /**
+     * Finds the position of an item in the displayed items, using a binary search on the current sort
+     * and falling back to a linear search if the item's sort key has changed since it was inserted.
+     *
+     * @param item The item to look for.
+     * @return the index of the item in the displayed items, or -1 if it is not displayed
+     */
+    private int indexOfDisplayedItem(Item item) {
+        int slot = slots.slotOf(item);
+        if (slot >= 0 && !displayedSlots.get(slot)) {
+            return -1;
+        }
+        Comparator<Item> comparator = getDisplayComparator();
+        if (comparator != null && slot >= 0) {
+            int low = 0;
+            int high = displayItems.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(displayItems.get(mid), item) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            if (low < displayItems.size() && displayItems.get(low) == item) {
+                return low;
+            }
+        }
+        return displayItems.indexOf(item);
+    }
+
+    /**
+     * Gets the comparator for the displayed items. It orders items like the current sort, and breaks
+     * ties by slot in the direction of the sort's first key, so the displayed items are always in the
+     * same order as the matching sort index. The comparator is only rebuilt when the sort changes.
+     *
+     * @return the comparator, or null if the sort type is not recognized
+     */
+    private Comparator<Item> getDisplayComparator() {
+        Comparator<Item> comparator = sort.getComparator();
+        if (comparator == null) {
+            return null;
+        }
+        if (comparator == displayComparatorSource) {
+            return displayComparator;
+        }
+        boolean descending = sort.getKeys().get(0).isDescending();
+        displayComparatorSource = comparator;
+        displayComparator = (a, b) -> {
+            int result = comparator.compare(a, b);
+            if (result != 0) {
+                return result;
+            }
+            result = Integer.compare(slots.slotOf(a), slots.slotOf(b));
+            return descending ? -result : result;
+        };
+        return displayComparator;
+    }
+
+    /**
+     * Creates an empty sort index for every sort type.
+     *
+     * @param slots The slots of the items the indexes order.
+     * @return the sort indexes, keyed by sort type
+     */
+    private static HashMap<String, SortIndex> newSortIndexes(ItemSlots slots) {
+        HashMap<String, SortIndex> sortIndexes = new HashMap<>();
+        for (String sortType : Sort.SORT_TYPES) {
+            sortIndexes.put(sortType, new SortIndex(sortType, slots));
+        }
+        return sortIndexes;
+    }
+
+    /**
+     * Gives an item a slot and adds it to the inventory's indexes.
+     *
+     * @param item The item being added to the inventory.
+     */
+    private void indexItem(Item item) {
+        int slot = indexFields(item);
+        this.dateIndex.add(this.columns.getDateMillis(slot), slot);
+        for (SortIndex sortIndex : this.sortIndexes.values()) {
+            sortIndex.add(slot);
+        }
+    }
+
+    /**
+     * Gives an item a slot and adds it to the indexes that are not kept in sorted order.
+     *
+     * @param item The item being added to the inventory.
+     * @return the slot of the item
+     */
+    private int indexFields(Item item) {
+        int slot = this.slots.add(item);
+        this.columns.set(slot, item);
+        this.tagIndex.addTags(item.getItemTags(), slot);
+        this.descriptionIndex.add(item.getDescription(), slot);
+        this.makeIndex.add(item.getMake(), slot);
+        return slot;
+    }
+
+    /**
+     * Removes an item from the inventory's indexes and frees its slot.
+     *
+     * @param item The item being removed from the inventory.
+     */
+    private void unindexItem(Item item) {
+        int slot = this.slots.slotOf(item);
+        if (slot >= 0) {
+            for (SortIndex sortIndex : this.sortIndexes.values()) {
+                sortIndex.remove(slot);
+            }
+            this.dateIndex.remove(this.columns.getDateMillis(slot), slot);
+            unindexFields(item, slot);
+        }
+    }
+
+    /**
+     * Adds the tags and text of many items to the tag and trigram indexes, with one merge per posting list.
+     *
+     * @param changedSlots The slots of the items.
+     * @param count        The number of slots to use from the start of the array.
+     */
+    private void indexFieldsAll(int[] changedSlots, int count) {
+        this.tagIndex.addAll(changedSlots, count, slot -> this.slots.get(slot).getItemTags());
+        this.descriptionIndex.addAll(changedSlots, count, slot -> this.slots.get(slot).getDescription());
+        this.makeIndex.addAll(changedSlots, count, slot -> this.slots.get(slot).getMake());
+    }
+
+    /**
+     * Removes the tags and text of many items from the tag and trigram indexes, with one pass per posting list.
+     *
+     * @param changedSlots The slots of the items.
+     * @param count        The number of slots to use from the start of the array.
+     */
+    private void unindexFieldsAll(int[] changedSlots, int count) {
+        this.tagIndex.removeAll(changedSlots, count, slot -> this.slots.get(slot).getItemTags());
+        this.descriptionIndex.removeAll(changedSlots, count, slot -> this.slots.get(slot).getDescription());
+        this.makeIndex.removeAll(changedSlots, count, slot -> this.slots.get(slot).getMake());
+    }
+
+    /**
+     * Removes an item from the indexes that are not kept in sorted order and frees its slot. The item
+     * must already have been removed from the date index and the sort indexes.
+     *
+     * @param item The item being removed from the inventory.
+     * @param slot The slot of the item.
+     */
+    private void unindexFields(Item item, int slot) {
+        this.tagIndex.removeTags(item.getItemTags(), slot);
+        this.descriptionIndex.remove(item.getDescription(), slot);
+        this.makeIndex.remove(item.getMake(), slot);
+        hideSlot(slot);
+        this.columns.clear(slot);
+        this.slots.remove(item);
+    }
+
+    /**
+     * Retrieves all the tags in the inventory, in alphabetical order.
      *
      * @return An ArrayList of all tags present in the inventory.
      */
+    @Exclude
     public ArrayList<String> getAllTags() {
-        return this.allTags;
+        return this.tagIndex.getSortedTags();
     }
 
     /**
-     * Capitalizes the first letter of a string and makes the rest lowercase.
+     * Gets the number of items in the inventory that use a tag.
      *
-     * @param str The string to be processed.
-     * @return The processed string with the first letter capitalized and the rest lowercase.
+     * @param tag The tag to look up.
+     * @return number of items with the tag
      */
-    private static String capitalizeFirstLetter(String str) {
-        if (str == null || str.isEmpty()) {
-            return str;
-        }
-        return str.substring(0, 1).toUpperCase() + str.substring(1).toLowerCase();
+    public int getTagCount(String tag) {
+        return this.tagIndex.getCount(tag);
     }
 
     /**
@@ -251,6 +993,7 @@ public class Inventory implements Serializable {
      *
      * @return Sort object containing current sort criteria.
      */
+    @Exclude
     public Sort getSort() {
         return sort;
     }
@@ -260,42 +1003,146 @@ public class Inventory implements Serializable {
      *
      * @param sort The Sort object specifying the new sorting criteria.
      */
+    @Exclude
     public void setSort(Sort sort) {
         this.sort = sort;
     }
 
     /**
      * Retrieves the list of currently displayed items.
+     * After filtering or sorting, the displayed items are usually read straight from the sort order and
+     * only copied into a list the first time this is called. Views that only need one item at a time
+     * should use {@link #getDisplayWindow()} instead.
      *
      * @return ArrayList of Item objects that are currently displayed.
      */
+    @Exclude
     public ArrayList<Item> getDisplayedItems() {
+        if (displayOrder != null) {
+            displayOrder.collect(displayedSlots, displayDescending, displayItems);
+            displayOrder = null;
+        }
         return displayItems;
     }
 
+    /**
+     * Gets a position-based view of the displayed items that reads them from the sort order a page at a
+     * time, so that a list can show a filtered inventory without copying every matching item. The view
+     * follows changes to the inventory.
+     *
+     * @return the view of the displayed items
+     */
+    @Exclude
+    public DisplayWindow getDisplayWindow() {
+        if (displayWindow == null) {
+            displayWindow = new DisplayWindow(this);
+        }
+        return displayWindow;
+    }
+
+    /**
+     * Gets the number of displayed items, without copying them into a list.
+     *
+     * @return number of displayed items
+     */
+    @Exclude
+    public int getDisplayedCount() {
+        return displayOrder != null ? displayedSlots.cardinality() : displayItems.size();
+    }
+
 
     /**
      * Filters the items based on the stored filter data.
+     * The filter is turned into a {@link Query}, so the tag, trigram and date indexes narrow down the
+     * candidate items first and only those candidates are checked against the rest of the filter. The
+     * matching items are then listed in the order kept by the current sort type's index, so no sort is
+     * needed. Single-item changes made through addItem, set and the remove methods keep the displayed
+     * items up to date without calling this method.
      */
     public void filterItems() {
-        if (filter.isEmpty()) {
-            updateDisplayedItems(items);
-            return;
+        this.query = null;
+        setDisplayedSlots(filter.toQuery().evaluate(this));
+        materializeDisplayedItems();
+    }
+
+    /**
+     * Displays the items matching a query instead of the stored filter, e.g. for a saved audit. The query
+     * is evaluated in one pass over the inventory's indexes, and it stays in effect for items added or
+     * changed later, until {@link #filterItems()} is called again.
+     *
+     * @param query The query the displayed items must match.
+     */
+    public void filterItems(Query query) {
+        this.query = query;
+        setDisplayedSlots(query.evaluate(this));
+        materializeDisplayedItems();
+    }
+
+    /**
+     * Replaces the set of displayed slots, recounting the facets in one pass over the new set.
+     *
+     * @param newDisplayedSlots The slots of the items to display.
+     */
+    private void setDisplayedSlots(BitSet newDisplayedSlots) {
+        this.displayedSlots = newDisplayedSlots;
+        this.displayVersion++;
+        this.facets.clear();
+        for (int slot = newDisplayedSlots.nextSetBit(0); slot >= 0; slot = newDisplayedSlots.nextSetBit(slot + 1)) {
+            this.facets.add(slot);
         }
-        ArrayList<Item> filteredItems = new ArrayList<>();
-        for (Item item : items) {
-            Date itemDate = item.getPurchaseDate();
-            if (filter.getStartDate() == null || (!itemDate.before(filter.getStartDate()) && !itemDate.after(filter.getEndDate()))) {
-                if (filter.getDescription().isEmpty() || item.getDescription().toLowerCase().contains(filter.getDescription().toLowerCase())) {
-                    if (filter.getMake().isEmpty() || item.getMake().toLowerCase().contains(filter.getMake().toLowerCase())) {
-                        if (filter.getTags().isEmpty() || !Collections.disjoint(item.getItemTags(), filter.getTags())) {
-                            filteredItems.add(item);
-                        }
-                    }
-                }
-            }
+    }
+
+    /**
+     * Marks the item in a slot as displayed and counts it in the facets, if it was not displayed already.
+     * The item's columns must already be set.
+     *
+     * @param slot The slot of the item.
+     */
+    private void showSlot(int slot) {
+        if (!this.displayedSlots.get(slot)) {
+            this.displayedSlots.set(slot);
+            this.displayVersion++;
+            this.facets.add(slot);
+        }
+    }
+
+    /**
+     * Marks the item in a slot as not displayed and stops counting it in the facets. This must be called
+     * before the item's columns change.
+     *
+     * @param slot The slot of the item.
+     * @return true if the item was displayed, false otherwise
+     */
+    private boolean hideSlot(int slot) {
+        if (!this.displayedSlots.get(slot)) {
+            return false;
         }
-        updateDisplayedItems(filteredItems);
+        this.displayedSlots.clear(slot);
+        this.displayVersion++;
+        this.facets.remove(slot);
+        return true;
+    }
+
+    /**
+     * Gets the number of displayed items and their total value for each tag, make and purchase month.
+     * The counts are kept up to date as items are added, removed, changed and filtered, so this does not
+     * look at the items. The returned object is live and should not be modified.
+     *
+     * @return the facet counts of the displayed items
+     */
+    @Exclude
+    public Facets getFacets() {
+        return facets;
+    }
+
+    /**
+     * Checks whether an item should be displayed, under the current query or filter.
+     *
+     * @param item The item to check.
+     * @return true if the item matches, false otherwise
+     */
+    private boolean isDisplayed(Item item) {
+        return query != null ? query.matches(item) : filter.matches(item);
     }
 
     /**
@@ -303,6 +1150,7 @@ public class Inventory implements Serializable {
      *
      * @return Filter object containing current filter criteria.
      */
+    @Exclude
     public Filter getFilter() {
         return this.filter;
     }
@@ -312,6 +1160,7 @@ public class Inventory implements Serializable {
      *
      * @param filter The new filter to apply to this inventory.
      */
+    @Exclude
     public void setFilter(Filter filter) {
         this.filter = filter;
     }
@@ -322,17 +1171,43 @@ public class Inventory implements Serializable {
      * @param newDisplayedItems The new list of items to display.
      */
     public void updateDisplayedItems(ArrayList<Item> newDisplayedItems) {
+        BitSet newDisplayedSlots = new BitSet(slots.capacity());
+        boolean indexed = true;
+        for (Item item : newDisplayedItems) {
+            int slot = slots.slotOf(item);
+            if (slot >= 0) {
+                newDisplayedSlots.set(slot);
+            } else {
+                indexed = false;
+            }
+        }
+        setDisplayedSlots(newDisplayedSlots);
+        if (indexed) {
+            materializeDisplayedItems();
+            return;
+        }
+        // some items are not in this inventory, so the sort indexes cannot order them
+        this.displayOrder = null;
+        this.displayVersion++;
         this.displayItems.clear();
         this.displayItems.addAll(newDisplayedItems);
-        this.sortItems();
+        Comparator<Item> comparator = getDisplayComparator();
+        if (comparator != null) {
+            this.displayItems.sort(comparator);
+        }
     }
 
     /**
-     * Calculates the total estimated value of all displayed items.
+     * Calculates the total estimated value of all displayed items, by adding up the value column
+     * over the displayed slots.
      *
      * @return The sum of the estimated values of each item in the displayed items list.
      */
+    @Exclude
     public double getDisplayedEstimatedValue() {
+        if (displayOrder != null || displayedSlots.cardinality() == displayItems.size()) {
+            return columns.sumCents(displayedSlots) / 100.0;
+        }
         double sum = 0;
         for (Item it : this.displayItems) {
             sum += it.getEstimatedValue();
@@ -340,36 +1215,213 @@ public class Inventory implements Serializable {
         return sum;
     }
 
+    /**
+     * Counts the displayed items whose estimated value falls into each of a set of buckets. Bucket
+     * {@code i} holds values from {@code bounds[i - 1]} up to, but not including, {@code bounds[i]}; the
+     * first bucket holds everything below the first bound and the last everything from the last bound up.
+     *
+     * @param bounds The bucket bounds in dollars, in ascending order.
+     * @return the number of displayed items in each bucket, with one more bucket than there are bounds
+     */
+    public int[] getValueHistogram(double[] bounds) {
+        long[] boundsCents = new long[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            boundsCents[i] = ItemColumns.toCents(bounds[i]);
+        }
+        return columns.valueHistogram(displayedSlots, boundsCents);
+    }
+
     /**
      * Sorts the displayed items based on the current sort criteria.
+     * The order is read from the index of the sort's first key, walking it in reverse for a descending
+     * sort. Any further keys only have to order the runs of items that tie on the first key.
      *
      * @return A Boolean indicating if the sorting was successful. Returns false if an invalid sort type is specified.
      */
     public Boolean sortItems() {
-        Comparator<Item> comparator;
-        switch (sort.getSortType()) {
-            case "Description":
-                comparator = Comparator.comparing(item -> item.getDescription().toLowerCase());
-                break;
-            case "Date":
-                comparator = Comparator.comparing(Item::getPurchaseDate);
-                break;
-            case "Make":
-                comparator = Comparator.comparing(item -> item.getMake().toLowerCase());
-                break;
-            case "Value":
-                comparator = Comparator.comparing(Item::getEstimatedValue);
-                break;
-            case "Tags":
-                comparator = Comparator.comparing(Item::getTagsString);
-                break;
-            default:
-                return false;
-        }
-        if ("Descending".equals(sort.getSortOrder())) {
-            comparator = comparator.reversed();
-        }
-        displayItems.sort(comparator);
+        if (sort.getComparator() == null) {
+            return false;
+        }
+        materializeDisplayedItems();
         return true;
     }
+
+    /**
+     * Rebuilds the displayed items from the displayed slots, in the order of the current sort.
+     * When only a few items are displayed, sorting them directly is cheaper than walking the order of
+     * every item in the inventory, so that is done instead. Otherwise, for a sort on a single key, the
+     * displayed items are not copied at all: they are read from the sort index through
+     * {@link #getDisplayWindow()}, or collected into a list once {@link #getDisplayedItems()} is called.
+     */
+    private void materializeDisplayedItems() {
+        SortIndex sortIndex = sortIndexes.get(sort.getSortType());
+        int count = displayedSlots.cardinality();
+        displayItems.clear();
+        displayOrder = null;
+        displayVersion++;
+        if (sortIndex == null || (long) count * (32 - Integer.numberOfLeadingZeros(count)) < sortIndex.size()) {
+            Comparator<Item> comparator = getDisplayComparator();
+            ForkJoinPool pool = getParallelPool();
+            if (comparator != null && pool != null && count >= PARALLEL_THRESHOLD) {
+                int[] order = new int[count];
+                int i = 0;
+                for (int slot = displayedSlots.nextSetBit(0); slot >= 0; slot = displayedSlots.nextSetBit(slot + 1)) {
+                    order[i++] = slot;
+                }
+                SlotSorter.sort(order, count, (a, b) -> comparator.compare(slots.get(a), slots.get(b)), pool);
+                for (int slot : order) {
+                    displayItems.add(slots.get(slot));
+                }
+                return;
+            }
+            for (int slot = displayedSlots.nextSetBit(0); slot >= 0; slot = displayedSlots.nextSetBit(slot + 1)) {
+                displayItems.add(slots.get(slot));
+            }
+            if (comparator != null) {
+                displayItems.sort(comparator);
+            }
+        } else {
+            if (!sortIndex.isBuilt()) {
+                sortIndex.rebuild(getParallelPool());
+            }
+            if (sort.getKeys().size() > 1) {
+                sortIndex.collect(displayedSlots, sort.getKeys().get(0).isDescending(), displayItems);
+                sortTies(Sort.getKeyComparator(sort.getSortType()), getDisplayComparator());
+            } else {
+                displayOrder = sortIndex;
+                displayDescending = sort.getKeys().get(0).isDescending();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of times the set or order of displayed items has changed, not counting changes to
+     * the sort index they are read from, for display windows.
+     *
+     * @return the display version
+     */
+    int getDisplayVersion() {
+        return displayVersion;
+    }
+
+    /**
+     * Gets the sort index the displayed items are read from, for display windows.
+     *
+     * @return the sort index, or null if the displayed items are kept as a list
+     */
+    SortIndex getDisplayOrder() {
+        return displayOrder;
+    }
+
+    /**
+     * Checks whether the displayed items are read from their sort index in reverse, for display windows.
+     *
+     * @return true for a descending sort, false otherwise
+     */
+    boolean isDisplayDescending() {
+        return displayDescending;
+    }
+
+    /**
+     * Gets the slots of the displayed items, for display windows.
+     *
+     * @return the displayed slots
+     */
+    BitSet getDisplayedSlots() {
+        return displayedSlots;
+    }
+
+    /**
+     * Gets the slots of the inventory's items, for queries.
+     *
+     * @return the item slots
+     */
+    ItemSlots getSlots() {
+        return slots;
+    }
+
+    /**
+     * Gets the primitive columns of the inventory's items, for queries.
+     *
+     * @return the item columns
+     */
+    ItemColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the inventory's tag index, for queries.
+     *
+     * @return the tag index
+     */
+    TagIndex getTagIndex() {
+        return tagIndex;
+    }
+
+    /**
+     * Gets the trigram index of the items' descriptions, for queries.
+     *
+     * @return the description index
+     */
+    NGramIndex getDescriptionIndex() {
+        return descriptionIndex;
+    }
+
+    /**
+     * Gets the trigram index of the items' makes, for queries.
+     *
+     * @return the make index
+     */
+    NGramIndex getMakeIndex() {
+        return makeIndex;
+    }
+
+    /**
+     * Gets the sorted purchase date index, for queries.
+     *
+     * @return the date index
+     */
+    DateIndex getDateIndex() {
+        return dateIndex;
+    }
+
+    /**
+     * Sets the pool that large inventories are filtered and sorted on. Filtering checks chunks of
+     * candidate items concurrently, and building a sort order or sorting many displayed items uses a
+     * parallel merge sort. Inventories smaller than {@link #PARALLEL_THRESHOLD} are still handled on the
+     * calling thread. The pool is not kept when the inventory is serialized.
+     *
+     * @param pool The pool to use, or null to always run on the calling thread.
+     */
+    @Exclude
+    public void setParallelPool(ForkJoinPool pool) {
+        this.parallelPool = pool;
+    }
+
+    /**
+     * Gets the pool to run on, if parallel mode is on and the inventory is large enough.
+     *
+     * @return the pool, or null to run on the calling thread
+     */
+    ForkJoinPool getParallelPool() {
+        return parallelPool != null && slots.size() >= PARALLEL_THRESHOLD ? parallelPool : null;
+    }
+
+    /**
+     * Sorts each run of displayed items that tie on the sort's first key by the full sort.
+     *
+     * @param primary    The comparator for the sort's first key.
+     * @param comparator The comparator for the full sort.
+     */
+    private void sortTies(Comparator<Item> primary, Comparator<Item> comparator) {
+        int start = 0;
+        for (int i = 1; i <= displayItems.size(); i++) {
+            if (i == displayItems.size() || primary.compare(displayItems.get(start), displayItems.get(i)) != 0) {
+                if (i - start > 1) {
+                    displayItems.subList(start, i).sort(comparator);
+                }
+                start = i;
+            }
+        }
+    }
 }
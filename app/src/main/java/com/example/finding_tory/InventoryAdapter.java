@@ -20,10 +20,11 @@ import java.util.Locale;
 
 /**
  * Implements adapter functionality in order to link the InventoryViewActivity's ListView
- * element to the array of Items in an Inventory.
+ * element to the displayed Items of an Inventory. Items are read through the inventory's
+ * {@link DisplayWindow}, so only the rows being shown are looked up.
  */
 public class InventoryAdapter extends ArrayAdapter<Item> {
-    private ArrayList<Item> items;
+    private DisplayWindow items;
     private Context context;
     private SparseBooleanArray selectedItems;
 
@@ -31,15 +32,37 @@ public class InventoryAdapter extends ArrayAdapter<Item> {
      * Creates a new InventoryAdapter object.
      *
      * @param context view/element this adapter is subordinate to
-     * @param items   list of Item objects being wrapped into the ListView
+     * @param items   view of the Item objects being wrapped into the ListView
      */
-    public InventoryAdapter(Context context, ArrayList<Item> items) {
-        super(context, R.layout.item_content, items);
+    public InventoryAdapter(Context context, DisplayWindow items) {
+        super(context, R.layout.item_content);
         this.items = items;
         this.context = context;
         this.selectedItems = new SparseBooleanArray();
     }
 
+    /**
+     * Gets the number of rows in the ListView, which is the number of displayed items.
+     *
+     * @return number of displayed items
+     */
+    @Override
+    public int getCount() {
+        return items.size();
+    }
+
+    /**
+     * Gets the displayed item at a position.
+     *
+     * @param position index of the row
+     * @return the item shown in that row
+     */
+    @Nullable
+    @Override
+    public Item getItem(int position) {
+        return items.get(position);
+    }
+
 
     /**
      * Updates the contents of the TextView elements in an inventory row (ie. an item) to reflect
@@ -139,9 +162,11 @@ public class InventoryAdapter extends ArrayAdapter<Item> {
      */
     public List<Item> getSelectedItems() {
         List<Item> selected = new ArrayList<>();
-        for (int i = 0; i < items.size(); i++) {
-            if (selectedItems.get(i, false)) {
-                selected.add(items.get(i));
+        int count = items.size();
+        for (int i = 0; i < selectedItems.size(); i++) {
+            int position = selectedItems.keyAt(i);
+            if (selectedItems.valueAt(i) && position < count) {
+                selected.add(items.get(position));
             }
         }
         return selected;
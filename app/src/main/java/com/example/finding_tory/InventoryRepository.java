@@ -0,0 +1,76 @@
+package com.example.finding_tory;
+
+import java.util.HashMap;
+
+/**
+ * Holds the inventories open in this process, keyed by ID, so that screens can pass an inventory's ID
+ * through an Intent or Bundle and share the same in-memory Inventory instead of serializing a copy of it
+ * and all of its items. Inventories that have not been saved yet, and so have no ID, are given a
+ * local key that is only valid in this process.
+ */
+public class InventoryRepository {
+    private static final InventoryRepository instance = new InventoryRepository();
+
+    private final HashMap<String, Inventory> inventories;
+    private int nextLocalKey;
+
+    private InventoryRepository() {
+        this.inventories = new HashMap<>();
+    }
+
+    /**
+     * Gets the repository of this process.
+     *
+     * @return the repository
+     */
+    public static InventoryRepository getInstance() {
+        return instance;
+    }
+
+    /**
+     * Caches an inventory, replacing any cached inventory with the same ID.
+     *
+     * @param inventory The inventory to cache.
+     * @return the key to look the inventory up by: its ID, or a local key if it has no ID yet
+     */
+    public synchronized String put(Inventory inventory) {
+        String key = inventory.getId();
+        if (key == null) {
+            for (HashMap.Entry<String, Inventory> entry : inventories.entrySet()) {
+                if (entry.getValue() == inventory) {
+                    return entry.getKey();
+                }
+            }
+            key = "#" + nextLocalKey++;
+        }
+        inventories.put(key, inventory);
+        return key;
+    }
+
+    /**
+     * Gets a cached inventory.
+     *
+     * @param key The ID or local key of the inventory.
+     * @return the inventory, or null if no inventory is cached under the key, e.g. because the process was restarted
+     */
+    public synchronized Inventory get(String key) {
+        return key == null ? null : inventories.get(key);
+    }
+
+    /**
+     * Removes an inventory from the cache.
+     *
+     * @param key The ID or local key of the inventory.
+     * @return the removed inventory, or null if no inventory was cached under the key
+     */
+    public synchronized Inventory remove(String key) {
+        return inventories.remove(key);
+    }
+
+    /**
+     * Removes every inventory from the cache, e.g. when the user signs out.
+     */
+    public synchronized void clear() {
+        inventories.clear();
+    }
+}
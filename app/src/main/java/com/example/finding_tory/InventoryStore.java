@@ -0,0 +1,57 @@
+package com.example.finding_tory;
+
+/**
+ * Stores a user's inventory documents: their names and the summary of their items. Screens read and
+ * write inventories only through the store returned by {@link Stores#getInventoryStore()}.
+ * <p>
+ * Inventories are added, renamed and deleted on other screens than the one showing the ledger, so every
+ * change is reported to inventory listeners, including changes made through the store itself.
+ */
+public interface InventoryStore {
+    /**
+     * Adds a new inventory, giving it an ID.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory to be added. Its ID is set before the callback runs.
+     * @param callback  Receives the inventory once it has been written.
+     */
+    void addInventory(String username, Inventory inventory, StoreCallback<Inventory> callback);
+
+    /**
+     * Writes an inventory's new name, leaving its summary alone.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The renamed Inventory.
+     * @param callback  Notified once the name has been written.
+     */
+    void renameInventory(String username, Inventory inventory, StoreCallback<Void> callback);
+
+    /**
+     * Deletes an inventory and all of its items.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory to be deleted.
+     * @param callback  Notified once the inventory and its items have been deleted.
+     */
+    void deleteInventory(String username, Inventory inventory, StoreCallback<Void> callback);
+
+    /**
+     * Applies a change to an inventory's summary: its item count, total value and tag counts. The change
+     * is added to the stored summary, so changes from several devices add up.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory whose summary changed.
+     * @param delta     The change to the summary.
+     * @param callback  Notified once the change has been written.
+     */
+    void updateSummary(String username, Inventory inventory, SummaryDelta delta, StoreCallback<Void> callback);
+
+    /**
+     * Starts listening to a user's inventories.
+     *
+     * @param username The username identifying the specific user.
+     * @param listener Receives every inventory first, then each inventory that changes.
+     * @return the registration that stops the listener
+     */
+    StoreListener.Registration listenInventories(String username, StoreListener<Inventory> listener);
+}
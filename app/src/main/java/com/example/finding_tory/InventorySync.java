@@ -0,0 +1,144 @@
+package com.example.finding_tory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the in-memory Ledger and Inventories in step with the stores through their listeners, which are
+ * snapshot listeners for Firestore, instead of re-reading whole collections. Only the first snapshot of a
+ * listener reads every document; after that, each snapshot only carries the documents that were added,
+ * modified or removed, and those changes are applied by ID. The listeners belong to the process rather than to a screen, so reopening the ledger or
+ * an inventory that is already being synced costs no reads at all.
+ * <p>
+ * Items changed on this device are applied to the in-memory inventory when they are changed, so the item
+ * store does not report them back. Inventories are added, renamed and deleted on other screens, so those
+ * changes are always applied to the ledger.
+ */
+public class InventorySync {
+    private static final InventorySync instance = new InventorySync();
+
+    private String ledgerUsername;
+    private StoreListener.Registration ledgerRegistration;
+    private final HashMap<String, StoreListener.Registration> itemRegistrations;
+    private final CopyOnWriteArrayList<Runnable> changeListeners;
+
+    private InventorySync() {
+        this.itemRegistrations = new HashMap<>();
+        this.changeListeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Gets the sync of this process.
+     *
+     * @return the sync
+     */
+    public static InventorySync getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts keeping the ledger's inventories in step with a user's inventories collection. Nothing is
+     * done if the ledger is already being synced for the user; if it was synced for another user, that
+     * listener is stopped and the ledger emptied first.
+     *
+     * @param username The username identifying the specific user.
+     * @param ledger   The ledger to keep up to date.
+     */
+    public synchronized void syncLedger(String username, Ledger ledger) {
+        if (ledgerRegistration != null && username.equals(ledgerUsername)) {
+            return;
+        }
+        stopAll();
+        ledgerUsername = username;
+        ledger.setInventories(new ArrayList<>());
+        ledgerRegistration = Stores.getInventoryStore().listenInventories(username, (changed, removedIds) -> {
+            for (String id : removedIds) {
+                stopItems(id);
+            }
+            ledger.applyInventoryChanges(changed, removedIds);
+            notifyChanged();
+        });
+    }
+
+    /**
+     * Starts keeping an inventory's items in step with its items subcollection. Nothing is done if the
+     * inventory is already being synced. The first snapshot holds every item, so this should be called
+     * once the items have been loaded; items it holds that are already loaded simply replace themselves.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The inventory to keep up to date.
+     */
+    public synchronized void syncItems(String username, Inventory inventory) {
+        if (itemRegistrations.containsKey(inventory.getId())) {
+            return;
+        }
+        StoreListener.Registration registration = Stores.getItemStore().listenItems(username, inventory, (changed, removedIds) -> {
+            inventory.applyChanges(changed, removedIds);
+            notifyChanged();
+        });
+        itemRegistrations.put(inventory.getId(), registration);
+    }
+
+    /**
+     * Checks whether an inventory's items are being kept in step with the store, in which case they are
+     * already loaded and do not need to be read again.
+     *
+     * @param inventory The inventory to check.
+     * @return true if the inventory is being synced, false otherwise
+     */
+    public synchronized boolean isSyncingItems(Inventory inventory) {
+        return inventory.getId() != null && itemRegistrations.containsKey(inventory.getId());
+    }
+
+    /**
+     * Stops keeping an inventory's items in step with the store, e.g. because it was deleted.
+     *
+     * @param inventoryId The ID of the inventory.
+     */
+    public synchronized void stopItems(String inventoryId) {
+        StoreListener.Registration registration = itemRegistrations.remove(inventoryId);
+        if (registration != null) {
+            registration.remove();
+        }
+    }
+
+    /**
+     * Stops every listener, e.g. when the user signs out.
+     */
+    public synchronized void stopAll() {
+        if (ledgerRegistration != null) {
+            ledgerRegistration.remove();
+            ledgerRegistration = null;
+            ledgerUsername = null;
+        }
+        for (StoreListener.Registration registration : itemRegistrations.values()) {
+            registration.remove();
+        }
+        itemRegistrations.clear();
+    }
+
+    /**
+     * Adds a callback that is run, on the thread the store delivers results on, after changes have been applied.
+     *
+     * @param listener The callback, e.g. one that refreshes a list.
+     */
+    public void addOnChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Removes a callback added with {@link #addOnChangeListener}.
+     *
+     * @param listener The callback.
+     */
+    public void removeOnChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void notifyChanged() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+}
@@ -19,22 +19,29 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
  * Displays the content of a given Inventory (ie. a list of Items).
  */
 public class InventoryViewActivity extends AppCompatActivity {
+    private static final int FIRST_PAGE_SIZE = 50;
+    private static final int PAGE_SIZE = 500;
+
     private String username;
+    private String inventoryKey;
     private Inventory inventory;
     private ListView inventoryListView;
     private InventoryAdapter inventoryAdapter;
@@ -43,6 +50,7 @@ public class InventoryViewActivity extends AppCompatActivity {
     private TextView totalValueTextView;
     private FloatingActionButton add_back_button;
     private ImageButton filter_tag_button, sort_delete_button;
+    private final Runnable onItemsChanged = this::updateTotals;
 
     /**
      * Initializes the instance variables and bindings associated with this activity on creation.
@@ -54,28 +62,45 @@ public class InventoryViewActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_inventory_view);
 
-        // get the inventory that's been passed by the ledger view parent activity
+        // get the inventory whose id has been passed by the ledger view parent activity
         Intent intent = getIntent();
-        inventory = (Inventory) intent.getSerializableExtra("inventory");
+        inventoryKey = intent.getStringExtra("inventory_id");
+        inventory = InventoryRepository.getInstance().get(inventoryKey);
         username = (String) intent.getSerializableExtra("username");
-        inventory.setItems(new ArrayList<>());
+        if (inventory == null) {
+            // the process was restarted since the ledger was shown, so go back and reload it
+            finish();
+            return;
+        }
+        // an inventory that was opened before is kept in step by InventorySync, so its items are not read again
+        boolean synced = InventorySync.getInstance().isSyncingItems(inventory);
+        if (!synced) {
+            inventory.setItems(new ArrayList<>());
+        }
         inventory.setSort(new Sort());
         inventory.setFilter(new Filter());
+        inventory.setParallelPool(ForkJoinPool.commonPool());
 
-        populateInventoryItems();
+        if (!synced) {
+            populateInventoryItems();
+        } else {
+            // the filter, query and sort of the last visit are still applied, so show every item again
+            inventory.filterItems();
+        }
         assert (inventory != null);
         setTitle(inventory.getInventoryName());
 
         // map the listview to the inventory's list of items via custom inventory adapter
         inventoryListView = findViewById(R.id.inventory_listview);
-        inventoryAdapter = new InventoryAdapter(this, inventory.getDisplayedItems());
+        inventoryAdapter = new InventoryAdapter(this, inventory.getDisplayWindow());
         inventoryListView.setAdapter(inventoryAdapter);
 
         // initialize and cache the TextViews for the totals
         totalItemsTextView = findViewById(R.id.total_items_textview);
         totalValueTextView = findViewById(R.id.total_value_textview);
         add_back_button = findViewById(R.id.add_delete_item_button);
-        updateTotals(false);
+        updateTotals();
+        InventorySync.getInstance().addOnChangeListener(onItemsChanged);
 
         EditText findItemDesc = findViewById(R.id.search_inventory_edittext);
         findItemDesc.addTextChangedListener(new TextWatcher() {
@@ -92,7 +117,7 @@ public class InventoryViewActivity extends AppCompatActivity {
                 String searchString = editable.toString();
                 inventory.getFilter().setDescription(searchString);
                 inventory.filterItems();
-                updateTotals(false);
+                updateTotals();
             }
         });
 
@@ -106,7 +131,7 @@ public class InventoryViewActivity extends AppCompatActivity {
                 } else {
                     Intent editItemIntent = new Intent(InventoryViewActivity.this, UpsertViewActivity.class);
                     editItemIntent.putExtra("username", username);
-                    editItemIntent.putExtra("inventory", inventory);
+                    editItemIntent.putExtra("inventory_id", inventoryKey);
                     startActivityForResult(editItemIntent, ActivityCodes.ADD_ITEM.getRequestCode());
                 }
             }
@@ -137,12 +162,12 @@ public class InventoryViewActivity extends AppCompatActivity {
                                 exitSelectionMode();
 
                                 // Remove selected items from the inventory
-                                for (Item item : selectedItems) {
-                                    inventory.removeItem(item);
-                                    FirestoreDB.deleteItemDB(username, inventory, item);
-                                }
+                                SummaryDelta delta = new SummaryDelta();
+                                delta.removeAll(selectedItems);
+                                inventory.removeAll(selectedItems);
+                                Stores.getItemStore().deleteItems(username, inventory, selectedItems, delta, StoreCallback.ignoreResult());
 
-                                updateTotals(true);
+                                updateTotals();
                             }
                         });
                         deleteDialog.show(getSupportFragmentManager(), "DELETE_ITEM");
@@ -187,7 +212,7 @@ public class InventoryViewActivity extends AppCompatActivity {
 
                         BulkTagFragment tagDialog = new BulkTagFragment();
                         Bundle args = new Bundle();
-                        args.putSerializable("inventory", inventory);
+                        args.putString("inventory_id", inventoryKey);
                         args.putSerializable("tags", (Serializable) new ArrayList<>(current_tags));
                         tagDialog.setArguments(args);
                         tagDialog.setTagDialogListener(new BulkTagFragment.TagDialogListener() {
@@ -198,13 +223,13 @@ public class InventoryViewActivity extends AppCompatActivity {
 
                             @Override
                             public void onTagConfirmed(ArrayList<String> selectedTags) {
-                                for (Item item : inventoryAdapter.getSelectedItems()) {
-                                    for (String str : selectedTags) {
-                                        item.addItemTag(str);
-                                    }
-                                    FirestoreDB.editItemFromFirestore(username, inventory, item);
+                                List<Item> taggedItems = inventoryAdapter.getSelectedItems();
+                                SummaryDelta delta = new SummaryDelta();
+                                for (Item item : taggedItems) {
+                                    delta.addTags(item, selectedTags);
                                 }
-                                inventory.addTagsToInventory(selectedTags);
+                                inventory.applyTags(taggedItems, selectedTags);
+                                Stores.getItemStore().tagItems(username, inventory, taggedItems, selectedTags, delta, StoreCallback.ignoreResult());
                                 inventoryAdapter.clearSelection();
                                 exitSelectionMode();
                                 // Notify the adapter of the data change
@@ -217,7 +242,7 @@ public class InventoryViewActivity extends AppCompatActivity {
                 } else {
                     final View greyBack = findViewById(R.id.fadeBackground);
                     FilterFragment filterDialog = new FilterFragment();
-                    filterDialog.populateFilterParams(inventory.getFilter(), inventory.getAllTags());
+                    filterDialog.populateFilterParams(inventory.getFilter(), inventory.getAllTags(), inventory.getFacets());
                     filterDialog.setFilterDialogListener(new FilterFragment.FilterDialogListener() {
                         @Override
                         public void onFilterDismissed() {
@@ -228,7 +253,7 @@ public class InventoryViewActivity extends AppCompatActivity {
                         public void onFilterConfirmed(Filter filter) {
                             inventory.setFilter(filter);
                             inventory.filterItems();
-                            updateTotals(false);
+                            updateTotals();
                         }
                     });
                     filterDialog.show(getSupportFragmentManager(), "FILTER_ITEMS");
@@ -245,9 +270,9 @@ public class InventoryViewActivity extends AppCompatActivity {
 
                 Intent intent = new Intent(InventoryViewActivity.this, ItemViewActivity.class);
 
-                intent.putExtra("selectedItem", selectedItem);
+                intent.putExtra("selectedItem", ItemCodec.encodeItem(selectedItem));
                 intent.putExtra("pos", position);
-                intent.putExtra("inventory", inventory);
+                intent.putExtra("inventory_id", inventoryKey);
                 intent.putExtra("username", username);
                 startActivityForResult(intent, ActivityCodes.VIEW_ITEM.getRequestCode());
             }
@@ -321,63 +346,160 @@ public class InventoryViewActivity extends AppCompatActivity {
         if (requestCode == ActivityCodes.ADD_ITEM.getRequestCode()) {
             if (resultCode == RESULT_OK) {
                 assert data != null;
-                Item selectedItem = (Item) data.getSerializableExtra("item_to_add");
+                Item selectedItem = ItemCodec.decodeItem(data.getByteArrayExtra("item_to_add"));
                 assert selectedItem != null;
                 inventory.addItem(selectedItem);
-                inventory.sortItems();
-                inventoryAdapter.notifyDataSetChanged();
-                updateTotals(true);
-                inventory.filterItems();
+                SummaryDelta delta = new SummaryDelta();
+                delta.add(selectedItem);
+                Stores.getInventoryStore().updateSummary(username, inventory, delta, StoreCallback.ignoreResult());
+                updateTotals();
             }
         }
 
         // updates the item at position passed
         if (requestCode == ActivityCodes.VIEW_ITEM.getRequestCode()) {
             int pos = data.getIntExtra("position", 0);
+            SummaryDelta delta = new SummaryDelta();
             if (Objects.equals(data.getStringExtra("action"), "delete")) {
                 int position = data.getIntExtra("pos", -1);
                 if (position >= 0) {
-                    FirestoreDB.deleteItemDB(username, inventory, inventory.getDisplayedItems().get(position));
+                    Item deletedItem = inventory.getDisplayWindow().get(position);
+                    delta.remove(deletedItem);
+                    Stores.getItemStore().deleteItems(username, inventory, Collections.singletonList(deletedItem),
+                            delta.isEmpty() ? null : delta, StoreCallback.ignoreResult());
                     inventory.removeItemByIndex(position);
                 }
             } else {
-                Item returnedItem = (Item) data.getSerializableExtra("returnedItem");
-                inventory.set(pos, returnedItem);
-                FirestoreDB.editItemFromFirestore(username, inventory, returnedItem);
-                inventory.filterItems();
+                // the edit is saved here, with its change to the summary, rather than by the edit screen
+                byte[] encoded = data.getByteArrayExtra("returnedItem");
+                Item returnedItem = ItemCodec.decodeItem(encoded);
+                Item previous = inventory.getItemById(returnedItem.getId());
+                if (previous == null) {
+                    previous = inventory.getDisplayWindow().get(pos);
+                }
+                if (!Arrays.equals(ItemCodec.encodeItem(previous), encoded)) {
+                    delta.remove(previous);
+                    delta.add(returnedItem);
+                    if (!inventory.replaceItem(returnedItem)) {
+                        inventory.set(pos, returnedItem);
+                    }
+                    Stores.getItemStore().saveItems(username, inventory, Collections.singletonList(returnedItem),
+                            delta.isEmpty() ? null : delta, StoreCallback.ignoreResult());
+                }
             }
-            updateTotals(true);
+            updateTotals();
+        }
+    }
+
+    /**
+     * Sends the edits the item store is holding back once this screen is closing, instead of waiting for
+     * their window to close. Edits are still held back while an item is being viewed or edited, so that
+     * repeated edits of it are written once.
+     */
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if (isFinishing()) {
+            Stores.getItemStore().flush(StoreCallback.ignoreResult());
         }
     }
 
+    /**
+     * Stops refreshing the list when items change elsewhere, since the list is no longer shown.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        InventorySync.getInstance().removeOnChangeListener(onItemsChanged);
+    }
+
     /**
      * Rewrites the TextView elements displaying the inventory totals to reflect new values.
+     * The inventory's Firestore document is not written here; changes to it are sent as summary deltas
+     * where the items change.
      */
-    public void updateTotals(boolean updateDB) {
+    public void updateTotals() {
         if (inventory.getFilter().isEmpty()) {
             totalItemsTextView.setText(String.format(Locale.CANADA, "Total items: %d", inventory.getCount()));
             totalValueTextView.setText(String.format(Locale.CANADA, "Total Value: $%.2f", inventory.getInventoryEstimatedValue()));
         } else {
-            totalItemsTextView.setText(String.format(Locale.CANADA, "Filtering %d of %d", inventory.getDisplayedItems().size(), inventory.getCount()));
+            totalItemsTextView.setText(String.format(Locale.CANADA, "Filtering %d of %d", inventory.getDisplayedCount(), inventory.getCount()));
             totalValueTextView.setText(String.format(Locale.CANADA, "Showing: $%.2f", inventory.getDisplayedEstimatedValue()));
         }
         inventoryAdapter.notifyDataSetChanged();
-        if (updateDB) {
-            FirestoreDB.getInventoriesRef(username).document(inventory.getId()).set(inventory);
-        }
     }
 
     /**
-     * Queries for user's items in the selected inventory and add to the current inventory
+     * Queries for user's items in the selected inventory and add to the current inventory.
+     * Items cached on the device from the last visit are shown straight away. The items are then read from
+     * Firestore a page at a time, and each page is added to the inventory at its sorted position as soon as
+     * it arrives, so the first rows appear after one small query however large the inventory is. Once the
+     * last page has arrived, cached items that no longer exist are removed and the new items are cached,
+     * and from then on InventorySync applies only the items that change.
      */
     public void populateInventoryItems() {
-        FirestoreDB.getItemsRef(username, inventory).get().addOnSuccessListener(queryDocumentSnapshots -> {
-            for (QueryDocumentSnapshot documentSnapshot : queryDocumentSnapshots) {
-                Item item = documentSnapshot.toObject(Item.class);
-                inventory.addItem(item);
+        InternalStorageManager storage = new InternalStorageManager(this);
+        HashSet<String> cachedIds = new HashSet<>();
+        try {
+            inventory.setItems(storage.loadItems(inventory.getId()));
+            for (Item item : inventory.getItems()) {
+                cachedIds.add(item.getId());
+            }
+        } catch (IOException e) {
+            // nothing cached yet, so wait for Firestore
+        }
+        loadItemsPage(null, cachedIds, storage);
+    }
+
+    /**
+     * Loads one page of the inventory's items, in ID order, and then the next one until there are no more.
+     * The first page is kept small so that it arrives quickly.
+     *
+     * @param afterId  The ID of the last item of the previous page, or null for the first page.
+     * @param staleIds The IDs of the cached items that have not been loaded again yet.
+     * @param storage  Where the loaded items are cached once every page has arrived.
+     */
+    private void loadItemsPage(@Nullable String afterId, HashSet<String> staleIds, InternalStorageManager storage) {
+        int pageSize = afterId == null ? FIRST_PAGE_SIZE : PAGE_SIZE;
+        Stores.getItemStore().loadItemsPage(username, inventory, afterId, pageSize, new StoreCallback<List<Item>>() {
+            @Override
+            public void onSuccess(List<Item> page) {
+                if (isDestroyed()) {
+                    return;
+                }
+                for (Item item : page) {
+                    staleIds.remove(item.getId());
+                }
+                // items already shown from the cache are replaced by ID
+                inventory.addAll(page);
+                updateTotals();
+                if (page.size() == pageSize) {
+                    loadItemsPage(page.get(page.size() - 1).getId(), staleIds, storage);
+                    return;
+                }
+                // cached items that were not loaded again have been deleted elsewhere
+                ArrayList<Item> deleted = new ArrayList<>();
+                for (String id : staleIds) {
+                    Item item = inventory.getItemById(id);
+                    if (item != null) {
+                        deleted.add(item);
+                    }
+                }
+                inventory.removeAll(deleted);
+                updateTotals();
+                try {
+                    storage.saveItems(inventory.getId(), inventory.getItems());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                InventorySync.getInstance().syncItems(username, inventory);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                // Handle failure
+                e.printStackTrace();
             }
-            inventory.sortItems();
-            updateTotals(false);
         });
     }
 }
@@ -1,5 +1,7 @@
 package com.example.finding_tory;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -12,6 +14,7 @@ import java.util.Date;
  * estimated value, comments, and tags. This class is designed to be serializable to facilitate easy storage and retrieval.
  */
 public class Item implements Serializable {
+    private static final long[] NO_TAG_WORDS = new long[0];
     private String id;
     private Date purchaseDate;
     private String description;
@@ -22,6 +25,15 @@ public class Item implements Serializable {
     private String comment;
     private ArrayList<String> itemTags;
     private ArrayList<String> imageLinks;
+    // normalized sort keys, computed on first use and cleared by the setters of the fields they come from
+    private transient String descriptionSortKey;
+    private transient String makeSortKey;
+    private transient String tagsSortKey;
+    // bits of the item's tags in the ledger's tag dictionary, built whenever the tag list is set and
+    // replaced rather than modified, so filter threads never see a half-updated array
+    private transient long[] tagWords;
+    // the dictionary the tag words were built against, since the ledger replaces it on logout
+    private transient TagDictionary tagWordsDictionary;
 
     /**
      * No-args constructor, required for deserialization from Firestore.
@@ -69,6 +81,11 @@ public class Item implements Serializable {
         this.comment = copy.getComment();
         this.itemTags = copy.getItemTags();
         this.imageLinks = copy.getImageLinks();
+        this.descriptionSortKey = null;
+        this.makeSortKey = null;
+        this.tagsSortKey = null;
+        this.tagWords = copy.getTagWords();
+        this.tagWordsDictionary = copy.tagWordsDictionary;
     }
 
     /**
@@ -105,6 +122,7 @@ public class Item implements Serializable {
      */
     public void setDescription(String description) {
         this.description = description;
+        this.descriptionSortKey = null;
     }
 
     /**
@@ -132,6 +150,7 @@ public class Item implements Serializable {
      */
     public void setMake(String make) {
         this.make = make;
+        this.makeSortKey = null;
     }
 
     /**
@@ -229,18 +248,86 @@ public class Item implements Serializable {
     }
 
     /**
-     * Sets the tags to a new list of tags
+     * Sets the tags to a new list of tags. Each tag is looked up in the ledger's tag dictionary once,
+     * duplicates are dropped, and the list is sorted a single time at the end.
      *
      * @param itemTags new list of tags
      */
     public void setItemTags(ArrayList<String> itemTags) {
+        TagDictionary dictionary = Ledger.getInstance().getTagDictionary();
         this.itemTags = new ArrayList<>();
+        long[] words = new long[1];
         for (String s : itemTags) {
-            this.addItemTag(s);
+            int id = dictionary.idOf(s);
+            if (id >= 0 && !TagDictionary.get(words, id)) {
+                words = TagDictionary.set(words, id);
+                this.itemTags.add(dictionary.get(id));
+            }
         }
+        this.tagWords = words;
+        this.tagWordsDictionary = dictionary;
         this.SortItemTag();
     }
 
+    /**
+     * Checks whether the item has a tag, with a single bit test.
+     *
+     * @param tag The tag to look for, in any capitalization.
+     * @return true if the item has the tag
+     */
+    public boolean hasTag(String tag) {
+        return TagDictionary.get(getTagWords(), Ledger.getInstance().getTagDictionary().find(tag));
+    }
+
+    /**
+     * Checks whether the item has at least one of a set of tags.
+     *
+     * @param tags The tag words of the tags, from the ledger's tag dictionary.
+     * @return true if the item has any of the tags
+     */
+    boolean hasAnyTag(long[] tags) {
+        return TagDictionary.intersects(getTagWords(), tags);
+    }
+
+    /**
+     * Checks whether the item has every one of a set of tags.
+     *
+     * @param tags The tag words of the tags, from the ledger's tag dictionary.
+     * @return true if the item has all of the tags
+     */
+    boolean hasAllTags(long[] tags) {
+        return TagDictionary.containsAll(getTagWords(), tags);
+    }
+
+    /**
+     * Gets the bits of the item's tags in the ledger's tag dictionary, as built when the tags were set, or
+     * built again if the ledger's dictionary has been replaced since.
+     *
+     * @return the item's tag words, which should not be modified
+     */
+    long[] getTagWords() {
+        TagDictionary dictionary = Ledger.getInstance().getTagDictionary();
+        if (tagWordsDictionary != dictionary && itemTags != null) {
+            long[] words = dictionary.toWords(itemTags);
+            this.tagWords = words;
+            this.tagWordsDictionary = dictionary;
+            return words;
+        }
+        long[] words = tagWords;
+        return words != null ? words : NO_TAG_WORDS;
+    }
+
+    /**
+     * Builds the tag words again after the item was passed between activities, since they are not
+     * serialized.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (itemTags != null) {
+            setItemTags(itemTags);
+        }
+    }
+
     public String getId() {
         return id;
     }
@@ -254,31 +341,70 @@ public class Item implements Serializable {
      */
     public void SortItemTag() {
         Collections.sort(this.itemTags);
+        this.tagsSortKey = null;
     }
 
     /**
-     * Sets the tags to a new list of tags
+     * Gets the lowercase description used when sorting by description.
+     * It is computed once and reused until the description changes.
      *
-     * @param itemTags new list of tags
+     * @return the description sort key
      */
-    public void addItemTag(String itemTags) {
-        if (!this.itemTags.contains(capitalizeFirstLetter(itemTags))) {
-            this.itemTags.add(capitalizeFirstLetter(itemTags));
+    String getDescriptionSortKey() {
+        if (descriptionSortKey == null) {
+            descriptionSortKey = description == null ? "" : description.toLowerCase();
         }
-        SortItemTag();
+        return descriptionSortKey;
     }
 
     /**
-     * Capitalizes the first letter of a string and makes the rest lowercase.
+     * Gets the lowercase make used when sorting by make.
+     * It is computed once and reused until the make changes.
      *
-     * @param str The string to be processed.
-     * @return The processed string with the first letter capitalized and the rest lowercase.
+     * @return the make sort key
      */
-    private static String capitalizeFirstLetter(String str) {
-        if (str == null || str.isEmpty()) {
-            return str;
+    String getMakeSortKey() {
+        if (makeSortKey == null) {
+            makeSortKey = make == null ? "" : make.toLowerCase();
+        }
+        return makeSortKey;
+    }
+
+    /**
+     * Gets the space separated tags used when sorting by tags.
+     * It is computed once and reused until the tags change.
+     *
+     * @return the tags sort key
+     */
+    String getTagsSortKey() {
+        if (tagsSortKey == null) {
+            tagsSortKey = getTagsString();
+        }
+        return tagsSortKey;
+    }
+
+    /**
+     * Adds a tag to the item, unless it already has it. Whether the item has the tag is a single bit test,
+     * and the tag is inserted at its sorted position instead of sorting the whole list again.
+     *
+     * @param itemTags the tag to add, in any capitalization
+     */
+    public void addItemTag(String itemTags) {
+        long[] words = getTagWords();
+        TagDictionary dictionary = Ledger.getInstance().getTagDictionary();
+        int id = dictionary.idOf(itemTags);
+        if (id < 0 || TagDictionary.get(words, id)) {
+            return;
+        }
+        if (this.itemTags == null) {
+            this.itemTags = new ArrayList<>();
         }
-        return str.substring(0, 1).toUpperCase() + str.substring(1).toLowerCase();
+        this.tagWords = TagDictionary.set(words.clone(), id);
+        this.tagWordsDictionary = dictionary;
+        String tag = dictionary.get(id);
+        int pos = Collections.binarySearch(this.itemTags, tag);
+        this.itemTags.add(pos >= 0 ? pos : -(pos + 1), tag);
+        this.tagsSortKey = null;
     }
 
     public ArrayList<String> getImageLinks() {
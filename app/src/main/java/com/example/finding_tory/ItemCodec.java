@@ -0,0 +1,363 @@
+package com.example.finding_tory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+
+/**
+ * Encodes items into a compact, versioned binary format, for local caching and for passing
+ * items between screens, in place of Java serialization.
+ * <p>
+ * Every encoding starts with a header: the bytes {@code 'F' 'T'}, the format version and the kind of value
+ * encoded. It is followed by a string table holding every distinct make, model and tag once, and then the
+ * value itself. Counts, lengths and string table references are written as unsigned varints, dates as
+ * zigzag varints of their epoch milliseconds, and values as the raw bits of the float. Other strings are
+ * written in place as UTF-8. References and in-place strings use 0 for null, so that nulls survive a round trip.
+ */
+public class ItemCodec {
+    /**
+     * The version of the format written by this codec. Decoding rejects any other version.
+     */
+    public static final int VERSION = 1;
+
+    private static final byte MAGIC_0 = 'F';
+    private static final byte MAGIC_1 = 'T';
+    private static final int KIND_ITEM = 1;
+    private static final int KIND_ITEMS = 2;
+    private static final int HAS_DATE = 1;
+
+    private ItemCodec() {
+    }
+
+    /**
+     * Encodes a single item.
+     *
+     * @param item The item to encode.
+     * @return the encoded item
+     */
+    public static byte[] encodeItem(Item item) {
+        Writer writer = new Writer();
+        writer.writeItem(item);
+        return writer.finish(KIND_ITEM);
+    }
+
+    /**
+     * Decodes a single item encoded by {@link #encodeItem(Item)}.
+     *
+     * @param bytes The encoded item.
+     * @return the decoded item
+     * @throws IllegalArgumentException if the bytes are not an encoded item of this version
+     */
+    public static Item decodeItem(byte[] bytes) {
+        return new Reader(bytes, KIND_ITEM).readItem();
+    }
+
+    /**
+     * Encodes a list of items.
+     *
+     * @param items The items to encode.
+     * @return the encoded items
+     */
+    public static byte[] encodeItems(Collection<Item> items) {
+        Writer writer = new Writer();
+        writer.writeItems(items);
+        return writer.finish(KIND_ITEMS);
+    }
+
+    /**
+     * Decodes a list of items encoded by {@link #encodeItems(Collection)}.
+     *
+     * @param bytes The encoded items.
+     * @return the decoded items, in their original order
+     * @throws IllegalArgumentException if the bytes are not encoded items of this version
+     */
+    public static ArrayList<Item> decodeItems(byte[] bytes) {
+        return new Reader(bytes, KIND_ITEMS).readItems();
+    }
+
+    /**
+     * Writes the body of an encoding while collecting its string table, then puts the header and the
+     * table in front of it.
+     */
+    private static class Writer {
+        private final HashMap<String, Integer> tableIndex = new HashMap<>();
+        private final ArrayList<String> table = new ArrayList<>();
+        private byte[] buffer = new byte[256];
+        private int length;
+
+        void writeItems(Collection<Item> items) {
+            writeVarInt(items.size());
+            for (Item item : items) {
+                writeItem(item);
+            }
+        }
+
+        void writeItem(Item item) {
+            Date date = item.getPurchaseDate();
+            writeVarInt(date != null ? HAS_DATE : 0);
+            if (date != null) {
+                writeVarLong(zigzag(date.getTime()));
+            }
+            writeString(item.getId());
+            writeString(item.getDescription());
+            writeRef(item.getMake());
+            writeRef(item.getModel());
+            writeString(item.getSerialNumber());
+            writeInt(Float.floatToIntBits(item.getEstimatedValue()));
+            writeString(item.getComment());
+            writeRefs(item.getItemTags());
+            writeStrings(item.getImageLinks());
+        }
+
+        void writeRef(String s) {
+            if (s == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer index = tableIndex.get(s);
+            if (index == null) {
+                index = table.size();
+                table.add(s);
+                tableIndex.put(s, index);
+            }
+            writeVarInt(index + 1);
+        }
+
+        void writeRefs(ArrayList<String> strings) {
+            if (strings == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(strings.size() + 1);
+            for (String s : strings) {
+                writeRef(s);
+            }
+        }
+
+        void writeStrings(ArrayList<String> strings) {
+            if (strings == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(strings.size() + 1);
+            for (String s : strings) {
+                writeString(s);
+            }
+        }
+
+        void writeString(String s) {
+            if (s == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length + 1);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, buffer, length, utf8.length);
+            length += utf8.length;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            buffer[length++] = (byte) (value >>> 24);
+            buffer[length++] = (byte) (value >>> 16);
+            buffer[length++] = (byte) (value >>> 8);
+            buffer[length++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+
+        /**
+         * Builds the complete encoding: the header, the string table, and the body written so far.
+         */
+        byte[] finish(int kind) {
+            byte[] body = Arrays.copyOf(buffer, length);
+            buffer = new byte[64];
+            length = 0;
+            buffer[length++] = MAGIC_0;
+            buffer[length++] = MAGIC_1;
+            writeVarInt(VERSION);
+            writeVarInt(kind);
+            writeVarInt(table.size());
+            for (String s : table) {
+                writeString(s);
+            }
+            ensure(body.length);
+            System.arraycopy(body, 0, buffer, length, body.length);
+            length += body.length;
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+
+    /**
+     * Reads an encoding, checking its header and loading its string table first.
+     */
+    private static class Reader {
+        private final byte[] buffer;
+        private int position;
+        private final String[] table;
+
+        Reader(byte[] buffer, int kind) {
+            this.buffer = buffer;
+            if (buffer.length < 2 || buffer[0] != MAGIC_0 || buffer[1] != MAGIC_1) {
+                throw new IllegalArgumentException("Not an encoded item");
+            }
+            position = 2;
+            int version = readVarInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported encoding version " + version);
+            }
+            int actualKind = readVarInt();
+            if (actualKind != kind) {
+                throw new IllegalArgumentException("Expected encoding kind " + kind + " but found " + actualKind);
+            }
+            int tableSize = readVarInt();
+            // every entry takes at least one byte, so a larger count can only come from corrupt data
+            require(tableSize);
+            table = new String[tableSize];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = readString();
+            }
+        }
+
+        ArrayList<Item> readItems() {
+            int count = readVarInt();
+            ArrayList<Item> items = new ArrayList<>(Math.min(count, buffer.length));
+            for (int i = 0; i < count; i++) {
+                items.add(readItem());
+            }
+            return items;
+        }
+
+        Item readItem() {
+            Item item = new Item();
+            int flags = readVarInt();
+            if ((flags & HAS_DATE) != 0) {
+                item.setPurchaseDate(new Date(unzigzag(readVarLong())));
+            }
+            item.setId(readString());
+            item.setDescription(readString());
+            item.setMake(readRef());
+            item.setModel(readRef());
+            item.setSerialNumber(readString());
+            item.setEstimatedValue(Float.intBitsToFloat(readInt()));
+            item.setComment(readString());
+            ArrayList<String> tags = readRefs();
+            if (tags != null) {
+                item.setItemTags(tags);
+            }
+            item.setImageLinks(readStrings());
+            return item;
+        }
+
+        String readRef() {
+            int ref = readVarInt();
+            if (ref == 0) {
+                return null;
+            }
+            if (ref > table.length) {
+                throw new IllegalArgumentException("String reference " + ref + " is outside the table");
+            }
+            return table[ref - 1];
+        }
+
+        ArrayList<String> readRefs() {
+            int count = readVarInt();
+            if (count == 0) {
+                return null;
+            }
+            ArrayList<String> strings = new ArrayList<>(Math.min(count - 1, buffer.length));
+            for (int i = 1; i < count; i++) {
+                strings.add(readRef());
+            }
+            return strings;
+        }
+
+        ArrayList<String> readStrings() {
+            int count = readVarInt();
+            if (count == 0) {
+                return null;
+            }
+            ArrayList<String> strings = new ArrayList<>(Math.min(count - 1, buffer.length));
+            for (int i = 1; i < count; i++) {
+                strings.add(readString());
+            }
+            return strings;
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            length--;
+            require(length);
+            String s = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return s;
+        }
+
+        int readInt() {
+            require(4);
+            int value = (buffer[position] & 0xFF) << 24 | (buffer[position + 1] & 0xFF) << 16
+                    | (buffer[position + 2] & 0xFF) << 8 | (buffer[position + 3] & 0xFF);
+            position += 4;
+            return value;
+        }
+
+        int readVarInt() {
+            long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Count or reference out of range");
+            }
+            return (int) value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                require(1);
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        private void require(int bytes) {
+            if (bytes < 0 || bytes > buffer.length - position) {
+                throw new IllegalArgumentException("Encoding is truncated");
+            }
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.finding_tory;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Stores the fields of an inventory's items that are used for totals and range scans in primitive arrays,
+ * indexed by item slot: the purchase date in epoch milliseconds, the estimated value in cents, the id of
+ * the item's make, and the ids of the item's tags. Aggregates over these columns are simple loops over arrays instead of walks over
+ * Item objects. The columns must be updated whenever an item is added, removed or changed.
+ */
+public class ItemColumns implements Serializable {
+    private static final int[] NO_TAGS = new int[0];
+
+    private long[] dateMillis;
+    private long[] valueCents;
+    private int[] makeIds;
+    private int[][] tagIds;
+    private final BitSet live;
+    private long totalCents;
+    // shared with the rest of the ledger, so it is looked up again after deserialization instead of copied
+    private transient TagDictionary tagDictionary;
+    private final HashMap<String, Integer> makeDictionary;
+    private final ArrayList<String> makeNames;
+
+    /**
+     * Constructs a new, empty ItemColumns object.
+     */
+    public ItemColumns() {
+        this.dateMillis = new long[16];
+        this.valueCents = new long[16];
+        this.makeIds = new int[16];
+        this.tagIds = new int[16][];
+        this.live = new BitSet();
+        this.totalCents = 0;
+        this.tagDictionary = Ledger.getInstance().getTagDictionary();
+        this.makeDictionary = new HashMap<>();
+        this.makeNames = new ArrayList<>();
+    }
+
+    /**
+     * Stores the columns of an item in its slot, replacing whatever was stored there.
+     *
+     * @param slot The slot of the item.
+     * @param item The item whose fields are stored.
+     */
+    public void set(int slot, Item item) {
+        ensureCapacity(slot + 1);
+        if (live.get(slot)) {
+            totalCents -= valueCents[slot];
+        }
+        dateMillis[slot] = item.getPurchaseDate() == null ? 0 : item.getPurchaseDate().getTime();
+        valueCents[slot] = toCents(item.getEstimatedValue());
+        makeIds[slot] = getOrAddMakeId(item.getMake());
+        setTags(slot, item.getItemTags());
+        live.set(slot);
+        totalCents += valueCents[slot];
+    }
+
+    /**
+     * Replaces the tag ids stored for a slot, e.g. after tags were added to its item.
+     *
+     * @param slot The slot of the item.
+     * @param tags The item's tags.
+     */
+    public void setTags(int slot, Collection<String> tags) {
+        ensureCapacity(slot + 1);
+        if (tags.isEmpty()) {
+            tagIds[slot] = NO_TAGS;
+            return;
+        }
+        int[] ids = new int[tags.size()];
+        int i = 0;
+        for (String tag : tags) {
+            int id = tagDictionary.idOf(tag);
+            if (id >= 0) {
+                ids[i++] = id;
+            }
+        }
+        tagIds[slot] = i == ids.length ? ids : Arrays.copyOf(ids, i);
+    }
+
+    /**
+     * Clears the columns of a slot whose item was removed.
+     *
+     * @param slot The slot of the removed item.
+     */
+    public void clear(int slot) {
+        if (!live.get(slot)) {
+            return;
+        }
+        totalCents -= valueCents[slot];
+        live.clear(slot);
+        dateMillis[slot] = 0;
+        valueCents[slot] = 0;
+        makeIds[slot] = -1;
+        tagIds[slot] = null;
+    }
+
+    /**
+     * Gets the purchase date stored for a slot.
+     *
+     * @param slot The slot of the item.
+     * @return the purchase date in epoch milliseconds
+     */
+    public long getDateMillis(int slot) {
+        return dateMillis[slot];
+    }
+
+    /**
+     * Gets the estimated value stored for a slot.
+     *
+     * @param slot The slot of the item.
+     * @return the estimated value in cents
+     */
+    public long getValueCents(int slot) {
+        return valueCents[slot];
+    }
+
+    /**
+     * Gets the id of the make stored for a slot.
+     *
+     * @param slot The slot of the item.
+     * @return the id of the item's make, or -1 if it has none
+     */
+    public int getMakeId(int slot) {
+        return makeIds[slot];
+    }
+
+    /**
+     * Gets the make with an id in this store's make dictionary.
+     *
+     * @param id The id of the make.
+     * @return the make, with surrounding whitespace removed
+     */
+    public String getMakeName(int id) {
+        return makeNames.get(id);
+    }
+
+    /**
+     * Gets the tag ids stored for a slot.
+     *
+     * @param slot The slot of the item.
+     * @return the ids of the item's tags, which should not be modified
+     */
+    public int[] getTagIds(int slot) {
+        return tagIds[slot] == null ? NO_TAGS : tagIds[slot];
+    }
+
+    /**
+     * Gets the id of a tag in the ledger's tag dictionary.
+     *
+     * @param tag The tag to look up, in any capitalization.
+     * @return the id of the tag, or -1 if no item has ever used it
+     */
+    public int getTagId(String tag) {
+        return tagDictionary.find(tag);
+    }
+
+    /**
+     * Gets the tag with an id in the ledger's tag dictionary.
+     *
+     * @param id The id of the tag.
+     * @return the normalized tag
+     */
+    public String getTagName(int id) {
+        return tagDictionary.get(id);
+    }
+
+    /**
+     * Gets the total estimated value of every item. The total is kept up to date as items are set and
+     * cleared, so this does not loop.
+     *
+     * @return the total value in cents
+     */
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    /**
+     * Adds up the estimated values of the items in a set of slots.
+     *
+     * @param slots The slots of the items to add up.
+     * @return the total value in cents
+     */
+    public long sumCents(BitSet slots) {
+        long sum = 0;
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            sum += valueCents[slot];
+        }
+        return sum;
+    }
+
+    /**
+     * Counts the items in a set of slots whose value falls into each bucket. Bucket {@code i} holds the
+     * values from {@code boundsCents[i - 1]} (inclusive) up to {@code boundsCents[i]} (exclusive); the first
+     * bucket holds everything below the first bound and the last bucket everything from the last bound up.
+     *
+     * @param slots       The slots of the items to count.
+     * @param boundsCents The bucket bounds in cents, in ascending order.
+     * @return the item count of each bucket, with one more bucket than there are bounds
+     */
+    public int[] valueHistogram(BitSet slots, long[] boundsCents) {
+        int[] counts = new int[boundsCents.length + 1];
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            if (!live.get(slot)) {
+                continue;
+            }
+            int bucket = Arrays.binarySearch(boundsCents, valueCents[slot]);
+            counts[bucket >= 0 ? bucket + 1 : -(bucket + 1)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the slots that currently hold an item.
+     *
+     * @return the live view of the occupied slots, which should not be modified
+     */
+    public BitSet getLiveSlots() {
+        return live;
+    }
+
+    /**
+     * Gets the number of slots the columns currently have room for.
+     *
+     * @return the column capacity
+     */
+    public int capacity() {
+        return dateMillis.length;
+    }
+
+    /**
+     * Converts a dollar value to a whole number of cents.
+     *
+     * @param value The value in dollars.
+     * @return the value in cents, rounded to the nearest cent
+     */
+    public static long toCents(double value) {
+        return Math.round(value * 100);
+    }
+
+    /**
+     * Restores the columns from a stream, pointing them at the ledger's tag dictionary again.
+     *
+     * @param in The stream to read from.
+     * @throws IOException            if the stream cannot be read
+     * @throws ClassNotFoundException if a class in the stream cannot be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.tagDictionary = Ledger.getInstance().getTagDictionary();
+    }
+
+    /**
+     * Gets the id of a make, adding it to the dictionary if it is new.
+     *
+     * @param make The make to look up, may be null.
+     * @return the id of the make, or -1 if it is null or blank
+     */
+    private int getOrAddMakeId(String make) {
+        if (make == null || make.trim().isEmpty()) {
+            return -1;
+        }
+        String trimmed = make.trim();
+        Integer id = makeDictionary.get(trimmed);
+        if (id == null) {
+            id = makeNames.size();
+            makeNames.add(trimmed);
+            makeDictionary.put(trimmed, id);
+        }
+        return id;
+    }
+
+    /**
+     * Grows the columns so that they can hold at least the given number of slots.
+     *
+     * @param minCapacity The number of slots needed.
+     */
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= dateMillis.length) {
+            return;
+        }
+        int newCapacity = Math.max(minCapacity, dateMillis.length * 2);
+        dateMillis = Arrays.copyOf(dateMillis, newCapacity);
+        valueCents = Arrays.copyOf(valueCents, newCapacity);
+        makeIds = Arrays.copyOf(makeIds, newCapacity);
+        tagIds = Arrays.copyOf(tagIds, newCapacity);
+    }
+}
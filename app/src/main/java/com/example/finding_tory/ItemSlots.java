@@ -0,0 +1,136 @@
+package com.example.finding_tory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+
+/**
+ * Assigns every item of an inventory a small integer slot that stays the same for as long as the item is in
+ * the inventory. Indexes refer to items by their slot, and slots of removed items are reused by later items.
+ */
+public class ItemSlots implements Serializable {
+    private final ArrayList<Item> items;
+    private final IdentityHashMap<Item, Integer> slotsByItem;
+    private int[] freeSlots;
+    private int freeCount;
+
+    /**
+     * Constructs a new ItemSlots object with no items.
+     */
+    public ItemSlots() {
+        this.items = new ArrayList<>();
+        this.slotsByItem = new IdentityHashMap<>();
+        this.freeSlots = new int[8];
+        this.freeCount = 0;
+    }
+
+    /**
+     * Assigns a slot to an item. An item that already has a slot keeps it.
+     *
+     * @param item The item to add.
+     * @return the slot of the item
+     */
+    public int add(Item item) {
+        Integer existing = slotsByItem.get(item);
+        if (existing != null) {
+            return existing;
+        }
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+            items.set(slot, item);
+        } else {
+            slot = items.size();
+            items.add(item);
+        }
+        slotsByItem.put(item, slot);
+        return slot;
+    }
+
+    /**
+     * Releases the slot of an item so that it can be reused.
+     *
+     * @param item The item to remove.
+     * @return the slot the item had, or -1 if it did not have one
+     */
+    public int remove(Item item) {
+        Integer slot = slotsByItem.remove(item);
+        if (slot == null) {
+            return -1;
+        }
+        items.set(slot, null);
+        if (freeCount == freeSlots.length) {
+            int[] grown = new int[freeSlots.length * 2];
+            System.arraycopy(freeSlots, 0, grown, 0, freeCount);
+            freeSlots = grown;
+        }
+        freeSlots[freeCount++] = slot;
+        return slot;
+    }
+
+    /**
+     * Gets the slot of an item.
+     *
+     * @param item The item to look up.
+     * @return the slot of the item, or -1 if it does not have one
+     */
+    public int slotOf(Item item) {
+        Integer slot = slotsByItem.get(item);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Gets the item stored in a slot.
+     *
+     * @param slot The slot to look up.
+     * @return the item in that slot, or null if the slot is free
+     */
+    public Item get(int slot) {
+        return items.get(slot);
+    }
+
+    /**
+     * Gets the items whose slots are set in a BitSet, in slot order.
+     *
+     * @param bits The slots to collect.
+     * @return ArrayList of the items in those slots
+     */
+    public ArrayList<Item> getAll(BitSet bits) {
+        ArrayList<Item> result = new ArrayList<>(bits.cardinality());
+        for (int slot = bits.nextSetBit(0); slot >= 0; slot = bits.nextSetBit(slot + 1)) {
+            Item item = items.get(slot);
+            if (item != null) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets one more than the highest slot handed out so far.
+     *
+     * @return the number of slots, including free ones
+     */
+    public int capacity() {
+        return items.size();
+    }
+
+    /**
+     * Gets the number of items holding a slot.
+     *
+     * @return number of items
+     */
+    public int size() {
+        return slotsByItem.size();
+    }
+
+    /**
+     * Releases every slot.
+     */
+    public void clear() {
+        items.clear();
+        slotsByItem.clear();
+        freeCount = 0;
+    }
+}
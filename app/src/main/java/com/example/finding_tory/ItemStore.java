@@ -0,0 +1,111 @@
+package com.example.finding_tory;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Stores the items of a user's inventories. Screens read and write items only through the store returned
+ * by {@link Stores#getItemStore()}, so the same flows run against Firestore in the app and against
+ * {@link MemoryStore} in tests and benchmarks.
+ * <p>
+ * Writes made through the store are not reported back to item listeners, since the caller has already
+ * applied them to its in-memory inventory.
+ */
+public interface ItemStore {
+    /**
+     * Reads one page of an inventory's items, in ID order.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory whose items are read.
+     * @param afterId   The ID of the last item of the previous page, or null for the first page.
+     * @param limit     The most items to read.
+     * @param callback  Receives the items, with their IDs set; fewer than limit means there are no more.
+     */
+    void loadItemsPage(String username, Inventory inventory, String afterId, int limit, StoreCallback<List<Item>> callback);
+
+    /**
+     * Adds a new item, giving it an ID.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory the item is added to.
+     * @param item      The Item to be added. Its ID is set before the callback runs.
+     * @param callback  Receives the item once it has been written.
+     */
+    void addItem(String username, Inventory inventory, Item item, StoreCallback<Item> callback);
+
+    /**
+     * Overwrites an existing item with its new version.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory containing the item.
+     * @param item      The edited Item.
+     * @param callback  Notified once the item has been written.
+     */
+    void saveItem(String username, Inventory inventory, Item item, StoreCallback<Void> callback);
+
+    /**
+     * Overwrites many existing items in as few batched writes as possible, together with the change this
+     * makes to the inventory's summary.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory containing the items.
+     * @param items     The edited Items. Items without an ID are skipped.
+     * @param delta     The change to the inventory's summary, or null to leave it alone.
+     * @param callback  Notified once every item has been written.
+     */
+    void saveItems(String username, Inventory inventory, Collection<Item> items, SummaryDelta delta, StoreCallback<Void> callback);
+
+    /**
+     * Deletes an item.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory from which to delete the item.
+     * @param item      The Item to be deleted.
+     * @param callback  Notified once the item has been deleted.
+     */
+    void deleteItem(String username, Inventory inventory, Item item, StoreCallback<Void> callback);
+
+    /**
+     * Deletes many items, together with the change this makes to the inventory's summary.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory from which to delete the items.
+     * @param items     The Items to be deleted. Items without an ID are skipped.
+     * @param delta     The change to the inventory's summary, or null to leave it alone.
+     * @param callback  Notified once every item has been deleted.
+     */
+    void deleteItems(String username, Inventory inventory, Collection<Item> items, SummaryDelta delta, StoreCallback<Void> callback);
+
+    /**
+     * Adds tags to many items, together with the change this makes to the inventory's summary. Tags an
+     * item already has are not added again.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory containing the items.
+     * @param items     The Items being tagged. Items without an ID are skipped.
+     * @param tags      The tags to add, in any capitalization.
+     * @param delta     The change to the inventory's summary, or null to leave it alone.
+     * @param callback  Notified once every item has been tagged.
+     */
+    void tagItems(String username, Inventory inventory, Collection<Item> items, Collection<String> tags, SummaryDelta delta, StoreCallback<Void> callback);
+
+    /**
+     * Starts listening to an inventory's items.
+     *
+     * @param username  The username identifying the specific user.
+     * @param inventory The Inventory whose items are listened to.
+     * @param listener  Receives every item first, then the items changed elsewhere.
+     * @return the registration that stops the listener
+     */
+    StoreListener.Registration listenItems(String username, Inventory inventory, StoreListener<Item> listener);
+
+    /**
+     * Sends any writes the store is holding back straight away, e.g. when a screen closes. Stores that
+     * write straight away have nothing to send.
+     *
+     * @param callback Notified once the writes that were held back have been written.
+     */
+    default void flush(StoreCallback<Void> callback) {
+        callback.onSuccess(null);
+    }
+}
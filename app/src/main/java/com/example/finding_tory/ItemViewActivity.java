@@ -34,6 +34,7 @@ import java.util.Locale;
  */
 public class ItemViewActivity extends AppCompatActivity {
     private String username;
+    private String inventoryKey;
     private Inventory selectedInventory;
     private Item selectedItem;
     int picture_index;
@@ -54,8 +55,9 @@ public class ItemViewActivity extends AppCompatActivity {
 
         // Retrieve the selected item from the Intent
         username = (String) getIntent().getSerializableExtra("username");
-        selectedInventory = (Inventory) getIntent().getSerializableExtra("inventory");
-        selectedItem = (Item) getIntent().getSerializableExtra("selectedItem");
+        inventoryKey = getIntent().getStringExtra("inventory_id");
+        selectedInventory = InventoryRepository.getInstance().get(inventoryKey);
+        selectedItem = ItemCodec.decodeItem(getIntent().getByteArrayExtra("selectedItem"));
         position = getIntent().getIntExtra("pos", 0);
 
         // Use the selectedItem to populate the views in the item_click_view layout
@@ -119,8 +121,8 @@ public class ItemViewActivity extends AppCompatActivity {
                 // Start Edit Activity
                 Intent editItemIntent = new Intent(ItemViewActivity.this, UpsertViewActivity.class);
                 editItemIntent.putExtra("username", username);
-                editItemIntent.putExtra("selectedItem", selectedItem);
-                editItemIntent.putExtra("inventory", selectedInventory);
+                editItemIntent.putExtra("selectedItem", ItemCodec.encodeItem(selectedItem));
+                editItemIntent.putExtra("inventory_id", inventoryKey);
                 startActivityForResult(editItemIntent, ActivityCodes.EDIT_ITEM.getRequestCode());
             }
         });
@@ -148,7 +150,7 @@ public class ItemViewActivity extends AppCompatActivity {
      */
     private void handleOnBack() {
         Intent intent = getIntent();
-        intent.putExtra("returnedItem", selectedItem);
+        intent.putExtra("returnedItem", ItemCodec.encodeItem(selectedItem));
         intent.putExtra("position", position);
         intent.putExtra("action", "edit");
 
@@ -171,7 +173,7 @@ public class ItemViewActivity extends AppCompatActivity {
         if (requestCode == ActivityCodes.EDIT_ITEM.getRequestCode()) {
             if (resultCode == RESULT_OK) {
                 assert data != null;
-                Item returnedItem = (Item) data.getSerializableExtra("editedItem");
+                Item returnedItem = ItemCodec.decodeItem(data.getByteArrayExtra("editedItem"));
                 assert returnedItem != null;
                 selectedItem = returnedItem;
                 setItemView(selectedItem);
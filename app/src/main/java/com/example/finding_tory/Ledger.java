@@ -1,6 +1,8 @@
 package com.example.finding_tory;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 
 public class Ledger {
     private static final Ledger instance = new Ledger(new ArrayList<Inventory>(), new User());
@@ -8,6 +10,7 @@ public class Ledger {
     private static String GLOBAL_USERNAME;
     private ArrayList<Inventory> inventories;
     private User user;
+    private volatile TagDictionary tagDictionary = new TagDictionary();
 
     private Ledger(ArrayList<Inventory> inventories, User user) {
         this.inventories = inventories;
@@ -34,6 +37,26 @@ public class Ledger {
         this.user = user;
     }
 
+    /**
+     * Gets the dictionary that gives every tag used in the ledger a small id. Items store their tags as
+     * bits keyed by these ids.
+     *
+     * @return the ledger's tag dictionary
+     */
+    public TagDictionary getTagDictionary() {
+        return tagDictionary;
+    }
+
+    /**
+     * Empties the ledger when its user logs out: its inventories are dropped, and its tag dictionary is
+     * replaced with an empty one, so that it does not keep every tag of every user who has logged in.
+     * Tag words built against the old dictionary are built again the next time they are used.
+     */
+    public void reset() {
+        inventories = new ArrayList<>();
+        tagDictionary = new TagDictionary();
+    }
+
     public void setUserNames(String name, String usrname) {
         GLOBAL_NAME = name;
         GLOBAL_USERNAME = usrname;
@@ -50,4 +73,50 @@ public class Ledger {
     public void deleteInventory(Inventory inventory) {
         inventories.remove(inventory);
     }
+
+    /**
+     * Applies changes to the user's inventories, as reported by Firestore. Inventories are matched by ID,
+     * so an inventory that is already listed or open keeps its instance and only has its name and summary
+     * updated, and new inventories are put in the {@link InventoryRepository}.
+     *
+     * @param changed    The added or modified inventories, as read from their documents.
+     * @param removedIds The IDs of the removed inventories.
+     */
+    public void applyInventoryChanges(Collection<Inventory> changed, Collection<String> removedIds) {
+        InventoryRepository repository = InventoryRepository.getInstance();
+        HashMap<String, Inventory> byId = new HashMap<>();
+        for (Inventory inventory : inventories) {
+            if (inventory.getId() != null) {
+                byId.put(inventory.getId(), inventory);
+            }
+        }
+        for (String id : removedIds) {
+            repository.remove(id);
+            Inventory removed = byId.remove(id);
+            if (removed != null) {
+                inventories.remove(removed);
+            }
+        }
+        for (Inventory inventory : changed) {
+            Inventory existing = byId.get(inventory.getId());
+            if (existing == null) {
+                // an inventory that was opened before it was listed keeps its instance
+                existing = repository.get(inventory.getId());
+                if (existing != null) {
+                    byId.put(existing.getId(), existing);
+                    inventories.add(existing);
+                }
+            }
+            if (existing != null) {
+                existing.setName(inventory.getInventoryName());
+                existing.setCount(inventory.getCount());
+                existing.setInventoryEstimatedValue(inventory.getInventoryEstimatedValue());
+                existing.setTagCounts(inventory.getTagCounts());
+            } else {
+                repository.put(inventory);
+                byId.put(inventory.getId(), inventory);
+                inventories.add(inventory);
+            }
+        }
+    }
 }
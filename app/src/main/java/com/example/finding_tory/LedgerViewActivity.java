@@ -2,6 +2,8 @@ package com.example.finding_tory;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.Menu;
 import android.view.View;
 import android.widget.LinearLayout;
@@ -54,6 +56,15 @@ public class LedgerViewActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         currentViewContext = this;
         internalStorageManager = new InternalStorageManager(this);
+        try {
+            Stores.openOperationLog(internalStorageManager.getOperationLogFile(), new Handler(Looper.getMainLooper())::post, e -> {
+                e.printStackTrace();
+                Toast.makeText(getApplicationContext(), "Changes not saved yet: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            });
+        } catch (IOException e) {
+            // writes are still sent, only without surviving the app being closed
+            e.printStackTrace();
+        }
 
         binding = ActivityLedgerViewBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
@@ -135,6 +146,10 @@ public class LedgerViewActivity extends AppCompatActivity {
             @Override
             public void onClick(View v) {
                 saveData("");
+                Stores.getItemStore().flush(StoreCallback.ignoreResult());
+                InventorySync.getInstance().stopAll();
+                InventoryRepository.getInstance().clear();
+                Ledger.getInstance().reset();
                 Intent intent = new Intent(currentViewContext, LoginActivity.class);
                 startActivityForResult(intent, ActivityCodes.LOGIN_USER.getRequestCode());
             }
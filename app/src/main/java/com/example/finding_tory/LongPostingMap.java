@@ -0,0 +1,160 @@
+package com.example.finding_tory;
+
+import java.io.Serializable;
+
+/**
+ * A hash map from long keys to posting lists, used by {@link NGramIndex} to look up packed trigrams. Keys
+ * are kept in a primitive array with open addressing, so a lookup neither boxes its key nor allocates an
+ * entry per trigram.
+ */
+public class LongPostingMap implements Serializable {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    // a null value marks a free cell
+    private PostingList[] values;
+    private int size;
+
+    /**
+     * Constructs a new, empty LongPostingMap.
+     */
+    public LongPostingMap() {
+        this.keys = new long[MIN_CAPACITY];
+        this.values = new PostingList[MIN_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Gets the posting list stored for a key.
+     *
+     * @param key The key to look up.
+     * @return the posting list, or null if there is none
+     */
+    public PostingList get(long key) {
+        int mask = keys.length - 1;
+        for (int i = indexOf(key, mask); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores a posting list for a key, replacing any list stored for it before.
+     *
+     * @param key   The key.
+     * @param value The posting list, not null.
+     */
+    public void put(long key, PostingList value) {
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = indexOf(key, mask);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * Removes the posting list stored for a key. The keys after it in its run are shifted back, so that
+     * lookups never have to skip over removed cells.
+     *
+     * @param key The key to remove.
+     */
+    public void remove(long key) {
+        int mask = keys.length - 1;
+        int i = indexOf(key, mask);
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == null) {
+            return;
+        }
+        int free = i;
+        for (int j = (free + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = indexOf(keys[j], mask);
+            // move the key back unless its home lies cyclically after the free cell and up to its cell
+            if (((j - home) & mask) >= ((j - free) & mask)) {
+                keys[free] = keys[j];
+                values[free] = values[j];
+                free = j;
+            }
+        }
+        values[free] = null;
+        size--;
+    }
+
+    /**
+     * Gets the number of keys in the map.
+     *
+     * @return number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every key from the map.
+     */
+    public void clear() {
+        this.keys = new long[MIN_CAPACITY];
+        this.values = new PostingList[MIN_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Gets the number of cells, for walking the map with {@link #keyAt(int)} and {@link #valueAt(int)}.
+     *
+     * @return number of cells
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the key stored in a cell.
+     *
+     * @param cell The cell, below {@link #capacity()}.
+     * @return the key, only meaningful if the cell holds a value
+     */
+    public long keyAt(int cell) {
+        return keys[cell];
+    }
+
+    /**
+     * Gets the posting list stored in a cell.
+     *
+     * @param cell The cell, below {@link #capacity()}.
+     * @return the posting list, or null if the cell is free
+     */
+    public PostingList valueAt(int cell) {
+        return values[cell];
+    }
+
+    private static int indexOf(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        PostingList[] oldValues = values;
+        this.keys = new long[capacity];
+        this.values = new PostingList[capacity];
+        this.size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
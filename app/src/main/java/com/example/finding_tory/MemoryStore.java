@@ -0,0 +1,511 @@
+package com.example.finding_tory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores items and inventories in memory, so that the add, edit, filter and delete flows can be tested and
+ * benchmarked on a plain JVM with no network. It behaves like {@link FirestoreStore}: items are read in ID
+ * order, summaries are changed with increments, and listeners get every document first and then only
+ * the changes. Stored items are copies, so changing an item after writing it does not change the store.
+ * <p>
+ * Without latency, every result is delivered on the calling thread before the call returns. With latency,
+ * results are delivered in order on a single background thread after the given delay, like responses
+ * arriving on the main thread. The number of documents read and written is counted, to compare flows.
+ */
+public class MemoryStore implements ItemStore, InventoryStore {
+    private final long latencyMillis;
+    private final ScheduledExecutorService executor;
+    private final HashMap<String, LinkedHashMap<String, InventoryDocument>> users;
+    private final ArrayList<InventoryListener> inventoryListeners;
+    private final ArrayList<ItemListener> itemListeners;
+    private final AtomicLong reads;
+    private final AtomicLong writes;
+    private long nextId;
+
+    /**
+     * The stored form of an inventory: its name, its summary and its items by ID.
+     */
+    private static class InventoryDocument {
+        private String name;
+        private int count;
+        private double value;
+        private final HashMap<String, Integer> tagCounts = new HashMap<>();
+        private final TreeMap<String, Item> items = new TreeMap<>();
+        private final HashSet<String> appliedOperations = new HashSet<>();
+    }
+
+    private static class InventoryListener {
+        private final String username;
+        private final StoreListener<Inventory> listener;
+
+        private InventoryListener(String username, StoreListener<Inventory> listener) {
+            this.username = username;
+            this.listener = listener;
+        }
+    }
+
+    private static class ItemListener {
+        private final String username;
+        private final String inventoryId;
+        private final StoreListener<Item> listener;
+        private volatile boolean active = true;
+
+        private ItemListener(String username, String inventoryId, StoreListener<Item> listener) {
+            this.username = username;
+            this.inventoryId = inventoryId;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * Constructs a new empty MemoryStore that delivers results straight away.
+     */
+    public MemoryStore() {
+        this(0);
+    }
+
+    /**
+     * Constructs a new empty MemoryStore that delivers results after a delay.
+     *
+     * @param latencyMillis The delay before each result is delivered, in milliseconds.
+     */
+    public MemoryStore(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        this.executor = latencyMillis > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MemoryStore");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        this.users = new HashMap<>();
+        this.inventoryListeners = new ArrayList<>();
+        this.itemListeners = new ArrayList<>();
+        this.reads = new AtomicLong();
+        this.writes = new AtomicLong();
+    }
+
+    @Override
+    public void loadItemsPage(String username, Inventory inventory, String afterId, int limit, StoreCallback<List<Item>> callback) {
+        ArrayList<Item> page = new ArrayList<>();
+        synchronized (this) {
+            InventoryDocument document = document(username, inventory.getId());
+            if (document != null) {
+                Map<String, Item> after = afterId == null ? document.items : document.items.tailMap(afterId, false);
+                for (Item item : after.values()) {
+                    if (page.size() == limit) {
+                        break;
+                    }
+                    page.add(copy(item));
+                }
+            }
+        }
+        reads.addAndGet(Math.max(page.size(), 1));
+        deliver(() -> callback.onSuccess(page));
+    }
+
+    @Override
+    public void addItem(String username, Inventory inventory, Item item, StoreCallback<Item> callback) {
+        synchronized (this) {
+            item.setId(newId("item"));
+            InventoryDocument document = document(username, inventory.getId());
+            if (document == null) {
+                deliver(() -> callback.onFailure(new IllegalStateException("No inventory " + inventory.getId())));
+                return;
+            }
+            document.items.put(item.getId(), copy(item));
+        }
+        writes.incrementAndGet();
+        deliver(() -> callback.onSuccess(item));
+    }
+
+    @Override
+    public void saveItem(String username, Inventory inventory, Item item, StoreCallback<Void> callback) {
+        synchronized (this) {
+            InventoryDocument document = document(username, inventory.getId());
+            if (document == null) {
+                deliver(() -> callback.onFailure(new IllegalStateException("No inventory " + inventory.getId())));
+                return;
+            }
+            document.items.put(item.getId(), copy(item));
+        }
+        writes.incrementAndGet();
+        deliver(() -> callback.onSuccess(null));
+    }
+
+    @Override
+    public void saveItems(String username, Inventory inventory, Collection<Item> items, SummaryDelta delta, StoreCallback<Void> callback) {
+        synchronized (this) {
+            InventoryDocument document = document(username, inventory.getId());
+            if (document != null) {
+                for (Item item : items) {
+                    if (item.getId() != null) {
+                        document.items.put(item.getId(), copy(item));
+                        writes.incrementAndGet();
+                    }
+                }
+            }
+        }
+        applySummary(username, inventory, delta);
+        deliver(() -> callback.onSuccess(null));
+    }
+
+    @Override
+    public void deleteItem(String username, Inventory inventory, Item item, StoreCallback<Void> callback) {
+        deleteItems(username, inventory, Collections.singletonList(item), null, callback);
+    }
+
+    @Override
+    public void deleteItems(String username, Inventory inventory, Collection<Item> items, SummaryDelta delta, StoreCallback<Void> callback) {
+        synchronized (this) {
+            InventoryDocument document = document(username, inventory.getId());
+            if (document != null) {
+                for (Item item : items) {
+                    if (item.getId() != null) {
+                        document.items.remove(item.getId());
+                        writes.incrementAndGet();
+                    }
+                }
+            }
+        }
+        applySummary(username, inventory, delta);
+        deliver(() -> callback.onSuccess(null));
+    }
+
+    @Override
+    public void tagItems(String username, Inventory inventory, Collection<Item> items, Collection<String> tags, SummaryDelta delta, StoreCallback<Void> callback) {
+        ArrayList<String> normalized = new ArrayList<>();
+        for (String tag : tags) {
+            String n = TagIndex.normalize(tag);
+            if (n != null && !n.isEmpty() && !normalized.contains(n)) {
+                normalized.add(n);
+            }
+        }
+        synchronized (this) {
+            InventoryDocument document = document(username, inventory.getId());
+            if (document != null && !normalized.isEmpty()) {
+                for (Item item : items) {
+                    Item stored = item.getId() == null ? null : document.items.get(item.getId());
+                    if (stored == null) {
+                        continue;
+                    }
+                    for (String tag : normalized) {
+                        if (!stored.getItemTags().contains(tag)) {
+                            stored.addItemTag(tag);
+                        }
+                    }
+                    writes.incrementAndGet();
+                }
+            }
+        }
+        applySummary(username, inventory, delta);
+        deliver(() -> callback.onSuccess(null));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Every write to the store is made by this device, so after the first call the listener only hears
+     * about items changed through {@link #putRemoteItem} and {@link #removeRemoteItem}.
+     */
+    @Override
+    public StoreListener.Registration listenItems(String username, Inventory inventory, StoreListener<Item> listener) {
+        ArrayList<Item> items = new ArrayList<>();
+        synchronized (this) {
+            InventoryDocument document = document(username, inventory.getId());
+            if (document != null) {
+                for (Item item : document.items.values()) {
+                    items.add(copy(item));
+                }
+            }
+        }
+        reads.addAndGet(Math.max(items.size(), 1));
+        ItemListener registration = new ItemListener(username, inventory.getId(), listener);
+        synchronized (this) {
+            itemListeners.add(registration);
+        }
+        deliver(() -> {
+            if (registration.active) {
+                listener.onChanges(items, new ArrayList<>());
+            }
+        });
+        return () -> {
+            synchronized (MemoryStore.this) {
+                registration.active = false;
+                itemListeners.remove(registration);
+            }
+        };
+    }
+
+    /**
+     * Writes an item as if another device had written it, so that item listeners hear about it.
+     *
+     * @param username    The username identifying the specific user.
+     * @param inventoryId The ID of the inventory containing the item.
+     * @param item        The added or edited Item, with its ID set.
+     */
+    public void putRemoteItem(String username, String inventoryId, Item item) {
+        synchronized (this) {
+            InventoryDocument document = document(username, inventoryId);
+            if (document == null) {
+                return;
+            }
+            document.items.put(item.getId(), copy(item));
+        }
+        writes.incrementAndGet();
+        notifyItemListeners(username, inventoryId, Collections.singletonList(item), new ArrayList<>());
+    }
+
+    /**
+     * Deletes an item as if another device had deleted it, so that item listeners hear about it.
+     *
+     * @param username    The username identifying the specific user.
+     * @param inventoryId The ID of the inventory containing the item.
+     * @param itemId      The ID of the deleted item.
+     */
+    public void removeRemoteItem(String username, String inventoryId, String itemId) {
+        synchronized (this) {
+            InventoryDocument document = document(username, inventoryId);
+            if (document == null || document.items.remove(itemId) == null) {
+                return;
+            }
+        }
+        writes.incrementAndGet();
+        notifyItemListeners(username, inventoryId, new ArrayList<>(), Collections.singletonList(itemId));
+    }
+
+    private void notifyItemListeners(String username, String inventoryId, List<Item> changed, List<String> removedIds) {
+        ArrayList<ItemListener> listeners = new ArrayList<>();
+        synchronized (this) {
+            for (ItemListener listener : itemListeners) {
+                if (listener.username.equals(username) && listener.inventoryId.equals(inventoryId)) {
+                    listeners.add(listener);
+                }
+            }
+        }
+        for (ItemListener listener : listeners) {
+            ArrayList<Item> copies = new ArrayList<>();
+            for (Item item : changed) {
+                copies.add(copy(item));
+            }
+            reads.addAndGet(copies.size() + removedIds.size());
+            deliver(() -> {
+                if (listener.active) {
+                    listener.listener.onChanges(copies, new ArrayList<>(removedIds));
+                }
+            });
+        }
+    }
+
+    @Override
+    public void addInventory(String username, Inventory inventory, StoreCallback<Inventory> callback) {
+        synchronized (this) {
+            inventory.setId(newId("inventory"));
+            InventoryDocument document = new InventoryDocument();
+            document.name = inventory.getInventoryName();
+            document.count = inventory.getCount();
+            document.value = inventory.getInventoryEstimatedValue();
+            document.tagCounts.putAll(inventory.getTagCounts());
+            users.computeIfAbsent(username, key -> new LinkedHashMap<>()).put(inventory.getId(), document);
+        }
+        writes.incrementAndGet();
+        notifyInventoryListeners(username, inventory.getId(), false);
+        deliver(() -> callback.onSuccess(inventory));
+    }
+
+    @Override
+    public void renameInventory(String username, Inventory inventory, StoreCallback<Void> callback) {
+        synchronized (this) {
+            InventoryDocument document = document(username, inventory.getId());
+            if (document == null) {
+                deliver(() -> callback.onFailure(new IllegalStateException("No inventory " + inventory.getId())));
+                return;
+            }
+            document.name = inventory.getInventoryName();
+        }
+        writes.incrementAndGet();
+        notifyInventoryListeners(username, inventory.getId(), false);
+        deliver(() -> callback.onSuccess(null));
+    }
+
+    @Override
+    public void deleteInventory(String username, Inventory inventory, StoreCallback<Void> callback) {
+        synchronized (this) {
+            LinkedHashMap<String, InventoryDocument> inventories = users.get(username);
+            InventoryDocument document = inventories == null ? null : inventories.remove(inventory.getId());
+            if (document != null) {
+                writes.addAndGet(document.items.size() + 1);
+            }
+        }
+        notifyInventoryListeners(username, inventory.getId(), true);
+        deliver(() -> callback.onSuccess(null));
+    }
+
+    @Override
+    public void updateSummary(String username, Inventory inventory, SummaryDelta delta, StoreCallback<Void> callback) {
+        applySummary(username, inventory, delta);
+        deliver(() -> callback.onSuccess(null));
+    }
+
+    private void applySummary(String username, Inventory inventory, SummaryDelta delta) {
+        if (delta == null || (delta.isEmpty() && delta.getOperations().isEmpty())) {
+            return;
+        }
+        synchronized (this) {
+            InventoryDocument document = document(username, inventory.getId());
+            if (document == null) {
+                return;
+            }
+            // like FirestoreStore, the changes of a logged operation are applied once however often they are sent
+            SummaryDelta remaining = new SummaryDelta();
+            remaining.merge(delta);
+            for (Map.Entry<String, SummaryDelta> operation : delta.getOperations().entrySet()) {
+                if (!document.appliedOperations.add(operation.getKey())) {
+                    remaining.subtract(operation.getValue());
+                }
+            }
+            document.count += remaining.getCountDelta();
+            document.value += remaining.getValueDelta();
+            for (Map.Entry<String, Integer> tag : remaining.getTagDeltas().entrySet()) {
+                document.tagCounts.merge(tag.getKey(), tag.getValue(), Integer::sum);
+            }
+        }
+        writes.incrementAndGet();
+        notifyInventoryListeners(username, inventory.getId(), false);
+    }
+
+    @Override
+    public StoreListener.Registration listenInventories(String username, StoreListener<Inventory> listener) {
+        ArrayList<Inventory> inventories = new ArrayList<>();
+        InventoryListener registration = new InventoryListener(username, listener);
+        synchronized (this) {
+            LinkedHashMap<String, InventoryDocument> documents = users.get(username);
+            if (documents != null) {
+                for (Map.Entry<String, InventoryDocument> entry : documents.entrySet()) {
+                    inventories.add(toInventory(entry.getKey(), entry.getValue()));
+                }
+            }
+            inventoryListeners.add(registration);
+        }
+        reads.addAndGet(Math.max(inventories.size(), 1));
+        deliver(() -> {
+            if (isListening(registration)) {
+                listener.onChanges(inventories, new ArrayList<>());
+            }
+        });
+        return () -> {
+            synchronized (MemoryStore.this) {
+                inventoryListeners.remove(registration);
+            }
+        };
+    }
+
+    private void notifyInventoryListeners(String username, String inventoryId, boolean removed) {
+        ArrayList<InventoryListener> listeners = new ArrayList<>();
+        synchronized (this) {
+            for (InventoryListener listener : inventoryListeners) {
+                if (listener.username.equals(username)) {
+                    listeners.add(listener);
+                }
+            }
+        }
+        for (InventoryListener listener : listeners) {
+            // each listener gets its own copy, like each device reading the document
+            ArrayList<Inventory> changed = new ArrayList<>();
+            ArrayList<String> removedIds = new ArrayList<>();
+            synchronized (this) {
+                InventoryDocument document = document(username, inventoryId);
+                if (removed || document == null) {
+                    removedIds.add(inventoryId);
+                } else {
+                    changed.add(toInventory(inventoryId, document));
+                }
+            }
+            reads.incrementAndGet();
+            deliver(() -> {
+                if (isListening(listener)) {
+                    listener.listener.onChanges(changed, removedIds);
+                }
+            });
+        }
+    }
+
+    private synchronized boolean isListening(InventoryListener listener) {
+        return inventoryListeners.contains(listener);
+    }
+
+    private InventoryDocument document(String username, String inventoryId) {
+        LinkedHashMap<String, InventoryDocument> inventories = users.get(username);
+        return inventories == null || inventoryId == null ? null : inventories.get(inventoryId);
+    }
+
+    private static Inventory toInventory(String id, InventoryDocument document) {
+        Inventory inventory = new Inventory();
+        inventory.setId(id);
+        inventory.setName(document.name);
+        inventory.setCount(document.count);
+        inventory.setInventoryEstimatedValue(document.value);
+        inventory.setTagCounts(document.tagCounts);
+        return inventory;
+    }
+
+    private static Item copy(Item item) {
+        return ItemCodec.decodeItem(ItemCodec.encodeItem(item));
+    }
+
+    private String newId(String prefix) {
+        return String.format(Locale.CANADA, "%s%012d", prefix, ++nextId);
+    }
+
+    private void deliver(Runnable result) {
+        if (executor == null) {
+            result.run();
+        } else {
+            executor.schedule(result, latencyMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Waits until every result that has been scheduled so far has been delivered.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitIdle() throws InterruptedException {
+        if (executor == null) {
+            return;
+        }
+        // results run in the order they are due, so this runs after every result scheduled before it
+        CountDownLatch latch = new CountDownLatch(1);
+        executor.schedule(latch::countDown, latencyMillis, TimeUnit.MILLISECONDS);
+        latch.await();
+    }
+
+    /**
+     * Gets the number of documents read so far. A read that finds nothing counts as one, like in Firestore.
+     *
+     * @return number of document reads
+     */
+    public long getReadCount() {
+        return reads.get();
+    }
+
+    /**
+     * Gets the number of documents written or deleted so far.
+     *
+     * @return number of document writes
+     */
+    public long getWriteCount() {
+        return writes.get();
+    }
+}
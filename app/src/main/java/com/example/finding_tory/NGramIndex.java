@@ -0,0 +1,263 @@
+package com.example.finding_tory;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntFunction;
+
+/**
+ * A case-insensitive trigram index over one text field of the items in an inventory. Every distinct run of
+ * three characters in an item's text maps to a posting list of the slots containing it, so a substring
+ * query only needs to look at the items that contain all of the query's trigrams. Trigrams are packed into
+ * longs and read straight from the text, and the posting lists are kept in a long-keyed map, so indexing
+ * and lookups allocate nothing per trigram.
+ */
+public class NGramIndex implements Serializable {
+    private static final int N = 3;
+    private final LongPostingMap postings;
+
+    /**
+     * Constructs a new, empty NGramIndex.
+     */
+    public NGramIndex() {
+        this.postings = new LongPostingMap();
+    }
+
+    /**
+     * Adds the trigrams of an item's text to the index. A trigram that occurs more than once is added once,
+     * since posting lists hold distinct slots.
+     *
+     * @param text The text of the item, may be null.
+     * @param slot The slot of the item.
+     */
+    public void add(String text, int slot) {
+        for (int i = 0, count = gramCount(text); i < count; i++) {
+            addTo(postings, gram(text, i), slot);
+        }
+    }
+
+    /**
+     * Removes the trigrams of an item's text from the index. The text must be the same as when it was added.
+     *
+     * @param text The text of the item, may be null.
+     * @param slot The slot of the item.
+     */
+    public void remove(String text, int slot) {
+        for (int i = 0, count = gramCount(text); i < count; i++) {
+            long gram = gram(text, i);
+            PostingList list = postings.get(gram);
+            if (list != null) {
+                list.remove(slot);
+                if (list.size() == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the trigrams of many items' texts at once, merging into each posting list a single time.
+     *
+     * @param slots  The slots of the items being added.
+     * @param count  The number of slots to add from the start of the array.
+     * @param textOf Gets the text of the item in a slot.
+     */
+    public void addAll(int[] slots, int count, IntFunction<String> textOf) {
+        LongPostingMap groups = group(slots, count, textOf);
+        for (int cell = 0; cell < groups.capacity(); cell++) {
+            PostingList batch = groups.valueAt(cell);
+            if (batch == null) {
+                continue;
+            }
+            PostingList list = postings.get(groups.keyAt(cell));
+            if (list == null) {
+                postings.put(groups.keyAt(cell), batch);
+            } else {
+                list.addAll(batch);
+            }
+        }
+    }
+
+    /**
+     * Removes the trigrams of many items' texts at once, making a single pass over each posting list.
+     * The texts must be the same as when they were added.
+     *
+     * @param slots  The slots of the items being removed.
+     * @param count  The number of slots to remove from the start of the array.
+     * @param textOf Gets the text of the item in a slot.
+     */
+    public void removeAll(int[] slots, int count, IntFunction<String> textOf) {
+        LongPostingMap groups = group(slots, count, textOf);
+        for (int cell = 0; cell < groups.capacity(); cell++) {
+            PostingList batch = groups.valueAt(cell);
+            if (batch == null) {
+                continue;
+            }
+            PostingList list = postings.get(groups.keyAt(cell));
+            if (list != null) {
+                list.removeAll(batch);
+                if (list.size() == 0) {
+                    postings.remove(groups.keyAt(cell));
+                }
+            }
+        }
+    }
+
+    /**
+     * Groups the slots of many items by the trigrams of their texts.
+     *
+     * @param slots  The slots of the items.
+     * @param count  The number of slots to use from the start of the array.
+     * @param textOf Gets the text of the item in a slot.
+     * @return a posting list of the slots for each trigram
+     */
+    private static LongPostingMap group(int[] slots, int count, IntFunction<String> textOf) {
+        int[] sorted = Arrays.copyOf(slots, count);
+        Arrays.sort(sorted);
+        LongPostingMap groups = new LongPostingMap();
+        for (int slot : sorted) {
+            String text = textOf.apply(slot);
+            for (int i = 0, grams = gramCount(text); i < grams; i++) {
+                // slots come in ascending order, so this appends
+                addTo(groups, gram(text, i), slot);
+            }
+        }
+        return groups;
+    }
+
+    private static void addTo(LongPostingMap map, long gram, int slot) {
+        PostingList list = map.get(gram);
+        if (list == null) {
+            list = new PostingList();
+            map.put(gram, list);
+        }
+        list.add(slot);
+    }
+
+    /**
+     * Finds the slots of the items whose text contains every trigram of a query. The result can still contain
+     * items that do not contain the query itself, so callers must verify each candidate with
+     * {@link #containsIgnoreCase(String, String)}.
+     *
+     * @param query The substring being searched for.
+     * @return BitSet of candidate slots, or null if the query is too short for the index to narrow it down
+     */
+    public BitSet find(String query) {
+        if (query == null || query.length() < N) {
+            return null;
+        }
+        int count = gramCount(query);
+        PostingList[] lists = new PostingList[count];
+        for (int i = 0; i < count; i++) {
+            lists[i] = postings.get(gram(query, i));
+            if (lists[i] == null) {
+                return new BitSet();
+            }
+        }
+        // walk the shortest posting list and probe the others; a repeated trigram is probed twice, harmlessly
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+        PostingList shortest = lists[0];
+        BitSet result = new BitSet();
+        for (int i = 0; i < shortest.size(); i++) {
+            int slot = shortest.get(i);
+            boolean inAll = true;
+            for (int j = 1; j < lists.length && inAll; j++) {
+                inAll = lists[j] == shortest || lists[j].contains(slot);
+            }
+            if (inAll) {
+                result.set(slot);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Estimates how many items contain a query, without building the candidate set. The estimate is the
+     * length of the shortest posting list among the query's trigrams, which is an upper bound on the
+     * number of candidates {@link #find(String)} would return.
+     *
+     * @param query The substring being searched for.
+     * @return the estimated number of matching items, or -1 if the query is too short for the index
+     */
+    public int estimate(String query) {
+        if (query == null || query.length() < N) {
+            return -1;
+        }
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0, count = gramCount(query); i < count; i++) {
+            PostingList list = postings.get(gram(query, i));
+            if (list == null) {
+                return 0;
+            }
+            estimate = Math.min(estimate, list.size());
+        }
+        return estimate;
+    }
+
+    /**
+     * Gets the number of distinct trigrams in the index.
+     *
+     * @return number of trigrams
+     */
+    public int size() {
+        return postings.size();
+    }
+
+    /**
+     * Removes every entry from the index.
+     */
+    public void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Checks whether a text contains a query, ignoring case, without allocating lowercase copies of either.
+     *
+     * @param text  The text to search in, may be null.
+     * @param query The text to search for.
+     * @return true if the query is empty or occurs in the text
+     */
+    public static boolean containsIgnoreCase(String text, String query) {
+        if (query == null || query.isEmpty()) {
+            return true;
+        }
+        if (text == null) {
+            return false;
+        }
+        int last = text.length() - query.length();
+        for (int start = 0; start <= last; start++) {
+            int i = 0;
+            while (i < query.length()
+                    && Character.toLowerCase(text.charAt(start + i)) == Character.toLowerCase(query.charAt(i))) {
+                i++;
+            }
+            if (i == query.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of trigram positions in a text.
+     *
+     * @param text The text, may be null.
+     * @return number of trigrams, counting repeats
+     */
+    private static int gramCount(String text) {
+        return text == null || text.length() < N ? 0 : text.length() - N + 1;
+    }
+
+    /**
+     * Packs the lowercase trigram starting at a position of a text into a long.
+     *
+     * @param text The text.
+     * @param i    The position of the trigram's first character.
+     * @return the packed trigram
+     */
+    private static long gram(String text, int i) {
+        return ((long) Character.toLowerCase(text.charAt(i)) << 32)
+                | ((long) Character.toLowerCase(text.charAt(i + 1)) << 16)
+                | Character.toLowerCase(text.charAt(i + 2));
+    }
+}
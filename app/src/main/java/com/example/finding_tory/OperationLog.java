@@ -0,0 +1,430 @@
+package com.example.finding_tory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of item writes, kept in a file in the app's storage. Each write is appended and synced
+ * to disk before it is sent, and an acknowledgement is appended once the store has written it, so the
+ * writes that may not have reached the store survive the app being closed or killed and can be sent again.
+ * Once enough writes have been acknowledged, the log is compacted by rewriting it with only the writes
+ * that are still pending.
+ * <p>
+ * Each record is its length, a CRC32 checksum and its body. A record cut short by the app being killed
+ * while it was being appended fails its checksum, and the log is truncated to the records before it. A
+ * complete record that cannot be decoded, e.g. after a change to the item format, is moved to a
+ * {@code .bad} file next to the log, and the records after it are still read.
+ * <p>
+ * Appending and acknowledging wait for the disk, so they should not be called on the main thread;
+ * {@link DurableStore} calls them on its own thread.
+ */
+public class OperationLog {
+    /**
+     * How many acknowledgements are appended before the log is compacted.
+     */
+    public static final int COMPACT_THRESHOLD = 256;
+
+    private static final byte RECORD_OPERATION = 1;
+    private static final byte RECORD_ACK = 2;
+
+    private final File file;
+    private final LinkedHashMap<Long, Operation> pending;
+    private FileOutputStream out;
+    private long nextSeq;
+    private int acksSinceCompaction;
+
+    /**
+     * The types of logged writes.
+     */
+    public enum Type {
+        /**
+         * Items written with their full contents, and a summary change.
+         */
+        SAVE_ITEMS,
+        /**
+         * Items deleted by ID, and a summary change.
+         */
+        DELETE_ITEMS,
+        /**
+         * Tags added to items by ID, and a summary change.
+         */
+        TAG_ITEMS,
+    }
+
+    /**
+     * A logged write to the items of one inventory. Operations are immutable once logged.
+     */
+    public static class Operation {
+        private final long seq;
+        private final String id;
+        private final Type type;
+        private final String username;
+        private final String inventoryId;
+        private final List<Item> items;
+        private final List<String> tags;
+        private final SummaryDelta delta;
+
+        private Operation(long seq, String id, Type type, String username, String inventoryId, List<Item> items, List<String> tags, SummaryDelta delta) {
+            this.seq = seq;
+            this.id = id;
+            this.type = type;
+            this.username = username;
+            this.inventoryId = inventoryId;
+            this.items = items;
+            this.tags = tags;
+            this.delta = delta;
+        }
+
+        /**
+         * Gets the position of the operation in the log.
+         *
+         * @return sequence number
+         */
+        public long getSeq() {
+            return seq;
+        }
+
+        /**
+         * Gets the ID of the operation, which unlike its sequence number is never reused, so a store can
+         * recognize an operation it has already applied.
+         *
+         * @return operation ID
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Gets the type of the write.
+         *
+         * @return type
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Gets the user whose items are written.
+         *
+         * @return username
+         */
+        public String getUsername() {
+            return username;
+        }
+
+        /**
+         * Gets the inventory whose items are written.
+         *
+         * @return inventory ID
+         */
+        public String getInventoryId() {
+            return inventoryId;
+        }
+
+        /**
+         * Gets the items written. Deleted and tagged items only have their IDs.
+         *
+         * @return the items
+         */
+        public List<Item> getItems() {
+            return items;
+        }
+
+        /**
+         * Gets the tags added, for {@link Type#TAG_ITEMS}.
+         *
+         * @return the tags, or an empty list
+         */
+        public List<String> getTags() {
+            return tags;
+        }
+
+        /**
+         * Gets the change the write makes to the inventory's summary, carrying the operation's ID.
+         *
+         * @return the change, which may be empty
+         */
+        public SummaryDelta getDelta() {
+            return delta;
+        }
+    }
+
+    /**
+     * Opens a log, reading the writes in it that are still pending. The file is created if it does not exist.
+     *
+     * @param file The file holding the log.
+     * @throws IOException If the file cannot be read or opened for appending.
+     */
+    public OperationLog(File file) throws IOException {
+        this.file = file;
+        this.pending = new LinkedHashMap<>();
+        this.nextSeq = 1;
+        int unreadable = load();
+        this.out = new FileOutputStream(file, true);
+        if (unreadable > 0) {
+            // rewrite the log without them, so they are not read and moved again on the next launch
+            compact();
+        }
+    }
+
+    /**
+     * Reads every complete record, then cuts off anything after the last one.
+     *
+     * @return the number of complete records that could not be decoded
+     */
+    private int load() throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        long valid = 0;
+        int unreadable = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                byte[] body;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length <= 0 || length > file.length()) {
+                        break;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                    if (checksum != checksum(body)) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                try {
+                    readRecord(body);
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                    quarantine(body);
+                    unreadable++;
+                }
+                valid += 8 + body.length;
+            }
+        }
+        if (valid < file.length()) {
+            try (RandomAccessFile truncated = new RandomAccessFile(file, "rw")) {
+                truncated.setLength(valid);
+            }
+        }
+        return unreadable;
+    }
+
+    /**
+     * Keeps a record that could not be decoded in the {@code .bad} file, where it can still be recovered.
+     */
+    private void quarantine(byte[] body) throws IOException {
+        try (FileOutputStream bad = new FileOutputStream(file.getPath() + ".bad", true)) {
+            write(bad, body);
+        }
+    }
+
+    private void readRecord(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte kind = in.readByte();
+        long seq = in.readLong();
+        nextSeq = Math.max(nextSeq, seq + 1);
+        if (kind == RECORD_ACK) {
+            pending.remove(seq);
+            return;
+        }
+        String id = in.readUTF();
+        int ordinal = in.readByte();
+        if (ordinal < 0 || ordinal >= Type.values().length) {
+            throw new IOException("Unknown operation type " + ordinal);
+        }
+        Type type = Type.values()[ordinal];
+        String username = in.readUTF();
+        String inventoryId = in.readUTF();
+        byte[] encodedItems = new byte[in.readInt()];
+        in.readFully(encodedItems);
+        List<Item> items;
+        try {
+            items = ItemCodec.decodeItems(encodedItems);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Logged items are unreadable", e);
+        }
+        ArrayList<String> tags = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            tags.add(in.readUTF());
+        }
+        int count = in.readInt();
+        long valueCents = in.readLong();
+        TreeMap<String, Integer> tagCounts = new TreeMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            tagCounts.put(in.readUTF(), in.readInt());
+        }
+        pending.put(seq, new Operation(seq, id, type, username, inventoryId, items, tags, SummaryDelta.of(id, count, valueCents, tagCounts)));
+    }
+
+    /**
+     * Appends a write to the log under a new operation ID and syncs it to disk.
+     *
+     * @param type        The type of the write.
+     * @param username    The username identifying the specific user.
+     * @param inventoryId The ID of the inventory containing the items.
+     * @param items       The items written; only their IDs are used for deletes and tags.
+     * @param tags        The tags added, or an empty collection.
+     * @param delta       The change to the inventory's summary, or null for none.
+     * @return the logged operation
+     * @throws IOException If the write cannot be appended.
+     */
+    public synchronized Operation append(Type type, String username, String inventoryId, Collection<Item> items,
+                                         Collection<String> tags, SummaryDelta delta) throws IOException {
+        ArrayList<Item> logged = new ArrayList<>();
+        for (Item item : items) {
+            if (type == Type.SAVE_ITEMS) {
+                // a copy, so the version logged is the one written even if the item changes afterwards
+                logged.add(ItemCodec.decodeItem(ItemCodec.encodeItem(item)));
+            } else {
+                Item id = new Item();
+                id.setId(item.getId());
+                logged.add(id);
+            }
+        }
+        String id = UUID.randomUUID().toString();
+        SummaryDelta identified = delta == null ? new SummaryDelta()
+                : SummaryDelta.of(id, delta.getCountDelta(), delta.getValueCentsDelta(), delta.getTagDeltas());
+        Operation operation = new Operation(nextSeq++, id, type, username, inventoryId, logged, new ArrayList<>(tags), identified);
+        write(out, encode(operation));
+        pending.put(operation.seq, operation);
+        return operation;
+    }
+
+    /**
+     * Records that a write has reached the store, so it is not sent again. Compacts the log once enough
+     * writes have been acknowledged.
+     *
+     * @param seq The sequence number of the acknowledged operation.
+     * @throws IOException If the acknowledgement cannot be appended.
+     */
+    public synchronized void ack(long seq) throws IOException {
+        if (pending.remove(seq) == null) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bytes);
+        body.writeByte(RECORD_ACK);
+        body.writeLong(seq);
+        write(out, bytes.toByteArray());
+        if (++acksSinceCompaction >= COMPACT_THRESHOLD) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the log with only the pending writes, dropping every acknowledged write. The new log is
+     * written to a separate file and then renamed over the old one, so a crash leaves one or the other.
+     *
+     * @throws IOException If the log cannot be rewritten.
+     */
+    public synchronized void compact() throws IOException {
+        File compacted = new File(file.getPath() + ".tmp");
+        try (FileOutputStream tmp = new FileOutputStream(compacted)) {
+            for (Operation operation : pending.values()) {
+                write(tmp, encode(operation));
+            }
+        }
+        out.close();
+        if (!compacted.renameTo(file)) {
+            out = new FileOutputStream(file, true);
+            throw new IOException("Could not replace " + file);
+        }
+        out = new FileOutputStream(file, true);
+        acksSinceCompaction = 0;
+    }
+
+    /**
+     * Gets the writes that have not been acknowledged yet, in the order they were logged.
+     *
+     * @return the pending operations
+     */
+    public synchronized List<Operation> getPending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Gets the size of the log file.
+     *
+     * @return size in bytes
+     */
+    public long length() {
+        return file.length();
+    }
+
+    /**
+     * Closes the log file. Pending writes stay in it, to be read when it is opened again.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private static byte[] encode(Operation operation) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bytes);
+        body.writeByte(RECORD_OPERATION);
+        body.writeLong(operation.seq);
+        body.writeUTF(operation.id);
+        body.writeByte(operation.type.ordinal());
+        body.writeUTF(operation.username);
+        body.writeUTF(operation.inventoryId);
+        byte[] encodedItems = ItemCodec.encodeItems(operation.items);
+        body.writeInt(encodedItems.length);
+        body.write(encodedItems);
+        body.writeInt(operation.tags.size());
+        for (String tag : operation.tags) {
+            body.writeUTF(tag);
+        }
+        body.writeInt(operation.delta.getCountDelta());
+        body.writeLong(operation.delta.getValueCentsDelta());
+        Map<String, Integer> tagCounts = operation.delta.getTagDeltas();
+        body.writeInt(tagCounts.size());
+        for (Map.Entry<String, Integer> tag : tagCounts.entrySet()) {
+            body.writeUTF(tag.getKey());
+            body.writeInt(tag.getValue());
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a record with its length and checksum, and waits until it is on disk.
+     */
+    private static void write(FileOutputStream stream, byte[] body) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(body.length + 8);
+        DataOutputStream header = new DataOutputStream(record);
+        header.writeInt(body.length);
+        header.writeInt(checksum(body));
+        header.write(body);
+        stream.write(record.toByteArray());
+        stream.flush();
+        stream.getFD().sync();
+    }
+
+    private static int checksum(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.finding_tory;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A sorted list of distinct item slots, used by the inventory's indexes to record which items have a given
+ * property (for example a tag). Slots are kept in a primitive array so that large inventories do not pay
+ * for a boxed object per entry.
+ */
+public class PostingList implements Serializable {
+    private int[] slots;
+    private int size;
+
+    /**
+     * Constructs a new, empty PostingList.
+     */
+    public PostingList() {
+        this.slots = new int[4];
+        this.size = 0;
+    }
+
+    /**
+     * Adds a slot to the list, keeping it sorted.
+     *
+     * @param slot The slot to add.
+     * @return true if the slot was added, false if it was already present
+     */
+    public boolean add(int slot) {
+        int pos = Arrays.binarySearch(slots, 0, size, slot);
+        if (pos >= 0) {
+            return false;
+        }
+        pos = -(pos + 1);
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        System.arraycopy(slots, pos, slots, pos + 1, size - pos);
+        slots[pos] = slot;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes a slot from the list.
+     *
+     * @param slot The slot to remove.
+     * @return true if the slot was removed, false if it was not present
+     */
+    public boolean remove(int slot) {
+        int pos = Arrays.binarySearch(slots, 0, size, slot);
+        if (pos < 0) {
+            return false;
+        }
+        System.arraycopy(slots, pos + 1, slots, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Adds every slot of another list with a single merge, instead of one insertion per slot.
+     *
+     * @param other The slots to add.
+     */
+    public void addAll(PostingList other) {
+        int[] merged = new int[Math.max(slots.length, size + other.size)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && slots[i] < other.slots[j])) {
+                merged[k++] = slots[i++];
+            } else {
+                if (i < size && slots[i] == other.slots[j]) {
+                    i++;
+                }
+                merged[k++] = other.slots[j++];
+            }
+        }
+        slots = merged;
+        size = k;
+    }
+
+    /**
+     * Removes every slot of another list with a single pass, instead of one shift per slot.
+     *
+     * @param other The slots to remove.
+     */
+    public void removeAll(PostingList other) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.slots[j] < slots[i]) {
+                j++;
+            }
+            if (j >= other.size || other.slots[j] != slots[i]) {
+                slots[kept++] = slots[i];
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Checks whether a slot is in the list.
+     *
+     * @param slot The slot to look for.
+     * @return true if the slot is present
+     */
+    public boolean contains(int slot) {
+        return Arrays.binarySearch(slots, 0, size, slot) >= 0;
+    }
+
+    /**
+     * Gets the slot stored at a position of the list.
+     *
+     * @param index The position, between 0 and size() - 1.
+     * @return the slot at that position
+     */
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return slots[index];
+    }
+
+    /**
+     * Gets the number of slots in the list.
+     *
+     * @return number of slots
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets the bit of every slot in this list on the given BitSet.
+     *
+     * @param bits The BitSet to add this list's slots to.
+     */
+    public void addTo(BitSet bits) {
+        for (int i = 0; i < size; i++) {
+            bits.set(slots[i]);
+        }
+    }
+}
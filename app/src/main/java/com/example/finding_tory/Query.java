@@ -0,0 +1,733 @@
+package com.example.finding_tory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A condition on items that can be combined with AND, OR and NOT, such as "made by Sony, worth more than
+ * $100, and tagged both Office and Electronics". Queries are built with the static factory methods and
+ * evaluated against an inventory with {@link Inventory#filterItems(Query)}.
+ * <p>
+ * Every condition estimates how many items it matches from the inventory's index statistics. Conditions
+ * backed by an index (tags, dates, and description/make substrings of three or more characters) also list
+ * their candidate items directly. An AND intersects the candidates of its indexed conditions, most
+ * selective first, and only checks its other conditions on the items that are left, again most selective
+ * first so that most items are rejected by the first check.
+ */
+public abstract class Query implements Serializable {
+
+    /**
+     * Creates a query that matches items matching every one of the given queries.
+     *
+     * @param queries The queries to combine.
+     * @return the combined query
+     */
+    public static Query and(Query... queries) {
+        return and(Arrays.asList(queries));
+    }
+
+    /**
+     * Creates a query that matches items matching every one of the given queries.
+     *
+     * @param queries The queries to combine.
+     * @return the combined query
+     */
+    public static Query and(List<Query> queries) {
+        ArrayList<Query> parts = new ArrayList<>();
+        for (Query query : queries) {
+            if (!(query instanceof All)) {
+                parts.add(query);
+            }
+        }
+        if (parts.isEmpty()) {
+            return all();
+        }
+        return parts.size() == 1 ? parts.get(0) : new And(parts);
+    }
+
+    /**
+     * Creates a query that matches items matching at least one of the given queries.
+     *
+     * @param queries The queries to combine.
+     * @return the combined query
+     */
+    public static Query or(Query... queries) {
+        for (Query query : queries) {
+            if (query instanceof All) {
+                return query;
+            }
+        }
+        return queries.length == 1 ? queries[0] : new Or(new ArrayList<>(Arrays.asList(queries)));
+    }
+
+    /**
+     * Creates a query that matches the items a query does not match.
+     *
+     * @param query The query to negate.
+     * @return the negated query
+     */
+    public static Query not(Query query) {
+        return new Not(query);
+    }
+
+    /**
+     * Creates a query that matches every item.
+     *
+     * @return the query
+     */
+    public static Query all() {
+        return new All();
+    }
+
+    /**
+     * Creates a query that matches items purchased within a date range, inclusive on both ends.
+     *
+     * @param start The start of the range, or null for no lower bound.
+     * @param end   The end of the range, or null for no upper bound.
+     * @return the query
+     */
+    public static Query dateRange(Date start, Date end) {
+        if (start == null && end == null) {
+            return all();
+        }
+        return new DateRange(start == null ? Long.MIN_VALUE : start.getTime(), end == null ? Long.MAX_VALUE : end.getTime());
+    }
+
+    /**
+     * Creates a query that matches items whose estimated value is within a range, inclusive on both ends.
+     *
+     * @param min The lowest value, in dollars.
+     * @param max The highest value, in dollars.
+     * @return the query
+     */
+    public static Query valueRange(double min, double max) {
+        return new ValueRange(ItemColumns.toCents(min), ItemColumns.toCents(max));
+    }
+
+    /**
+     * Creates a query that matches items whose description contains some text, ignoring case.
+     *
+     * @param text The text to look for.
+     * @return the query, which matches every item if the text is empty
+     */
+    public static Query description(String text) {
+        return text == null || text.isEmpty() ? all() : new Text(Text.DESCRIPTION, text);
+    }
+
+    /**
+     * Creates a query that matches items whose make contains some text, ignoring case.
+     *
+     * @param text The text to look for.
+     * @return the query, which matches every item if the text is empty
+     */
+    public static Query make(String text) {
+        return text == null || text.isEmpty() ? all() : new Text(Text.MAKE, text);
+    }
+
+    /**
+     * Creates a query that matches items whose model contains some text, ignoring case.
+     *
+     * @param text The text to look for.
+     * @return the query, which matches every item if the text is empty
+     */
+    public static Query model(String text) {
+        return text == null || text.isEmpty() ? all() : new Text(Text.MODEL, text);
+    }
+
+    /**
+     * Creates a query that matches items whose serial number contains some text, ignoring case.
+     *
+     * @param text The text to look for.
+     * @return the query, which matches every item if the text is empty
+     */
+    public static Query serialNumber(String text) {
+        return text == null || text.isEmpty() ? all() : new Text(Text.SERIAL_NUMBER, text);
+    }
+
+    /**
+     * Creates a query that matches items whose comment contains some text, ignoring case.
+     *
+     * @param text The text to look for.
+     * @return the query, which matches every item if the text is empty
+     */
+    public static Query comment(String text) {
+        return text == null || text.isEmpty() ? all() : new Text(Text.COMMENT, text);
+    }
+
+    /**
+     * Creates a query that matches items with at least one of the given tags.
+     *
+     * @param tags The tags to look for.
+     * @return the query, which matches every item if no tags are given
+     */
+    public static Query anyTags(Collection<String> tags) {
+        return tags.isEmpty() ? all() : new Tags(tags, false);
+    }
+
+    /**
+     * Creates a query that matches items with every one of the given tags.
+     *
+     * @param tags The tags to look for.
+     * @return the query, which matches every item if no tags are given
+     */
+    public static Query allTags(Collection<String> tags) {
+        return tags.isEmpty() ? all() : new Tags(tags, true);
+    }
+
+    /**
+     * Checks whether an item matches this query.
+     *
+     * @param item The item to check.
+     * @return true if the item matches, false otherwise
+     */
+    public abstract boolean matches(Item item);
+
+    /**
+     * Estimates how many items of an inventory match this query, from the inventory's index statistics.
+     *
+     * @param inventory The inventory being queried.
+     * @return the estimated number of matching items
+     */
+    abstract int estimate(Inventory inventory);
+
+    /**
+     * Checks whether this query can list its candidate items from an index.
+     *
+     * @return true if {@link #candidates} returns a set of slots, false if it returns null
+     */
+    abstract boolean isIndexed();
+
+    /**
+     * Checks whether the candidates of this query are exactly the items it matches, so that they do not
+     * have to be checked with {@link #matches}.
+     *
+     * @return true if the candidates need no checking
+     */
+    abstract boolean isExact();
+
+    /**
+     * Lists the slots of the items that could match this query, using the inventory's indexes.
+     *
+     * @param inventory The inventory being queried.
+     * @return BitSet of candidate slots, or null if this query is not indexed
+     */
+    abstract BitSet candidates(Inventory inventory);
+
+    /**
+     * Finds the slots of the items of an inventory that match this query.
+     *
+     * @param inventory The inventory being queried.
+     * @return BitSet with the slot of every matching item set
+     */
+    BitSet evaluate(Inventory inventory) {
+        BitSet candidates = isIndexed() ? candidates(inventory) : null;
+        if (candidates != null && isExact()) {
+            return candidates;
+        }
+        if (candidates == null) {
+            candidates = (BitSet) inventory.getColumns().getLiveSlots().clone();
+        }
+        return verify(inventory, candidates, this);
+    }
+
+    /**
+     * Removes the candidates whose items do not match a query, in parallel chunks if the inventory is in
+     * parallel mode and there are enough candidates.
+     *
+     * @param inventory  The inventory being queried.
+     * @param candidates The candidate slots, which are changed in place.
+     * @param query      The query to check the candidates against.
+     * @return the matching slots
+     */
+    static BitSet verify(Inventory inventory, BitSet candidates, Query query) {
+        ItemSlots slots = inventory.getSlots();
+        ForkJoinPool pool = inventory.getParallelPool();
+        if (pool != null && candidates.cardinality() >= Inventory.PARALLEL_THRESHOLD) {
+            return FilterTask.findMatches(candidates, slots, query, pool);
+        }
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            Item item = slots.get(slot);
+            if (item == null || !query.matches(item)) {
+                candidates.clear(slot);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Matches every item.
+     */
+    private static class All extends Query {
+        @Override
+        public boolean matches(Item item) {
+            return true;
+        }
+
+        @Override
+        int estimate(Inventory inventory) {
+            return inventory.getSlots().size();
+        }
+
+        @Override
+        boolean isIndexed() {
+            return true;
+        }
+
+        @Override
+        boolean isExact() {
+            return true;
+        }
+
+        @Override
+        BitSet candidates(Inventory inventory) {
+            return (BitSet) inventory.getColumns().getLiveSlots().clone();
+        }
+    }
+
+    /**
+     * Matches items that match every part.
+     */
+    private static class And extends Query {
+        private final Query[] parts;
+        private transient Query[] order;
+
+        And(ArrayList<Query> parts) {
+            this.parts = parts.toArray(new Query[0]);
+        }
+
+        @Override
+        public boolean matches(Item item) {
+            for (Query part : order != null ? order : parts) {
+                if (!part.matches(item)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        int estimate(Inventory inventory) {
+            int estimate = Integer.MAX_VALUE;
+            for (Query part : parts) {
+                estimate = Math.min(estimate, part.estimate(inventory));
+            }
+            return estimate;
+        }
+
+        @Override
+        boolean isIndexed() {
+            for (Query part : parts) {
+                if (part.isIndexed()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        boolean isExact() {
+            for (Query part : parts) {
+                if (!part.isIndexed() || !part.isExact()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        BitSet candidates(Inventory inventory) {
+            BitSet candidates = null;
+            for (Query part : orderBySelectivity(inventory)) {
+                if (!part.isIndexed()) {
+                    continue;
+                }
+                if (candidates == null) {
+                    candidates = part.candidates(inventory);
+                } else {
+                    candidates.and(part.candidates(inventory));
+                }
+                if (candidates.isEmpty()) {
+                    break;
+                }
+            }
+            return candidates;
+        }
+
+        @Override
+        BitSet evaluate(Inventory inventory) {
+            BitSet candidates = candidates(inventory);
+            if (candidates == null) {
+                candidates = (BitSet) inventory.getColumns().getLiveSlots().clone();
+            } else if (candidates.isEmpty()) {
+                return candidates;
+            }
+            ArrayList<Query> residual = new ArrayList<>();
+            for (Query part : order) {
+                if (!part.isIndexed() || !part.isExact()) {
+                    residual.add(part);
+                }
+            }
+            if (residual.isEmpty()) {
+                return candidates;
+            }
+            return verify(inventory, candidates, residual.size() == 1 ? residual.get(0) : new And(residual));
+        }
+
+        /**
+         * Orders the parts from most to least selective, and remembers the order for {@link #matches}.
+         */
+        private Query[] orderBySelectivity(Inventory inventory) {
+            Query[] sorted = parts.clone();
+            int[] estimates = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                estimates[i] = sorted[i].estimate(inventory);
+            }
+            // insertion sort, since queries only have a handful of parts
+            for (int i = 1; i < sorted.length; i++) {
+                Query part = sorted[i];
+                int estimate = estimates[i];
+                int j = i - 1;
+                while (j >= 0 && estimates[j] > estimate) {
+                    sorted[j + 1] = sorted[j];
+                    estimates[j + 1] = estimates[j];
+                    j--;
+                }
+                sorted[j + 1] = part;
+                estimates[j + 1] = estimate;
+            }
+            order = sorted;
+            return sorted;
+        }
+    }
+
+    /**
+     * Matches items that match at least one part.
+     */
+    private static class Or extends Query {
+        private final ArrayList<Query> parts;
+
+        Or(ArrayList<Query> parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public boolean matches(Item item) {
+            for (Query part : parts) {
+                if (part.matches(item)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        int estimate(Inventory inventory) {
+            long estimate = 0;
+            for (Query part : parts) {
+                estimate += part.estimate(inventory);
+            }
+            return (int) Math.min(estimate, inventory.getSlots().size());
+        }
+
+        @Override
+        boolean isIndexed() {
+            for (Query part : parts) {
+                if (!part.isIndexed()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        boolean isExact() {
+            for (Query part : parts) {
+                if (!part.isExact()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        BitSet candidates(Inventory inventory) {
+            BitSet candidates = new BitSet();
+            for (Query part : parts) {
+                candidates.or(part.candidates(inventory));
+            }
+            return candidates;
+        }
+    }
+
+    /**
+     * Matches items that another query does not match.
+     */
+    private static class Not extends Query {
+        private final Query query;
+
+        Not(Query query) {
+            this.query = query;
+        }
+
+        @Override
+        public boolean matches(Item item) {
+            return !query.matches(item);
+        }
+
+        @Override
+        int estimate(Inventory inventory) {
+            return Math.max(0, inventory.getSlots().size() - query.estimate(inventory));
+        }
+
+        @Override
+        boolean isIndexed() {
+            return query.isIndexed() && query.isExact();
+        }
+
+        @Override
+        boolean isExact() {
+            return true;
+        }
+
+        @Override
+        BitSet candidates(Inventory inventory) {
+            BitSet candidates = (BitSet) inventory.getColumns().getLiveSlots().clone();
+            candidates.andNot(query.candidates(inventory));
+            return candidates;
+        }
+    }
+
+    /**
+     * Matches items purchased within a date range, using the inventory's sorted date index.
+     */
+    private static class DateRange extends Query {
+        private final long start;
+        private final long end;
+
+        DateRange(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean matches(Item item) {
+            if (item.getPurchaseDate() == null) {
+                return false;
+            }
+            long date = item.getPurchaseDate().getTime();
+            return date >= start && date <= end;
+        }
+
+        @Override
+        int estimate(Inventory inventory) {
+            return inventory.getDateIndex().countRange(start, end);
+        }
+
+        @Override
+        boolean isIndexed() {
+            return true;
+        }
+
+        @Override
+        boolean isExact() {
+            return true;
+        }
+
+        @Override
+        BitSet candidates(Inventory inventory) {
+            return inventory.getDateIndex().findRange(start, end);
+        }
+    }
+
+    /**
+     * Matches items whose value is within a range. There is no value index, so the estimate comes from
+     * sampling the value column, and the items are checked one by one.
+     */
+    private static class ValueRange extends Query {
+        private static final int SAMPLES = 64;
+
+        private final long minCents;
+        private final long maxCents;
+
+        ValueRange(long minCents, long maxCents) {
+            this.minCents = minCents;
+            this.maxCents = maxCents;
+        }
+
+        @Override
+        public boolean matches(Item item) {
+            long cents = ItemColumns.toCents(item.getEstimatedValue());
+            return cents >= minCents && cents <= maxCents;
+        }
+
+        @Override
+        int estimate(Inventory inventory) {
+            ItemColumns columns = inventory.getColumns();
+            BitSet live = columns.getLiveSlots();
+            int size = inventory.getSlots().size();
+            if (size == 0) {
+                return 0;
+            }
+            int step = Math.max(1, live.length() / SAMPLES);
+            int sampled = 0;
+            int hits = 0;
+            for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + step)) {
+                long cents = columns.getValueCents(slot);
+                if (cents >= minCents && cents <= maxCents) {
+                    hits++;
+                }
+                sampled++;
+            }
+            return (int) ((long) size * hits / sampled);
+        }
+
+        @Override
+        boolean isIndexed() {
+            return false;
+        }
+
+        @Override
+        boolean isExact() {
+            return false;
+        }
+
+        @Override
+        BitSet candidates(Inventory inventory) {
+            return null;
+        }
+    }
+
+    /**
+     * Matches items whose text field contains some text, ignoring case. Descriptions and makes are
+     * narrowed down with the inventory's trigram indexes; the other fields are checked one by one.
+     */
+    private static class Text extends Query {
+        static final int DESCRIPTION = 0;
+        static final int MAKE = 1;
+        static final int MODEL = 2;
+        static final int SERIAL_NUMBER = 3;
+        static final int COMMENT = 4;
+
+        private final int field;
+        private final String text;
+
+        Text(int field, String text) {
+            this.field = field;
+            this.text = text;
+        }
+
+        @Override
+        public boolean matches(Item item) {
+            return NGramIndex.containsIgnoreCase(fieldOf(item), text);
+        }
+
+        @Override
+        int estimate(Inventory inventory) {
+            NGramIndex index = indexOf(inventory);
+            int estimate = index == null ? -1 : index.estimate(text);
+            // without index statistics, assume a substring match keeps about half of the items
+            return estimate >= 0 ? estimate : inventory.getSlots().size() / 2;
+        }
+
+        @Override
+        boolean isIndexed() {
+            return (field == DESCRIPTION || field == MAKE) && text.length() >= 3;
+        }
+
+        @Override
+        boolean isExact() {
+            return false;
+        }
+
+        @Override
+        BitSet candidates(Inventory inventory) {
+            NGramIndex index = indexOf(inventory);
+            return index == null ? null : index.find(text);
+        }
+
+        private String fieldOf(Item item) {
+            switch (field) {
+                case DESCRIPTION:
+                    return item.getDescription();
+                case MAKE:
+                    return item.getMake();
+                case MODEL:
+                    return item.getModel();
+                case SERIAL_NUMBER:
+                    return item.getSerialNumber();
+                default:
+                    return item.getComment();
+            }
+        }
+
+        private NGramIndex indexOf(Inventory inventory) {
+            if (field == DESCRIPTION) {
+                return inventory.getDescriptionIndex();
+            }
+            return field == MAKE ? inventory.getMakeIndex() : null;
+        }
+    }
+
+    /**
+     * Matches items with any or all of a set of tags, using the inventory's tag posting lists.
+     */
+    private static class Tags extends Query {
+        private final ArrayList<String> tags;
+        private final boolean requireAll;
+        private transient long[] tagWords;
+        private transient TagDictionary tagWordsDictionary;
+
+        Tags(Collection<String> tags, boolean requireAll) {
+            this.tags = new ArrayList<>();
+            for (String tag : tags) {
+                this.tags.add(TagIndex.normalize(tag));
+            }
+            this.requireAll = requireAll;
+        }
+
+        @Override
+        public boolean matches(Item item) {
+            TagDictionary dictionary = Ledger.getInstance().getTagDictionary();
+            long[] words = tagWords;
+            if (words == null || tagWordsDictionary != dictionary) {
+                words = dictionary.toWords(tags);
+                tagWords = words;
+                tagWordsDictionary = dictionary;
+            }
+            return requireAll ? item.hasAllTags(words) : item.hasAnyTag(words);
+        }
+
+        @Override
+        int estimate(Inventory inventory) {
+            TagIndex tagIndex = inventory.getTagIndex();
+            long estimate = requireAll ? Integer.MAX_VALUE : 0;
+            for (String tag : tags) {
+                int count = tagIndex.getCount(tag);
+                estimate = requireAll ? Math.min(estimate, count) : estimate + count;
+            }
+            return (int) Math.min(estimate, inventory.getSlots().size());
+        }
+
+        @Override
+        boolean isIndexed() {
+            return true;
+        }
+
+        @Override
+        boolean isExact() {
+            return true;
+        }
+
+        @Override
+        BitSet candidates(Inventory inventory) {
+            TagIndex tagIndex = inventory.getTagIndex();
+            return requireAll ? tagIndex.findAll(tags) : tagIndex.findAny(tags);
+        }
+    }
+}
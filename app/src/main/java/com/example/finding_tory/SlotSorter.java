@@ -0,0 +1,132 @@
+package com.example.finding_tory;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorts arrays of item slots by a comparison on the slots, without boxing them. The sort is a stable merge
+ * sort; when a ForkJoinPool is given and the array is large enough, the two halves of each merge are sorted
+ * in parallel on the pool.
+ */
+public class SlotSorter {
+    /**
+     * Ranges smaller than this are sorted on the calling thread, even when a pool is given.
+     */
+    public static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    private static final int INSERTION_THRESHOLD = 32;
+
+    /**
+     * A comparison between the items in two slots.
+     */
+    public interface SlotComparator {
+        /**
+         * Compares the items in two slots.
+         *
+         * @param a The first slot.
+         * @param b The second slot.
+         * @return a negative number, zero, or a positive number as the first item comes before, at, or after the second
+         */
+        int compare(int a, int b);
+    }
+
+    private SlotSorter() {
+    }
+
+    /**
+     * Sorts the first {@code size} slots of an array.
+     *
+     * @param slots      The slots to sort, in place.
+     * @param size       The number of slots to sort.
+     * @param comparator The comparison to sort by.
+     * @param pool       The pool to sort on in parallel, or null to sort on the calling thread.
+     */
+    public static void sort(int[] slots, int size, SlotComparator comparator, ForkJoinPool pool) {
+        int[] buffer = new int[size];
+        if (pool == null || size < SEQUENTIAL_THRESHOLD) {
+            mergeSort(slots, buffer, 0, size, comparator);
+        } else {
+            pool.invoke(new SortTask(slots, buffer, 0, size, comparator));
+        }
+    }
+
+    /**
+     * Sorts a range of slots on the calling thread.
+     */
+    private static void mergeSort(int[] slots, int[] buffer, int low, int high, SlotComparator comparator) {
+        if (high - low <= INSERTION_THRESHOLD) {
+            insertionSort(slots, low, high, comparator);
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        mergeSort(slots, buffer, low, mid, comparator);
+        mergeSort(slots, buffer, mid, high, comparator);
+        merge(slots, buffer, low, mid, high, comparator);
+    }
+
+    /**
+     * Sorts a short range of slots by insertion.
+     */
+    private static void insertionSort(int[] slots, int low, int high, SlotComparator comparator) {
+        for (int i = low + 1; i < high; i++) {
+            int slot = slots[i];
+            int j = i - 1;
+            while (j >= low && comparator.compare(slots[j], slot) > 0) {
+                slots[j + 1] = slots[j];
+                j--;
+            }
+            slots[j + 1] = slot;
+        }
+    }
+
+    /**
+     * Merges the sorted ranges {@code [low, mid)} and {@code [mid, high)}, using the same range of the
+     * buffer as scratch space.
+     */
+    private static void merge(int[] slots, int[] buffer, int low, int mid, int high, SlotComparator comparator) {
+        if (comparator.compare(slots[mid - 1], slots[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(slots, low, buffer, low, high - low);
+        int left = low;
+        int right = mid;
+        for (int i = low; i < high; i++) {
+            if (right >= high || (left < mid && comparator.compare(buffer[left], buffer[right]) <= 0)) {
+                slots[i] = buffer[left++];
+            } else {
+                slots[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * Sorts a range of slots by sorting its two halves in parallel and merging them.
+     */
+    private static class SortTask extends RecursiveAction {
+        private final int[] slots;
+        private final int[] buffer;
+        private final int low;
+        private final int high;
+        private final SlotComparator comparator;
+
+        SortTask(int[] slots, int[] buffer, int low, int high, SlotComparator comparator) {
+            this.slots = slots;
+            this.buffer = buffer;
+            this.low = low;
+            this.high = high;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low < SEQUENTIAL_THRESHOLD) {
+                mergeSort(slots, buffer, low, high, comparator);
+                return;
+            }
+            int mid = (low + high) >>> 1;
+            invokeAll(new SortTask(slots, buffer, low, mid, comparator),
+                    new SortTask(slots, buffer, mid, high, comparator));
+            merge(slots, buffer, low, mid, high, comparator);
+        }
+    }
+}
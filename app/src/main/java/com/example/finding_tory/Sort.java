@@ -1,26 +1,43 @@
 package com.example.finding_tory;
 
+import com.google.firebase.firestore.Exclude;
+
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The {@code Sort} class represents sorting parameters.
- * It is used to define sorting criteria, such as sort type and order.
+ * It is used to define sorting criteria as an ordered list of {@link SortKey}s, each with a sort type and
+ * order, e.g. Make ascending, then Value descending, then Date. The first key is also exposed as the sort
+ * type and sort order of the {@code Sort}.
  * This class implements {@link Serializable} to allow its objects
  * to be serialized.
  */
 public class Sort implements Serializable {
-    private String sortType;
-    private String sortOrder;
+    /**
+     * Every sort type an inventory can be sorted by.
+     */
+    static final String[] SORT_TYPES = {"Description", "Date", "Make", "Value", "Tags"};
+
+    /**
+     * Comparators that have already been built, keyed by the sort configuration they implement.
+     */
+    private static final ConcurrentHashMap<String, Comparator<Item>> COMPARATORS = new ConcurrentHashMap<>();
+
+    private ArrayList<SortKey> keys;
+    private transient Comparator<Item> comparator;
 
     /**
      * Constructs a new {@code Sort} object with default sorting parameters.
      * The default sort type is set to "Description" and the sort order is set to "Ascending".
      */
     public Sort() {
-        this.sortType = "Description";
-        this.sortOrder = "Ascending";
+        this.keys = new ArrayList<>();
+        this.keys.add(new SortKey("Description", "Ascending"));
     }
 
     /**
@@ -30,51 +47,195 @@ public class Sort implements Serializable {
      * @param sortOrder the order of sorting, either "Ascending" or "Descending"
      */
     public Sort(String sortType, String sortOrder) {
-        setSortType(sortType);
-        setSortOrder(sortOrder);
+        this.keys = new ArrayList<>();
+        this.keys.add(new SortKey(sortType, sortOrder));
     }
 
     /**
-     * Returns the sort type of this {@code Sort} object.
+     * Constructs a new {@code Sort} object that sorts by several keys, in order. Keys whose sort type
+     * already appears earlier in the list are ignored, and an empty list gives the default sort.
+     *
+     * @param keys the sort keys, from most to least significant
+     */
+    public Sort(List<SortKey> keys) {
+        this();
+        if (!keys.isEmpty()) {
+            this.keys.clear();
+            for (SortKey key : keys) {
+                addKey(key.getSortType(), key.getSortOrder());
+            }
+        }
+    }
+
+    /**
+     * Returns the sort type of this {@code Sort} object's first key.
      *
      * @return the sort type
      */
     public String getSortType() {
-        return sortType;
+        return keys.get(0).getSortType();
     }
 
     /**
-     * Sets the sort type of this {@code Sort} object.
+     * Sets the sort type of this {@code Sort} object's first key.
      *
      * @param sortType the type of sorting to set
      */
     public void setSortType(String sortType) {
-        ArrayList<String> validSortTypes = new ArrayList<>(Arrays.asList("Date", "Description", "Make", "Value", "Tags"));
-        if (validSortTypes.contains(sortType))
-            this.sortType = sortType;
-        else
-            this.sortType = "Description";
+        setPrimaryKey(new SortKey(sortType, getSortOrder()));
     }
 
     /**
-     * Returns the sort order of this {@code Sort} object.
+     * Returns the sort order of this {@code Sort} object's first key.
      *
      * @return the sort order
      */
     public String getSortOrder() {
-        return sortOrder;
+        return keys.get(0).getSortOrder();
     }
 
     /**
-     * Sets the sort order of this {@code Sort} object.
+     * Sets the sort order of this {@code Sort} object's first key.
      *
      * @param sortOrder the order of sorting to set, either "Ascending" or "Descending"
      */
     public void setSortOrder(String sortOrder) {
-        ArrayList<String> validSortOrders = new ArrayList<>(Arrays.asList("Ascending", "Descending"));
-        if (validSortOrders.contains(sortOrder))
-            this.sortOrder = sortOrder;
-        else
-            this.sortOrder = "Ascending";
+        setPrimaryKey(new SortKey(getSortType(), sortOrder));
+    }
+
+    /**
+     * Adds a less significant key, used to order items that compare equal under every earlier key.
+     * Nothing is added if the sort already uses the sort type.
+     *
+     * @param sortType  the type of sorting to add
+     * @param sortOrder the order of sorting, either "Ascending" or "Descending"
+     */
+    public void addKey(String sortType, String sortOrder) {
+        SortKey key = new SortKey(sortType, sortOrder);
+        for (SortKey existing : keys) {
+            if (existing.getSortType().equals(key.getSortType())) {
+                return;
+            }
+        }
+        keys.add(key);
+        comparator = null;
+    }
+
+    /**
+     * Returns the keys of this {@code Sort} object, from most to least significant.
+     *
+     * @return an unmodifiable view of the sort keys
+     */
+    @Exclude
+    public List<SortKey> getKeys() {
+        return Collections.unmodifiableList(keys);
+    }
+
+    /**
+     * Gets the comparator that orders items according to this {@code Sort}'s keys. Each distinct sort
+     * configuration is only turned into a comparator once, and the comparators only read each item's
+     * cached sort keys and primitive fields, so sorting does not allocate anything per comparison.
+     * Items that compare equal under every key are left to the caller to order, e.g. by slot.
+     *
+     * @return the comparator
+     */
+    @Exclude
+    public Comparator<Item> getComparator() {
+        if (comparator == null) {
+            StringBuilder configuration = new StringBuilder();
+            for (SortKey key : keys) {
+                configuration.append(key.getSortType()).append(':').append(key.getSortOrder()).append(',');
+            }
+            String cacheKey = configuration.toString();
+            comparator = COMPARATORS.get(cacheKey);
+            if (comparator == null) {
+                Comparator<Item> compiled = compile(keys);
+                Comparator<Item> previous = COMPARATORS.putIfAbsent(cacheKey, compiled);
+                comparator = previous != null ? previous : compiled;
+            }
+        }
+        return comparator;
+    }
+
+    /**
+     * Gets the ascending comparator for a single sort type.
+     *
+     * @param sortType the sort type to compare by
+     * @return the comparator, or {@code null} if the sort type is not recognized
+     */
+    static Comparator<Item> getKeyComparator(String sortType) {
+        if (!isValidSortType(sortType)) {
+            return null;
+        }
+        return COMPARATORS.computeIfAbsent(sortType, Sort::compileKey);
+    }
+
+    /**
+     * Checks whether a sort type is one of the supported sort types.
+     *
+     * @param sortType the sort type to check
+     * @return true if the sort type is supported, false otherwise
+     */
+    static boolean isValidSortType(String sortType) {
+        for (String valid : SORT_TYPES) {
+            if (valid.equals(sortType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the first key, dropping any later key with the same sort type.
+     *
+     * @param key the new first key
+     */
+    private void setPrimaryKey(SortKey key) {
+        keys.set(0, key);
+        for (int i = keys.size() - 1; i > 0; i--) {
+            if (keys.get(i).getSortType().equals(key.getSortType())) {
+                keys.remove(i);
+            }
+        }
+        comparator = null;
+    }
+
+    /**
+     * Chains the comparators of several keys into one.
+     *
+     * @param keys the sort keys, from most to least significant
+     * @return the combined comparator
+     */
+    private static Comparator<Item> compile(List<SortKey> keys) {
+        Comparator<Item> combined = null;
+        for (SortKey key : keys) {
+            Comparator<Item> next = getKeyComparator(key.getSortType());
+            if (key.isDescending()) {
+                next = next.reversed();
+            }
+            combined = combined == null ? next : combined.thenComparing(next);
+        }
+        return combined;
+    }
+
+    /**
+     * Builds the ascending comparator for a single sort type.
+     *
+     * @param sortType the sort type to compare by
+     * @return the comparator
+     */
+    private static Comparator<Item> compileKey(String sortType) {
+        switch (sortType) {
+            case "Date":
+                return (a, b) -> Long.compare(a.getPurchaseDate().getTime(), b.getPurchaseDate().getTime());
+            case "Make":
+                return (a, b) -> a.getMakeSortKey().compareTo(b.getMakeSortKey());
+            case "Value":
+                return (a, b) -> Float.compare(a.getEstimatedValue(), b.getEstimatedValue());
+            case "Tags":
+                return (a, b) -> a.getTagsSortKey().compareTo(b.getTagsSortKey());
+            default:
+                return (a, b) -> a.getDescriptionSortKey().compareTo(b.getDescriptionSortKey());
+        }
     }
 }
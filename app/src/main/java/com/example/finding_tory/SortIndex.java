@@ -0,0 +1,287 @@
+package com.example.finding_tory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Keeps the slots of an inventory's items in ascending order for one sort type, so the items can be
+ * listed in sorted order (or in reverse, for a descending sort) without sorting them again. Items that
+ * compare equal are ordered by slot, so the order does not depend on how the index was built.
+ * The order is only built the first time it is needed, and is kept up to date from then on.
+ */
+public class SortIndex implements Serializable {
+    private final String sortType;
+    private final ItemSlots slots;
+    private int[] order;
+    private int size;
+    private transient int modCount;
+    private transient Comparator<Item> comparator;
+
+    /**
+     * Constructs a new, empty SortIndex.
+     *
+     * @param sortType The sort type the slots are ordered by, as accepted by {@link Sort#setSortType}.
+     * @param slots    The slots of the inventory whose items are being ordered.
+     */
+    public SortIndex(String sortType, ItemSlots slots) {
+        this.sortType = sortType;
+        this.slots = slots;
+        this.order = null;
+        this.size = 0;
+    }
+
+    /**
+     * Gets the sort type this index orders items by.
+     *
+     * @return the sort type
+     */
+    public String getSortType() {
+        return sortType;
+    }
+
+    /**
+     * Checks whether the order has been built yet.
+     *
+     * @return true if the order has been built, false otherwise
+     */
+    public boolean isBuilt() {
+        return order != null;
+    }
+
+    /**
+     * Inserts a slot at its sorted position. The item must already be stored in the slot.
+     * Nothing is done if the order has not been built yet.
+     *
+     * @param slot The slot of the item being added.
+     */
+    public void add(int slot) {
+        if (order == null) {
+            return;
+        }
+        int pos = search(slot);
+        if (pos >= 0) {
+            return;
+        }
+        pos = -(pos + 1);
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size * 2);
+        }
+        System.arraycopy(order, pos, order, pos + 1, size - pos);
+        order[pos] = slot;
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Removes a slot from the order. This must be called while the item is still stored in the slot and
+     * before any of its sort keys change; otherwise the slot is looked for with a linear scan.
+     * Nothing is done if the order has not been built yet.
+     *
+     * @param slot The slot of the item being removed.
+     */
+    public void remove(int slot) {
+        if (order == null) {
+            return;
+        }
+        int pos = search(slot);
+        if (pos < 0) {
+            pos = -1;
+            for (int i = 0; i < size; i++) {
+                if (order[i] == slot) {
+                    pos = i;
+                    break;
+                }
+            }
+            if (pos < 0) {
+                return;
+            }
+        }
+        System.arraycopy(order, pos + 1, order, pos, size - pos - 1);
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Inserts many slots at once, by sorting them and merging them into the order in a single pass.
+     * The items must already be stored in the slots, and none of the slots may be in the order yet.
+     * Nothing is done if the order has not been built yet.
+     *
+     * @param added The slots of the items being added.
+     * @param count The number of slots to add from the start of the array.
+     */
+    public void addAll(int[] added, int count) {
+        if (order == null || count == 0) {
+            return;
+        }
+        if (comparator == null) {
+            comparator = Sort.getKeyComparator(sortType);
+        }
+        int[] sortedAdded = Arrays.copyOf(added, count);
+        SlotSorter.sort(sortedAdded, count, this::compare, null);
+        int[] merged = new int[Math.max(order.length, size + count)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size || j < count) {
+            if (j >= count || (i < size && compare(order[i], sortedAdded[j]) <= 0)) {
+                merged[k++] = order[i++];
+            } else {
+                merged[k++] = sortedAdded[j++];
+            }
+        }
+        order = merged;
+        size = k;
+        modCount++;
+    }
+
+    /**
+     * Removes many slots at once with a single pass over the order. Unlike {@link #remove}, this does not
+     * compare items, so it can be called after the items' sort keys have changed.
+     * Nothing is done if the order has not been built yet.
+     *
+     * @param removed BitSet with the slot of every item being removed set.
+     */
+    public void removeAll(BitSet removed) {
+        if (order == null) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!removed.get(order[i])) {
+                order[kept++] = order[i];
+            }
+        }
+        size = kept;
+        modCount++;
+    }
+
+    /**
+     * Rebuilds the order from every item currently stored in the slots, with a single sort.
+     */
+    public void rebuild() {
+        rebuild(null);
+    }
+
+    /**
+     * Rebuilds the order from every item currently stored in the slots, with a single sort that runs
+     * in parallel on a pool.
+     *
+     * @param pool The pool to sort on, or null to sort on the calling thread.
+     */
+    public void rebuild(ForkJoinPool pool) {
+        int[] sorted = new int[Math.max(16, slots.size())];
+        int count = 0;
+        for (int slot = 0; slot < slots.capacity(); slot++) {
+            if (slots.get(slot) != null) {
+                sorted[count++] = slot;
+            }
+        }
+        if (comparator == null) {
+            comparator = Sort.getKeyComparator(sortType);
+        }
+        SlotSorter.sort(sorted, count, this::compare, pool);
+        order = sorted;
+        size = count;
+        modCount++;
+    }
+
+    /**
+     * Adds the items whose slots are set in a BitSet to a list, in sorted order. The order is built
+     * first if this is the first time it is needed.
+     *
+     * @param include    The slots of the items to add.
+     * @param descending Whether to walk the order in reverse.
+     * @param out        The list the items are appended to.
+     */
+    public void collect(BitSet include, boolean descending, ArrayList<Item> out) {
+        if (order == null) {
+            rebuild();
+        }
+        if (descending) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (include.get(order[i])) {
+                    out.add(slots.get(order[i]));
+                }
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                if (include.get(order[i])) {
+                    out.add(slots.get(order[i]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the slot at a position in the order. The order must have been built.
+     *
+     * @param index The position in ascending order.
+     * @return the slot at that position
+     */
+    public int slotAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return order[index];
+    }
+
+    /**
+     * Gets the number of times the order has changed, so that views of it can tell when they are stale.
+     *
+     * @return the modification count
+     */
+    public int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Compares the items in two slots in ascending order, breaking ties by slot.
+     *
+     * @param a The first slot.
+     * @param b The second slot.
+     * @return a negative number, zero, or a positive number as the first item comes before, at, or after the second
+     */
+    public int compare(int a, int b) {
+        if (comparator == null) {
+            comparator = Sort.getKeyComparator(sortType);
+        }
+        int result = comparator.compare(slots.get(a), slots.get(b));
+        return result != 0 ? result : Integer.compare(a, b);
+    }
+
+    /**
+     * Gets the number of items being ordered.
+     *
+     * @return number of items
+     */
+    public int size() {
+        return order == null ? slots.size() : size;
+    }
+
+    /**
+     * Binary searches the order for a slot.
+     *
+     * @param slot The slot to look for.
+     * @return the position of the slot, or {@code -(insertion point) - 1} if it is not in the order
+     */
+    private int search(int slot) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int result = compare(order[mid], slot);
+            if (result < 0) {
+                low = mid + 1;
+            } else if (result > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.finding_tory;
+
+import java.io.Serializable;
+
+/**
+ * The {@code SortKey} class represents one level of a {@link Sort}: the field items are compared by,
+ * and the direction of that comparison. Sort keys cannot be changed once created, so a {@code Sort}
+ * can safely cache the comparator built from its keys.
+ */
+public class SortKey implements Serializable {
+    private final String sortType;
+    private final String sortOrder;
+
+    /**
+     * Constructs a new {@code SortKey}. Unrecognized sort types fall back to "Description", and
+     * unrecognized sort orders fall back to "Ascending".
+     *
+     * @param sortType  the type of sorting (e.g., "Date", "Description", etc.)
+     * @param sortOrder the order of sorting, either "Ascending" or "Descending"
+     */
+    public SortKey(String sortType, String sortOrder) {
+        this.sortType = Sort.isValidSortType(sortType) ? sortType : "Description";
+        this.sortOrder = "Descending".equals(sortOrder) ? "Descending" : "Ascending";
+    }
+
+    /**
+     * Returns the sort type of this {@code SortKey}.
+     *
+     * @return the sort type
+     */
+    public String getSortType() {
+        return sortType;
+    }
+
+    /**
+     * Returns the sort order of this {@code SortKey}.
+     *
+     * @return the sort order
+     */
+    public String getSortOrder() {
+        return sortOrder;
+    }
+
+    /**
+     * Checks whether this key sorts in descending order.
+     *
+     * @return true if the sort order is "Descending", false otherwise
+     */
+    public boolean isDescending() {
+        return "Descending".equals(sortOrder);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.finding_tory;
+
+/**
+ * Receives the outcome of a read or write made through an {@link ItemStore} or {@link InventoryStore}.
+ * Callbacks are run on the thread the store delivers results on, which is the main thread for Firestore.
+ *
+ * @param <T> The type of the result.
+ */
+public interface StoreCallback<T> {
+    /**
+     * Called once the operation has succeeded.
+     *
+     * @param result The result of the operation, or null for writes that have none.
+     */
+    void onSuccess(T result);
+
+    /**
+     * Called if the operation failed.
+     *
+     * @param e The reason it failed.
+     */
+    void onFailure(Exception e);
+
+    /**
+     * Gets a callback for writes whose outcome nothing waits for; failures are only printed. Writes made
+     * through a {@link DurableStore} also report failures found after logging to its failure listener.
+     *
+     * @param <T> The type of the result.
+     * @return the callback
+     */
+    static <T> StoreCallback<T> ignoreResult() {
+        return new StoreCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                e.printStackTrace();
+            }
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.finding_tory;
+
+import java.util.List;
+
+/**
+ * Receives the changes to a collection of documents listened to through an {@link ItemStore} or
+ * {@link InventoryStore}. The first call holds every document in the collection; later calls only hold
+ * the documents that were added, modified or removed since.
+ *
+ * @param <T> The type of the documents.
+ */
+public interface StoreListener<T> {
+    /**
+     * Called with a set of changes to the collection.
+     *
+     * @param changed    The added or modified documents, with their IDs set.
+     * @param removedIds The IDs of the removed documents.
+     */
+    void onChanges(List<T> changed, List<String> removedIds);
+
+    /**
+     * A listener that has been started, and can be stopped.
+     */
+    interface Registration {
+        /**
+         * Stops the listener. No more changes are delivered to it afterwards.
+         */
+        void remove();
+    }
+}
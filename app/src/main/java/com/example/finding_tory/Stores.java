@@ -0,0 +1,88 @@
+package com.example.finding_tory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * Holds the stores the app reads and writes its items and inventories through. The app uses
+ * {@link FirestoreStore} behind a {@link CoalescingStore}, so that repeated edits are written once; tests
+ * and benchmarks can swap in a {@link MemoryStore} before running a flow. Once the app has opened its
+ * {@link OperationLog}, writes go through a {@link DurableStore} in front of those.
+ */
+public class Stores {
+    private static ItemStore itemStore;
+    private static InventoryStore inventoryStore;
+    private static DurableStore durableStore;
+
+    /**
+     * Gets the store for items, creating the Firestore store if no other store has been set.
+     *
+     * @return the item store
+     */
+    public static synchronized ItemStore getItemStore() {
+        if (itemStore == null) {
+            useFirestore();
+        }
+        return itemStore;
+    }
+
+    /**
+     * Gets the store for inventories, creating the Firestore store if no other store has been set.
+     *
+     * @return the inventory store
+     */
+    public static synchronized InventoryStore getInventoryStore() {
+        if (inventoryStore == null) {
+            useFirestore();
+        }
+        return inventoryStore;
+    }
+
+    /**
+     * Sets the stores to use from now on.
+     *
+     * @param items       The store for items.
+     * @param inventories The store for inventories.
+     */
+    public static synchronized void use(ItemStore items, InventoryStore inventories) {
+        itemStore = items;
+        inventoryStore = inventories;
+    }
+
+    /**
+     * Sets one store to use for both items and inventories, e.g. a {@link MemoryStore}.
+     *
+     * @param store The store.
+     * @param <S>   The type of the store.
+     */
+    public static <S extends ItemStore & InventoryStore> void use(S store) {
+        use(store, store);
+    }
+
+    /**
+     * Logs every item write to a file before it is sent to Firestore, and sends the writes left in the file
+     * by the previous run of the app. Does nothing if the log is already open.
+     *
+     * @param file      The file holding the log.
+     * @param callbacks Runs the callbacks of logged writes, e.g. on the main thread.
+     * @param failures  Told about failures of logged writes after their callbacks have run, on callbacks.
+     * @throws IOException If the log cannot be opened.
+     */
+    public static synchronized void openOperationLog(File file, Executor callbacks, DurableStore.FailureListener failures) throws IOException {
+        if (durableStore != null) {
+            return;
+        }
+        FirestoreStore firestore = new FirestoreStore();
+        CoalescingStore coalescing = new CoalescingStore(firestore, firestore);
+        durableStore = new DurableStore(coalescing, coalescing, new OperationLog(file), callbacks);
+        durableStore.setFailureListener(failures);
+        use(durableStore);
+        durableStore.replay();
+    }
+
+    private static void useFirestore() {
+        FirestoreStore firestore = new FirestoreStore();
+        use(new CoalescingStore(firestore, firestore));
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.finding_tory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects the changes that a set of item additions, removals and edits make to an inventory's summary:
+ * its item count, total value and the number of items with each tag. The changes are applied to the
+ * inventory's Firestore document as increments, so the document never has to be rewritten as a whole.
+ * Values are added up in cents, so that adding and removing the same items cancels out exactly.
+ * <p>
+ * Changes logged by {@link OperationLog} carry the ID of their operation, and keep it when merged with
+ * others, so that a store can skip the changes of operations it has already applied when they are sent
+ * again after a restart.
+ */
+public class SummaryDelta {
+    private int count;
+    private long valueCents;
+    private final TreeMap<String, Integer> tagCounts;
+    // the changes of each logged operation included in the totals above, by operation ID
+    private final LinkedHashMap<String, SummaryDelta> operations;
+
+    /**
+     * Constructs a new SummaryDelta with no changes.
+     */
+    public SummaryDelta() {
+        this.tagCounts = new TreeMap<>();
+        this.operations = new LinkedHashMap<>();
+    }
+
+    /**
+     * Constructs the SummaryDelta of a logged operation, from changes written out by {@link OperationLog}.
+     *
+     * @param operationId The ID of the operation, or null for changes that may be applied more than once.
+     * @param count       The change in the number of items.
+     * @param valueCents  The change in the total value, in cents.
+     * @param tagCounts   The change in the number of items with each tag.
+     * @return the changes
+     */
+    static SummaryDelta of(String operationId, int count, long valueCents, Map<String, Integer> tagCounts) {
+        SummaryDelta delta = new SummaryDelta();
+        delta.count = count;
+        delta.valueCents = valueCents;
+        delta.tagCounts.putAll(tagCounts);
+        if (operationId != null && !delta.isEmpty()) {
+            delta.operations.put(operationId, of(null, count, valueCents, tagCounts));
+        }
+        return delta;
+    }
+
+    /**
+     * Records an item being added to the inventory.
+     *
+     * @param item The added item.
+     */
+    public void add(Item item) {
+        change(item, 1);
+    }
+
+    /**
+     * Records an item being removed from the inventory. An edit is recorded as the removal of the old
+     * version of the item followed by the addition of the new one.
+     *
+     * @param item The removed item.
+     */
+    public void remove(Item item) {
+        change(item, -1);
+    }
+
+    /**
+     * Records many items being added to the inventory.
+     *
+     * @param items The added items.
+     */
+    public void addAll(Collection<Item> items) {
+        for (Item item : items) {
+            change(item, 1);
+        }
+    }
+
+    /**
+     * Records many items being removed from the inventory.
+     *
+     * @param items The removed items.
+     */
+    public void removeAll(Collection<Item> items) {
+        for (Item item : items) {
+            change(item, -1);
+        }
+    }
+
+    /**
+     * Records tags being added to an item. This must be called before the tags are added, since only tags
+     * the item does not have yet are counted.
+     *
+     * @param item    The item being tagged.
+     * @param newTags The tags being added, in any capitalization.
+     */
+    public void addTags(Item item, Collection<String> newTags) {
+        HashSet<String> counted = new HashSet<>();
+        for (String tag : newTags) {
+            String normalized = TagIndex.normalize(tag);
+            if (normalized != null && !normalized.isEmpty() && !item.hasTag(normalized) && counted.add(normalized)) {
+                tagCounts.merge(normalized, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Adds the changes recorded by another SummaryDelta to this one, so that both can be written at once.
+     *
+     * @param other The changes to add.
+     */
+    public void merge(SummaryDelta other) {
+        add(other, 1);
+        for (Map.Entry<String, SummaryDelta> operation : other.operations.entrySet()) {
+            if (operations.containsKey(operation.getKey())) {
+                // the same operation sent twice is only counted once
+                add(operation.getValue(), -1);
+            } else {
+                operations.put(operation.getKey(), operation.getValue());
+            }
+        }
+    }
+
+    /**
+     * Takes the changes of an operation that was already applied out of the totals.
+     *
+     * @param applied The changes to take out.
+     */
+    void subtract(SummaryDelta applied) {
+        add(applied, -1);
+    }
+
+    private void add(SummaryDelta other, int sign) {
+        count += sign * other.count;
+        valueCents += sign * other.valueCents;
+        for (Map.Entry<String, Integer> entry : other.tagCounts.entrySet()) {
+            tagCounts.merge(entry.getKey(), sign * entry.getValue(), Integer::sum);
+        }
+    }
+
+    /**
+     * Gets the changes of each logged operation included in these changes, so that a store can leave out
+     * the ones it has already applied. Changes that were not logged are not included.
+     *
+     * @return map from operation ID to its changes, in the order they were merged
+     */
+    Map<String, SummaryDelta> getOperations() {
+        return Collections.unmodifiableMap(operations);
+    }
+
+    private void change(Item item, int sign) {
+        count += sign;
+        valueCents += sign * ItemColumns.toCents(item.getEstimatedValue());
+        if (item.getItemTags() != null) {
+            for (String tag : item.getItemTags()) {
+                tagCounts.merge(tag, sign, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Gets the change in the number of items.
+     *
+     * @return count delta
+     */
+    public int getCountDelta() {
+        return count;
+    }
+
+    /**
+     * Gets the change in the total value of the items.
+     *
+     * @return value delta, in dollars
+     */
+    public double getValueDelta() {
+        return valueCents / 100.0;
+    }
+
+    /**
+     * Gets the change in the total value of the items, exactly.
+     *
+     * @return value delta, in cents
+     */
+    long getValueCentsDelta() {
+        return valueCents;
+    }
+
+    /**
+     * Gets the change in the number of items with each tag, leaving out tags whose count did not change.
+     *
+     * @return map from each changed tag to its count delta, in alphabetical order of tags
+     */
+    public Map<String, Integer> getTagDeltas() {
+        TreeMap<String, Integer> deltas = new TreeMap<>();
+        for (Map.Entry<String, Integer> entry : tagCounts.entrySet()) {
+            if (entry.getValue() != 0) {
+                deltas.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * Checks whether the recorded changes leave the summary as it was.
+     *
+     * @return true if nothing changed, false otherwise
+     */
+    public boolean isEmpty() {
+        return count == 0 && valueCents == 0 && getTagDeltas().isEmpty();
+    }
+}
@@ -9,6 +9,8 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * TagAdapter is a custom adapter for a RecyclerView that displays a list of tags.
@@ -19,6 +21,7 @@ public class TagAdapter extends RecyclerView.Adapter<TagAdapter.ViewHolder> {
     private List<String> tagList;
     private List<String> selectedTags;
     private Boolean showDeleteButton;
+    private Map<String, Facets.Count> tagCounts;
 
     /**
      * Constructs a TagAdapter with the provided tag list and selected tags.
@@ -32,6 +35,16 @@ public class TagAdapter extends RecyclerView.Adapter<TagAdapter.ViewHolder> {
         this.showDeleteButton = showDeleteButton;
     }
 
+    /**
+     * Sets the item counts to show next to each tag. Tags without a count are shown with a count of zero.
+     *
+     * @param tagCounts The count of each tag, or null to show the tags on their own.
+     */
+    public void setTagCounts(Map<String, Facets.Count> tagCounts) {
+        this.tagCounts = tagCounts;
+        notifyDataSetChanged();
+    }
+
     /**
      * Called when RecyclerView needs a new ViewHolder of the given type to represent an item.
      *
@@ -55,7 +68,12 @@ public class TagAdapter extends RecyclerView.Adapter<TagAdapter.ViewHolder> {
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         String tag = tagList.get(position);
-        holder.tagTextView.setText(tag);
+        if (tagCounts == null) {
+            holder.tagTextView.setText(tag);
+        } else {
+            Facets.Count count = tagCounts.get(tag);
+            holder.tagTextView.setText(String.format(Locale.getDefault(), "%s (%d)", tag, count == null ? 0 : count.getCount()));
+        }
         holder.itemView.setSelected(selectedTags.contains(tag)); // Set the selected state
 
         holder.itemView.setOnClickListener(v -> {
@@ -0,0 +1,156 @@
+package com.example.finding_tory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Gives every distinct normalized tag used in the ledger a small int id, so that items can store their tags
+ * as the bits of a few long words and share a single copy of each tag string. Ids are handed out in order
+ * of first use and never reused, so tag words built against the dictionary stay valid as it grows.
+ */
+public class TagDictionary implements Serializable {
+    private static final long[] NO_WORDS = new long[0];
+
+    private final HashMap<String, Integer> ids;
+    private final ArrayList<String> tags;
+
+    /**
+     * Constructs a new, empty TagDictionary.
+     */
+    public TagDictionary() {
+        this.ids = new HashMap<>();
+        this.tags = new ArrayList<>();
+    }
+
+    /**
+     * Gets the id of a tag, adding the tag to the dictionary if it is new.
+     *
+     * @param tag The tag to look up, in any capitalization.
+     * @return the id of the tag, or -1 if the tag is null or empty
+     */
+    public synchronized int idOf(String tag) {
+        String normalized = TagIndex.normalize(tag);
+        if (normalized == null || normalized.isEmpty()) {
+            return -1;
+        }
+        Integer id = ids.get(normalized);
+        if (id == null) {
+            id = tags.size();
+            tags.add(normalized);
+            ids.put(normalized, id);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the id of a tag without adding it to the dictionary.
+     *
+     * @param tag The tag to look up, in any capitalization.
+     * @return the id of the tag, or -1 if it is not in the dictionary
+     */
+    public synchronized int find(String tag) {
+        Integer id = ids.get(TagIndex.normalize(tag));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the tag with an id. Every caller gets the same string instance for the same tag.
+     *
+     * @param id The id of the tag.
+     * @return the normalized tag
+     */
+    public synchronized String get(int id) {
+        return tags.get(id);
+    }
+
+    /**
+     * Gets the number of distinct tags in the dictionary.
+     *
+     * @return number of tags
+     */
+    public synchronized int size() {
+        return tags.size();
+    }
+
+    /**
+     * Builds the tag words of a set of tags, adding any new tags to the dictionary.
+     *
+     * @param tags The tags, in any capitalization.
+     * @return the words with the bit of each tag's id set
+     */
+    public long[] toWords(Collection<String> tags) {
+        long[] words = NO_WORDS;
+        for (String tag : tags) {
+            int id = idOf(tag);
+            if (id >= 0) {
+                words = set(words, id);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Sets the bit of a tag id in a set of tag words, growing them if needed.
+     *
+     * @param words The tag words.
+     * @param id    The id of the tag.
+     * @return the words with the bit set, which are a new array if they had to grow
+     */
+    public static long[] set(long[] words, int id) {
+        int word = id >>> 6;
+        if (word >= words.length) {
+            long[] grown = new long[word + 1];
+            System.arraycopy(words, 0, grown, 0, words.length);
+            words = grown;
+        }
+        words[word] |= 1L << id;
+        return words;
+    }
+
+    /**
+     * Checks whether the bit of a tag id is set in a set of tag words.
+     *
+     * @param words The tag words.
+     * @param id    The id of the tag.
+     * @return true if the bit is set
+     */
+    public static boolean get(long[] words, int id) {
+        int word = id >>> 6;
+        return id >= 0 && word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * Checks whether two sets of tag words share at least one tag.
+     *
+     * @param a The first tag words.
+     * @param b The second tag words.
+     * @return true if any bit is set in both
+     */
+    public static boolean intersects(long[] a, long[] b) {
+        for (int i = Math.min(a.length, b.length) - 1; i >= 0; i--) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a set of tag words has every tag of another.
+     *
+     * @param words  The tag words to check.
+     * @param subset The tags that must all be present.
+     * @return true if every bit set in the subset is also set in the words
+     */
+    public static boolean containsAll(long[] words, long[] subset) {
+        for (int i = 0; i < subset.length; i++) {
+            long present = i < words.length ? words[i] : 0;
+            if ((subset[i] & ~present) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
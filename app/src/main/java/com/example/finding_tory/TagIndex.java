@@ -0,0 +1,324 @@
+package com.example.finding_tory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Keeps track of every tag used by the items of an inventory, along with the slots of the items that use
+ * each tag. Tags are normalized once when they enter the index, and a sorted list of the distinct tags is
+ * kept up to date as tags are added and removed, so it never has to be rebuilt from the items.
+ */
+public class TagIndex implements Serializable {
+    private final HashMap<String, Entry> entries;
+    private final ArrayList<String> sortedTags;
+
+    /**
+     * Usage information stored for a single distinct tag.
+     */
+    private static class Entry implements Serializable {
+        private final PostingList items = new PostingList();
+    }
+
+    /**
+     * Constructs a new, empty TagIndex.
+     */
+    public TagIndex() {
+        this.entries = new HashMap<>();
+        this.sortedTags = new ArrayList<>();
+    }
+
+    /**
+     * Records that the item in a slot uses a tag. The tag is added to the sorted view the first time it is seen.
+     *
+     * @param tag  The tag to add, in any capitalization.
+     * @param slot The slot of the item using the tag.
+     */
+    public void addTag(String tag, int slot) {
+        String normalized = normalize(tag);
+        if (normalized == null || normalized.isEmpty()) {
+            return;
+        }
+        Entry entry = entries.get(normalized);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(normalized, entry);
+            int pos = Collections.binarySearch(sortedTags, normalized);
+            sortedTags.add(-(pos + 1), normalized);
+        }
+        entry.items.add(slot);
+    }
+
+    /**
+     * Records that the item in a slot no longer uses a tag. The tag is dropped from the sorted view once no
+     * item uses it anymore.
+     *
+     * @param tag  The tag to remove, in any capitalization.
+     * @param slot The slot of the item that used the tag.
+     */
+    public void removeTag(String tag, int slot) {
+        String normalized = normalize(tag);
+        Entry entry = entries.get(normalized);
+        if (entry == null) {
+            return;
+        }
+        entry.items.remove(slot);
+        if (entry.items.size() == 0) {
+            entries.remove(normalized);
+            int pos = Collections.binarySearch(sortedTags, normalized);
+            if (pos >= 0) {
+                sortedTags.remove(pos);
+            }
+        }
+    }
+
+    /**
+     * Records that the item in a slot uses each of the given tags.
+     *
+     * @param tags The tags to add.
+     * @param slot The slot of the item using the tags.
+     */
+    public void addTags(Collection<String> tags, int slot) {
+        for (String tag : tags) {
+            addTag(tag, slot);
+        }
+    }
+
+    /**
+     * Records that the item in a slot no longer uses any of the given tags.
+     *
+     * @param tags The tags to remove.
+     * @param slot The slot of the item that used the tags.
+     */
+    public void removeTags(Collection<String> tags, int slot) {
+        for (String tag : tags) {
+            removeTag(tag, slot);
+        }
+    }
+
+    /**
+     * Records the tags of many items at once, merging into each tag's posting list a single time.
+     *
+     * @param slots  The slots of the items.
+     * @param count  The number of slots to use from the start of the array.
+     * @param tagsOf Gets the tags of the item in a slot.
+     */
+    public void addAll(int[] slots, int count, IntFunction<Collection<String>> tagsOf) {
+        for (Map.Entry<String, PostingList> batch : group(slots, count, tagsOf).entrySet()) {
+            Entry entry = entries.get(batch.getKey());
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(batch.getKey(), entry);
+                int pos = Collections.binarySearch(sortedTags, batch.getKey());
+                sortedTags.add(-(pos + 1), batch.getKey());
+            }
+            entry.items.addAll(batch.getValue());
+        }
+    }
+
+    /**
+     * Records that many items no longer use their tags, making a single pass over each tag's posting list.
+     *
+     * @param slots  The slots of the items.
+     * @param count  The number of slots to use from the start of the array.
+     * @param tagsOf Gets the tags of the item in a slot.
+     */
+    public void removeAll(int[] slots, int count, IntFunction<Collection<String>> tagsOf) {
+        for (Map.Entry<String, PostingList> batch : group(slots, count, tagsOf).entrySet()) {
+            Entry entry = entries.get(batch.getKey());
+            if (entry == null) {
+                continue;
+            }
+            entry.items.removeAll(batch.getValue());
+            if (entry.items.size() == 0) {
+                entries.remove(batch.getKey());
+                int pos = Collections.binarySearch(sortedTags, batch.getKey());
+                if (pos >= 0) {
+                    sortedTags.remove(pos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Groups the slots of many items by their normalized tags.
+     *
+     * @param slots  The slots of the items.
+     * @param count  The number of slots to use from the start of the array.
+     * @param tagsOf Gets the tags of the item in a slot.
+     * @return a posting list of the slots for each tag
+     */
+    private static HashMap<String, PostingList> group(int[] slots, int count, IntFunction<Collection<String>> tagsOf) {
+        int[] sorted = Arrays.copyOf(slots, count);
+        Arrays.sort(sorted);
+        HashMap<String, PostingList> groups = new HashMap<>();
+        for (int slot : sorted) {
+            for (String tag : tagsOf.apply(slot)) {
+                String normalized = normalize(tag);
+                if (normalized == null || normalized.isEmpty()) {
+                    continue;
+                }
+                PostingList list = groups.get(normalized);
+                if (list == null) {
+                    list = new PostingList();
+                    groups.put(normalized, list);
+                }
+                list.add(slot);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Gets the number of items currently using a tag.
+     *
+     * @param tag The tag to look up, in any capitalization.
+     * @return the number of uses of the tag, or 0 if it is not in the index
+     */
+    public int getCount(String tag) {
+        Entry entry = entries.get(normalize(tag));
+        return entry == null ? 0 : entry.items.size();
+    }
+
+    /**
+     * Gets the slots of the items using a tag.
+     *
+     * @param tag The tag to look up, in any capitalization.
+     * @return the posting list of the tag, or null if no item uses it
+     */
+    public PostingList getPostings(String tag) {
+        Entry entry = entries.get(normalize(tag));
+        return entry == null ? null : entry.items;
+    }
+
+    /**
+     * Finds the slots of the items that use at least one of the given tags, by taking the union of the
+     * tags' posting lists. The work done is proportional to the number of matching items.
+     *
+     * @param tags The tags to look for.
+     * @return BitSet with the slot of every matching item set
+     */
+    public BitSet findAny(Collection<String> tags) {
+        BitSet slots = new BitSet();
+        for (String tag : tags) {
+            Entry entry = entries.get(normalize(tag));
+            if (entry != null) {
+                entry.items.addTo(slots);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Finds the slots of the items that use every one of the given tags, by walking the shortest posting
+     * list and probing the others.
+     *
+     * @param tags The tags to look for.
+     * @return BitSet with the slot of every matching item set
+     */
+    public BitSet findAll(Collection<String> tags) {
+        BitSet slots = new BitSet();
+        PostingList[] lists = new PostingList[tags.size()];
+        int count = 0;
+        for (String tag : tags) {
+            Entry entry = entries.get(normalize(tag));
+            if (entry == null) {
+                return slots;
+            }
+            lists[count++] = entry.items;
+        }
+        if (count == 0) {
+            return slots;
+        }
+        Arrays.sort(lists, 0, count, (a, b) -> Integer.compare(a.size(), b.size()));
+        PostingList shortest = lists[0];
+        for (int i = 0; i < shortest.size(); i++) {
+            int slot = shortest.get(i);
+            boolean inAll = true;
+            for (int j = 1; j < count && inAll; j++) {
+                inAll = lists[j].contains(slot);
+            }
+            if (inAll) {
+                slots.set(slot);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Checks whether at least one item uses a tag.
+     *
+     * @param tag The tag to look up, in any capitalization.
+     * @return true if the tag is in use, false otherwise
+     */
+    public boolean contains(String tag) {
+        return entries.containsKey(normalize(tag));
+    }
+
+    /**
+     * Gets the distinct tags in use, in alphabetical order. The returned list is the live view kept by
+     * this index and should not be modified by callers.
+     *
+     * @return sorted list of distinct tags
+     */
+    public ArrayList<String> getSortedTags() {
+        return sortedTags;
+    }
+
+    /**
+     * Gets the number of distinct tags in use.
+     *
+     * @return number of distinct tags
+     */
+    public int size() {
+        return sortedTags.size();
+    }
+
+    /**
+     * Removes every tag from the index.
+     */
+    public void clear() {
+        entries.clear();
+        sortedTags.clear();
+    }
+
+    /**
+     * Capitalizes the first letter of a tag and makes the rest lowercase. Tags that are already in that
+     * form are returned as-is without allocating a new string.
+     *
+     * @param tag The tag to be normalized.
+     * @return The normalized tag.
+     */
+    public static String normalize(String tag) {
+        if (tag == null || tag.isEmpty() || isNormalized(tag)) {
+            return tag;
+        }
+        return tag.substring(0, 1).toUpperCase() + tag.substring(1).toLowerCase();
+    }
+
+    /**
+     * Checks whether a tag already has an uppercase first letter followed only by lowercase letters.
+     *
+     * @param tag The non-empty tag to check.
+     * @return true if normalizing the tag would not change it
+     */
+    private static boolean isNormalized(String tag) {
+        char first = tag.charAt(0);
+        if (Character.toUpperCase(first) != first) {
+            return false;
+        }
+        for (int i = 1; i < tag.length(); i++) {
+            char c = tag.charAt(i);
+            if (Character.toLowerCase(c) != c) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -9,9 +9,6 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-
-import java.util.ArrayList;
 import java.util.concurrent.CountDownLatch;
 
 /**
@@ -50,7 +47,7 @@ public class UpsertInventoryViewActivity extends AppCompatActivity {
         // if no data is sent through intent, then user wants to add an item
         if (extras != null) {
             username = (String) extras.getSerializable("username");
-            inventory = (Inventory) extras.getSerializable("inventory");
+            inventory = InventoryRepository.getInstance().get(extras.getString("inventory_id"));
 
             // if item != null then we are editing an item
             if (inventory == null) {
@@ -109,7 +106,8 @@ public class UpsertInventoryViewActivity extends AppCompatActivity {
                             try {
                                 latch.await(); // wait for inventory deletion to finish
                                 Intent intent = new Intent();
-                                intent.putExtra("inventory_to_delete", inventory);
+                                InventoryRepository.getInstance().remove(inventory.getId());
+                                intent.putExtra("inventory_to_delete", inventory.getId());
                                 setResult(RESULT_OK, intent);
                                 finish();
                             } catch (InterruptedException e) {
@@ -124,56 +122,57 @@ public class UpsertInventoryViewActivity extends AppCompatActivity {
     }
 
     /**
-     * Adds an Inventory object to Firestore.
+     * Adds an Inventory object through the inventory store.
      * This method is called after successful validation of the inventory name.
      * On successful addition, it sets the result of the activity and finishes it.
      *
      * @param inventory The Inventory object to be added to Firestore.
      */
     private void addInventoryToFirestore(Inventory inventory) {
-        if (!FirestoreDB.isDebugMode()) {
-            FirestoreDB.getInventoriesRef(username).add(inventory).addOnSuccessListener(documentReference -> {
-                // Get the generated ID and store it in the inventory
-                String generatedId = documentReference.getId();
-                inventory.setId(generatedId);
-
-                // Update the inventory in Firestore with its ID
-                FirestoreDB.getInventoriesRef(username).document(generatedId).set(inventory);
+        Stores.getInventoryStore().addInventory(username, inventory, new StoreCallback<Inventory>() {
+            @Override
+            public void onSuccess(Inventory added) {
                 Toast.makeText(UpsertInventoryViewActivity.this, "Inventory successfully added!", Toast.LENGTH_SHORT).show();
                 Intent intent = new Intent();
-                intent.putExtra("inventory_to_add", inventory);
+                intent.putExtra("inventory_to_add", InventoryRepository.getInstance().put(added));
                 setResult(RESULT_OK, intent);
                 finish();
-            }).addOnFailureListener(e -> {
+            }
+
+            @Override
+            public void onFailure(Exception e) {
                 // Handle failure
                 e.printStackTrace();
-            });
-        }
+            }
+        });
     }
 
     /**
-     * Adds an Inventory object to Firestore.
+     * Writes an Inventory's new name through the inventory store.
      * This method is called after successful validation of the inventory name.
-     * On successful addition, it sets the result of the activity and finishes it.
+     * On successful update, it sets the result of the activity and finishes it.
      *
-     * @param inventory The Inventory object to be added to Firestore.
+     * @param inventory The Inventory object whose name was edited.
      */
     private void editInventoryFromFirestore(Inventory inventory) {
-        if (!FirestoreDB.isDebugMode()) {
-            FirestoreDB.getInventoriesRef(username).document(inventory.getId()).set(inventory).addOnSuccessListener(documentReference -> {
+        Stores.getInventoryStore().renameInventory(username, inventory, new StoreCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
                 Toast.makeText(UpsertInventoryViewActivity.this, "Inventory name successfully updated!", Toast.LENGTH_SHORT).show();
                 Intent intent = new Intent();
-                intent.putExtra("inventory_to_add", inventory);
+                intent.putExtra("inventory_to_add", InventoryRepository.getInstance().put(inventory));
                 setResult(RESULT_OK, intent);
                 finish();
-            }).addOnFailureListener(e -> {
+            }
+
+            @Override
+            public void onFailure(Exception e) {
                 // Handle failure
                 e.printStackTrace();
-            });
-        }
+            }
+        });
     }
 
-
     /**
      * Delete all the items from the inventory and then deletes the inventory.
      *
@@ -181,22 +180,20 @@ public class UpsertInventoryViewActivity extends AppCompatActivity {
      * @param latch     A CountDownLatch used to ensure the db is updated before finishing.
      */
     private void deleteInventoryFromFirestore(Inventory inventory, CountDownLatch latch) {
-        if (!FirestoreDB.isDebugMode()) {
-            FirestoreDB.getItemsRef(username, inventory).get().addOnCompleteListener(task -> {
-                if (task.isSuccessful()) {
-                    for (QueryDocumentSnapshot document : task.getResult()) {
-                        FirestoreDB.getItemsRef(username, inventory).document(document.getId()).delete();
-                    }
+        // stop listening first, so the item deletions are not applied to the inventory one by one
+        InventorySync.getInstance().stopItems(inventory.getId());
+        Stores.getInventoryStore().deleteInventory(username, inventory, new StoreCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                Toast.makeText(UpsertInventoryViewActivity.this, "Inventory and all items deleted successfully!", Toast.LENGTH_SHORT).show();
+                latch.countDown();
+            }
 
-                    // After deleting all items, delete the inventory
-                    FirestoreDB.getInventoriesRef(username).document(inventory.getId()).delete().addOnSuccessListener(aVoid -> {
-                        Toast.makeText(UpsertInventoryViewActivity.this, "Inventory and all items deleted successfully!", Toast.LENGTH_SHORT).show();
-                        latch.countDown();
-                    });
-                }
-            });
-        }
-        else
-            latch.countDown();
+            @Override
+            public void onFailure(Exception e) {
+                // Handle failure
+                e.printStackTrace();
+            }
+        });
     }
 }
@@ -112,8 +112,9 @@ public class UpsertViewActivity extends AppCompatActivity implements DatePickerD
         item = null;
         // if no data is sent through intent, then user wants to add an item
         if (extras != null) {
-            item = (Item) (extras.getSerializable("selectedItem"));
-            inventory = (Inventory) extras.getSerializable("inventory");
+            byte[] encodedItem = extras.getByteArray("selectedItem");
+            item = encodedItem != null ? ItemCodec.decodeItem(encodedItem) : null;
+            inventory = InventoryRepository.getInstance().get(extras.getString("inventory_id"));
             username = (String) extras.getSerializable("username");
             // if item != null then we are editing an item
             if (item != null) {
@@ -316,8 +317,8 @@ public class UpsertViewActivity extends AppCompatActivity implements DatePickerD
                                 item.setComment(comment);
                                 item.setItemTags(tags);
 
-                                FirestoreDB.editItemFromFirestore(username, inventory, item);
-                                intent.putExtra("editedItem", item);
+                                // saved by the inventory screen, together with its change to the summary
+                                intent.putExtra("editedItem", ItemCodec.encodeItem(item));
                                 setResult(RESULT_OK, intent); // sends item back to parent activity
                                 finish();
                             }
@@ -350,43 +351,30 @@ public class UpsertViewActivity extends AppCompatActivity implements DatePickerD
     }
 
     /**
-     * Adds an item to Firestore items collection.
+     * Adds an item to the inventory's items through the item store, and finishes once it has an ID.
      *
      * @param item The item to be added to Firestore.
      */
     private void addItemToFirestore(Item item) {
-        CountDownLatch latch = new CountDownLatch(1);
-        if (!FirestoreDB.isDebugMode()) {
-            FirestoreDB.getItemsRef(username, inventory).add(item).addOnSuccessListener(documentReference -> {
-                // Get the generated ID and store it in the item
-                String generatedId = documentReference.getId();
-                item.setId(generatedId);
-
-                // Update the item in Firestore with its ID
-                FirestoreDB.getItemsRef(username, inventory).document(generatedId).set(item);
-                Toast.makeText(UpsertViewActivity.this, "Item successfully added!", Toast.LENGTH_SHORT).show();
-                latch.countDown();
-            }).addOnFailureListener(e -> {
-                // Handle failure
-                e.printStackTrace();
-                latch.countDown();
-            });
-        }
-
-        new Thread(() -> {
-            try {
-                // Wait for item to be added to Firestore
-                latch.await();
-
-                // Update intent and finish activity here
+        Stores.getItemStore().addItem(username, inventory, item, new StoreCallback<Item>() {
+            @Override
+            public void onSuccess(Item added) {
+                runOnUiThread(() -> Toast.makeText(UpsertViewActivity.this, "Item successfully added!", Toast.LENGTH_SHORT).show());
                 Intent intent = new Intent();
-                intent.putExtra("item_to_add", item);
+                intent.putExtra("item_to_add", ItemCodec.encodeItem(added));
                 setResult(RESULT_OK, intent);
                 finish();
-            } catch (InterruptedException e) {
+            }
+
+            @Override
+            public void onFailure(Exception e) {
                 e.printStackTrace();
+                runOnUiThread(() -> {
+                    Toast.makeText(UpsertViewActivity.this, "Item could not be added!", Toast.LENGTH_SHORT).show();
+                    submit_button.setEnabled(true);
+                });
             }
-        }).start();
+        });
     }
 
     /**
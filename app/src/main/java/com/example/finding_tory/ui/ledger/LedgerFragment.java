@@ -13,17 +13,14 @@ import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 
 import com.example.finding_tory.ActivityCodes;
-import com.example.finding_tory.FirestoreDB;
-import com.example.finding_tory.Inventory;
+import com.example.finding_tory.InventoryRepository;
+import com.example.finding_tory.InventorySync;
 import com.example.finding_tory.InventoryViewActivity;
 import com.example.finding_tory.Ledger;
 import com.example.finding_tory.LedgerAdapter;
 import com.example.finding_tory.UpsertInventoryViewActivity;
 import com.example.finding_tory.databinding.FragmentLedgerBinding;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-
-import java.util.ArrayList;
 
 
 /**
@@ -38,6 +35,7 @@ public class LedgerFragment extends Fragment {
     private ListView ledgerListView;
     private LedgerAdapter ledgerAdapter;
     private View root;
+    private final Runnable onInventoriesChanged = this::refreshInventories;
     private TextView noInventoriesMsg;
     private FloatingActionButton addInvButton;
 
@@ -73,16 +71,22 @@ public class LedgerFragment extends Fragment {
         binding = FragmentLedgerBinding.inflate(inflater, container, false);
         root = binding.getRoot();
 
-        // map the listview to the ledger's list of items via custom ledger adapter
-        ledgerListView = binding.ledgerListview;
-        ledgerAdapter = new LedgerAdapter(root.getContext(), ledger.getInventories());
-        ledgerListView.setAdapter(ledgerAdapter);
-
         // Retrieve from fragment arguments
         if (getArguments() != null) {
             username = getArguments().getString("username");
         }
 
+        // keep the ledger in step with the user's inventories; this is a no-op if it already is
+        if (username != null && !username.equals("")) {
+            InventorySync.getInstance().syncLedger(username, ledger);
+        }
+        InventorySync.getInstance().addOnChangeListener(onInventoriesChanged);
+
+        // map the listview to the ledger's list of items via custom ledger adapter
+        ledgerListView = binding.ledgerListview;
+        ledgerAdapter = new LedgerAdapter(root.getContext(), ledger.getInventories());
+        ledgerListView.setAdapter(ledgerAdapter);
+
         // cache the no inventories textview
         noInventoriesMsg = binding.emptyLedgerMsg;
 
@@ -94,7 +98,7 @@ public class LedgerFragment extends Fragment {
             @Override
             public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
                 Intent intent = new Intent(getActivity(), InventoryViewActivity.class);
-                intent.putExtra("inventory", ledger.getInventories().get(position));
+                intent.putExtra("inventory_id", InventoryRepository.getInstance().put(ledger.getInventories().get(position)));
                 intent.putExtra("username", username);
                 startActivityForResult(intent, 1);
                 // getActivity().startActivity(intent);  // launch the InventoryViewActivity
@@ -105,7 +109,7 @@ public class LedgerFragment extends Fragment {
             @Override
             public boolean onItemLongClick(AdapterView<?> parent, View view, int position, long id) {
                 Intent intent = new Intent(getActivity(), UpsertInventoryViewActivity.class);
-                intent.putExtra("inventory", ledger.getInventories().get(position));
+                intent.putExtra("inventory_id", InventoryRepository.getInstance().put(ledger.getInventories().get(position)));
                 intent.putExtra("username", username);
                 startActivityForResult(intent, ActivityCodes.DELETE_INVENTORY.getRequestCode());
                 return true;
@@ -131,44 +135,33 @@ public class LedgerFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        InventorySync.getInstance().removeOnChangeListener(onInventoriesChanged);
         binding = null;
     }
 
     /**
      * When this fragment is first launched or resumed after going back from
-     * InventoryViewActivity it updates the inventories for any changes
+     * InventoryViewActivity it shows the inventories, which are kept up to date by InventorySync
      */
     @Override
     public void onResume() {
         super.onResume();
-        if (username != null && !username.equals("")) {
-            fetchUserInventories(); // Refresh data when the fragment becomes visible
-        }
+        refreshInventories();
     }
 
     /**
-     * Fetches the user's inventories from Firestore and updates the UI with the retrieved data.
+     * Shows the ledger's current inventories, or a message if the user has none.
      */
-    private void fetchUserInventories() {
-        ledger.setInventories(new ArrayList<>());
-        FirestoreDB.getInventoriesRef(username).get().addOnCompleteListener(task -> {
-            if (task.isSuccessful()) {
-                for (QueryDocumentSnapshot document : task.getResult()) {
-                    // Add the inventories to the ledger view
-                    Inventory inv = document.toObject(Inventory.class);
-                    ledger.getInventories().add(inv);
-                }
-                ledgerAdapter = new LedgerAdapter(root.getContext(), ledger.getInventories());
-                ledgerListView.setAdapter(ledgerAdapter);
-
-                // display message if user has no inventories
-                if (ledger.getInventories().isEmpty())
-                    noInventoriesMsg.setVisibility(View.VISIBLE);
-                else
-                    noInventoriesMsg.setVisibility(View.GONE);
-            } else {
-                // TODO Handle the error
-            }
-        });
+    private void refreshInventories() {
+        if (binding == null) {
+            return;
+        }
+        ledgerAdapter.notifyDataSetChanged();
+
+        // display message if user has no inventories
+        if (ledger.getInventories().isEmpty())
+            noInventoriesMsg.setVisibility(View.VISIBLE);
+        else
+            noInventoriesMsg.setVisibility(View.GONE);
     }
 }
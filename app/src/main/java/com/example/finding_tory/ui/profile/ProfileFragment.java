@@ -17,7 +17,6 @@ import androidx.fragment.app.Fragment;
 
 import com.example.finding_tory.FirestoreDB;
 import com.example.finding_tory.Inventory;
-import com.example.finding_tory.Item;
 import com.example.finding_tory.Ledger;
 import com.example.finding_tory.databinding.FragmentProfileBinding;
 
@@ -71,10 +70,8 @@ public class ProfileFragment extends Fragment {
         double totalValue = 0;
         for (Inventory inv : gloabalLedger.getInventories()) {
             totalInventories++;
-            for (Item it : inv.getItems()) {
-                totalItems++;
-                totalValue += it.getEstimatedValue();
-            }
+            totalItems += inv.getCount();
+            totalValue += inv.getInventoryEstimatedValue();
         }
         binding.textNumInventories.setText("Inventories created: " + totalInventories);
         binding.textNumItems.setText("Total items: " + totalItems);
@@ -0,0 +1,131 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+public class CoalescingStoreTest extends TestCase {
+    private static final String USER = "tester";
+    private MemoryStore memory;
+    private CoalescingStore store;
+    private Inventory inventory;
+    private Item lamp;
+
+    @BeforeEach
+    public void setUp() {
+        memory = new MemoryStore();
+        // a window long enough that nothing is sent unless the test sends it
+        store = new CoalescingStore(memory, memory, 60_000);
+        inventory = new Inventory("Office");
+        store.addInventory(USER, inventory, StoreCallback.ignoreResult());
+        lamp = new Item(new Date(0), "Lamp", "", "", 10f, "", "", new ArrayList<>(), new ArrayList<>());
+        store.addItem(USER, inventory, lamp, StoreCallback.ignoreResult());
+    }
+
+    private List<Item> loadItems() {
+        ArrayList<Item> loaded = new ArrayList<>();
+        memory.loadItemsPage(USER, inventory, null, 100, new StoreCallback<List<Item>>() {
+            @Override
+            public void onSuccess(List<Item> result) {
+                loaded.addAll(result);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                fail(e.getMessage());
+            }
+        });
+        return loaded;
+    }
+
+    @Test
+    public void testRepeatedEditsAreWrittenOnce() throws InterruptedException {
+        long writes = memory.getWriteCount();
+        for (int i = 1; i <= 5; i++) {
+            Item previous = ItemCodec.decodeItem(ItemCodec.encodeItem(lamp));
+            lamp.setEstimatedValue(10f + i);
+            SummaryDelta delta = new SummaryDelta();
+            delta.remove(previous);
+            delta.add(lamp);
+            store.saveItem(USER, inventory, lamp, StoreCallback.ignoreResult());
+            store.updateSummary(USER, inventory, delta, StoreCallback.ignoreResult());
+        }
+        assertEquals(writes, memory.getWriteCount());
+        assertEquals(10f, loadItems().get(0).getEstimatedValue());
+
+        assertTrue(store.await(1000));
+        // one item write and one summary write
+        assertEquals(writes + 2, memory.getWriteCount());
+        assertEquals(15f, loadItems().get(0).getEstimatedValue());
+        assertEquals(10, store.getHeldBackCount());
+        assertEquals(2, store.getSentCount());
+    }
+
+    @Test
+    public void testSavedVersionIsCopied() throws InterruptedException {
+        lamp.setDescription("Saved");
+        store.saveItem(USER, inventory, lamp, StoreCallback.ignoreResult());
+        lamp.setDescription("Not saved");
+        assertTrue(store.await(1000));
+        assertEquals("Saved", loadItems().get(0).getDescription());
+    }
+
+    @Test
+    public void testDeleteDropsHeldBackEdit() throws InterruptedException {
+        lamp.setDescription("Edited");
+        store.saveItem(USER, inventory, lamp, StoreCallback.ignoreResult());
+        store.deleteItem(USER, inventory, lamp, StoreCallback.ignoreResult());
+        assertTrue(store.await(1000));
+        assertTrue(loadItems().isEmpty());
+    }
+
+    @Test
+    public void testTagsMergeIntoHeldBackEdit() throws InterruptedException {
+        lamp.setDescription("Edited");
+        store.saveItem(USER, inventory, lamp, StoreCallback.ignoreResult());
+        Item stale = ItemCodec.decodeItem(ItemCodec.encodeItem(lamp));
+        stale.setDescription("Stale");
+        store.tagItems(USER, inventory, Arrays.asList(stale), Arrays.asList("Office"), null, StoreCallback.ignoreResult());
+        assertTrue(store.await(1000));
+        Item stored = loadItems().get(0);
+        assertEquals("Edited", stored.getDescription());
+        assertTrue(stored.getItemTags().contains("Office"));
+    }
+
+    @Test
+    public void testReadSendsHeldBackEdits() {
+        lamp.setDescription("Edited");
+        store.saveItem(USER, inventory, lamp, StoreCallback.ignoreResult());
+        ArrayList<Item> loaded = new ArrayList<>();
+        store.loadItemsPage(USER, inventory, null, 10, new StoreCallback<List<Item>>() {
+            @Override
+            public void onSuccess(List<Item> result) {
+                loaded.addAll(result);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                fail(e.getMessage());
+            }
+        });
+        assertEquals("Edited", loaded.get(0).getDescription());
+    }
+
+    @Test
+    public void testWindowCloses() throws InterruptedException {
+        CoalescingStore quick = new CoalescingStore(memory, memory, 10);
+        lamp.setDescription("Edited");
+        quick.saveItem(USER, inventory, lamp, StoreCallback.ignoreResult());
+        for (int i = 0; i < 100 && quick.getSentCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(quick.await(1000));
+        assertEquals("Edited", loadItems().get(0).getDescription());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+
+public class DateIndexTest extends TestCase {
+    private DateIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new DateIndex();
+    }
+
+    @Test
+    public void testFindRangeIsInclusive() {
+        index.add(300, 0);
+        index.add(100, 1);
+        index.add(200, 2);
+        index.add(200, 3);
+        BitSet matches = index.findRange(200, 300);
+        assertEquals(3, matches.cardinality());
+        assertFalse(matches.get(1));
+        assertEquals(3, index.countRange(200, 300));
+        assertEquals(0, index.countRange(301, 400));
+        assertEquals(0, index.countRange(300, 100));
+    }
+
+    @Test
+    public void testRemove() {
+        index.add(100, 0);
+        index.add(100, 1);
+        index.remove(100, 0);
+        index.remove(500, 1);
+        assertEquals(1, index.size());
+        BitSet matches = index.findRange(0, 1000);
+        assertTrue(matches.get(1));
+        assertFalse(matches.get(0));
+    }
+
+    @Test
+    public void testGrowsPastInitialCapacity() {
+        for (int slot = 0; slot < 100; slot++) {
+            index.add(1000 - slot, slot);
+        }
+        assertEquals(100, index.size());
+        assertEquals(10, index.countRange(901, 910));
+    }
+
+    @Test
+    public void testAddAllAndRemoveAll() {
+        ItemColumns columns = new ItemColumns();
+        for (int slot = 0; slot < 6; slot++) {
+            columns.set(slot, new Item(new Date((slot % 3) * 1000L), "item", "", "", 1f, "", "", new ArrayList<>(), new ArrayList<>()));
+        }
+        index.add(columns.getDateMillis(0), 0);
+        index.add(columns.getDateMillis(4), 4);
+        index.addAll(new int[]{5, 1, 2, 3}, 4, columns);
+        assertEquals(6, index.size());
+        assertEquals(2, index.countRange(0, 0));
+        assertEquals(4, index.countRange(1000, 2000));
+
+        BitSet removed = new BitSet();
+        removed.set(1);
+        removed.set(5);
+        index.removeAll(removed);
+        assertEquals(4, index.size());
+        BitSet matches = index.findRange(0, 2000);
+        assertFalse(matches.get(1));
+        assertFalse(matches.get(5));
+        assertTrue(matches.get(4));
+    }
+
+    @Test
+    public void testRebuildFromColumns() {
+        ItemColumns columns = new ItemColumns();
+        for (int slot = 0; slot < 5; slot++) {
+            columns.set(slot, new Item(new Date(slot * 1000L), "item", "", "", 1f, "", "", new ArrayList<>(), new ArrayList<>()));
+        }
+        columns.clear(2);
+        index.rebuild(columns, null);
+        assertEquals(4, index.size());
+        BitSet matches = index.findRange(1000, 3000);
+        assertTrue(matches.get(1));
+        assertFalse(matches.get(2));
+        assertTrue(matches.get(3));
+    }
+}
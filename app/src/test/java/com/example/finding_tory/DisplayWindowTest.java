@@ -0,0 +1,110 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Random;
+
+public class DisplayWindowTest extends TestCase {
+    private Inventory inventory;
+    private ArrayList<Item> items;
+    private Random random;
+
+    @BeforeEach
+    public void setUp() {
+        random = new Random(16);
+        items = new ArrayList<>();
+        String[] makes = {"Sony", "Ikea", "Apple"};
+        for (int i = 0; i < 1000; i++) {
+            items.add(newItem(i, makes[random.nextInt(makes.length)]));
+        }
+        inventory = new Inventory("Window");
+        inventory.setItems(items);
+    }
+
+    private Item newItem(int i, String make) {
+        return new Item(new Date(1_600_000_000_000L + random.nextInt(1_000_000) * 1000L), "Item " + i, make, "",
+                random.nextInt(100_000) / 100f, "", "", new ArrayList<>(Arrays.asList("Tag" + (i % 5))), new ArrayList<>());
+    }
+
+    private ArrayList<Item> windowContents() {
+        DisplayWindow window = inventory.getDisplayWindow();
+        ArrayList<Item> contents = new ArrayList<>();
+        for (int i = 0; i < window.size(); i++) {
+            contents.add(window.get(i));
+        }
+        return contents;
+    }
+
+    private void assertWindowMatchesList() {
+        ArrayList<Item> contents = windowContents();
+        assertEquals(inventory.getDisplayedCount(), contents.size());
+        assertEquals(new ArrayList<>(inventory.getDisplayedItems()), contents);
+    }
+
+    @Test
+    public void testReadsEveryDisplayedItem() {
+        assertWindowMatchesList();
+        assertEquals(items.size(), inventory.getDisplayWindow().size());
+    }
+
+    @Test
+    public void testFollowsFilterAndSort() {
+        inventory.getFilter().setMake("Sony");
+        inventory.filterItems();
+        assertWindowMatchesList();
+
+        inventory.getSort().setSortType("Value");
+        inventory.getSort().setSortOrder("Descending");
+        inventory.sortItems();
+        assertWindowMatchesList();
+        Item previous = null;
+        for (Item item : windowContents()) {
+            if (previous != null) {
+                assertTrue(previous.getEstimatedValue() >= item.getEstimatedValue());
+            }
+            assertEquals("Sony", item.getMake());
+            previous = item;
+        }
+    }
+
+    @Test
+    public void testFollowsChanges() {
+        inventory.getFilter().setMake("Ikea");
+        inventory.filterItems();
+        DisplayWindow window = inventory.getDisplayWindow();
+        Item first = window.get(0);
+        int size = window.size();
+
+        inventory.removeItem(first);
+        assertEquals(size - 1, window.size());
+        assertNotSame(first, window.get(0));
+
+        Item added = newItem(1000, "Ikea");
+        inventory.addItem(added);
+        assertEquals(size, window.size());
+        assertTrue(windowContents().contains(added));
+
+        inventory.removeAll(items.subList(0, 300));
+        inventory.filterItems();
+        ArrayList<Item> contents = windowContents();
+        inventory.filterItems();
+        assertEquals(inventory.getDisplayedItems(), contents);
+    }
+
+    @Test
+    public void testOutOfRange() {
+        DisplayWindow window = inventory.getDisplayWindow();
+        try {
+            window.get(window.size());
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+public class DurableStoreTest extends TestCase {
+    private static final String USER = "tester";
+    private File file;
+    private OfflineStore memory;
+    private Inventory inventory;
+    private Item lamp;
+
+    /**
+     * A MemoryStore whose item writes fail while it is offline, or a set number of times.
+     */
+    private static class OfflineStore extends MemoryStore {
+        private volatile boolean offline;
+        private int failures;
+        private int lostAnswers;
+        private int attempts;
+
+        @Override
+        public void saveItems(String username, Inventory inventory, Collection<Item> items, SummaryDelta delta, StoreCallback<Void> callback) {
+            boolean fail;
+            boolean lose;
+            synchronized (this) {
+                attempts++;
+                fail = offline || failures-- > 0;
+                lose = !fail && lostAnswers-- > 0;
+            }
+            if (fail) {
+                callback.onFailure(new IOException("offline"));
+            } else if (lose) {
+                // written, but the answer never arrives, as when the app is killed before acknowledging it
+                super.saveItems(username, inventory, items, delta, StoreCallback.ignoreResult());
+                callback.onFailure(new IOException("lost answer"));
+            } else {
+                super.saveItems(username, inventory, items, delta, callback);
+            }
+        }
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = File.createTempFile("operations", ".log");
+        file.deleteOnExit();
+        memory = new OfflineStore();
+        inventory = new Inventory("Office");
+        memory.addInventory(USER, inventory, StoreCallback.ignoreResult());
+        lamp = new Item(new Date(0), "Lamp", "", "", 10f, "", "", new ArrayList<>(), new ArrayList<>());
+    }
+
+    private DurableStore open() throws IOException {
+        DurableStore store = new DurableStore(memory, memory, new OperationLog(file));
+        store.setFirstRetryMillis(10);
+        return store;
+    }
+
+    private List<Item> loadItems() {
+        ArrayList<Item> loaded = new ArrayList<>();
+        memory.loadItemsPage(USER, inventory, null, 100, new StoreCallback<List<Item>>() {
+            @Override
+            public void onSuccess(List<Item> result) {
+                loaded.addAll(result);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                fail(e.getMessage());
+            }
+        });
+        return loaded;
+    }
+
+    private static void awaitPending(DurableStore store, int count) throws InterruptedException {
+        for (int i = 0; i < 200 && store.getPendingCount() != count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, store.getPendingCount());
+    }
+
+    @Test
+    public void testAddedItemIsAcknowledged() throws IOException, InterruptedException {
+        DurableStore store = open();
+        ArrayList<Item> added = new ArrayList<>();
+        store.addItem(USER, inventory, lamp, new StoreCallback<Item>() {
+            @Override
+            public void onSuccess(Item result) {
+                added.add(result);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                fail(e.getMessage());
+            }
+        });
+        // the ID is given straight away, and the write is logged on the store's thread
+        assertEquals(20, lamp.getId().length());
+        assertTrue(store.await(1000));
+        assertEquals(1, added.size());
+        assertEquals(lamp.getId(), loadItems().get(0).getId());
+        awaitPending(store, 0);
+    }
+
+    @Test
+    public void testFailedWriteIsRetried() throws IOException, InterruptedException {
+        memory.offline = true;
+        DurableStore store = open();
+        ArrayList<Item> added = new ArrayList<>();
+        store.addItem(USER, inventory, lamp, new StoreCallback<Item>() {
+            @Override
+            public void onSuccess(Item result) {
+                added.add(result);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                fail(e.getMessage());
+            }
+        });
+        // the caller is told the item was added as soon as it is logged
+        assertTrue(store.await(1000));
+        assertEquals(1, added.size());
+        assertTrue(loadItems().isEmpty());
+        assertEquals(1, store.getPendingCount());
+
+        memory.offline = false;
+        awaitPending(store, 0);
+        assertEquals(1, loadItems().size());
+    }
+
+    @Test
+    public void testFailedAttemptIsReported() throws IOException, InterruptedException {
+        memory.failures = 1;
+        DurableStore store = open();
+        ArrayList<Exception> reported = new ArrayList<>();
+        store.setFailureListener(e -> {
+            synchronized (reported) {
+                reported.add(e);
+            }
+        });
+        store.addItem(USER, inventory, lamp, StoreCallback.ignoreResult());
+        assertTrue(store.await(1000));
+        awaitPending(store, 0);
+        synchronized (reported) {
+            assertEquals(1, reported.size());
+        }
+    }
+
+    @Test
+    public void testUnloggedWriteAnswersOnCallbacks() throws IOException, InterruptedException {
+        OperationLog log = new OperationLog(file);
+        ArrayList<String> ran = new ArrayList<>();
+        DurableStore store = new DurableStore(memory, memory, log, runnable -> {
+            ran.add(Thread.currentThread().getName());
+            runnable.run();
+        });
+        ArrayList<Exception> reported = new ArrayList<>();
+        store.setFailureListener(reported::add);
+        ArrayList<Item> added = new ArrayList<>();
+        store.addItem(USER, inventory, lamp, new StoreCallback<Item>() {
+            @Override
+            public void onSuccess(Item result) {
+                added.add(result);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                fail(e.getMessage());
+            }
+        });
+        assertTrue(store.await(1000));
+        awaitPending(store, 0);
+        assertTrue(store.await(1000));
+        log.close();
+        // the log can no longer be written, so the item is sent without it
+        store.addItem(USER, inventory, new Item(new Date(0), "Desk", "", "", 10f, "", "", new ArrayList<>(), new ArrayList<>()),
+                new StoreCallback<Item>() {
+                    @Override
+                    public void onSuccess(Item result) {
+                        added.add(result);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        fail(e.getMessage());
+                    }
+                });
+        assertTrue(store.await(1000));
+        assertEquals(2, added.size());
+        assertEquals(1, reported.size());
+        assertEquals(2, loadItems().size());
+        // both answers and the failure went through the callbacks' executor
+        assertEquals(3, ran.size());
+    }
+
+    @Test
+    public void testPendingWritesAreReplayed() throws IOException, InterruptedException {
+        memory.offline = true;
+        DurableStore store = open();
+        // not retried before the app is closed
+        store.setFirstRetryMillis(60_000);
+        store.addItem(USER, inventory, lamp, StoreCallback.ignoreResult());
+        SummaryDelta delta = new SummaryDelta();
+        delta.add(lamp);
+        store.updateSummary(USER, inventory, delta, StoreCallback.ignoreResult());
+        assertTrue(store.await(1000));
+        assertEquals(2, store.getPendingCount());
+
+        // the app is restarted with a connection
+        OfflineStore online = new OfflineStore();
+        online.addInventory(USER, inventory, StoreCallback.ignoreResult());
+        memory = online;
+        DurableStore restarted = open();
+        assertEquals(2, restarted.getPendingCount());
+        restarted.replay();
+        awaitPending(restarted, 0);
+        assertEquals(lamp.getId(), loadItems().get(0).getId());
+        ArrayList<Inventory> listed = new ArrayList<>();
+        memory.listenInventories(USER, (changed, removedIds) -> listed.addAll(changed));
+        assertEquals(1, listed.get(0).getCount());
+    }
+
+    @Test
+    public void testSupersededWriteIsNotRetried() throws IOException, InterruptedException {
+        memory.offline = true;
+        DurableStore store = open();
+        // long enough for the connection to come back before the first retry
+        store.setFirstRetryMillis(200);
+        lamp.setId("lamp");
+        store.saveItem(USER, inventory, lamp, StoreCallback.ignoreResult());
+        lamp.setEstimatedValue(20f);
+        store.saveItem(USER, inventory, lamp, StoreCallback.ignoreResult());
+        assertTrue(store.await(1000));
+        memory.offline = false;
+        awaitPending(store, 0);
+        // two failed attempts, then only the newer write is sent again
+        assertEquals(3, memory.attempts);
+        assertEquals(20f, loadItems().get(0).getEstimatedValue());
+    }
+
+    @Test
+    public void testOlderWriteIsNotRetriedAfterNewerSucceeds() throws IOException, InterruptedException {
+        memory.failures = 1;
+        DurableStore store = open();
+        store.setFirstRetryMillis(50);
+        lamp.setId("lamp");
+        store.saveItem(USER, inventory, lamp, StoreCallback.ignoreResult());
+        lamp.setEstimatedValue(20f);
+        store.saveItem(USER, inventory, lamp, StoreCallback.ignoreResult());
+        assertTrue(store.await(1000));
+        assertEquals(20f, loadItems().get(0).getEstimatedValue());
+        awaitPending(store, 0);
+        // the older write failed, the newer one succeeded, and the older one was not sent again
+        assertEquals(2, memory.attempts);
+        assertEquals(20f, loadItems().get(0).getEstimatedValue());
+    }
+
+    @Test
+    public void testSummaryIsAppliedOnce() throws IOException, InterruptedException {
+        memory.lostAnswers = 1;
+        DurableStore store = open();
+        lamp.setId("lamp");
+        SummaryDelta delta = new SummaryDelta();
+        delta.add(lamp);
+        store.saveItems(USER, inventory, Collections.singletonList(lamp), delta, StoreCallback.ignoreResult());
+        assertTrue(store.await(1000));
+        awaitPending(store, 0);
+        assertEquals(2, memory.attempts);
+        ArrayList<Inventory> listed = new ArrayList<>();
+        memory.listenInventories(USER, (changed, removedIds) -> listed.addAll(changed));
+        assertEquals(1, listed.get(0).getCount());
+        assertEquals(10.0, listed.get(0).getInventoryEstimatedValue(), 0.001);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class FacetsTest extends TestCase {
+    private Inventory inventory;
+    private Item sonyTv;
+    private Item sonyRadio;
+    private Item ikeaDesk;
+
+    @BeforeEach
+    public void setUp() {
+        inventory = new Inventory("Facets");
+        sonyTv = newItem(date(2023, Calendar.JANUARY, 5), "Television", "Sony", 900f, "Electronics", "Office");
+        sonyRadio = newItem(date(2023, Calendar.JANUARY, 20), "Radio", "Sony", 40f, "Electronics");
+        ikeaDesk = newItem(date(2023, Calendar.MARCH, 1), "Standing desk", "Ikea", 300f, "Office", "Furniture");
+        inventory.setItems(new ArrayList<>(Arrays.asList(sonyTv, sonyRadio, ikeaDesk)));
+    }
+
+    private static Date date(int year, int month, int day) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, 12, 0);
+        return calendar.getTime();
+    }
+
+    private static Item newItem(Date date, String description, String make, float value, String... tags) {
+        return new Item(date, description, make, "", value, "", "", new ArrayList<>(Arrays.asList(tags)), new ArrayList<>());
+    }
+
+    @Test
+    public void testCountsDisplayedItems() {
+        Facets facets = inventory.getFacets();
+        assertEquals(2, facets.getTagCount("Electronics").getCount());
+        assertEquals(940.0, facets.getTagCount("electronics").getValue());
+        assertEquals(0, facets.getTagCount("Garden").getCount());
+        assertEquals(2, facets.getMakeCounts().get("Sony").getCount());
+        assertEquals(300.0, facets.getMakeCounts().get("Ikea").getValue());
+        TreeMap<String, Facets.Count> months = facets.getMonthCounts();
+        assertEquals(new ArrayList<>(Arrays.asList("2023-01", "2023-03")), new ArrayList<>(months.keySet()));
+        assertEquals(2, months.get("2023-01").getCount());
+    }
+
+    @Test
+    public void testFollowsFilter() {
+        inventory.getFilter().setMake("Sony");
+        inventory.filterItems();
+        Facets facets = inventory.getFacets();
+        assertNull(facets.getMakeCounts().get("Ikea"));
+        assertEquals(1, facets.getTagCount("Office").getCount());
+        assertEquals(1, facets.getMonthCounts().size());
+    }
+
+    @Test
+    public void testUpdatedOnChanges() {
+        inventory.removeItem(sonyRadio);
+        Item lamp = newItem(date(2023, Calendar.MARCH, 9), "Lamp", "Ikea", 25f, "Office");
+        inventory.addItem(lamp);
+        inventory.addItemTags(lamp, new ArrayList<>(Arrays.asList("Lighting")));
+        Facets facets = inventory.getFacets();
+        assertEquals(1, facets.getTagCount("Electronics").getCount());
+        assertEquals(3, facets.getTagCount("Office").getCount());
+        assertEquals(1, facets.getTagCount("Lighting").getCount());
+        assertEquals(2, facets.getMakeCounts().get("Ikea").getCount());
+        assertEquals(2, facets.getMonthCounts().get("2023-03").getCount());
+
+        lamp.setEstimatedValue(75f);
+        inventory.calculateValue();
+        assertEquals(375.0, facets.getMakeCounts().get("Ikea").getValue());
+    }
+
+    @Test
+    public void testMatchesRecountAfterRandomChanges() {
+        Random random = new Random(7);
+        String[] makes = {"Sony", "Ikea", "Apple", ""};
+        String[] tags = {"Home", "Office", "Garden"};
+        ArrayList<Item> items = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            items.add(newItem(date(2020 + random.nextInt(3), random.nextInt(12), 1 + random.nextInt(28)),
+                    "Item " + i, makes[random.nextInt(makes.length)], random.nextInt(500),
+                    tags[random.nextInt(tags.length)]));
+        }
+        inventory.setItems(items);
+        inventory.getFilter().setMake("o");
+        inventory.filterItems();
+        inventory.removeAll(items.subList(0, 50));
+        inventory.applyTags(items.subList(50, 120), Arrays.asList("Garden"));
+        inventory.updateAll(items.subList(100, 200), item -> item.setMake(makes[random.nextInt(makes.length)]));
+
+        TreeMap<String, int[]> expectedMakes = new TreeMap<>();
+        TreeMap<String, int[]> expectedMonths = new TreeMap<>();
+        Calendar calendar = Calendar.getInstance();
+        for (Item item : inventory.getDisplayedItems()) {
+            expectedMakes.computeIfAbsent(item.getMake(), make -> new int[1])[0]++;
+            calendar.setTime(item.getPurchaseDate());
+            String month = String.format(Locale.ROOT, "%04d-%02d", calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1);
+            expectedMonths.computeIfAbsent(month, key -> new int[1])[0]++;
+        }
+        Facets facets = inventory.getFacets();
+        assertEquals(expectedMakes.keySet(), facets.getMakeCounts().keySet());
+        for (Map.Entry<String, int[]> make : expectedMakes.entrySet()) {
+            assertEquals(make.getValue()[0], facets.getMakeCounts().get(make.getKey()).getCount());
+        }
+        assertEquals(expectedMonths.keySet(), facets.getMonthCounts().keySet());
+        for (Map.Entry<String, int[]> month : expectedMonths.entrySet()) {
+            assertEquals(month.getValue()[0], facets.getMonthCounts().get(month.getKey()).getCount());
+        }
+    }
+}
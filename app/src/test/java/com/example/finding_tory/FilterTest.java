@@ -91,4 +91,39 @@ public class FilterTest extends TestCase {
         }});
         assertFalse(filter.isEmpty());
     }
+
+    @Test
+    public void testMatches() {
+        Item item = new Item(new Date(2021, 6, 1), "Gaming Laptop", "Dell", "", 10f, "", "", new ArrayList<String>() {{
+            add("Electronics");
+        }}, new ArrayList<>());
+        assertTrue(filter.matches(item));
+
+        filter.setDescription("laptop");
+        filter.setMake("DELL");
+        assertTrue(filter.matches(item));
+
+        filter.setStartDate(startDate);
+        filter.setEndDate(endDate);
+        assertTrue(filter.matches(item));
+
+        filter.setTags(new ArrayList<String>() {{
+            add("Office");
+        }});
+        assertFalse(filter.matches(item));
+
+        filter.getTags().add("Electronics");
+        assertTrue(filter.matches(item));
+
+        filter.setMake("Apple");
+        assertFalse(filter.matches(item));
+    }
+
+    @Test
+    public void testMatchesDateRange() {
+        Item item = new Item(new Date(2022, 6, 1), "Desk", "", "", 10f, "", "", new ArrayList<>(), new ArrayList<>());
+        filter.setStartDate(startDate);
+        filter.setEndDate(endDate);
+        assertFalse(filter.matches(item));
+    }
 }
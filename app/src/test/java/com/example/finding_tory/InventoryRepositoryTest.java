@@ -0,0 +1,49 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class InventoryRepositoryTest extends TestCase {
+    private InventoryRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        repository = InventoryRepository.getInstance();
+        repository.clear();
+    }
+
+    @Test
+    public void testSharesInventoryById() {
+        Inventory inventory = new Inventory("Garage");
+        inventory.setId("garage");
+        assertEquals("garage", repository.put(inventory));
+        assertSame(inventory, repository.get("garage"));
+
+        Inventory reloaded = new Inventory("Garage");
+        reloaded.setId("garage");
+        repository.put(reloaded);
+        assertSame(reloaded, repository.get("garage"));
+    }
+
+    @Test
+    public void testUnsavedInventoryGetsLocalKey() {
+        Inventory inventory = new Inventory("New");
+        String key = repository.put(inventory);
+        assertNotNull(key);
+        assertEquals(key, repository.put(inventory));
+        assertSame(inventory, repository.get(key));
+        assertFalse(key.equals(repository.put(new Inventory("Other"))));
+    }
+
+    @Test
+    public void testRemoveAndMissing() {
+        Inventory inventory = new Inventory("Shed");
+        inventory.setId("shed");
+        repository.put(inventory);
+        assertSame(inventory, repository.remove("shed"));
+        assertNull(repository.get("shed"));
+        assertNull(repository.get(null));
+    }
+}
@@ -6,7 +6,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
 
 public class InventoryTest extends TestCase {
     private Inventory inventory;
@@ -81,4 +84,455 @@ public class InventoryTest extends TestCase {
         assertEquals(1, inventory.getCount());
         assertTrue(inventory.getItems().contains(testItem2));
     }
-}
\ No newline at end of file
+
+    public void testGetItemById() {
+        testItem1.setId("id1");
+        Inventory inventory = new Inventory("Ids");
+        inventory.addItem(testItem1);
+        inventory.addItem(testItem2);
+        assertSame(testItem1, inventory.getItemById("id1"));
+        assertNull(inventory.getItemById("missing"));
+        assertNull(inventory.getItemById(null));
+    }
+
+    public void testReplaceItemKeepsPosition() {
+        testItem1.setId("id1");
+        testItem2.setId("id2");
+        Inventory inventory = new Inventory("Ids");
+        inventory.addItem(testItem1);
+        inventory.addItem(testItem2);
+        Item edited = new Item(new Date(), "Edited", "Make1", "Model1", 50.0f, "SN1", "Comment1", new ArrayList<>(), new ArrayList<>());
+        edited.setId("id1");
+        assertTrue(inventory.replaceItem(edited));
+        assertEquals(2, inventory.getCount());
+        assertSame(edited, inventory.get(0));
+        assertSame(edited, inventory.getItemById("id1"));
+        assertTrue(inventory.getDisplayedItems().contains(edited));
+        assertFalse(inventory.getDisplayedItems().contains(testItem1));
+        assertEquals(250.0, inventory.getInventoryEstimatedValue());
+
+        Item unknown = new Item(new Date(), "Unknown", "", "", 1.0f, "", "", new ArrayList<>(), new ArrayList<>());
+        unknown.setId("id3");
+        assertFalse(inventory.replaceItem(unknown));
+        assertEquals(2, inventory.getCount());
+    }
+
+    public void testRemoveItemById() {
+        testItem1.setId("id1");
+        Inventory inventory = new Inventory("Ids");
+        inventory.addItem(testItem1);
+        inventory.addItem(testItem2);
+        assertSame(testItem1, inventory.removeItemById("id1"));
+        assertNull(inventory.removeItemById("id1"));
+        assertEquals(1, inventory.getCount());
+        assertEquals(1, inventory.getDisplayedItems().size());
+        assertEquals(200.0, inventory.getInventoryEstimatedValue());
+    }
+
+    public void testRemoveManySelectedItems() {
+        Inventory inventory = new Inventory("Many");
+        ArrayList<Item> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Item item = new Item(new Date(), "Item " + i, "", "", 1.0f, "", "", new ArrayList<>(), new ArrayList<>());
+            item.setId("id" + i);
+            items.add(item);
+        }
+        inventory.setItems(items);
+        for (int i = 0; i < 1000; i += 2) {
+            inventory.removeItem(items.get(i));
+        }
+        assertEquals(500, inventory.getCount());
+        assertEquals(500, inventory.getDisplayedItems().size());
+        assertSame(items.get(1), inventory.get(0));
+        assertNull(inventory.getItemById("id0"));
+        assertEquals(500.0, inventory.getInventoryEstimatedValue());
+    }
+
+    public void testAddAll() {
+        inventory.setSort(new Sort("Value", "Ascending"));
+        inventory.sortItems();
+        Item cheap = new Item(new Date(), "Cheap", "", "", 50.0f, "", "", new ArrayList<>(), new ArrayList<>());
+        Item dear = new Item(new Date(), "Dear", "", "", 500.0f, "", "", new ArrayList<>(), new ArrayList<>());
+        inventory.addAll(Arrays.asList(dear, cheap));
+        assertEquals(4, inventory.getCount());
+        assertEquals(850.0, inventory.getInventoryEstimatedValue());
+        ArrayList<Item> displayed = inventory.getDisplayedItems();
+        assertEquals(4, displayed.size());
+        assertSame(cheap, displayed.get(0));
+        assertSame(testItem1, displayed.get(1));
+        assertSame(testItem2, displayed.get(2));
+        assertSame(dear, displayed.get(3));
+    }
+
+    public void testAddAllReplacesItemsWithSameId() {
+        testItem1.setId("id1");
+        Inventory inventory = new Inventory("Ids");
+        inventory.addItem(testItem1);
+        Item edited = new Item(new Date(), "Edited", "", "", 5.0f, "", "", new ArrayList<>(), new ArrayList<>());
+        edited.setId("id1");
+        inventory.addAll(Arrays.asList(edited, testItem2));
+        assertEquals(2, inventory.getCount());
+        assertSame(edited, inventory.getItemById("id1"));
+        assertFalse(inventory.getDisplayedItems().contains(testItem1));
+        assertEquals(205.0, inventory.getInventoryEstimatedValue());
+    }
+
+    public void testRemoveAll() {
+        Item other = new Item(new Date(), "Other", "", "", 1.0f, "", "", new ArrayList<>(Arrays.asList("Home")), new ArrayList<>());
+        inventory.addItem(other);
+        Item foreign = new Item(new Date(), "Foreign", "", "", 1.0f, "", "", new ArrayList<>(), new ArrayList<>());
+        inventory.removeAll(Arrays.asList(testItem1, other, foreign));
+        assertEquals(1, inventory.getCount());
+        assertEquals(1, inventory.getDisplayedItems().size());
+        assertSame(testItem2, inventory.getDisplayedItems().get(0));
+        assertEquals(200.0, inventory.getInventoryEstimatedValue());
+        assertTrue(inventory.getAllTags().isEmpty());
+        inventory.getFilter().setStartDate(new Date(0));
+        inventory.getFilter().setEndDate(new Date(Long.MAX_VALUE / 2));
+        inventory.filterItems();
+        assertEquals(1, inventory.getDisplayedItems().size());
+    }
+
+    public void testApplyChanges() {
+        testItem1.setId("id1");
+        testItem2.setId("id2");
+        Inventory inventory = new Inventory("Synced");
+        inventory.addAll(Arrays.asList(testItem1, testItem2));
+        Item edited = new Item(new Date(), "Edited", "", "", 5.0f, "", "", new ArrayList<>(Arrays.asList("Home")), new ArrayList<>());
+        edited.setId("id2");
+        Item added = new Item(new Date(), "Added", "", "", 1.0f, "", "", new ArrayList<>(), new ArrayList<>());
+        added.setId("id3");
+        inventory.applyChanges(Arrays.asList(edited, added), Arrays.asList("id1", "missing"));
+        assertEquals(2, inventory.getCount());
+        assertNull(inventory.getItemById("id1"));
+        assertSame(edited, inventory.getItemById("id2"));
+        assertSame(added, inventory.getItemById("id3"));
+        assertEquals(6.0, inventory.getInventoryEstimatedValue());
+        assertEquals(1, inventory.getTagCount("Home"));
+    }
+
+    public void testReopenShowsAllItems() {
+        testItem1.setId("id1");
+        testItem2.setId("id2");
+        inventory.setSort(new Sort("Value", "Descending"));
+        inventory.sortItems();
+        inventory.filterItems(Query.description("Item 1"));
+        assertEquals(1, inventory.getDisplayedItems().size());
+
+        // the inventory is opened again while it is still synced, with its items kept
+        inventory.setSort(new Sort());
+        inventory.setFilter(new Filter());
+        inventory.filterItems();
+        assertEquals(2, inventory.getDisplayedItems().size());
+        Item added = new Item(new Date(), "Other", "", "", 1.0f, "", "", new ArrayList<>(), new ArrayList<>());
+        added.setId("id3");
+        inventory.applyChanges(Arrays.asList(added), new ArrayList<>());
+        assertEquals(3, inventory.getDisplayedItems().size());
+    }
+
+    public void testUpdateAll() {
+        inventory.setSort(new Sort("Value", "Descending"));
+        inventory.sortItems();
+        inventory.getFilter().setDescription("Item");
+        inventory.filterItems();
+        inventory.updateAll(Arrays.asList(testItem1), item -> {
+            item.setEstimatedValue(1000.0f);
+            item.setDescription("Renamed Item");
+        });
+        assertEquals(1200.0, inventory.getInventoryEstimatedValue());
+        assertSame(testItem1, inventory.getDisplayedItems().get(0));
+        inventory.updateAll(item -> item.setDescription("Gone"));
+        assertTrue(inventory.getDisplayedItems().isEmpty());
+        inventory.getFilter().setDescription("Gone");
+        inventory.filterItems();
+        assertEquals(2, inventory.getDisplayedItems().size());
+    }
+
+    public void testApplyTags() {
+        inventory.getFilter().setTags(new ArrayList<>(Arrays.asList("Home")));
+        inventory.filterItems();
+        assertTrue(inventory.getDisplayedItems().isEmpty());
+        inventory.applyTags(Arrays.asList(testItem1, testItem2), Arrays.asList("home", "Office"));
+        assertEquals(2, inventory.getDisplayedItems().size());
+        assertEquals(2, inventory.getTagCount("Home"));
+        assertEquals(new ArrayList<>(Arrays.asList("Home", "Office")), testItem1.getItemTags());
+        inventory.applyTags(Arrays.asList(testItem1), Arrays.asList("Home"));
+        assertEquals(2, inventory.getTagCount("Home"));
+    }
+
+    public void testTagsSkipItemsNotInInventory() {
+        Item outside = new Item(new Date(), "Outside", "", "", 10f, "", "", new ArrayList<>(Arrays.asList("Home")), new ArrayList<>());
+        inventory.applyTags(Arrays.asList(testItem1, outside), Arrays.asList("Office"));
+        inventory.addItemTags(outside, new ArrayList<>(Arrays.asList("School")));
+        assertEquals(new ArrayList<>(Arrays.asList("Home")), outside.getItemTags());
+        assertEquals(1, inventory.getTagCount("Office"));
+        assertEquals(0, inventory.getTagCount("Home"));
+        assertEquals(0, inventory.getTagCount("School"));
+    }
+
+    public void testGetAllTags() {
+        Item tagged = new Item(new Date(), "Tagged", "", "", 10f, "", "", new ArrayList<>(Arrays.asList("school", "Home")), new ArrayList<>());
+        inventory.addItem(tagged);
+        assertEquals(new ArrayList<>(Arrays.asList("Home", "School")), inventory.getAllTags());
+    }
+
+    public void testRemoveItemKeepsSharedTags() {
+        Item first = new Item(new Date(), "First", "", "", 10f, "", "", new ArrayList<>(Arrays.asList("Home", "School")), new ArrayList<>());
+        Item second = new Item(new Date(), "Second", "", "", 10f, "", "", new ArrayList<>(Arrays.asList("Home")), new ArrayList<>());
+        inventory.addItem(first);
+        inventory.addItem(second);
+        inventory.removeItem(first);
+        assertEquals(new ArrayList<>(Arrays.asList("Home")), inventory.getAllTags());
+        assertEquals(1, inventory.getTagCount("Home"));
+    }
+
+    public void testAddItemTags() {
+        inventory.addItemTags(testItem1, new ArrayList<>(Arrays.asList("work", "Work")));
+        assertEquals(new ArrayList<>(Arrays.asList("Work")), testItem1.getItemTags());
+        assertEquals(1, inventory.getTagCount("Work"));
+    }
+
+    public void testFilterItemsByTags() {
+        Item home = new Item(new Date(), "Lamp", "", "", 10f, "", "", new ArrayList<>(Arrays.asList("Home")), new ArrayList<>());
+        Item school = new Item(new Date(), "Pencil", "", "", 10f, "", "", new ArrayList<>(Arrays.asList("School")), new ArrayList<>());
+        Item both = new Item(new Date(), "Backpack", "", "", 10f, "", "", new ArrayList<>(Arrays.asList("Home", "School")), new ArrayList<>());
+        inventory.addItem(home);
+        inventory.addItem(school);
+        inventory.addItem(both);
+
+        inventory.setFilter(new Filter(null, null, "", "", new ArrayList<>(Arrays.asList("Home"))));
+        inventory.filterItems();
+        assertEquals(2, inventory.getDisplayedItems().size());
+        assertTrue(inventory.getDisplayedItems().contains(home));
+        assertTrue(inventory.getDisplayedItems().contains(both));
+
+        inventory.removeItem(home);
+        inventory.filterItems();
+        assertEquals(1, inventory.getDisplayedItems().size());
+        assertTrue(inventory.getDisplayedItems().contains(both));
+    }
+
+    public void testFilterItemsByDescriptionAndMake() {
+        Item laptop = new Item(new Date(), "Work Laptop", "Dell", "", 10f, "", "", new ArrayList<>(), new ArrayList<>());
+        Item tablet = new Item(new Date(), "Tablet", "Apple", "", 10f, "", "", new ArrayList<>(), new ArrayList<>());
+        inventory.addItem(laptop);
+        inventory.addItem(tablet);
+
+        inventory.getFilter().setDescription("LAPTOP");
+        inventory.filterItems();
+        assertEquals(1, inventory.getDisplayedItems().size());
+        assertSame(laptop, inventory.getDisplayedItems().get(0));
+
+        inventory.getFilter().setDescription("");
+        inventory.getFilter().setMake("ap");
+        inventory.filterItems();
+        assertEquals(1, inventory.getDisplayedItems().size());
+        assertSame(tablet, inventory.getDisplayedItems().get(0));
+
+        inventory.getFilter().setMake("Make");
+        inventory.filterItems();
+        assertEquals(2, inventory.getDisplayedItems().size());
+    }
+
+    public void testAddItemInsertsInSortedPosition() {
+        Item apple = new Item(new Date(), "apple", "", "", 10f, "", "", new ArrayList<>(), new ArrayList<>());
+        Item zebra = new Item(new Date(), "Zebra", "", "", 10f, "", "", new ArrayList<>(), new ArrayList<>());
+        Item middle = new Item(new Date(), "Item 15", "", "", 10f, "", "", new ArrayList<>(), new ArrayList<>());
+        inventory.addItem(zebra);
+        inventory.addItem(apple);
+        inventory.addItem(middle);
+
+        ArrayList<Item> displayed = inventory.getDisplayedItems();
+        assertEquals(5, displayed.size());
+        assertSame(apple, displayed.get(0));
+        assertSame(testItem1, displayed.get(1));
+        assertSame(middle, displayed.get(2));
+        assertSame(testItem2, displayed.get(3));
+        assertSame(zebra, displayed.get(4));
+    }
+
+    public void testAddItemRespectsFilter() {
+        inventory.getFilter().setMake("Make");
+        inventory.filterItems();
+        Item hidden = new Item(new Date(), "Hidden", "Other", "", 10f, "", "", new ArrayList<>(), new ArrayList<>());
+        Item shown = new Item(new Date(), "Shown", "Make3", "", 10f, "", "", new ArrayList<>(), new ArrayList<>());
+        inventory.addItem(hidden);
+        inventory.addItem(shown);
+        assertEquals(4, inventory.getCount());
+        assertEquals(3, inventory.getDisplayedItems().size());
+        assertFalse(inventory.getDisplayedItems().contains(hidden));
+        assertSame(shown, inventory.getDisplayedItems().get(2));
+    }
+
+    public void testSetMovesItemToSortedPosition() {
+        Item renamed = new Item(new Date(), "A renamed item", "", "", 50f, "", "", new ArrayList<>(), new ArrayList<>());
+        inventory.set(1, renamed);
+        assertSame(renamed, inventory.getDisplayedItems().get(0));
+        assertSame(testItem1, inventory.getDisplayedItems().get(1));
+        assertEquals(2, inventory.getDisplayedItems().size());
+        assertEquals(150.0, inventory.getInventoryEstimatedValue(), 0.001);
+    }
+
+    public void testRemoveItemFromDisplay() {
+        inventory.removeItem(testItem2);
+        assertEquals(1, inventory.getDisplayedItems().size());
+        assertSame(testItem1, inventory.getDisplayedItems().get(0));
+    }
+
+    public void testAddItemTagsRepositionsItem() {
+        inventory.setSort(new Sort("Tags", "Ascending"));
+        inventory.sortItems();
+        inventory.addItemTags(testItem2, new ArrayList<>(Arrays.asList("Zoo")));
+        inventory.addItemTags(testItem1, new ArrayList<>(Arrays.asList("Art")));
+        assertSame(testItem1, inventory.getDisplayedItems().get(0));
+        assertSame(testItem2, inventory.getDisplayedItems().get(1));
+    }
+
+    public void testSortToggleUsesIndexOrder() {
+        Item cheap = new Item(new Date(), "C item", "Make0", "", 50f, "", "", new ArrayList<>(), new ArrayList<>());
+        inventory.addItem(cheap);
+        inventory.setSort(new Sort("Value", "Descending"));
+        assertTrue(inventory.sortItems());
+        assertSame(testItem2, inventory.getDisplayedItems().get(0));
+        assertSame(testItem1, inventory.getDisplayedItems().get(1));
+        assertSame(cheap, inventory.getDisplayedItems().get(2));
+        inventory.setSort(new Sort("Make", "Ascending"));
+        assertTrue(inventory.sortItems());
+        assertSame(cheap, inventory.getDisplayedItems().get(0));
+        assertSame(testItem2, inventory.getDisplayedItems().get(2));
+    }
+
+    public void testSortToggleKeepsFilter() {
+        inventory.getFilter().setMake("Make2");
+        inventory.filterItems();
+        inventory.setSort(new Sort("Value", "Ascending"));
+        inventory.sortItems();
+        assertEquals(1, inventory.getDisplayedItems().size());
+        assertSame(testItem2, inventory.getDisplayedItems().get(0));
+    }
+
+    public void testIncrementalOrderMatchesFullSort() {
+        ArrayList<Item> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(new Item(new Date(i % 7), "Item " + (i % 5), "Make" + (i % 3), "", i % 4, "", "", new ArrayList<>(), new ArrayList<>()));
+        }
+        inventory.setItems(items);
+        inventory.setSort(new Sort("Value", "Descending"));
+        inventory.sortItems();
+        for (int i = 0; i < 10; i++) {
+            inventory.removeItem(items.get(i * 3));
+            inventory.addItem(new Item(new Date(i), "New " + i, "Make" + i, "", i % 4, "", "", new ArrayList<>(), new ArrayList<>()));
+        }
+        ArrayList<Item> incremental = new ArrayList<>(inventory.getDisplayedItems());
+        inventory.filterItems();
+        assertEquals(incremental, inventory.getDisplayedItems());
+    }
+
+    public void testMultiKeySort() {
+        Item sameMakeCheap = new Item(new Date(), "Item 3", "Make1", "", 10f, "", "", new ArrayList<>(), new ArrayList<>());
+        Item sameMakePricey = new Item(new Date(), "Item 4", "Make1", "", 500f, "", "", new ArrayList<>(), new ArrayList<>());
+        inventory.addItem(sameMakeCheap);
+        inventory.addItem(sameMakePricey);
+        Sort sort = new Sort("Make", "Descending");
+        sort.addKey("Value", "Descending");
+        inventory.setSort(sort);
+        inventory.sortItems();
+        assertSame(testItem2, inventory.getDisplayedItems().get(0));
+        assertSame(sameMakePricey, inventory.getDisplayedItems().get(1));
+        assertSame(testItem1, inventory.getDisplayedItems().get(2));
+        assertSame(sameMakeCheap, inventory.getDisplayedItems().get(3));
+
+        Item middle = new Item(new Date(), "Item 5", "Make1", "", 50f, "", "", new ArrayList<>(), new ArrayList<>());
+        inventory.addItem(middle);
+        assertSame(middle, inventory.getDisplayedItems().get(3));
+    }
+
+    public void testValueTotalsFollowChanges() {
+        inventory.addItem(new Item(new Date(), "Item 3", "", "", 0.1f, "", "", new ArrayList<>(), new ArrayList<>()));
+        assertEquals(300.1, inventory.getInventoryEstimatedValue(), 0.0001);
+        inventory.removeItem(testItem1);
+        assertEquals(200.1, inventory.getInventoryEstimatedValue(), 0.0001);
+        assertEquals(200.1, inventory.getDisplayedEstimatedValue(), 0.0001);
+
+        testItem2.setEstimatedValue(20f);
+        inventory.calculateValue();
+        assertEquals(20.1, inventory.getInventoryEstimatedValue(), 0.0001);
+    }
+
+    public void testDateRangeFilter() {
+        Item old = new Item(new Date(1000), "Old item", "", "", 5f, "", "", new ArrayList<>(), new ArrayList<>());
+        inventory.addItem(old);
+        inventory.getFilter().setStartDate(new Date(0));
+        inventory.getFilter().setEndDate(new Date(2000));
+        inventory.filterItems();
+        assertEquals(1, inventory.getDisplayedItems().size());
+        assertSame(old, inventory.getDisplayedItems().get(0));
+        assertEquals(5.0, inventory.getDisplayedEstimatedValue(), 0.0001);
+    }
+
+    public void testValueHistogram() {
+        int[] counts = inventory.getValueHistogram(new double[]{150, 1000});
+        assertEquals(1, counts[0]);
+        assertEquals(1, counts[1]);
+        assertEquals(0, counts[2]);
+    }
+
+    public void testDateRangeFollowsChanges() {
+        Item old = new Item(new Date(1000), "Old item", "", "", 5f, "", "", new ArrayList<>(), new ArrayList<>());
+        inventory.addItem(old);
+        inventory.getFilter().setStartDate(new Date(0));
+        inventory.getFilter().setEndDate(new Date(2000));
+        old.setPurchaseDate(new Date(5000));
+        inventory.calculateValue();
+        inventory.filterItems();
+        assertEquals(0, inventory.getDisplayedItems().size());
+        inventory.getFilter().setEndDate(new Date(6000));
+        inventory.filterItems();
+        assertSame(old, inventory.getDisplayedItems().get(0));
+    }
+
+    public void testParallelModeMatchesSequential() {
+        ArrayList<Item> items = new ArrayList<>();
+        for (int i = 0; i < Inventory.PARALLEL_THRESHOLD + 5000; i++) {
+            items.add(new Item(new Date(i * 1000L), "Item " + (i % 97), "Make" + (i % 13), "", i % 500, "", "", new ArrayList<>(), new ArrayList<>()));
+        }
+        Inventory sequential = new Inventory("Sequential");
+        sequential.setItems(items);
+        Inventory parallel = new Inventory("Parallel");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            parallel.setParallelPool(pool);
+            parallel.setItems(items);
+            for (Inventory inv : new Inventory[]{sequential, parallel}) {
+                inv.getFilter().setMake("e");
+                inv.filterItems();
+                inv.setSort(new Sort("Value", "Descending"));
+                inv.sortItems();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(items.size(), parallel.getDisplayedItems().size());
+        assertEquals(sequential.getDisplayedItems(), parallel.getDisplayedItems());
+    }
+
+    public void testSummaryUntilItemsLoaded() {
+        Inventory summary = new Inventory();
+        summary.setCount(12);
+        summary.setInventoryEstimatedValue(340.5);
+        HashMap<String, Integer> tagCounts = new HashMap<>();
+        tagCounts.put("Office", 3);
+        summary.setTagCounts(tagCounts);
+        assertFalse(summary.isItemsLoaded());
+        assertEquals(12, summary.getCount());
+        assertEquals(340.5, summary.getInventoryEstimatedValue());
+        assertEquals(Integer.valueOf(3), summary.getTagCounts().get("Office"));
+
+        testItem1.setItemTags(new ArrayList<>(Arrays.asList("Office")));
+        summary.setItems(new ArrayList<>(Arrays.asList(testItem1)));
+        assertTrue(summary.isItemsLoaded());
+        assertEquals(1, summary.getCount());
+        assertEquals(100.0, summary.getInventoryEstimatedValue());
+        assertEquals(Integer.valueOf(1), summary.getTagCounts().get("Office"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+public class ItemCodecTest extends TestCase {
+    private Item item;
+
+    @BeforeEach
+    public void setUp() {
+        item = new Item(new Date(1_700_000_000_123L), "Desk lamp", "Ikea", "Tertial", 24.99f, "SN-1", "Works fine",
+                new ArrayList<>(Arrays.asList("Office", "Lighting")), new ArrayList<>(Arrays.asList("images/lamp.jpg")));
+        item.setId("lamp");
+    }
+
+    private static void assertSameItem(Item expected, Item actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getPurchaseDate(), actual.getPurchaseDate());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getMake(), actual.getMake());
+        assertEquals(expected.getModel(), actual.getModel());
+        assertEquals(expected.getSerialNumber(), actual.getSerialNumber());
+        assertEquals(expected.getEstimatedValue(), actual.getEstimatedValue());
+        assertEquals(expected.getComment(), actual.getComment());
+        assertEquals(expected.getItemTags(), actual.getItemTags());
+        assertEquals(expected.getImageLinks(), actual.getImageLinks());
+    }
+
+    @Test
+    public void testItemRoundTrip() {
+        Item decoded = ItemCodec.decodeItem(ItemCodec.encodeItem(item));
+        assertSameItem(item, decoded);
+        assertTrue(decoded.hasTag("office"));
+    }
+
+    @Test
+    public void testNullsAndOldDatesRoundTrip() {
+        Item sparse = new Item();
+        sparse.setEstimatedValue(-1.5f);
+        Item decoded = ItemCodec.decodeItem(ItemCodec.encodeItem(sparse));
+        assertSameItem(sparse, decoded);
+
+        Item old = new Item(new Date(-86_400_000L * 365 * 80), "Heirloom", "", null, 0f, "", "\u00e9 \u2713 \ud83d\ude42",
+                new ArrayList<>(), new ArrayList<>());
+        assertSameItem(old, ItemCodec.decodeItem(ItemCodec.encodeItem(old)));
+    }
+
+    @Test
+    public void testItemsShareStrings() {
+        ArrayList<Item> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(new Item(new Date(i * 1000L), "Chair " + i, "Herman Miller", "Aeron", i, "", "",
+                    new ArrayList<>(Arrays.asList("Office", "Furniture")), new ArrayList<>()));
+        }
+        byte[] encoded = ItemCodec.encodeItems(items);
+        ArrayList<Item> decoded = ItemCodec.decodeItems(encoded);
+        assertEquals(items.size(), decoded.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertSameItem(items.get(i), decoded.get(i));
+        }
+        // the make, model and tags are written once, so each item takes far less than their combined length
+        assertTrue(encoded.length < items.size() * 30);
+    }
+
+    @Test
+    public void testRejectsOtherData() {
+        byte[] encoded = ItemCodec.encodeItem(item);
+        try {
+            ItemCodec.decodeItems(encoded);
+            fail("Expected IllegalArgumentException for the wrong kind");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            ItemCodec.decodeItem(Arrays.copyOf(encoded, encoded.length - 3));
+            fail("Expected IllegalArgumentException for truncated data");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            // a string table entry claiming to be nearly 2 GB long
+            ItemCodec.decodeItem(new byte[]{'F', 'T', 1, 1, 1, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'a'});
+            fail("Expected IllegalArgumentException for a corrupt length");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            ItemCodec.decodeItem(new byte[]{1, 2, 3});
+            fail("Expected IllegalArgumentException for data that is not an encoding");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+
+public class ItemColumnsTest extends TestCase {
+    private ItemColumns columns;
+
+    @BeforeEach
+    public void setUp() {
+        columns = new ItemColumns();
+    }
+
+    private Item newItem(long dateMillis, float value, String... tags) {
+        return new Item(new Date(dateMillis), "item", "", "", value, "", "", new ArrayList<>(Arrays.asList(tags)), new ArrayList<>());
+    }
+
+    @Test
+    public void testSetAndClearKeepTotal() {
+        columns.set(0, newItem(1000, 10.25f));
+        columns.set(1, newItem(2000, 99.99f));
+        assertEquals(11024, columns.getTotalCents());
+        assertEquals(9999, columns.getValueCents(1));
+        assertEquals(2000, columns.getDateMillis(1));
+
+        columns.set(1, newItem(2000, 1f));
+        assertEquals(1125, columns.getTotalCents());
+        columns.clear(0);
+        columns.clear(0);
+        assertEquals(100, columns.getTotalCents());
+    }
+
+    @Test
+    public void testSumCents() {
+        for (int slot = 0; slot < 40; slot++) {
+            columns.set(slot, newItem(0, slot));
+        }
+        BitSet even = new BitSet();
+        for (int slot = 0; slot < 40; slot += 2) {
+            even.set(slot);
+        }
+        assertEquals(38000, columns.sumCents(even));
+    }
+
+    @Test
+    public void testValueHistogram() {
+        columns.set(0, newItem(0, 5f));
+        columns.set(1, newItem(0, 10f));
+        columns.set(2, newItem(0, 50f));
+        columns.set(3, newItem(0, 500f));
+        int[] counts = columns.valueHistogram(columns.getLiveSlots(), new long[]{1000, 10000});
+        assertEquals(1, counts[0]);
+        assertEquals(2, counts[1]);
+        assertEquals(1, counts[2]);
+    }
+
+    @Test
+    public void testTagIds() {
+        columns.set(0, newItem(0, 1f, "Red", "Blue"));
+        columns.set(1, newItem(0, 1f, "blue"));
+        int blue = columns.getTagId("BLUE");
+        assertEquals("Blue", columns.getTagName(blue));
+        assertEquals(blue, columns.getTagIds(1)[0]);
+        assertEquals(2, columns.getTagIds(0).length);
+        assertEquals(-1, columns.getTagId("Green"));
+    }
+}
@@ -7,6 +7,10 @@ import junit.framework.TestCase;
 import org.junit.Test;
 import org.junit.jupiter.api.BeforeEach;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -178,4 +182,88 @@ public class ItemTest extends TestCase {
         errorMessage = Item.errorHandleItemInput("2023-01-01", "Phone", "-500");
         assertEquals("Cannot have a negative Estimated value", errorMessage);
     }
+
+    @Test
+    public void testSortKeysFollowSetters() {
+        assertEquals("computer", item.getDescriptionSortKey());
+        assertEquals("macbook", item.getMakeSortKey());
+        assertEquals("Home School ", item.getTagsSortKey());
+
+        item.setDescription("Laptop");
+        item.setMake("Apple");
+        item.addItemTag("art");
+        assertEquals("laptop", item.getDescriptionSortKey());
+        assertEquals("apple", item.getMakeSortKey());
+        assertEquals("Art Home School ", item.getTagsSortKey());
+
+        item.updateItem(new Item(new Date(), "Phone", "Google", "", 1f, "", "", new ArrayList<>(), new ArrayList<>()));
+        assertEquals("phone", item.getDescriptionSortKey());
+        assertEquals("google", item.getMakeSortKey());
+        assertEquals("", item.getTagsSortKey());
+    }
+
+    @Test
+    public void testTagsSharedThroughDictionary() {
+        Item first = new Item(new Date(), "A", "", "", 1f, "", "", new ArrayList<>(Arrays.asList("garden", "Tools", "GARDEN")), new ArrayList<>());
+        Item second = new Item(new Date(), "B", "", "", 1f, "", "", new ArrayList<>(Arrays.asList(new String("Garden"))), new ArrayList<>());
+        assertEquals(new ArrayList<>(Arrays.asList("Garden", "Tools")), first.getItemTags());
+        assertSame(first.getItemTags().get(0), second.getItemTags().get(0));
+        assertTrue(first.hasTag("tools"));
+        assertFalse(second.hasTag("Tools"));
+        assertFalse(second.hasTag("Never used"));
+
+        second.addItemTag("tools");
+        second.addItemTag("Tools");
+        second.addItemTag("");
+        assertEquals(new ArrayList<>(Arrays.asList("Garden", "Tools")), second.getItemTags());
+        assertTrue(second.hasTag("Tools"));
+    }
+
+    @Test
+    public void testTagChecksUseWords() {
+        TagDictionary dictionary = Ledger.getInstance().getTagDictionary();
+        Item tagged = new Item(new Date(), "A", "", "", 1f, "", "", new ArrayList<>(Arrays.asList("Kitchen", "Office")), new ArrayList<>());
+        assertTrue(tagged.hasAnyTag(dictionary.toWords(Arrays.asList("office", "Garage"))));
+        assertFalse(tagged.hasAnyTag(dictionary.toWords(Arrays.asList("Garage"))));
+        assertTrue(tagged.hasAllTags(dictionary.toWords(Arrays.asList("Office", "Kitchen"))));
+        assertFalse(tagged.hasAllTags(dictionary.toWords(Arrays.asList("Office", "Garage"))));
+    }
+
+    @Test
+    public void testTagWordsSurviveDictionaryReset() {
+        Item tagged = new Item(new Date(), "A", "", "", 1f, "", "", new ArrayList<>(Arrays.asList("Kitchen")), new ArrayList<>());
+        Filter filter = new Filter();
+        filter.setTags(new ArrayList<>(Arrays.asList("Kitchen")));
+        assertTrue(filter.matches(tagged));
+        TagDictionary before = Ledger.getInstance().getTagDictionary();
+        Ledger.getInstance().reset();
+        TagDictionary after = Ledger.getInstance().getTagDictionary();
+        assertNotSame(before, after);
+        assertEquals(0, after.size());
+        // ids are handed out again from zero, so the words are built again against the new dictionary
+        after.idOf("Garage");
+        assertFalse(tagged.hasTag("Garage"));
+        assertTrue(tagged.hasTag("Kitchen"));
+        assertTrue(filter.matches(tagged));
+        assertTrue(Query.anyTags(Arrays.asList("kitchen")).matches(tagged));
+    }
+
+    @Test
+    public void testTagWordsSurviveSerialization() throws Exception {
+        Item tagged = new Item(new Date(), "A", "", "", 1f, "", "", new ArrayList<>(Arrays.asList("Kitchen")), new ArrayList<>());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(tagged);
+        }
+        Item passed;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            passed = (Item) in.readObject();
+        }
+        assertTrue(passed.hasTag("Kitchen"));
+        assertFalse(new Item().hasTag("Kitchen"));
+
+        Item edited = new Item();
+        edited.updateItem(passed);
+        assertTrue(edited.hasTag("Kitchen"));
+    }
 }
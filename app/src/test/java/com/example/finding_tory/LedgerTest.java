@@ -6,6 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class LedgerTest extends TestCase {
     private Ledger ledger;
@@ -71,4 +72,23 @@ public class LedgerTest extends TestCase {
         assertFalse(ledger.getInventories().contains(testInventory));
         assertEquals(0, ledger.getInventories().size());
     }
+
+    @Test
+    public void testApplyInventoryChanges() {
+        InventoryRepository.getInstance().clear();
+        testInventory.setId("inv1");
+        Inventory renamed = new Inventory("Renamed");
+        renamed.setId("inv1");
+        Inventory added = new Inventory("Added");
+        added.setId("inv2");
+        ledger.applyInventoryChanges(Arrays.asList(renamed, added), new ArrayList<>());
+        assertEquals(2, ledger.getInventories().size());
+        assertSame(testInventory, ledger.getInventories().get(0));
+        assertEquals("Renamed", testInventory.getInventoryName());
+        assertSame(added, InventoryRepository.getInstance().get("inv2"));
+
+        ledger.applyInventoryChanges(new ArrayList<>(), Arrays.asList("inv2", "missing"));
+        assertEquals(1, ledger.getInventories().size());
+        assertNull(InventoryRepository.getInstance().get("inv2"));
+    }
 }
@@ -0,0 +1,70 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+public class LongPostingMapTest extends TestCase {
+    private LongPostingMap map;
+
+    @BeforeEach
+    public void setUp() {
+        map = new LongPostingMap();
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        PostingList first = new PostingList();
+        PostingList second = new PostingList();
+        map.put(7L, first);
+        map.put(-7L, second);
+        assertSame(first, map.get(7L));
+        assertSame(second, map.get(-7L));
+        assertNull(map.get(8L));
+        map.put(7L, second);
+        assertSame(second, map.get(7L));
+        assertEquals(2, map.size());
+        map.remove(7L);
+        map.remove(8L);
+        assertNull(map.get(7L));
+        assertSame(second, map.get(-7L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testMatchesHashMapUnderChurn() {
+        HashMap<Long, PostingList> expected = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            // few distinct keys, so runs form and removals have to shift keys back
+            long key = random.nextInt(500) * 65536L;
+            if (random.nextBoolean()) {
+                PostingList list = new PostingList();
+                map.put(key, list);
+                expected.put(key, list);
+            } else {
+                map.remove(key);
+                expected.remove(key);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 500; key++) {
+            assertSame(expected.get(key * 65536L), map.get(key * 65536L));
+        }
+        int cells = 0;
+        for (int cell = 0; cell < map.capacity(); cell++) {
+            if (map.valueAt(cell) != null) {
+                assertSame(expected.get(map.keyAt(cell)), map.valueAt(cell));
+                cells++;
+            }
+        }
+        assertEquals(expected.size(), cells);
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(0L));
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+public class MemoryStoreTest extends TestCase {
+    private static final String USER = "tester";
+    private MemoryStore store;
+    private Inventory inventory;
+
+    @BeforeEach
+    public void setUp() {
+        store = new MemoryStore();
+        inventory = new Inventory("Office");
+        store.addInventory(USER, inventory, StoreCallback.ignoreResult());
+    }
+
+    private static Item newItem(String description, float value, String... tags) {
+        return new Item(new Date(0), description, "", "", value, "", "", new ArrayList<>(Arrays.asList(tags)), new ArrayList<>());
+    }
+
+    /**
+     * Collects the result of a store call, which a MemoryStore without latency delivers before returning.
+     */
+    private static class Result<T> implements StoreCallback<T> {
+        private T value;
+        private Exception error;
+
+        @Override
+        public void onSuccess(T result) {
+            value = result;
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            error = e;
+        }
+    }
+
+    @Test
+    public void testAddAndLoadPages() {
+        for (int i = 0; i < 5; i++) {
+            store.addItem(USER, inventory, newItem("Item " + i, i), StoreCallback.ignoreResult());
+        }
+        Result<List<Item>> first = new Result<>();
+        store.loadItemsPage(USER, inventory, null, 3, first);
+        assertEquals(3, first.value.size());
+        Result<List<Item>> second = new Result<>();
+        store.loadItemsPage(USER, inventory, first.value.get(2).getId(), 3, second);
+        assertEquals(2, second.value.size());
+        assertEquals("Item 4", second.value.get(1).getDescription());
+        assertNotNull(second.value.get(1).getId());
+    }
+
+    @Test
+    public void testStoresCopies() {
+        Item item = newItem("Lamp", 10);
+        store.addItem(USER, inventory, item, StoreCallback.ignoreResult());
+        item.setDescription("Changed");
+        Result<List<Item>> loaded = new Result<>();
+        store.loadItemsPage(USER, inventory, null, 10, loaded);
+        assertEquals("Lamp", loaded.value.get(0).getDescription());
+
+        store.saveItem(USER, inventory, item, StoreCallback.ignoreResult());
+        store.loadItemsPage(USER, inventory, null, 10, loaded);
+        assertEquals("Changed", loaded.value.get(0).getDescription());
+    }
+
+    @Test
+    public void testMissingInventoryFails() {
+        Inventory unsaved = new Inventory("Unsaved");
+        unsaved.setId("missing");
+        Result<Item> result = new Result<>();
+        store.addItem(USER, unsaved, newItem("Lamp", 10), result);
+        assertNull(result.value);
+        assertNotNull(result.error);
+    }
+
+    @Test
+    public void testSummaryAndTags() {
+        Item chair = newItem("Chair", 50, "office");
+        Item desk = newItem("Desk", 150);
+        store.addItem(USER, inventory, chair, StoreCallback.ignoreResult());
+        store.addItem(USER, inventory, desk, StoreCallback.ignoreResult());
+        SummaryDelta added = new SummaryDelta();
+        added.addAll(Arrays.asList(chair, desk));
+        store.updateSummary(USER, inventory, added, StoreCallback.ignoreResult());
+
+        SummaryDelta tagged = new SummaryDelta();
+        tagged.addTags(chair, Arrays.asList("Office"));
+        tagged.addTags(desk, Arrays.asList("Office"));
+        store.tagItems(USER, inventory, Arrays.asList(chair, desk), Arrays.asList("Office"), tagged, StoreCallback.ignoreResult());
+
+        SummaryDelta deleted = new SummaryDelta();
+        deleted.remove(chair);
+        store.deleteItems(USER, inventory, Arrays.asList(chair), deleted, StoreCallback.ignoreResult());
+
+        ArrayList<Inventory> listed = new ArrayList<>();
+        store.listenInventories(USER, (changed, removedIds) -> listed.addAll(changed));
+        assertEquals(1, listed.size());
+        Inventory summary = listed.get(0);
+        assertEquals("Office", summary.getInventoryName());
+        assertEquals(1, summary.getCount());
+        assertEquals(150.0, summary.getInventoryEstimatedValue(), 0.001);
+        assertEquals(Integer.valueOf(1), summary.getTagCounts().get("Office"));
+
+        Result<List<Item>> loaded = new Result<>();
+        store.loadItemsPage(USER, inventory, null, 10, loaded);
+        assertEquals(1, loaded.value.size());
+        assertTrue(loaded.value.get(0).getItemTags().contains("Office"));
+    }
+
+    @Test
+    public void testSyncThroughStores() {
+        Stores.use(store);
+        Ledger ledger = Ledger.getInstance();
+        InventoryRepository.getInstance().clear();
+        InventorySync sync = InventorySync.getInstance();
+        sync.syncLedger(USER, ledger);
+        try {
+            assertEquals(1, ledger.getInventories().size());
+            Inventory listed = ledger.getInventories().get(0);
+
+            Inventory garage = new Inventory("Garage");
+            store.addInventory(USER, garage, StoreCallback.ignoreResult());
+            assertEquals(2, ledger.getInventories().size());
+
+            listed.setItems(new ArrayList<>());
+            sync.syncItems(USER, listed);
+            assertTrue(sync.isSyncingItems(listed));
+            Item remote = newItem("Remote", 5);
+            remote.setId("remote");
+            store.putRemoteItem(USER, listed.getId(), remote);
+            assertEquals(1, listed.getCount());
+            store.removeRemoteItem(USER, listed.getId(), "remote");
+            assertEquals(0, listed.getCount());
+
+            store.deleteInventory(USER, listed, StoreCallback.ignoreResult());
+            assertEquals(1, ledger.getInventories().size());
+            assertFalse(sync.isSyncingItems(listed));
+        } finally {
+            sync.stopAll();
+        }
+    }
+
+    @Test
+    public void testLatency() throws InterruptedException {
+        MemoryStore slow = new MemoryStore(20);
+        Inventory slowInventory = new Inventory("Slow");
+        Result<Inventory> added = new Result<>();
+        slow.addInventory(USER, slowInventory, added);
+        assertNull(added.value);
+        slow.awaitIdle();
+        assertSame(slowInventory, added.value);
+    }
+}
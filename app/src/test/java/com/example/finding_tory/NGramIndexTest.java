@@ -0,0 +1,67 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+public class NGramIndexTest extends TestCase {
+    private NGramIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new NGramIndex();
+        index.add("MacBook Air", 0);
+        index.add("Mechanical Keyboard", 1);
+        index.add("Desk Lamp", 2);
+    }
+
+    @Test
+    public void testFindIgnoresCase() {
+        BitSet slots = index.find("BOOK");
+        assertEquals(1, slots.cardinality());
+        assertTrue(slots.get(0));
+    }
+
+    @Test
+    public void testFindRequiresAllTrigrams() {
+        BitSet slots = index.find("mec");
+        assertEquals(1, slots.cardinality());
+        assertTrue(slots.get(1));
+        assertTrue(index.find("lampshade").isEmpty());
+    }
+
+    @Test
+    public void testShortQueryCannotBeNarrowed() {
+        assertNull(index.find("ma"));
+        assertNull(index.find(""));
+        assertNull(index.find(null));
+    }
+
+    @Test
+    public void testRemove() {
+        index.remove("Desk Lamp", 2);
+        assertTrue(index.find("lamp").isEmpty());
+        assertEquals(1, index.find("air").cardinality());
+    }
+
+    @Test
+    public void testRepeatedTrigramIndexedOnce() {
+        NGramIndex repeated = new NGramIndex();
+        repeated.add("aaaa", 0);
+        assertEquals(1, repeated.size());
+        repeated.remove("aaaa", 0);
+        assertEquals(0, repeated.size());
+    }
+
+    @Test
+    public void testContainsIgnoreCase() {
+        assertTrue(NGramIndex.containsIgnoreCase("MacBook Air", "book a"));
+        assertTrue(NGramIndex.containsIgnoreCase("MacBook Air", ""));
+        assertFalse(NGramIndex.containsIgnoreCase("MacBook Air", "pro"));
+        assertFalse(NGramIndex.containsIgnoreCase(null, "pro"));
+        assertFalse(NGramIndex.containsIgnoreCase("Air", "MacBook Air"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.CRC32;
+
+public class OperationLogTest extends TestCase {
+    private File file;
+    private Item lamp;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = File.createTempFile("operations", ".log");
+        file.deleteOnExit();
+        lamp = new Item(new Date(0), "Lamp", "", "", 10f, "", "", new ArrayList<>(), new ArrayList<>());
+        lamp.setId("lamp");
+    }
+
+    @Test
+    public void testPendingWritesSurviveReopening() throws IOException {
+        OperationLog log = new OperationLog(file);
+        SummaryDelta delta = new SummaryDelta();
+        delta.add(lamp);
+        OperationLog.Operation saved = log.append(OperationLog.Type.SAVE_ITEMS, "tester", "office", Collections.singletonList(lamp), Collections.emptyList(), delta);
+        OperationLog.Operation tagged = log.append(OperationLog.Type.TAG_ITEMS, "tester", "office", Collections.singletonList(lamp), Arrays.asList("Desk"), null);
+        log.ack(saved.getSeq());
+        log.close();
+
+        OperationLog reopened = new OperationLog(file);
+        List<OperationLog.Operation> pending = reopened.getPending();
+        assertEquals(1, pending.size());
+        OperationLog.Operation operation = pending.get(0);
+        assertEquals(tagged.getSeq(), operation.getSeq());
+        assertEquals(OperationLog.Type.TAG_ITEMS, operation.getType());
+        assertEquals("tester", operation.getUsername());
+        assertEquals("office", operation.getInventoryId());
+        assertEquals("lamp", operation.getItems().get(0).getId());
+        assertEquals(Arrays.asList("Desk"), operation.getTags());
+        assertTrue(operation.getDelta().isEmpty());
+        // new writes are numbered after the ones read
+        assertTrue(reopened.append(OperationLog.Type.DELETE_ITEMS, "tester", "office", Collections.singletonList(lamp), Collections.emptyList(), null).getSeq() > tagged.getSeq());
+        reopened.close();
+    }
+
+    @Test
+    public void testSavedItemIsCopied() throws IOException {
+        OperationLog log = new OperationLog(file);
+        SummaryDelta delta = new SummaryDelta();
+        delta.add(lamp);
+        log.append(OperationLog.Type.SAVE_ITEMS, "tester", "office", Collections.singletonList(lamp), Collections.emptyList(), delta);
+        lamp.setEstimatedValue(20f);
+        log.close();
+
+        OperationLog.Operation operation = new OperationLog(file).getPending().get(0);
+        assertEquals(10f, operation.getItems().get(0).getEstimatedValue());
+        assertEquals(1, operation.getDelta().getCountDelta());
+        assertEquals(1000, operation.getDelta().getValueCentsDelta());
+    }
+
+    @Test
+    public void testTornRecordIsTruncated() throws IOException {
+        OperationLog log = new OperationLog(file);
+        log.append(OperationLog.Type.SAVE_ITEMS, "tester", "office", Collections.singletonList(lamp), Collections.emptyList(), null);
+        long complete = log.length();
+        log.append(OperationLog.Type.DELETE_ITEMS, "tester", "office", Collections.singletonList(lamp), Collections.emptyList(), null);
+        log.close();
+        // the app is killed halfway through appending the second record
+        try (RandomAccessFile torn = new RandomAccessFile(file, "rw")) {
+            torn.setLength(complete + 10);
+        }
+
+        OperationLog reopened = new OperationLog(file);
+        assertEquals(1, reopened.getPending().size());
+        assertEquals(OperationLog.Type.SAVE_ITEMS, reopened.getPending().get(0).getType());
+        assertEquals(complete, reopened.length());
+        reopened.append(OperationLog.Type.DELETE_ITEMS, "tester", "office", Collections.singletonList(lamp), Collections.emptyList(), null);
+        reopened.close();
+        assertEquals(2, new OperationLog(file).getPending().size());
+    }
+
+    @Test
+    public void testCompactionDropsAcknowledgedWrites() throws IOException {
+        OperationLog log = new OperationLog(file);
+        OperationLog.Operation kept = log.append(OperationLog.Type.SAVE_ITEMS, "tester", "office", Collections.singletonList(lamp), Collections.emptyList(), null);
+        long single = log.length();
+        for (int i = 0; i < OperationLog.COMPACT_THRESHOLD; i++) {
+            log.ack(log.append(OperationLog.Type.SAVE_ITEMS, "tester", "office", Collections.singletonList(lamp), Collections.emptyList(), null).getSeq());
+        }
+        // compacted when the last write was acknowledged
+        assertEquals(single, log.length());
+        log.close();
+
+        List<OperationLog.Operation> pending = new OperationLog(file).getPending();
+        assertEquals(1, pending.size());
+        assertEquals(kept.getSeq(), pending.get(0).getSeq());
+    }
+
+    @Test
+    public void testUndecodableRecordIsSetAside() throws IOException {
+        OperationLog log = new OperationLog(file);
+        log.append(OperationLog.Type.SAVE_ITEMS, "tester", "office", Collections.singletonList(lamp), Collections.emptyList(), null);
+        log.close();
+        // a complete record with a valid checksum, of a type this version does not know
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bytes);
+        body.writeByte(1);
+        body.writeLong(2);
+        body.writeUTF("unknown");
+        body.writeByte(9);
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true))) {
+            out.writeInt(record.length);
+            out.writeInt((int) crc.getValue());
+            out.write(record);
+        }
+        OperationLog after = new OperationLog(file);
+        after.append(OperationLog.Type.DELETE_ITEMS, "tester", "office", Collections.singletonList(lamp), Collections.emptyList(), null);
+        after.close();
+
+        File bad = new File(file.getPath() + ".bad");
+        bad.deleteOnExit();
+        assertEquals(8 + record.length, bad.length());
+        List<OperationLog.Operation> pending = new OperationLog(file).getPending();
+        assertEquals(2, pending.size());
+        assertEquals(OperationLog.Type.SAVE_ITEMS, pending.get(0).getType());
+        assertEquals(OperationLog.Type.DELETE_ITEMS, pending.get(1).getType());
+        // set aside once, not again on every launch
+        assertEquals(8 + record.length, bad.length());
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+public class PostingListTest extends TestCase {
+    private PostingList postings;
+
+    @BeforeEach
+    public void setUp() {
+        postings = new PostingList();
+    }
+
+    @Test
+    public void testAddKeepsSlotsSorted() {
+        for (int slot : new int[]{7, 2, 9, 0, 5, 3}) {
+            assertTrue(postings.add(slot));
+        }
+        assertEquals(6, postings.size());
+        int[] expected = {0, 2, 3, 5, 7, 9};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], postings.get(i));
+        }
+    }
+
+    @Test
+    public void testAddDuplicate() {
+        assertTrue(postings.add(4));
+        assertFalse(postings.add(4));
+        assertEquals(1, postings.size());
+    }
+
+    @Test
+    public void testRemove() {
+        postings.add(1);
+        postings.add(2);
+        postings.add(3);
+        assertTrue(postings.remove(2));
+        assertFalse(postings.remove(2));
+        assertFalse(postings.contains(2));
+        assertTrue(postings.contains(1));
+        assertTrue(postings.contains(3));
+        assertEquals(2, postings.size());
+    }
+
+    @Test
+    public void testAddAllMerges() {
+        postings.add(1);
+        postings.add(5);
+        postings.add(9);
+        PostingList other = new PostingList();
+        other.add(0);
+        other.add(5);
+        other.add(12);
+        postings.addAll(other);
+        int[] expected = {0, 1, 5, 9, 12};
+        assertEquals(expected.length, postings.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], postings.get(i));
+        }
+    }
+
+    @Test
+    public void testRemoveAll() {
+        for (int slot = 0; slot < 10; slot++) {
+            postings.add(slot);
+        }
+        PostingList other = new PostingList();
+        other.add(0);
+        other.add(4);
+        other.add(9);
+        other.add(20);
+        postings.removeAll(other);
+        assertEquals(7, postings.size());
+        assertFalse(postings.contains(0));
+        assertFalse(postings.contains(4));
+        assertFalse(postings.contains(9));
+        assertTrue(postings.contains(5));
+    }
+
+    @Test
+    public void testAddTo() {
+        postings.add(1);
+        postings.add(64);
+        BitSet bits = new BitSet();
+        bits.set(3);
+        postings.addTo(bits);
+        assertEquals(3, bits.cardinality());
+        assertTrue(bits.get(64));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.Random;
+
+public class QueryTest extends TestCase {
+    private Inventory inventory;
+    private Item sonyTv;
+    private Item sonyRadio;
+    private Item ikeaDesk;
+
+    @BeforeEach
+    public void setUp() {
+        inventory = new Inventory("Audit");
+        sonyTv = new Item(new Date(1000), "Television", "Sony", "Bravia", 900f, "SN-100", "Living room",
+                new ArrayList<>(Arrays.asList("Electronics", "Office")), new ArrayList<>());
+        sonyRadio = new Item(new Date(2000), "Radio", "Sony", "ICF", 40f, "SN-200", "Kitchen",
+                new ArrayList<>(Arrays.asList("Electronics")), new ArrayList<>());
+        ikeaDesk = new Item(new Date(3000), "Standing desk", "Ikea", "Bekant", 300f, "XY-300", "Office corner",
+                new ArrayList<>(Arrays.asList("Office", "Furniture")), new ArrayList<>());
+        inventory.setItems(new ArrayList<>(Arrays.asList(sonyTv, sonyRadio, ikeaDesk)));
+    }
+
+    private ArrayList<Item> run(Query query) {
+        inventory.filterItems(query);
+        return inventory.getDisplayedItems();
+    }
+
+    @Test
+    public void testAnd() {
+        ArrayList<Item> result = run(Query.and(Query.make("sony"), Query.valueRange(100, 1000)));
+        assertEquals(1, result.size());
+        assertSame(sonyTv, result.get(0));
+    }
+
+    @Test
+    public void testOr() {
+        ArrayList<Item> result = run(Query.or(Query.make("Ikea"), Query.valueRange(0, 50)));
+        assertEquals(2, result.size());
+        assertTrue(result.contains(ikeaDesk));
+        assertTrue(result.contains(sonyRadio));
+    }
+
+    @Test
+    public void testNot() {
+        ArrayList<Item> result = run(Query.not(Query.anyTags(Arrays.asList("Office"))));
+        assertEquals(1, result.size());
+        assertSame(sonyRadio, result.get(0));
+
+        result = run(Query.not(Query.comment("office")));
+        assertEquals(2, result.size());
+        assertFalse(result.contains(ikeaDesk));
+    }
+
+    @Test
+    public void testAllTagsVersusAnyTags() {
+        assertEquals(3, run(Query.anyTags(Arrays.asList("office", "electronics"))).size());
+        ArrayList<Item> result = run(Query.allTags(Arrays.asList("office", "electronics")));
+        assertEquals(1, result.size());
+        assertSame(sonyTv, result.get(0));
+    }
+
+    @Test
+    public void testModelAndSerialNumber() {
+        assertSame(ikeaDesk, run(Query.model("bek")).get(0));
+        assertSame(sonyRadio, run(Query.serialNumber("sn-2")).get(0));
+        assertEquals(2, run(Query.serialNumber("SN")).size());
+    }
+
+    @Test
+    public void testDateRange() {
+        ArrayList<Item> result = run(Query.dateRange(new Date(1500), null));
+        assertEquals(2, result.size());
+        assertFalse(result.contains(sonyTv));
+    }
+
+    @Test
+    public void testQueryAppliesToNewItems() {
+        inventory.filterItems(Query.make("Ikea"));
+        Item chair = new Item(new Date(4000), "Chair", "Ikea", "", 50f, "", "", new ArrayList<>(), new ArrayList<>());
+        Item phone = new Item(new Date(4000), "Phone", "Sony", "", 50f, "", "", new ArrayList<>(), new ArrayList<>());
+        inventory.addItem(chair);
+        inventory.addItem(phone);
+        assertEquals(2, inventory.getDisplayedItems().size());
+        assertTrue(inventory.getDisplayedItems().contains(chair));
+
+        inventory.filterItems();
+        assertEquals(5, inventory.getDisplayedItems().size());
+    }
+
+    @Test
+    public void testFilterToQueryMatchesFilter() {
+        Filter filter = new Filter(new Date(0), new Date(2500), "", "sony", new ArrayList<>(Arrays.asList("Electronics")));
+        Query query = filter.toQuery();
+        for (Item item : inventory.getItems()) {
+            assertEquals(filter.matches(item), query.matches(item));
+        }
+    }
+
+    @Test
+    public void testEvaluateMatchesBruteForce() {
+        Random random = new Random(11);
+        ArrayList<Item> items = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            items.add(new Item(new Date(random.nextInt(10_000)), "Item " + random.nextInt(50), "Make" + random.nextInt(10),
+                    "Model" + random.nextInt(5), random.nextInt(1000), "SN" + i, "",
+                    new ArrayList<>(Arrays.asList("T" + random.nextInt(4), "T" + random.nextInt(4))), new ArrayList<>()));
+        }
+        inventory.setItems(items);
+        Query query = Query.or(
+                Query.and(Query.description("item 1"), Query.not(Query.allTags(Arrays.asList("T1", "T2")))),
+                Query.and(Query.dateRange(new Date(2000), new Date(4000)), Query.valueRange(100, 200), Query.model("3")),
+                Query.and(Query.make("make7"), Query.anyTags(Arrays.asList("T0"))));
+        BitSet matches = query.evaluate(inventory);
+        int expected = 0;
+        for (Item item : items) {
+            if (query.matches(item)) {
+                expected++;
+                assertTrue(matches.get(inventory.getSlots().slotOf(item)));
+            }
+        }
+        assertEquals(expected, matches.cardinality());
+        assertTrue(expected > 0);
+    }
+}
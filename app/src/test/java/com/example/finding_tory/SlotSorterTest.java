@@ -0,0 +1,65 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class SlotSorterTest extends TestCase {
+
+    private static int[] shuffledSlots(int size) {
+        int[] slots = new int[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = i;
+        }
+        Random random = new Random(3);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = slots[i];
+            slots[i] = slots[j];
+            slots[j] = tmp;
+        }
+        return slots;
+    }
+
+    @Test
+    public void testSortsSequentially() {
+        int[] slots = shuffledSlots(1000);
+        SlotSorter.sort(slots, slots.length, Integer::compare, null);
+        for (int i = 0; i < slots.length; i++) {
+            assertEquals(i, slots[i]);
+        }
+    }
+
+    @Test
+    public void testOnlySortsPrefix() {
+        int[] slots = {3, 1, 2, 0};
+        SlotSorter.sort(slots, 3, Integer::compare, null);
+        assertEquals(1, slots[0]);
+        assertEquals(3, slots[2]);
+        assertEquals(0, slots[3]);
+    }
+
+    @Test
+    public void testParallelSortIsStable() {
+        int size = SlotSorter.SEQUENTIAL_THRESHOLD * 4 + 17;
+        int[] slots = new int[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = i;
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // compare by slot modulo 10 only, so ties must keep their original (ascending) order
+            SlotSorter.sort(slots, size, (a, b) -> Integer.compare(a % 10, b % 10), pool);
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 1; i < size; i++) {
+            int previous = slots[i - 1];
+            int current = slots[i];
+            assertTrue(previous % 10 < current % 10 || (previous % 10 == current % 10 && previous < current));
+        }
+    }
+}
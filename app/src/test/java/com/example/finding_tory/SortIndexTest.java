@@ -0,0 +1,151 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+
+public class SortIndexTest extends TestCase {
+    private ItemSlots slots;
+    private SortIndex valueOrder;
+
+    @BeforeEach
+    public void setUp() {
+        slots = new ItemSlots();
+        valueOrder = new SortIndex("Value", slots);
+        valueOrder.rebuild();
+    }
+
+    private Item newItem(String description, float value) {
+        return new Item(new Date(), description, "", "", value, "", "", new ArrayList<>(), new ArrayList<>());
+    }
+
+    private ArrayList<Item> collectAll(boolean descending) {
+        BitSet all = new BitSet();
+        all.set(0, slots.capacity());
+        ArrayList<Item> out = new ArrayList<>();
+        valueOrder.collect(all, descending, out);
+        return out;
+    }
+
+    @Test
+    public void testAddKeepsItemsSorted() {
+        Item b = newItem("b", 20f);
+        Item c = newItem("c", 30f);
+        Item a = newItem("a", 10f);
+        valueOrder.add(slots.add(b));
+        valueOrder.add(slots.add(c));
+        valueOrder.add(slots.add(a));
+        ArrayList<Item> ascending = collectAll(false);
+        assertSame(a, ascending.get(0));
+        assertSame(b, ascending.get(1));
+        assertSame(c, ascending.get(2));
+        ArrayList<Item> descending = collectAll(true);
+        assertSame(c, descending.get(0));
+        assertSame(a, descending.get(2));
+    }
+
+    @Test
+    public void testTiesOrderedBySlot() {
+        Item first = newItem("first", 5f);
+        Item second = newItem("second", 5f);
+        int secondSlot = slots.add(second);
+        int firstSlot = slots.add(first);
+        valueOrder.add(firstSlot);
+        valueOrder.add(secondSlot);
+        assertSame(second, collectAll(false).get(0));
+        assertSame(first, collectAll(true).get(0));
+    }
+
+    @Test
+    public void testRemove() {
+        Item a = newItem("a", 10f);
+        Item b = newItem("b", 20f);
+        valueOrder.add(slots.add(a));
+        int slot = slots.add(b);
+        valueOrder.add(slot);
+        valueOrder.remove(slot);
+        slots.remove(b);
+        assertEquals(1, valueOrder.size());
+        assertSame(a, collectAll(false).get(0));
+    }
+
+    @Test
+    public void testAddAllAndRemoveAll() {
+        Item a = newItem("a", 10f);
+        Item c = newItem("c", 30f);
+        valueOrder.add(slots.add(a));
+        valueOrder.add(slots.add(c));
+        Item d = newItem("d", 40f);
+        Item b = newItem("b", 20f);
+        valueOrder.addAll(new int[]{slots.add(d), slots.add(b), 99}, 2);
+        ArrayList<Item> ascending = collectAll(false);
+        assertEquals(4, ascending.size());
+        assertSame(a, ascending.get(0));
+        assertSame(b, ascending.get(1));
+        assertSame(c, ascending.get(2));
+        assertSame(d, ascending.get(3));
+
+        BitSet removed = new BitSet();
+        removed.set(slots.slotOf(a));
+        removed.set(slots.slotOf(d));
+        valueOrder.removeAll(removed);
+        ascending = collectAll(false);
+        assertEquals(2, valueOrder.size());
+        assertSame(b, ascending.get(0));
+        assertSame(c, ascending.get(1));
+    }
+
+    @Test
+    public void testRebuildMatchesIncrementalOrder() {
+        SortIndex incremental = new SortIndex("Value", slots);
+        incremental.rebuild();
+        float[] values = {40f, 10f, 30f, 10f, 20f};
+        for (float value : values) {
+            incremental.add(slots.add(newItem("item", value)));
+        }
+        valueOrder.rebuild();
+        assertEquals(values.length, valueOrder.size());
+        BitSet all = new BitSet();
+        all.set(0, slots.capacity());
+        ArrayList<Item> expected = new ArrayList<>();
+        incremental.collect(all, false, expected);
+        assertEquals(expected, collectAll(false));
+    }
+
+    @Test
+    public void testCollectSkipsExcludedSlots() {
+        Item a = newItem("a", 10f);
+        Item b = newItem("b", 20f);
+        valueOrder.add(slots.add(a));
+        valueOrder.add(slots.add(b));
+        BitSet include = new BitSet();
+        include.set(slots.slotOf(b));
+        ArrayList<Item> out = new ArrayList<>();
+        valueOrder.collect(include, false, out);
+        assertEquals(1, out.size());
+        assertSame(b, out.get(0));
+    }
+
+    @Test
+    public void testBuiltOnFirstCollect() {
+        SortIndex lazy = new SortIndex("Value", slots);
+        Item b = newItem("b", 20f);
+        Item a = newItem("a", 10f);
+        lazy.add(slots.add(b));
+        slots.add(a);
+        assertFalse(lazy.isBuilt());
+        assertEquals(2, lazy.size());
+        BitSet all = new BitSet();
+        all.set(0, slots.capacity());
+        ArrayList<Item> out = new ArrayList<>();
+        lazy.collect(all, false, out);
+        assertTrue(lazy.isBuilt());
+        assertSame(a, out.get(0));
+        assertSame(b, out.get(1));
+    }
+}
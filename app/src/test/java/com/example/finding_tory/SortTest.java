@@ -5,6 +5,10 @@ import junit.framework.TestCase;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
 public class SortTest extends TestCase {
     private Sort sort;
 
@@ -66,4 +70,53 @@ public class SortTest extends TestCase {
         sort.setSortOrder("Descending");
         assertEquals("Descending", sort.getSortOrder());
     }
+
+    @Test
+    public void testGetComparator() {
+        Item cheap = new Item(new Date(), "b", "", "", 1f, "", "", new ArrayList<>(), new ArrayList<>());
+        Item pricey = new Item(new Date(), "A", "", "", 2f, "", "", new ArrayList<>(), new ArrayList<>());
+        assertTrue(sort.getComparator().compare(pricey, cheap) < 0);
+
+        Sort byValue = new Sort("Value", "Descending");
+        assertTrue(byValue.getComparator().compare(pricey, cheap) < 0);
+
+        Sort byValueAscending = new Sort("Value", "Ascending");
+        assertTrue(byValueAscending.getComparator().compare(cheap, pricey) < 0);
+    }
+
+    @Test
+    public void testMultiKeyComparator() {
+        Item acmeCheap = new Item(new Date(), "a", "Acme", "", 1f, "", "", new ArrayList<>(), new ArrayList<>());
+        Item acmePricey = new Item(new Date(), "b", "Acme", "", 2f, "", "", new ArrayList<>(), new ArrayList<>());
+        Item zeta = new Item(new Date(), "c", "Zeta", "", 3f, "", "", new ArrayList<>(), new ArrayList<>());
+        Sort multi = new Sort(Arrays.asList(new SortKey("Make", "Ascending"), new SortKey("Value", "Descending")));
+        assertEquals("Make", multi.getSortType());
+        assertEquals(2, multi.getKeys().size());
+        assertTrue(multi.getComparator().compare(acmePricey, acmeCheap) < 0);
+        assertTrue(multi.getComparator().compare(acmeCheap, zeta) < 0);
+    }
+
+    @Test
+    public void testComparatorCachedPerConfiguration() {
+        Sort first = new Sort("Make", "Ascending");
+        first.addKey("Date", "Descending");
+        Sort second = new Sort("Make", "Ascending");
+        second.addKey("Date", "Descending");
+        assertSame(first.getComparator(), first.getComparator());
+        assertSame(first.getComparator(), second.getComparator());
+        second.setSortOrder("Descending");
+        assertNotSame(first.getComparator(), second.getComparator());
+    }
+
+    @Test
+    public void testDuplicateKeysIgnored() {
+        sort.addKey("Value", "Ascending");
+        sort.addKey("Value", "Descending");
+        sort.addKey("Description", "Descending");
+        assertEquals(2, sort.getKeys().size());
+        assertEquals("Ascending", sort.getKeys().get(1).getSortOrder());
+
+        sort.setSortType("Value");
+        assertEquals(1, sort.getKeys().size());
+    }
 }
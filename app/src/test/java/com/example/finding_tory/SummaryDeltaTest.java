@@ -0,0 +1,95 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+public class SummaryDeltaTest extends TestCase {
+    private Item lamp;
+    private Item desk;
+
+    @BeforeEach
+    public void setUp() {
+        lamp = new Item(new Date(), "Lamp", "Ikea", "", 24.99f, "", "", new ArrayList<>(Arrays.asList("Office", "Lighting")), new ArrayList<>());
+        desk = new Item(new Date(), "Desk", "Ikea", "", 199.99f, "", "", new ArrayList<>(Arrays.asList("Office")), new ArrayList<>());
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        SummaryDelta delta = new SummaryDelta();
+        delta.addAll(Arrays.asList(lamp, desk));
+        assertEquals(2, delta.getCountDelta());
+        assertEquals(224.98, delta.getValueDelta(), 1e-9);
+        assertEquals(Integer.valueOf(2), delta.getTagDeltas().get("Office"));
+
+        delta.remove(lamp);
+        assertEquals(1, delta.getCountDelta());
+        assertNull(delta.getTagDeltas().get("Lighting"));
+    }
+
+    @Test
+    public void testEditCancelsOut() {
+        SummaryDelta delta = new SummaryDelta();
+        delta.remove(lamp);
+        delta.add(lamp);
+        assertTrue(delta.isEmpty());
+
+        Item edited = new Item(new Date(), "Lamp", "Ikea", "", 30f, "", "", new ArrayList<>(Arrays.asList("Lighting")), new ArrayList<>());
+        delta.remove(lamp);
+        delta.add(edited);
+        assertEquals(0, delta.getCountDelta());
+        assertEquals(5.01, delta.getValueDelta(), 1e-9);
+        assertEquals(Integer.valueOf(-1), delta.getTagDeltas().get("Office"));
+        assertNull(delta.getTagDeltas().get("Lighting"));
+    }
+
+    @Test
+    public void testAddTagsCountsOnlyNewTags() {
+        SummaryDelta delta = new SummaryDelta();
+        delta.addTags(lamp, Arrays.asList("office", "Garden", "garden", ""));
+        delta.addTags(desk, Arrays.asList("Garden"));
+        assertEquals(0, delta.getCountDelta());
+        assertNull(delta.getTagDeltas().get("Office"));
+        assertEquals(Integer.valueOf(2), delta.getTagDeltas().get("Garden"));
+    }
+
+    @Test
+    public void testMerge() {
+        SummaryDelta added = new SummaryDelta();
+        added.add(lamp);
+        SummaryDelta removed = new SummaryDelta();
+        removed.remove(lamp);
+        removed.add(desk);
+        added.merge(removed);
+        assertEquals(1, added.getCountDelta());
+        assertEquals(199.99, added.getValueDelta(), 1e-9);
+        assertEquals(Integer.valueOf(1), added.getTagDeltas().get("Office"));
+        assertNull(added.getTagDeltas().get("Lighting"));
+    }
+
+    @Test
+    public void testMergeKeepsOperations() {
+        SummaryDelta first = SummaryDelta.of("op1", 1, 2499, Collections.singletonMap("Office", 1));
+        SummaryDelta second = SummaryDelta.of("op2", -1, -2499, Collections.singletonMap("Office", -1));
+        SummaryDelta merged = new SummaryDelta();
+        merged.merge(first);
+        merged.merge(second);
+        // the totals cancel out, but each operation is still known
+        assertTrue(merged.isEmpty());
+        assertEquals(Arrays.asList("op1", "op2"), new ArrayList<>(merged.getOperations().keySet()));
+
+        // an operation merged twice is counted once
+        merged.merge(first);
+        assertEquals(0, merged.getCountDelta());
+        merged.subtract(second);
+        assertEquals(1, merged.getCountDelta());
+        assertEquals(2499, merged.getValueCentsDelta());
+        assertTrue(SummaryDelta.of("op3", 0, 0, Collections.emptyMap()).getOperations().isEmpty());
+    }
+}
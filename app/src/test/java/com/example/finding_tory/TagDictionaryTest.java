@@ -0,0 +1,58 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class TagDictionaryTest extends TestCase {
+    private TagDictionary dictionary;
+
+    @BeforeEach
+    public void setUp() {
+        dictionary = new TagDictionary();
+    }
+
+    @Test
+    public void testIdsAreStableAndNormalized() {
+        int home = dictionary.idOf("home");
+        int office = dictionary.idOf("Office");
+        assertEquals(home, dictionary.idOf("HOME"));
+        assertEquals(office, dictionary.find("office"));
+        assertEquals(-1, dictionary.find("Garage"));
+        assertEquals(-1, dictionary.idOf(""));
+        assertEquals("Home", dictionary.get(home));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    public void testWordOperations() {
+        long[] words = new long[0];
+        words = TagDictionary.set(words, 3);
+        words = TagDictionary.set(words, 130);
+        assertEquals(3, words.length);
+        assertTrue(TagDictionary.get(words, 130));
+        assertFalse(TagDictionary.get(words, 4));
+        assertFalse(TagDictionary.get(words, 500));
+        assertFalse(TagDictionary.get(words, -1));
+
+        long[] low = TagDictionary.set(new long[0], 3);
+        long[] high = TagDictionary.set(new long[0], 200);
+        assertTrue(TagDictionary.intersects(words, low));
+        assertFalse(TagDictionary.intersects(words, high));
+        assertTrue(TagDictionary.containsAll(words, low));
+        assertFalse(TagDictionary.containsAll(low, words));
+        assertFalse(TagDictionary.containsAll(words, high));
+        assertTrue(TagDictionary.containsAll(low, new long[2]));
+    }
+
+    @Test
+    public void testToWords() {
+        long[] words = dictionary.toWords(Arrays.asList("Home", "office", "HOME"));
+        assertTrue(TagDictionary.get(words, dictionary.find("Home")));
+        assertTrue(TagDictionary.get(words, dictionary.find("Office")));
+        assertEquals(2, dictionary.size());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.finding_tory;
+
+import junit.framework.TestCase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class TagIndexTest extends TestCase {
+    private TagIndex tagIndex;
+
+    @BeforeEach
+    public void setUp() {
+        tagIndex = new TagIndex();
+    }
+
+    @Test
+    public void testAddAllAndRemoveAll() {
+        ArrayList<ArrayList<String>> tags = new ArrayList<>();
+        tags.add(new ArrayList<>(Arrays.asList("home", "Art")));
+        tags.add(new ArrayList<>(Arrays.asList("Home")));
+        tags.add(new ArrayList<>(Arrays.asList("School")));
+        tagIndex.addTag("Home", 5);
+        tagIndex.addAll(new int[]{2, 0, 1}, 3, tags::get);
+        assertEquals(new ArrayList<>(Arrays.asList("Art", "Home", "School")), tagIndex.getSortedTags());
+        assertEquals(3, tagIndex.getCount("Home"));
+
+        tagIndex.removeAll(new int[]{0, 2}, 2, tags::get);
+        assertEquals(new ArrayList<>(Arrays.asList("Home")), tagIndex.getSortedTags());
+        assertEquals(2, tagIndex.getCount("Home"));
+    }
+
+    @Test
+    public void testAddTagNormalizesAndSorts() {
+        tagIndex.addTag("school", 0);
+        tagIndex.addTag("HOME", 1);
+        tagIndex.addTag("Art", 2);
+        assertEquals(new ArrayList<>(Arrays.asList("Art", "Home", "School")), tagIndex.getSortedTags());
+    }
+
+    @Test
+    public void testCountsUses() {
+        tagIndex.addTags(Arrays.asList("Home", "School"), 0);
+        tagIndex.addTags(Arrays.asList("home"), 1);
+        assertEquals(2, tagIndex.getCount("Home"));
+        assertEquals(1, tagIndex.getCount("school"));
+        assertEquals(0, tagIndex.getCount("Office"));
+        assertEquals(2, tagIndex.size());
+    }
+
+    @Test
+    public void testRemoveKeepsTagStillInUse() {
+        tagIndex.addTag("Home", 0);
+        tagIndex.addTag("Home", 1);
+        tagIndex.removeTag("Home", 0);
+        assertTrue(tagIndex.contains("Home"));
+        assertEquals(1, tagIndex.getSortedTags().size());
+
+        tagIndex.removeTag("home", 1);
+        assertFalse(tagIndex.contains("Home"));
+        assertTrue(tagIndex.getSortedTags().isEmpty());
+    }
+
+    @Test
+    public void testRemoveUnknownTag() {
+        tagIndex.removeTag("Missing", 0);
+        assertEquals(0, tagIndex.size());
+    }
+
+    @Test
+    public void testNormalize() {
+        assertEquals("Home", TagIndex.normalize("hOME"));
+        assertSame("Home", TagIndex.normalize("Home"));
+        assertEquals("", TagIndex.normalize(""));
+        assertNull(TagIndex.normalize(null));
+    }
+
+    @Test
+    public void testClear() {
+        tagIndex.addTags(Arrays.asList("Home", "School"), 0);
+        tagIndex.clear();
+        assertEquals(0, tagIndex.size());
+        assertEquals(0, tagIndex.getCount("Home"));
+    }
+
+    @Test
+    public void testSameSlotCountedOnce() {
+        tagIndex.addTag("Home", 3);
+        tagIndex.addTag("home", 3);
+        assertEquals(1, tagIndex.getCount("Home"));
+    }
+
+    @Test
+    public void testFindAny() {
+        tagIndex.addTags(Arrays.asList("Home", "School"), 0);
+        tagIndex.addTags(Arrays.asList("School"), 2);
+        tagIndex.addTags(Arrays.asList("Work"), 5);
+
+        BitSet slots = tagIndex.findAny(Arrays.asList("school", "Work", "Missing"));
+        assertEquals(3, slots.cardinality());
+        assertTrue(slots.get(0));
+        assertTrue(slots.get(2));
+        assertTrue(slots.get(5));
+        assertTrue(tagIndex.findAny(Arrays.asList("Missing")).isEmpty());
+    }
+
+    @Test
+    public void testGetPostings() {
+        tagIndex.addTag("Home", 4);
+        tagIndex.addTag("Home", 1);
+        PostingList postings = tagIndex.getPostings("home");
+        assertEquals(2, postings.size());
+        assertEquals(1, postings.get(0));
+        assertEquals(4, postings.get(1));
+        assertNull(tagIndex.getPostings("Work"));
+    }
+}